@@ -0,0 +1,51 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans blocks for delimiters with the incubating Vector API, comparing as
+ * many bytes per instruction as the hardware allows, up to the 64 of one
+ * block. Wider vectors, such as SVE beyond 512 bits, would read past the
+ * block and give masks too long for a long, so they are not used.
+ *
+ * Build and run with --add-modules jdk.incubator.vector. DelimiterScanner
+ * loads this class by name only when that module is present.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class VectorDelimiterScanner implements DelimiterScanner {
+
+    /**
+     * Widest byte vector the hardware supports whose length is a power of
+     * two no longer than a block, so whole vectors tile the block
+     */
+    private static final VectorSpecies<Byte> SPECIES = VectorSpecies.of(byte.class,
+        VectorShape.forBitSize(8 * Integer.highestOneBit(
+            Math.min(ByteVector.SPECIES_PREFERRED.length(), BLOCK_SIZE))));
+
+    /**
+     * Returns the mask of delimiter bytes in data[pos] to data[pos + 63]
+     *
+     * @param data the bytes to scan, with at least BLOCK_SIZE bytes from pos
+     * @param pos the index of the first byte of the block
+     * @return a mask with bit i set if data[pos + i] is a comma, '\n', '\r'
+     *         or a byte outside ASCII
+     */
+    @Override
+    public long scanBlock(byte[] data, int pos) {
+        long mask = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += SPECIES.length()) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, data, pos + i);
+            VectorMask<Byte> found = bytes.eq((byte) ',')
+                                          .or(bytes.eq((byte) '\n'))
+                                          .or(bytes.eq((byte) '\r'))
+                                          .or(bytes.compare(VectorOperators.LT, (byte) 0));
+            mask |= found.toLong() << i;
+        }
+        return mask;
+    }
+}
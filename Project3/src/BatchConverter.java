@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Converts every US_ and OT_ file in a directory, or every file matching a
+ * glob, in one JVM. Each file gets its own task, on a virtual thread when
+ * the JVM has them, and a semaphore caps how many files are open at once.
+ *
+ * The same name rules as DataConverter.main apply. Instead of asking about
+ * each existing output file, existing outputs are skipped and counted as
+ * failed unless overwriting was requested.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class BatchConverter {
+
+    /**
+     * Usage message for batch mode
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter batch [--overwrite] [--max-open=N] [--out-dir=DIR] " +
+        "dir-or-glob";
+
+    /**
+     * Default number of files that may be open at once
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    /**
+     * True to replace existing output files
+     */
+    private final boolean overwrite;
+
+    /**
+     * Directory the output files are written to
+     */
+    private final Path outputDirectory;
+
+    /**
+     * Limits the number of files open at once
+     */
+    private final Semaphore openFiles;
+
+    /**
+     * Number of files converted successfully
+     */
+    private final AtomicInteger converted = new AtomicInteger();
+
+    /**
+     * Number of files that could not be converted
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Number of input bytes read
+     */
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    /**
+     * Nanoseconds the last call to convertAll took
+     */
+    private long elapsedNanos;
+
+    /**
+     * Creates a batch converter
+     *
+     * @param overwrite true to replace existing output files
+     * @param maxOpenFiles the number of files that may be converted at once
+     * @param outputDirectory the directory to write output files to
+     * @throws IllegalArgumentException if maxOpenFiles is not positive or
+     *                                  outputDirectory is null
+     */
+    public BatchConverter(boolean overwrite, int maxOpenFiles, Path outputDirectory) {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("Invalid open file limit");
+        }
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("Null output directory");
+        }
+        this.overwrite = overwrite;
+        this.outputDirectory = outputDirectory;
+        this.openFiles = new Semaphore(maxOpenFiles);
+    }
+
+    /**
+     * Runs batch mode from the command line
+     *
+     * @param args the arguments after "batch"
+     */
+    public static void main(String[] args) {
+        boolean overwrite = false;
+        int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+        Path outputDirectory = Path.of(".");
+        String source = null;
+        try {
+            for (String arg : args) {
+                if (arg.equals("--overwrite")) {
+                    overwrite = true;
+                } else if (arg.startsWith("--max-open=")) {
+                    try {
+                        maxOpenFiles = Integer.parseInt(arg.substring("--max-open=".length()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid value: " + arg);
+                    }
+                } else if (arg.startsWith("--out-dir=")) {
+                    outputDirectory = Path.of(arg.substring("--out-dir=".length()));
+                } else if (arg.startsWith("--") || source != null) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    source = arg;
+                }
+            }
+            if (source == null) {
+                throw new IllegalArgumentException("Missing directory or glob");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        List<Path> files;
+        try {
+            files = findInputFiles(source);
+        } catch (IOException e) {
+            System.out.println("Unable to list input files: " + source);
+            return;
+        }
+        BatchConverter batch;
+        try {
+            batch = new BatchConverter(overwrite, maxOpenFiles, outputDirectory);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        batch.convertAll(files);
+        System.out.println(batch.getSummary());
+    }
+
+    /**
+     * Finds the files to convert. A directory gives every file in it; any
+     * other path is a glob, such as data/US_*.csv, matched against the names
+     * in its parent directory. Only names that pass DataConverter's
+     * extension and prefix rules are returned.
+     *
+     * @param source a directory or a glob
+     * @return the files to convert, sorted by name
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> findInputFiles(String source) throws IOException {
+        Path path = Path.of(source);
+        Path directory;
+        PathMatcher matcher;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            matcher = name -> true;
+        } else {
+            directory = path.getParent() == null ? Path.of(".") : path.getParent();
+            matcher = directory.getFileSystem()
+                               .getPathMatcher("glob:" + path.getFileName().toString());
+        }
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Path name = entry.getFileName();
+                if (Files.isRegularFile(entry) && matcher.matches(name)
+                    && DataConverter.checkInputFileName(name.toString()) == null) {
+                    files.add(entry);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Converts every file and waits for all of them to finish. Failures are
+     * reported on standard output as they happen.
+     *
+     * @param files the files to convert
+     */
+    public void convertAll(List<Path> files) {
+        long start = System.nanoTime();
+        Set<Path> inputs = new HashSet<Path>();
+        for (Path file : files) {
+            inputs.add(file.toAbsolutePath().normalize());
+        }
+        ExecutorService executor = newExecutor(openFiles.availablePermits());
+        for (Path file : files) {
+            executor.execute(() -> convertOne(file, inputs));
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keep waiting; large batches can take a while
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the number of files converted successfully
+     *
+     * @return the number of files converted
+     */
+    public int getConverted() {
+        return converted.get();
+    }
+
+    /**
+     * Returns the number of files that could not be converted
+     *
+     * @return the number of files that failed
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of input bytes read
+     *
+     * @return the number of input bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Returns a one-line summary of the last batch
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return String.format("Files converted: %d, files failed: %d, %.0f bytes/s",
+                             getConverted(), getFailed(), getBytesRead() / seconds);
+    }
+
+    /**
+     * Converts one file, counting and reporting the outcome. A file whose
+     * output would replace another file of the batch, such as US_x.csv
+     * beside OT_x.csv with no output directory, is not converted, since the
+     * other file may be being read at the same time.
+     *
+     * @param inPath the file to convert
+     * @param inputs every file of the batch, as absolute normalized paths
+     */
+    private void convertOne(Path inPath, Set<Path> inputs) {
+        String inputFileName = inPath.getFileName().toString();
+        Path outPath = outputDirectory.resolve(DataConverter.outputFileName(inputFileName));
+        if (inputs.contains(outPath.toAbsolutePath().normalize())) {
+            fail(inPath, outPath + " is an input of this batch");
+            return;
+        }
+        if (!overwrite && Files.exists(outPath)) {
+            fail(inPath, outPath + " exists");
+            return;
+        }
+        try {
+            openFiles.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try (OutputStream output = DataConverter.openOutput(outPath,
+                 DataConverter.isGzipFileName(inputFileName))) {
+            ConverterOptions options = new ConverterOptions();
+            ConversionResult result = DataConverter.convertFile(options,
+                DataConverter.isUSFileName(inputFileName), inPath, output);
+            bytesRead.addAndGet(Files.size(inPath));
+            if (result.isSuccess()) {
+                converted.incrementAndGet();
+            } else {
+                fail(inPath, "Invalid input file format (line " + result.getInvalidLine() + ")");
+            }
+        } catch (IOException e) {
+            fail(inPath, "Error converting file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            fail(inPath, "Error converting file: " + e);
+        } finally {
+            openFiles.release();
+        }
+    }
+
+    /**
+     * Counts and reports a file that could not be converted
+     *
+     * @param inPath the file
+     * @param reason why it could not be converted
+     */
+    private void fail(Path inPath, String reason) {
+        failed.incrementAndGet();
+        synchronized (System.out) {
+            System.out.println(inPath + ": " + reason);
+        }
+    }
+
+    /**
+     * Returns an executor that runs each task on its own virtual thread when
+     * the JVM supports them (Java 21 and later), or a fixed pool otherwise.
+     * Callers bound their concurrency with a semaphore, which holds either way.
+     *
+     * @param threads the pool size to use without virtual threads
+     * @return the executor
+     */
+    static ExecutorService newExecutor(int threads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.OutputStream;
+
+/**
+ * Writes records as compact binary rows for bulk loaders. Each row is
+ *
+ *     last name     varint length, then UTF-8 bytes
+ *     first name    varint length, then UTF-8 bytes
+ *     birth date    varint length, then UTF-8 bytes in the chosen format
+ *     height        8-byte IEEE double
+ *     weight        8-byte IEEE double
+ *     temperature   8-byte IEEE double
+ *
+ * Lengths are unsigned LEB128 varints, one byte for anything under 128,
+ * and doubles are big-endian like DataOutputStream writes them. The
+ * measurements are in the chosen units and are not rounded, so a loader
+ * gets the full converted value.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class BinaryRowSink extends BufferedRecordSink {
+
+    /**
+     * True for the US date format and units, false for the other format
+     */
+    private final boolean usFormat;
+
+    /**
+     * Holds the birth date while its length is found
+     */
+    private final OutputBuffer date = new OutputBuffer(32);
+
+    /**
+     * Creates a binary row sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @throws IllegalArgumentException if output is null
+     */
+    public BinaryRowSink(OutputStream output, boolean usFormat) {
+        super(output);
+        this.usFormat = usFormat;
+    }
+
+    /**
+     * Appends a record as a binary row
+     *
+     * @param record the record
+     */
+    @Override
+    protected void append(PersonRecord record) {
+        appendText(record.getData(), record.getFieldStart(LineConverter.LAST_NAME),
+                   record.getFieldEnd(LineConverter.LAST_NAME));
+        appendText(record.getData(), record.getFieldStart(LineConverter.FIRST_NAME),
+                   record.getFieldEnd(LineConverter.FIRST_NAME));
+        date.reset();
+        record.appendBirthDate(usFormat, date);
+        appendText(date.array(), 0, date.length());
+        appendDouble(record.getHeight(usFormat));
+        appendDouble(record.getWeight(usFormat));
+        appendDouble(record.getTemperature(usFormat));
+    }
+
+    /**
+     * Appends text preceded by its length
+     *
+     * @param data the bytes holding the text
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     */
+    private void appendText(byte[] data, int start, int end) {
+        buffer.appendVarint(end - start);
+        buffer.append(data, start, end);
+    }
+
+    /**
+     * Appends a double as eight big-endian bytes
+     *
+     * @param value the number
+     */
+    private void appendDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer.append((byte) (bits >>> shift));
+        }
+    }
+}
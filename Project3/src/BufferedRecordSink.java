@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Base for sinks that build records in their own OutputBuffer and write
+ * it to their stream in large blocks.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public abstract class BufferedRecordSink implements RecordSink {
+
+    /**
+     * Number of buffered bytes at which the buffer is written out
+     */
+    public static final int BUFFER_SIZE = 256 << 10;
+
+    /**
+     * Buffer each record is appended to
+     */
+    protected final OutputBuffer buffer = new OutputBuffer(BUFFER_SIZE + BUFFER_SIZE / 4);
+
+    /**
+     * Stream the buffer is written to
+     */
+    private final OutputStream output;
+
+    /**
+     * Number of bytes written to the stream so far
+     */
+    private long written;
+
+    /**
+     * Creates a sink writing to a stream
+     *
+     * @param output the stream, closed when the sink is closed
+     * @throws IllegalArgumentException if output is null
+     */
+    protected BufferedRecordSink(OutputStream output) {
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        this.output = output;
+    }
+
+    /**
+     * Appends a record to the buffer and writes the buffer out once it is full
+     *
+     * @param record the record
+     * @throws IOException if the buffer cannot be written
+     */
+    @Override
+    public void write(PersonRecord record) throws IOException {
+        append(record);
+        if (buffer.length() >= BUFFER_SIZE) {
+            written += buffer.length();
+            buffer.writeTo(output);
+        }
+    }
+
+    /**
+     * Writes the rest of the buffer and closes the stream
+     *
+     * @throws IOException if the buffer cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            written += buffer.length();
+            buffer.writeTo(output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Returns the offset in the stream of the next record appended
+     *
+     * @return the number of bytes written and buffered so far
+     */
+    protected long getPosition() {
+        return written + buffer.length();
+    }
+
+    /**
+     * Appends a record to the buffer in the sink's format
+     *
+     * @param record the record
+     */
+    protected abstract void append(PersonRecord record);
+}
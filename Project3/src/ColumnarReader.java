@@ -0,0 +1,454 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads a file written by ColumnarSink. A scan of one column reads only
+ * that column's chunk from each row group and skips the others, so
+ * summing the weights, say, reads about a sixth of the file.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ColumnarReader implements Closeable {
+
+    /**
+     * Epoch day given for a birth date that is not a real date written in full
+     */
+    public static final int NOT_A_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Number of bytes before the first row group: the magic number and format byte
+     */
+    private static final int FILE_HEADER_SIZE = 5;
+
+    /**
+     * Number of bytes in a row group header: the row count and chunk lengths
+     */
+    private static final int GROUP_HEADER_SIZE = 4 + ColumnarSink.COLUMN_COUNT * 4;
+
+    /**
+     * The open file
+     */
+    private final FileChannel channel;
+
+    /**
+     * True if the text is in the US format and units
+     */
+    private final boolean usFormat;
+
+    /**
+     * One column chunk of a row group, decoded
+     */
+    private static class Chunk {
+
+        /**
+         * Name dictionary or exception list, each entry as its bytes
+         */
+        private byte[][] strings;
+
+        /**
+         * Each row's dictionary code or int value
+         */
+        private int[] values;
+    }
+
+    /**
+     * Opens a columnar file
+     *
+     * @param path the file
+     * @throws IOException if the file cannot be read or is not a columnar file
+     * @throws IllegalArgumentException if path is null
+     */
+    public ColumnarReader(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Null path");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, FILE_HEADER_SIZE);
+            if (header.getInt() != ColumnarSink.MAGIC) {
+                throw new IOException("Not a columnar file");
+            }
+            usFormat = header.get() != 0;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the text is in the US format and units
+     *
+     * @return true if the text is in the US format and units
+     */
+    public boolean isUSFormat() {
+        return usFormat;
+    }
+
+    /**
+     * Gives the text of one field of every row, in row order
+     *
+     * @param field the index of the field, such as LineConverter.LAST_NAME
+     * @param action called with each row's text
+     * @throws IOException if the file cannot be read or is damaged
+     * @throws IllegalArgumentException if field is not a field index or action is null
+     */
+    public void scanText(int field, Consumer<String> action) throws IOException {
+        checkField(field);
+        if (action == null) {
+            throw new IllegalArgumentException("Null action");
+        }
+        OutputBuffer text = new OutputBuffer(64);
+        long position = FILE_HEADER_SIZE;
+        while (position < channel.size()) {
+            ByteBuffer header = read(position, GROUP_HEADER_SIZE);
+            int rows = header.getInt();
+            Chunk chunk = readChunk(position, header, field, rows);
+            for (int row = 0; row < rows; row++) {
+                text.reset();
+                appendValue(field, chunk, row, text);
+                action.accept(text.toString());
+            }
+            position = nextGroup(position, header);
+        }
+    }
+
+    /**
+     * Gives one measurement of every row, in row order. A measurement
+     * stored as text, such as NaN, is parsed; one that cannot be is NaN.
+     *
+     * @param field LineConverter.HEIGHT, WEIGHT or TEMPERATURE
+     * @param action called with each row's measurement
+     * @throws IOException if the file cannot be read or is damaged
+     * @throws IllegalArgumentException if field is not a measurement or action is null
+     */
+    public void scanMeasurement(int field, DoubleConsumer action) throws IOException {
+        if (field < LineConverter.HEIGHT || field >= ColumnarSink.COLUMN_COUNT) {
+            throw new IllegalArgumentException("Not a measurement field");
+        }
+        if (action == null) {
+            throw new IllegalArgumentException("Null action");
+        }
+        long position = FILE_HEADER_SIZE;
+        while (position < channel.size()) {
+            ByteBuffer header = read(position, GROUP_HEADER_SIZE);
+            int rows = header.getInt();
+            Chunk chunk = readChunk(position, header, field, rows);
+            for (int row = 0; row < rows; row++) {
+                int value = chunk.values[row];
+                if (value >= ColumnarSink.EXCEPTION_LIMIT) {
+                    action.accept(value / 100.0);
+                } else {
+                    action.accept(parseException(chunk, value));
+                }
+            }
+            position = nextGroup(position, header);
+        }
+    }
+
+    /**
+     * Gives the birth date of every row as days since 1970-01-01, in row order
+     *
+     * @param action called with each row's epoch day, or NOT_A_DATE if the
+     *               birth date is not a real date written in full
+     * @throws IOException if the file cannot be read or is damaged
+     * @throws IllegalArgumentException if action is null
+     */
+    public void scanEpochDays(IntConsumer action) throws IOException {
+        if (action == null) {
+            throw new IllegalArgumentException("Null action");
+        }
+        long position = FILE_HEADER_SIZE;
+        while (position < channel.size()) {
+            ByteBuffer header = read(position, GROUP_HEADER_SIZE);
+            int rows = header.getInt();
+            Chunk chunk = readChunk(position, header, LineConverter.BIRTH_DATE, rows);
+            for (int row = 0; row < rows; row++) {
+                int value = chunk.values[row];
+                action.accept(value >= ColumnarSink.EXCEPTION_LIMIT ? value : NOT_A_DATE);
+            }
+            position = nextGroup(position, header);
+        }
+    }
+
+    /**
+     * Writes every row as a CSV line, exactly as CsvSink wrote the records
+     *
+     * @param out the stream to write to, left open
+     * @throws IOException if the file cannot be read or is damaged, or out cannot be written
+     * @throws IllegalArgumentException if out is null
+     */
+    public void writeCsv(OutputStream out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        OutputBuffer buffer = new OutputBuffer(BufferedRecordSink.BUFFER_SIZE);
+        Chunk[] chunks = new Chunk[ColumnarSink.COLUMN_COUNT];
+        long position = FILE_HEADER_SIZE;
+        while (position < channel.size()) {
+            ByteBuffer header = read(position, GROUP_HEADER_SIZE);
+            int rows = header.getInt();
+            for (int field = 0; field < chunks.length; field++) {
+                chunks[field] = readChunk(position, header, field, rows);
+            }
+            for (int row = 0; row < rows; row++) {
+                for (int field = 0; field < chunks.length; field++) {
+                    if (field > 0) {
+                        buffer.append(',');
+                    }
+                    appendValue(field, chunks[field], row, buffer);
+                }
+                buffer.append('\n');
+                if (buffer.length() >= BufferedRecordSink.BUFFER_SIZE) {
+                    buffer.writeTo(out);
+                }
+            }
+            position = nextGroup(position, header);
+        }
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Closes the file
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Throws if a field index is out of range
+     *
+     * @param field the index
+     */
+    private static void checkField(int field) {
+        if (field < 0 || field >= ColumnarSink.COLUMN_COUNT) {
+            throw new IllegalArgumentException("Invalid field");
+        }
+    }
+
+    /**
+     * Returns the position of the row group after one
+     *
+     * @param position the position of the row group
+     * @param header the row group's header
+     * @return the position of the next row group
+     */
+    private static long nextGroup(long position, ByteBuffer header) {
+        long next = position + GROUP_HEADER_SIZE;
+        for (int field = 0; field < ColumnarSink.COLUMN_COUNT; field++) {
+            next += header.getInt(4 + field * 4);
+        }
+        return next;
+    }
+
+    /**
+     * Reads and decodes one column chunk of a row group
+     *
+     * @param position the position of the row group
+     * @param header the row group's header
+     * @param field the column
+     * @param rows the number of rows in the group
+     * @return the chunk
+     * @throws IOException if the chunk cannot be read or is damaged
+     */
+    private Chunk readChunk(long position, ByteBuffer header, int field, int rows)
+        throws IOException {
+        long start = position + GROUP_HEADER_SIZE;
+        for (int i = 0; i < field; i++) {
+            start += header.getInt(4 + i * 4);
+        }
+        ByteBuffer data = read(start, header.getInt(4 + field * 4));
+        Chunk chunk = new Chunk();
+        chunk.values = new int[rows];
+        try {
+            chunk.strings = new byte[readVarint(data)][];
+            for (int i = 0; i < chunk.strings.length; i++) {
+                chunk.strings[i] = new byte[readVarint(data)];
+                data.get(chunk.strings[i]);
+            }
+            if (field <= LineConverter.FIRST_NAME) {
+                int width = data.get();
+                for (int row = 0; row < rows; row++) {
+                    int code = 0;
+                    for (int i = 0; i < width; i++) {
+                        code = code << 8 | (data.get() & 0xff);
+                    }
+                    chunk.values[row] = code;
+                }
+            } else {
+                for (int row = 0; row < rows; row++) {
+                    chunk.values[row] = data.getInt();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Underflow, or a length or count that makes no sense
+            throw new IOException("Damaged columnar file", e);
+        }
+        return chunk;
+    }
+
+    /**
+     * Appends one row's value of a column as CsvSink writes it
+     *
+     * @param field the column
+     * @param chunk the column's chunk
+     * @param row the row
+     * @param out the buffer to append to
+     * @throws IOException if the chunk refers to a missing entry
+     */
+    private void appendValue(int field, Chunk chunk, int row, OutputBuffer out)
+        throws IOException {
+        int value = chunk.values[row];
+        byte[] bytes;
+        if (field <= LineConverter.FIRST_NAME) {
+            bytes = entry(chunk, value);
+        } else if (value < ColumnarSink.EXCEPTION_LIMIT) {
+            bytes = entry(chunk, value - ColumnarSink.EXCEPTION_BASE);
+        } else if (field == LineConverter.BIRTH_DATE) {
+            appendDate(value, out);
+            return;
+        } else {
+            appendHundredths(value, out);
+            return;
+        }
+        out.append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns a dictionary or exception entry
+     *
+     * @param chunk the chunk
+     * @param index the entry's index
+     * @return the entry's bytes
+     * @throws IOException if there is no such entry
+     */
+    private static byte[] entry(Chunk chunk, int index) throws IOException {
+        if (index < 0 || index >= chunk.strings.length) {
+            throw new IOException("Damaged columnar file");
+        }
+        return chunk.strings[index];
+    }
+
+    /**
+     * Parses a measurement stored as text
+     *
+     * @param chunk the chunk
+     * @param value the row's int
+     * @return the measurement, or NaN if the text is not a number
+     * @throws IOException if there is no such entry
+     */
+    private static double parseException(Chunk chunk, int value) throws IOException {
+        String text = new String(entry(chunk, value - ColumnarSink.EXCEPTION_BASE),
+                                 StandardCharsets.UTF_8);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Appends a date in full, mm/dd/yyyy or dd.mm.yyyy
+     *
+     * @param epochDay the days since 1970-01-01
+     * @param out the buffer to append to
+     */
+    private void appendDate(int epochDay, OutputBuffer out) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        if (usFormat) {
+            appendPadded(date.getMonthValue(), 2, out);
+            out.append('/');
+            appendPadded(date.getDayOfMonth(), 2, out);
+            out.append('/');
+        } else {
+            appendPadded(date.getDayOfMonth(), 2, out);
+            out.append('.');
+            appendPadded(date.getMonthValue(), 2, out);
+            out.append('.');
+        }
+        appendPadded(date.getYear(), 4, out);
+    }
+
+    /**
+     * Appends hundredths as a number with two decimal places
+     *
+     * @param hundredths the number of hundredths
+     * @param out the buffer to append to
+     */
+    private static void appendHundredths(int hundredths, OutputBuffer out) {
+        if (hundredths < 0) {
+            out.append('-');
+            hundredths = -hundredths;
+        }
+        out.appendUtf8(Integer.toString(hundredths / 100));
+        out.append('.');
+        appendPadded(hundredths % 100, 2, out);
+    }
+
+    /**
+     * Appends a non-negative number with leading zeros
+     *
+     * @param value the number
+     * @param digits the number of digits to write
+     * @param out the buffer to append to
+     */
+    private static void appendPadded(int value, int digits, OutputBuffer out) {
+        for (int divisor = (int) Math.pow(10, digits - 1); divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint
+     *
+     * @param data the buffer to read from
+     * @return the number
+     */
+    private static int readVarint(ByteBuffer data) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = data.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint too long");
+    }
+
+    /**
+     * Reads bytes from the file
+     *
+     * @param position the position of the first byte
+     * @param length the number of bytes
+     * @return a buffer holding the bytes, ready to read
+     * @throws IOException if the file cannot be read or ends too soon
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        if (length < 0 || position + length > channel.size()) {
+            throw new IOException("Damaged columnar file");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Damaged columnar file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
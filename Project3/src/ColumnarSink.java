@@ -0,0 +1,495 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records in a columnar binary format that ColumnarReader can scan
+ * one column at a time. Records are gathered into row groups; each group
+ * stores the six fields as six separate column chunks, preceded by the
+ * chunk lengths so a reader can skip the columns it does not want.
+ *
+ * The file starts with the int MAGIC and a byte that is 1 if the text is
+ * in the US format. Each row group is the row count and the byte length of
+ * each of the six chunks as big-endian ints, then the chunks:
+ *
+ *     names         varint dictionary size, each entry as a varint length
+ *                   and its bytes, a byte giving the code width (1, 2 or
+ *                   4), then one big-endian code per row
+ *     birth date    exception list, then one int per row: days since
+ *                   1970-01-01
+ *     measurements  exception list, then one int per row: hundredths
+ *
+ * An exception list is a varint count and that many varint-length byte
+ * strings. A value that would not come back as exactly the same text,
+ * such as a date like 1.4.1991, a measurement of NaN or -0.00, or one too
+ * large, is stored as text in the list and its int is EXCEPTION_BASE plus
+ * its index. Ints below EXCEPTION_LIMIT are never used for values. Reading
+ * the file back therefore gives exactly the bytes CsvSink writes for the
+ * same records. Dictionaries and exception lists start afresh in each row
+ * group, so a reader never needs more than one group in memory.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ColumnarSink implements RecordSink {
+
+    /**
+     * First bytes of a columnar file, "DCC1"
+     */
+    public static final int MAGIC = 0x44434331;
+
+    /**
+     * Default number of rows in a row group
+     */
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 << 10;
+
+    /**
+     * Value added to an exception's index to give its int
+     */
+    public static final int EXCEPTION_BASE = Integer.MIN_VALUE;
+
+    /**
+     * Smallest int that holds a value rather than an exception
+     */
+    public static final int EXCEPTION_LIMIT = -(1 << 30);
+
+    /**
+     * Largest number of rows in a row group, so exception indexes stay
+     * below EXCEPTION_LIMIT
+     */
+    public static final int MAX_ROW_GROUP_SIZE = 1 << 24;
+
+    /**
+     * Number of columns, one per field
+     */
+    static final int COLUMN_COUNT = LineConverter.FIELD_COUNT;
+
+    /**
+     * Stream the file is written to
+     */
+    private final OutputStream output;
+
+    /**
+     * True if the text is in the US format and units
+     */
+    private final boolean usFormat;
+
+    /**
+     * Number of rows in a full row group
+     */
+    private final int rowGroupSize;
+
+    /**
+     * Dictionary code of each row's last name
+     */
+    private final NameColumn lastNames;
+
+    /**
+     * Dictionary code of each row's first name
+     */
+    private final NameColumn firstNames;
+
+    /**
+     * Epoch day of each row's birth date
+     */
+    private final IntColumn birthDates;
+
+    /**
+     * Height of each row in hundredths
+     */
+    private final IntColumn heights;
+
+    /**
+     * Weight of each row in hundredths
+     */
+    private final IntColumn weights;
+
+    /**
+     * Temperature of each row in hundredths
+     */
+    private final IntColumn temperatures;
+
+    /**
+     * Number of rows in the current row group
+     */
+    private int rows;
+
+    /**
+     * Holds each field's text while it is encoded
+     */
+    private final OutputBuffer text = new OutputBuffer(64);
+
+    /**
+     * Holds a row group, or the file header, until it is written
+     */
+    private final OutputBuffer group = new OutputBuffer(1 << 20);
+
+    /**
+     * Holds one column chunk while its length is found
+     */
+    private final OutputBuffer chunk = new OutputBuffer(1 << 18);
+
+    /**
+     * A column of names, dictionary-encoded within each row group
+     */
+    private static class NameColumn {
+
+        /**
+         * Code of each name seen in the row group, keyed by its bytes
+         * one char each so that any bytes come back unchanged
+         */
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+
+        /**
+         * Names in code order
+         */
+        private final List<String> names = new ArrayList<String>();
+
+        /**
+         * Code of each row's name
+         */
+        private final int[] rowCodes;
+
+        /**
+         * Creates an empty column
+         *
+         * @param rowGroupSize the number of rows in a full row group
+         */
+        private NameColumn(int rowGroupSize) {
+            rowCodes = new int[rowGroupSize];
+        }
+    }
+
+    /**
+     * A column of ints with exceptions kept as text
+     */
+    private static class IntColumn {
+
+        /**
+         * Each row's value
+         */
+        private final int[] values;
+
+        /**
+         * Text of the values that cannot be encoded
+         */
+        private final List<String> exceptions = new ArrayList<String>();
+
+        /**
+         * Creates an empty column
+         *
+         * @param rowGroupSize the number of rows in a full row group
+         */
+        private IntColumn(int rowGroupSize) {
+            values = new int[rowGroupSize];
+        }
+    }
+
+    /**
+     * Creates a columnar sink with the default row group size
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @throws IllegalArgumentException if output is null
+     */
+    public ColumnarSink(OutputStream output, boolean usFormat) {
+        this(output, usFormat, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Creates a columnar sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @param rowGroupSize the number of rows in each row group
+     * @throws IllegalArgumentException if output is null or rowGroupSize is
+     *         not positive or above MAX_ROW_GROUP_SIZE
+     */
+    public ColumnarSink(OutputStream output, boolean usFormat, int rowGroupSize) {
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        if (rowGroupSize <= 0 || rowGroupSize > MAX_ROW_GROUP_SIZE) {
+            throw new IllegalArgumentException("Invalid row group size");
+        }
+        this.output = output;
+        this.usFormat = usFormat;
+        this.rowGroupSize = rowGroupSize;
+        lastNames = new NameColumn(rowGroupSize);
+        firstNames = new NameColumn(rowGroupSize);
+        birthDates = new IntColumn(rowGroupSize);
+        heights = new IntColumn(rowGroupSize);
+        weights = new IntColumn(rowGroupSize);
+        temperatures = new IntColumn(rowGroupSize);
+        group.appendInt(MAGIC);
+        group.append((byte) (usFormat ? 1 : 0));
+    }
+
+    /**
+     * Adds a record to the current row group, writing the group once it is full
+     *
+     * @param record the record
+     * @throws IOException if a full row group cannot be written
+     */
+    @Override
+    public void write(PersonRecord record) throws IOException {
+        addName(lastNames, record, LineConverter.LAST_NAME);
+        addName(firstNames, record, LineConverter.FIRST_NAME);
+        text.reset();
+        record.appendBirthDate(usFormat, text);
+        birthDates.values[rows] = encodeDate(text.array(), text.length(), usFormat);
+        addException(birthDates);
+        addMeasurement(heights, record.getHeight(usFormat));
+        addMeasurement(weights, record.getWeight(usFormat));
+        addMeasurement(temperatures, record.getTemperature(usFormat));
+        rows++;
+        if (rows == rowGroupSize) {
+            writeGroup();
+        }
+    }
+
+    /**
+     * Writes the last row group and closes the stream
+     *
+     * @throws IOException if the row group cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                writeGroup();
+            }
+            group.writeTo(output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Returns the number of days since 1970-01-01 of a date written in
+     * full, mm/dd/yyyy in the US format or dd.mm.yyyy in the other
+     *
+     * @param data the bytes holding the date
+     * @param length the number of bytes in the date
+     * @param usFormat true for the US format
+     * @return the epoch day, or EXCEPTION_BASE if the text is not a real
+     *         date written that way
+     */
+    static int encodeDate(byte[] data, int length, boolean usFormat) {
+        byte separator = usFormat ? (byte) '/' : (byte) '.';
+        if (length != 10 || data[2] != separator || data[5] != separator) {
+            return EXCEPTION_BASE;
+        }
+        int first = digits(data, 0, 2);
+        int second = digits(data, 3, 5);
+        int year = digits(data, 6, 10);
+        if (first < 0 || second < 0 || year < 0) {
+            return EXCEPTION_BASE;
+        }
+        try {
+            LocalDate date = usFormat ? LocalDate.of(year, first, second)
+                                      : LocalDate.of(year, second, first);
+            return (int) date.toEpochDay();
+        } catch (DateTimeException e) {
+            return EXCEPTION_BASE;
+        }
+    }
+
+    /**
+     * Returns the number of hundredths in a number written with exactly two
+     * decimal places, an optional '-' and no extra leading zeros, as
+     * TwoDecimalFormatter writes numbers in a locale with ASCII digits
+     *
+     * @param data the bytes holding the number
+     * @param length the number of bytes in the number
+     * @return the hundredths, or EXCEPTION_BASE if the text is not written
+     *         that way, is negative zero, or is not above EXCEPTION_LIMIT
+     */
+    static int encodeHundredths(byte[] data, int length) {
+        int start = length > 0 && data[0] == '-' ? 1 : 0;
+        int dot = length - 3;
+        if (dot <= start || data[dot] != '.' || (data[start] == '0' && dot > start + 1)) {
+            return EXCEPTION_BASE;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            if (i == dot) {
+                continue;
+            }
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return EXCEPTION_BASE;
+            }
+            value = value * 10 + digit;
+            if (value >= -(long) EXCEPTION_LIMIT) {
+                return EXCEPTION_BASE;
+            }
+        }
+        if (start == 1) {
+            // -0.00 would come back without its sign
+            return value == 0 ? EXCEPTION_BASE : (int) -value;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a run of decimal digits
+     *
+     * @param data the bytes holding the digits
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the number, or -1 if a byte is not a digit
+     */
+    private static int digits(byte[] data, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Adds a row's name to a name column
+     *
+     * @param column the column
+     * @param record the record
+     * @param field the index of the name field
+     */
+    private void addName(NameColumn column, PersonRecord record, int field) {
+        String name = new String(record.getData(), record.getFieldStart(field),
+                                 record.getFieldEnd(field) - record.getFieldStart(field),
+                                 StandardCharsets.ISO_8859_1);
+        Integer code = column.codes.get(name);
+        if (code == null) {
+            code = column.names.size();
+            column.codes.put(name, code);
+            column.names.add(name);
+        }
+        column.rowCodes[rows] = code;
+    }
+
+    /**
+     * Adds a row's measurement to a column
+     *
+     * @param column the column
+     * @param value the measurement
+     */
+    private void addMeasurement(IntColumn column, double value) {
+        text.reset();
+        TwoDecimalFormatter.append(value, text);
+        column.values[rows] = encodeHundredths(text.array(), text.length());
+        addException(column);
+    }
+
+    /**
+     * Keeps the text of the value just encoded as an exception if it
+     * could not be encoded
+     *
+     * @param column the column the value was added to
+     */
+    private void addException(IntColumn column) {
+        if (column.values[rows] == EXCEPTION_BASE) {
+            column.values[rows] = EXCEPTION_BASE + column.exceptions.size();
+            column.exceptions.add(new String(text.array(), 0, text.length(),
+                                             StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Writes the current row group and starts a new one
+     *
+     * @throws IOException if the row group cannot be written
+     */
+    private void writeGroup() throws IOException {
+        int headerStart = group.length();
+        group.appendInt(rows);
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            group.appendInt(0);
+        }
+        int[] lengths = new int[COLUMN_COUNT];
+        lengths[0] = appendChunk(lastNames);
+        lengths[1] = appendChunk(firstNames);
+        lengths[2] = appendChunk(birthDates);
+        lengths[3] = appendChunk(heights);
+        lengths[4] = appendChunk(weights);
+        lengths[5] = appendChunk(temperatures);
+        byte[] bytes = group.array();
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            int at = headerStart + 4 + i * 4;
+            bytes[at] = (byte) (lengths[i] >>> 24);
+            bytes[at + 1] = (byte) (lengths[i] >>> 16);
+            bytes[at + 2] = (byte) (lengths[i] >>> 8);
+            bytes[at + 3] = (byte) lengths[i];
+        }
+        group.writeTo(output);
+        rows = 0;
+    }
+
+    /**
+     * Appends a name column chunk to the row group and clears the column
+     *
+     * @param column the column
+     * @return the length of the chunk
+     */
+    private int appendChunk(NameColumn column) {
+        chunk.reset();
+        chunk.appendVarint(column.names.size());
+        for (String name : column.names) {
+            appendString(name);
+        }
+        int width = column.names.size() <= 0x100 ? 1 : column.names.size() <= 0x10000 ? 2 : 4;
+        chunk.append((byte) width);
+        for (int row = 0; row < rows; row++) {
+            int code = column.rowCodes[row];
+            for (int shift = (width - 1) * 8; shift >= 0; shift -= 8) {
+                chunk.append((byte) (code >>> shift));
+            }
+        }
+        column.codes.clear();
+        column.names.clear();
+        group.append(chunk.array(), 0, chunk.length());
+        return chunk.length();
+    }
+
+    /**
+     * Appends an int column chunk to the row group and clears the column
+     *
+     * @param column the column
+     * @return the length of the chunk
+     */
+    private int appendChunk(IntColumn column) {
+        chunk.reset();
+        chunk.appendVarint(column.exceptions.size());
+        for (String exception : column.exceptions) {
+            appendString(exception);
+        }
+        for (int row = 0; row < rows; row++) {
+            chunk.appendInt(column.values[row]);
+        }
+        column.exceptions.clear();
+        group.append(chunk.array(), 0, chunk.length());
+        return chunk.length();
+    }
+
+    /**
+     * Appends a string of bytes to the chunk as a varint length and the bytes
+     *
+     * @param s the bytes, one char each
+     */
+    private void appendString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+        chunk.appendVarint(bytes.length);
+        chunk.append(bytes, 0, bytes.length);
+    }
+}
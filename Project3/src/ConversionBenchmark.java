@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Runs conversion modes over files of growing size and reports how each
+ * scales, one CSV row per run: rows and megabytes per second, the peak
+ * resident set size of the process and the time spent in garbage
+ * collection. The inputs are US_ files written by DataGenerator, so a
+ * run can be repeated exactly on another machine.
+ *
+ * Each run converts the whole file to an output file beside it, the way
+ * DataConverter.main does. Peak RSS comes from VmHWM in /proc/self/status,
+ * reset before each run where the kernel allows it, and is -1 where there
+ * is no /proc. The first run of a mode includes JIT warm-up; use --repeat
+ * to see steady-state numbers.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionBenchmark {
+
+    /**
+     * Usage message for benchmark mode
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter bench [--modes=LIST] [--sizes=LIST] [--repeat=N]"
+        + " [--seed=N] [--dir=DIR]";
+
+    /**
+     * Header of the CSV report
+     */
+    public static final String CSV_HEADER =
+        "mode,bytes,run,rows,seconds,rows_per_second,mb_per_second,peak_rss_mb,gc_millis";
+
+    /**
+     * Modes run when none are given
+     */
+    public static final String DEFAULT_MODES = "stream,parallel,mapped,pipeline,resumable";
+
+    /**
+     * Sizes run when none are given
+     */
+    public static final String DEFAULT_SIZES = "1M,16M,256M";
+
+    /**
+     * Bytes in a megabyte
+     */
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /**
+     * Runs benchmark mode from the command line
+     *
+     * @param args the arguments after "bench"
+     */
+    public static void main(String[] args) {
+        List<ConversionMode> modes;
+        List<Long> sizes;
+        int repeat = 1;
+        long seed = DataGenerator.DEFAULT_SEED;
+        Path dir = null;
+        try {
+            String modeList = DEFAULT_MODES;
+            String sizeList = DEFAULT_SIZES;
+            for (String arg : args) {
+                if (arg.startsWith("--modes=")) {
+                    modeList = arg.substring("--modes=".length());
+                } else if (arg.startsWith("--sizes=")) {
+                    sizeList = arg.substring("--sizes=".length());
+                } else if (arg.startsWith("--repeat=")) {
+                    repeat = (int) parsePositive(arg.substring("--repeat=".length()), arg);
+                } else if (arg.startsWith("--seed=")) {
+                    try {
+                        seed = Long.parseLong(arg.substring("--seed=".length()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid value: " + arg);
+                    }
+                } else if (arg.startsWith("--dir=")) {
+                    dir = Path.of(arg.substring("--dir=".length()));
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            modes = parseModes(modeList);
+            sizes = new ArrayList<Long>();
+            for (String size : sizeList.split(",")) {
+                sizes.add(DataGenerator.parseSize(size));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        boolean temporary = dir == null;
+        try {
+            if (temporary) {
+                dir = Files.createTempDirectory("dataconverter-bench");
+            } else {
+                Files.createDirectories(dir);
+            }
+            System.out.println(CSV_HEADER);
+            for (long size : sizes) {
+                Path inPath = dir.resolve("US_bench_" + size + ".csv");
+                Path outPath = dir.resolve(DataConverter.outputFileName(inPath.getFileName()
+                                                                             .toString()));
+                try (OutputStream output = Files.newOutputStream(inPath)) {
+                    new DataGenerator(seed, true, 0).generate(output, size);
+                }
+                for (ConversionMode mode : modes) {
+                    for (int run = 1; run <= repeat; run++) {
+                        System.out.println(run(mode, inPath, outPath, run));
+                    }
+                }
+                if (temporary) {
+                    Files.delete(inPath);
+                    Files.deleteIfExists(outPath);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Benchmark failed: " + e.getMessage());
+        } finally {
+            if (temporary && dir != null) {
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                    Files.delete(dir);
+                } catch (IOException e) {
+                    // Left for the platform to clean up
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a positive whole number that fits in an int
+     *
+     * @param value the text of the number
+     * @param arg the whole argument, for the error message
+     * @return the number
+     * @throws IllegalArgumentException if the value is not a whole number
+     *         from 1 to Integer.MAX_VALUE
+     */
+    private static long parsePositive(String value, String arg) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        if (number <= 0 || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        return number;
+    }
+
+    /**
+     * Reads a comma-separated list of mode names
+     *
+     * @param list the list
+     * @return the modes
+     * @throws IllegalArgumentException if a name is not a mode
+     */
+    static List<ConversionMode> parseModes(String list) {
+        List<ConversionMode> modes = new ArrayList<ConversionMode>();
+        for (String name : list.split(",")) {
+            try {
+                modes.add(ConversionMode.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown mode: " + name);
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Converts a US file in one mode and measures the run
+     *
+     * @param mode the mode
+     * @param inPath the US file
+     * @param outPath the file to write, replaced if it exists
+     * @param run the number of the run, for the report
+     * @return the CSV row for the run
+     * @throws IOException if the files cannot be read or written, or the
+     *                     input has an invalid line
+     */
+    public static String run(ConversionMode mode, Path inPath, Path outPath, int run)
+            throws IOException {
+        Files.deleteIfExists(outPath);
+        Files.deleteIfExists(ResumableConverter.checkpointPath(outPath));
+        System.gc();
+        resetPeakRss();
+        long gcBefore = gcMillis();
+        long start = System.nanoTime();
+        ConversionResult result;
+        if (mode == ConversionMode.RESUMABLE) {
+            result = new ResumableConverter(true).convert(inPath, outPath);
+        } else {
+            ConverterOptions options = ConverterOptions.parse(new String[] {
+                "--mode=" + mode.name().toLowerCase(Locale.ROOT), inPath.toString()});
+            try (OutputStream output = DataConverter.openOutput(outPath, false)) {
+                result = DataConverter.convertFile(options, true, inPath, output);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long gc = gcMillis() - gcBefore;
+        long peakRss = peakRssBytes();
+        if (!result.isSuccess()) {
+            throw new IOException("Invalid input file format at line " + result.getInvalidLine());
+        }
+        long bytes = Files.size(inPath);
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.0f,%.1f,%.1f,%d",
+                             mode.name().toLowerCase(Locale.ROOT), bytes, run,
+                             result.getLineCount(), seconds, result.getLineCount() / seconds,
+                             bytes / MEGABYTE / seconds,
+                             peakRss < 0 ? -1.0 : peakRss / MEGABYTE, gc);
+    }
+
+    /**
+     * Returns the total time every collector has spent collecting
+     *
+     * @return the time in milliseconds
+     */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Resets the kernel's record of the peak resident set size, where it
+     * allows that
+     */
+    private static void resetPeakRss() {
+        try {
+            Files.write(Path.of("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // The peak then covers the whole process
+        }
+    }
+
+    /**
+     * Returns the peak resident set size of the process
+     *
+     * @return the size in bytes, or -1 if it is not known
+     */
+    static long peakRssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"),
+                                                  StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmHWM:")) {
+                    String kilobytes = line.substring("VmHWM:".length()).trim();
+                    return Long.parseLong(kilobytes.substring(0, kilobytes.indexOf(' '))) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the format is not the one expected
+        }
+        return -1;
+    }
+}
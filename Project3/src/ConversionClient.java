@@ -0,0 +1,291 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sends files to a ConversionServer and receives the converted output.
+ * The server either reads the file by its path, or is sent the file's
+ * contents when it cannot see the same files as the client.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionClient implements AutoCloseable {
+
+    /**
+     * Usage message for client mode
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter client [--socket=PATH] [--stream] infile > outfile";
+
+    /**
+     * Connection to the server
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Reads replies from the server
+     */
+    private final DataInputStream in;
+
+    /**
+     * Writes requests to the server
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The outcome of one request
+     */
+    public static class Reply {
+
+        /**
+         * Line number of the first invalid line, or 0
+         */
+        private final long invalidLine;
+
+        /**
+         * Error message, or null
+         */
+        private final String error;
+
+        /**
+         * True if output was written before the error
+         */
+        private final boolean partial;
+
+        /**
+         * Creates a reply
+         *
+         * @param invalidLine the line number of the first invalid line, or 0
+         * @param error the error message, or null
+         * @param partial true if output was written before the error
+         */
+        private Reply(long invalidLine, String error, boolean partial) {
+            this.invalidLine = invalidLine;
+            this.error = error;
+            this.partial = partial;
+        }
+
+        /**
+         * Returns true if every line was converted
+         *
+         * @return true if the conversion succeeded
+         */
+        public boolean isSuccess() {
+            return invalidLine == 0 && error == null;
+        }
+
+        /**
+         * Returns the line number of the first invalid line
+         *
+         * @return the first invalid line, or 0 if there was none
+         */
+        public long getInvalidLine() {
+            return invalidLine;
+        }
+
+        /**
+         * Returns the message for a request that failed, such as "Invalid
+         * input file prefix"
+         *
+         * @return the error message, or null if there was no error
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns true if the request failed after some lines had been
+         * converted, so the output holds only those lines
+         *
+         * @return true if the output is incomplete because of an error
+         */
+        public boolean isPartial() {
+            return partial;
+        }
+    }
+
+    /**
+     * Connects to a server
+     *
+     * @param socketPath the path of the server's socket file
+     * @throws IOException if no server is listening on the socket
+     * @throws IllegalArgumentException if socketPath is null
+     */
+    public ConversionClient(Path socketPath) throws IOException {
+        if (socketPath == null) {
+            throw new IllegalArgumentException("Null socket path");
+        }
+        channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        in = new DataInputStream(ConversionServer.channelInput(channel));
+        out = new DataOutputStream(new BufferedOutputStream(ConversionServer.channelOutput(channel),
+                                                            ConversionServer.CHUNK_SIZE));
+    }
+
+    /**
+     * Runs client mode from the command line. The converted output goes to
+     * standard output and messages go to standard error.
+     *
+     * @param args the arguments after "client"
+     */
+    public static void main(String[] args) {
+        Path socketPath = ConversionServer.defaultSocketPath();
+        boolean stream = false;
+        String inputFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--socket=")) {
+                socketPath = Path.of(arg.substring("--socket=".length()));
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.startsWith("--") || inputFile != null) {
+                System.err.println("Unknown option: " + arg);
+                System.err.println(USAGE);
+                System.exit(2);
+            } else {
+                inputFile = arg;
+            }
+        }
+        if (inputFile == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Path inPath = Path.of(inputFile);
+        Reply reply;
+        try (ConversionClient client = new ConversionClient(socketPath)) {
+            reply = stream ? client.convertBody(inPath, System.out)
+                           : client.convertPath(inPath, System.out);
+        } catch (IOException e) {
+            System.err.println("Unable to reach server on " + socketPath + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (reply.getError() != null) {
+            System.err.println(reply.getError());
+            if (reply.isPartial()) {
+                System.err.println("Output is incomplete");
+            }
+            System.exit(1);
+        }
+        if (!reply.isSuccess()) {
+            System.err.println("Invalid input file format");
+            System.err.println("First invalid line: " + reply.getInvalidLine());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Asks the server to read and convert a file. The path is sent as an
+     * absolute path, so the server must be able to see the file.
+     *
+     * @param inPath the file to convert
+     * @param output the stream to write the converted lines to
+     * @return the outcome of the conversion
+     * @throws IOException if the connection fails
+     * @throws IllegalArgumentException if inPath or output is null
+     */
+    public Reply convertPath(Path inPath, OutputStream output) throws IOException {
+        if (inPath == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        out.writeByte(ConversionServer.REQUEST_PATH);
+        out.writeUTF(inPath.toAbsolutePath().toString());
+        out.flush();
+        return readReply(output);
+    }
+
+    /**
+     * Sends a file's contents to the server to convert. The contents are
+     * sent on another thread while the output is read, so neither side
+     * waits on the other with a full socket buffer.
+     *
+     * @param inPath the file to convert; its name sets the direction
+     * @param output the stream to write the converted lines to
+     * @return the outcome of the conversion
+     * @throws IOException if the file cannot be read or the connection fails
+     * @throws IllegalArgumentException if inPath or output is null
+     */
+    public Reply convertBody(Path inPath, OutputStream output) throws IOException {
+        if (inPath == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        InputStream input = Files.newInputStream(inPath);
+        Path name = inPath.getFileName();
+        out.writeByte(ConversionServer.REQUEST_BODY);
+        out.writeUTF(name == null ? "" : name.toString());
+        IOException[] sendError = new IOException[1];
+        Thread sender = new Thread(() -> {
+            try (input) {
+                ConversionServer.ChunkedOutputStream chunks =
+                    new ConversionServer.ChunkedOutputStream(out);
+                input.transferTo(chunks);
+                chunks.close();
+            } catch (IOException e) {
+                sendError[0] = e;
+            }
+        }, "conversion-client-sender");
+        sender.setDaemon(true);
+        sender.start();
+        Reply reply = readReply(output);
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending", e);
+        }
+        if (sendError[0] != null) {
+            throw sendError[0];
+        }
+        return reply;
+    }
+
+    /**
+     * Closes the connection
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the output chunks and status of a reply
+     *
+     * @param output the stream to write the output to
+     * @return the outcome of the conversion
+     * @throws IOException if the connection fails or the reply is not valid
+     */
+    private Reply readReply(OutputStream output) throws IOException {
+        long written;
+        try (InputStream chunks = new ConversionServer.ChunkedInputStream(in)) {
+            written = chunks.transferTo(output);
+        }
+        output.flush();
+        byte status = in.readByte();
+        switch (status) {
+            case ConversionServer.STATUS_OK:
+                return new Reply(0, null, false);
+            case ConversionServer.STATUS_INVALID:
+                return new Reply(in.readLong(), null, false);
+            case ConversionServer.STATUS_ERROR:
+                return new Reply(0, in.readUTF(), written > 0);
+            default:
+                throw new IOException("Invalid reply status " + status);
+        }
+    }
+}
@@ -0,0 +1,638 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts a whole input from one format to the other working directly on
+ * bytes. Input is read in large blocks, line and comma boundaries are found
+ * in the byte buffer, and converted records are collected in a reusable
+ * output buffer that is written out in large blocks. Delimiters are found a
+ * 64-byte block at a time with a DelimiterScanner, and the comma positions
+ * found on the way are handed to the LineConverter so the line is not
+ * scanned twice.
+ *
+ * The output is byte-for-byte the same as running every line through
+ * DataConverter.convertLineToOtherFormat or convertLineToUSFormat the way
+ * DataConverter.processFile does. Lines end at "\n", "\r\n", "\r",
+ * U+2028, U+2029 or U+0085, the same separators Scanner.nextLine uses,
+ * and input is read as UTF-8.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionEngine {
+
+    /**
+     * Default size of the input and output buffers
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * True to convert US lines to the other format, false for the reverse
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Converter for the fields of each line
+     */
+    private final LineConverter lineConverter;
+
+    /**
+     * Finds delimiters a block at a time
+     */
+    private final DelimiterScanner scanner;
+
+    /**
+     * Positions of the commas in the current line, up to one per field gap
+     */
+    private final int[] commaPositions = new int[LineConverter.FIELD_COUNT - 1];
+
+    /**
+     * Number of commas in the current line
+     */
+    private int commaCount;
+
+    /**
+     * True if the current line holds any byte outside ASCII
+     */
+    private boolean lineNonAscii;
+
+    /**
+     * Length of the separator ending the current line, 0 if there is none
+     * yet, or -1 if more bytes are needed to tell
+     */
+    private int separatorLength;
+
+    /**
+     * Size of the input and output buffers
+     */
+    private final int bufferSize;
+
+    /**
+     * Buffer that input is read into, allocated on first use
+     */
+    private byte[] inBuffer;
+
+    /**
+     * Buffer that converted records are collected in, allocated on first use
+     */
+    private OutputBuffer outBuffer;
+
+    /**
+     * Number of lines converted since the last reset
+     */
+    private long lineCount;
+
+    /**
+     * Line number of the first invalid line since the last reset, or 0
+     */
+    private long invalidLine;
+
+    /**
+     * Receives invalid lines in lenient mode, or null to stop at the first one
+     */
+    private RejectHandler rejectHandler;
+
+    /**
+     * Number of invalid lines skipped since the last reset
+     */
+    private long rejectedCount;
+
+    /**
+     * Receives each valid record instead of the output buffer, or null
+     */
+    private RecordSink sink;
+
+    /**
+     * Record each line is parsed into for the sink
+     */
+    private final PersonRecord record = new PersonRecord();
+
+    /**
+     * Converts each line instead of the line converter, or null
+     */
+    private SchemaConverter schema;
+
+    /**
+     * Metrics each buffer read, converted and written is recorded in, or null
+     */
+    private ConversionMetrics metrics;
+
+    /**
+     * Creates an engine with the default buffer size
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     */
+    public ConversionEngine(boolean convertToOtherFormat) {
+        this(convertToOtherFormat, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates an engine with the given buffer size
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param bufferSize the size of the input and output buffers in bytes
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public ConversionEngine(boolean convertToOtherFormat, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.bufferSize = bufferSize;
+        this.lineConverter = new LineConverter(convertToOtherFormat);
+        this.scanner = DelimiterScanner.create();
+    }
+
+    /**
+     * Returns true if this engine converts US lines to the other format
+     *
+     * @return true if this engine converts US lines to the other format
+     */
+    public boolean isConvertToOtherFormat() {
+        return convertToOtherFormat;
+    }
+
+    /**
+     * Returns the number of lines converted since the last reset
+     *
+     * @return the number of lines converted since the last reset
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the line number of the first invalid line since the last reset
+     *
+     * @return the line number of the first invalid line, or 0 if there was none
+     */
+    public long getInvalidLine() {
+        return invalidLine;
+    }
+
+    /**
+     * Clears the line counters so the engine can be reused. Engines used
+     * only through convertLines should call this before each new input.
+     */
+    public void reset() {
+        lineCount = 0;
+        invalidLine = 0;
+        rejectedCount = 0;
+    }
+
+    /**
+     * Switches lenient mode on or off. In lenient mode an invalid line is
+     * handed to the handler, with its line number and the reason it is
+     * invalid, and skipped; conversion only stops at an invalid line if the
+     * handler says so. Invalid lines are rare, so finding the reason is
+     * left until a line has failed and valid lines cost nothing extra.
+     *
+     * @param rejectHandler the handler for invalid lines, or null to stop
+     *                      at the first invalid line
+     */
+    public void setRejectHandler(RejectHandler rejectHandler) {
+        this.rejectHandler = rejectHandler;
+    }
+
+    /**
+     * Sets the statistics each converted line is added to. Gathering them
+     * costs one check per line when they are off.
+     *
+     * @param stats the statistics, or null to gather none
+     */
+    public void setStats(ConversionStats stats) {
+        lineConverter.setStats(stats);
+    }
+
+    /**
+     * Converts lines with a compiled schema instead of the built-in six
+     * field conversion. Only convert uses the schema. Reject reasons and
+     * statistics describe the built-in layout, so with a schema the first
+     * invalid line always stops the conversion and no statistics are added.
+     *
+     * @param schema the schema's converter, or null for the built-in conversion
+     */
+    public void setSchema(SchemaConverter schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Sets the metrics convert records each buffer in: the bytes read and
+     * written, the lines converted and rejected, and the time taken by each
+     * stage. Recording is per buffer, so it costs one check per buffer
+     * when the metrics are off.
+     *
+     * @param metrics the metrics, or null to record none
+     */
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the number of invalid lines skipped in lenient mode since the
+     * last reset
+     *
+     * @return the number of lines skipped
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Converts everything in the input stream and writes it to the output
+     * stream. Lines before an invalid line are still written, like
+     * DataConverter.processFile does. Neither stream is closed.
+     *
+     * @param input the stream to read lines from
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if input or output is null
+     */
+    public ConversionResult convert(InputStream input, OutputStream output) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        if (inBuffer == null) {
+            inBuffer = new byte[bufferSize];
+            outBuffer = new OutputBuffer(bufferSize + bufferSize / 2);
+        }
+        reset();
+        outBuffer.reset();
+        long bytesRead = 0;
+        long bytesWritten = 0;
+        int start = 0;
+        int end = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            if (end == inBuffer.length) {
+                if (start > 0) {
+                    System.arraycopy(inBuffer, start, inBuffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                } else {
+                    // A single line longer than the buffer
+                    byte[] larger = new byte[inBuffer.length * 2];
+                    System.arraycopy(inBuffer, 0, larger, 0, end);
+                    inBuffer = larger;
+                }
+            }
+            long startNanos = metrics == null ? 0 : System.nanoTime();
+            int count = input.read(inBuffer, end, inBuffer.length - end);
+            if (count < 0) {
+                endOfInput = true;
+            } else {
+                end += count;
+                bytesRead += count;
+            }
+            long convertNanos = 0;
+            long linesBefore = lineCount;
+            long rejectedBefore = rejectedCount;
+            if (metrics != null) {
+                convertNanos = System.nanoTime();
+                metrics.recordRead(Math.max(count, 0), convertNanos - startNanos);
+            }
+            try {
+                start = convertLines(inBuffer, start, end, endOfInput, outBuffer);
+            } catch (UncheckedIOException e) {
+                // From the reject handler or a sink
+                throw e.getCause();
+            }
+            if (metrics != null) {
+                metrics.recordConvert(lineCount - linesBefore, rejectedCount - rejectedBefore,
+                                      System.nanoTime() - convertNanos);
+            }
+            if (start < 0 || outBuffer.length() >= bufferSize || endOfInput) {
+                int length = outBuffer.length();
+                long writeNanos = metrics == null ? 0 : System.nanoTime();
+                bytesWritten += length;
+                outBuffer.writeTo(output);
+                if (metrics != null) {
+                    metrics.recordWrite(length, System.nanoTime() - writeNanos);
+                }
+            }
+            if (start < 0) {
+                break;
+            }
+            if (start == end) {
+                start = 0;
+                end = 0;
+            }
+        }
+        output.flush();
+        return new ConversionResult(lineCount, invalidLine, bytesRead, bytesWritten);
+    }
+
+    /**
+     * Reads everything in the input stream and hands each valid record to
+     * a sink instead of writing converted lines, so one parse can feed
+     * several output formats. Invalid lines are handled the same way as by
+     * convert. The input stream and the sink are not closed, and the
+     * result counts no bytes written.
+     *
+     * @param input the stream to read lines from
+     * @param sink the sink to write records to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or a record cannot be written
+     * @throws IllegalArgumentException if input or sink is null
+     */
+    public ConversionResult convertToSink(InputStream input, RecordSink sink) throws IOException {
+        if (sink == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        this.sink = sink;
+        try {
+            return convert(input, OutputStream.nullOutputStream());
+        } finally {
+            this.sink = null;
+        }
+    }
+
+    /**
+     * Converts every complete line in a range of bytes, appending the
+     * converted lines to out. A final line without a line separator is only
+     * converted when endOfInput is true; otherwise it is left for the next
+     * call.
+     *
+     * @param data the bytes to convert
+     * @param from the index of the first byte to convert
+     * @param to the index after the last byte available
+     * @param endOfInput true if no more bytes follow the range
+     * @param out the buffer to append converted lines to
+     * @return the index of the first byte not yet converted, or -1 if an
+     *         invalid line was found
+     */
+    public int convertLines(byte[] data, int from, int to, boolean endOfInput, OutputBuffer out) {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = findLineEnd(data, lineStart, to, endOfInput);
+            if (separatorLength < 0 || (separatorLength == 0 && !endOfInput)) {
+                return lineStart;
+            }
+            if (convertLine(data, lineStart, lineEnd, out)) {
+                lineCount++;
+            } else if (!rejectLine(data, lineStart, lineEnd)) {
+                invalidLine = lineCount + rejectedCount + 1;
+                return -1;
+            }
+            lineStart = lineEnd + separatorLength;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Finds the end of the line starting at lineStart, recording the commas
+     * in the line, whether it holds bytes outside ASCII, and the length of
+     * its line separator. Whole 64-byte blocks are scanned with the
+     * delimiter scanner and only the marked bytes are examined.
+     *
+     * @param data the bytes holding the line
+     * @param lineStart the index of the first byte of the line
+     * @param to the index after the last byte available
+     * @param endOfInput true if no more bytes follow the range
+     * @return the index of the line separator, or to if there is none
+     */
+    private int findLineEnd(byte[] data, int lineStart, int to, boolean endOfInput) {
+        commaCount = 0;
+        lineNonAscii = false;
+        int pos = lineStart;
+        while (pos + DelimiterScanner.BLOCK_SIZE <= to) {
+            long mask = scanner.scanBlock(data, pos);
+            while (mask != 0) {
+                int index = pos + Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                int separator = checkDelimiter(data, index, to, endOfInput);
+                if (separator != 0) {
+                    separatorLength = separator;
+                    return index;
+                }
+            }
+            pos += DelimiterScanner.BLOCK_SIZE;
+        }
+        for (; pos < to; pos++) {
+            byte b = data[pos];
+            if (b == ',' || b == '\n' || b == '\r' || b < 0) {
+                int separator = checkDelimiter(data, pos, to, endOfInput);
+                if (separator != 0) {
+                    separatorLength = separator;
+                    return pos;
+                }
+            }
+        }
+        separatorLength = 0;
+        return to;
+    }
+
+    /**
+     * Handles a byte the delimiter scanner marked: records a comma, notes a
+     * byte outside ASCII, or measures a line separator.
+     *
+     * @param data the bytes holding the line
+     * @param pos the index of the marked byte
+     * @param to the index after the last byte available
+     * @param endOfInput true if no more bytes follow the range
+     * @return the length of the line separator starting at pos, 0 if there
+     *         is none, or -1 if more bytes are needed to tell
+     */
+    private int checkDelimiter(byte[] data, int pos, int to, boolean endOfInput) {
+        byte b = data[pos];
+        if (b == ',') {
+            if (commaCount < commaPositions.length) {
+                commaPositions[commaCount] = pos;
+            }
+            commaCount++;
+            return 0;
+        }
+        if (b == '\n') {
+            return 1;
+        }
+        if (b == '\r') {
+            if (pos + 1 < to) {
+                return data[pos + 1] == '\n' ? 2 : 1;
+            }
+            return endOfInput ? 1 : -1;
+        }
+        lineNonAscii = true;
+        int separator = unicodeSeparatorLength(data, pos, to);
+        if (separator < 0 && endOfInput) {
+            return 0;
+        }
+        return separator;
+    }
+
+    /**
+     * Converts the line just found by findLineEnd and appends it, followed
+     * by a newline, to out. Lines holding bytes that are not valid UTF-8
+     * are decoded the way Scanner decodes them, with the bad bytes
+     * replaced, before converting.
+     *
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param out the buffer to append the converted line to
+     * @return true if the line was valid
+     */
+    private boolean convertLine(byte[] data, int start, int end, OutputBuffer out) {
+        if (sink != null) {
+            return writeRecord(data, start, end);
+        }
+        if (lineNonAscii && !isValidUtf8(data, start, end)) {
+            byte[] decoded = new String(data, start, end - start, StandardCharsets.UTF_8)
+                .getBytes(StandardCharsets.UTF_8);
+            if (schema != null ? !schema.convert(decoded, 0, decoded.length, out)
+                               : !lineConverter.convert(decoded, 0, decoded.length, out)) {
+                return false;
+            }
+        } else if (schema != null) {
+            if (!schema.convert(data, start, end, out)) {
+                return false;
+            }
+        } else if (!lineConverter.convert(data, start, end, commaPositions, commaCount, out)) {
+            return false;
+        }
+        out.append('\n');
+        return true;
+    }
+
+    /**
+     * Parses the line just found by findLineEnd and hands the record to the
+     * sink, decoding lines that are not valid UTF-8 the same way as
+     * convertLine
+     *
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return true if the line was valid
+     * @throws UncheckedIOException if the sink cannot write the record
+     */
+    private boolean writeRecord(byte[] data, int start, int end) {
+        boolean valid;
+        if (lineNonAscii && !isValidUtf8(data, start, end)) {
+            byte[] decoded = new String(data, start, end - start, StandardCharsets.UTF_8)
+                .getBytes(StandardCharsets.UTF_8);
+            valid = lineConverter.parse(decoded, 0, decoded.length, record);
+        } else {
+            valid = lineConverter.parse(data, start, end, commaPositions, commaCount, record);
+        }
+        if (!valid) {
+            return false;
+        }
+        try {
+            sink.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Hands an invalid line to the reject handler
+     *
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return true if the line was skipped, false if conversion should stop
+     */
+    private boolean rejectLine(byte[] data, int start, int end) {
+        if (rejectHandler == null || schema != null) {
+            return false;
+        }
+        RejectReason reason = lineConverter.diagnose(data, start, end);
+        if (!rejectHandler.reject(lineCount + rejectedCount + 1, reason, data, start, end)) {
+            return false;
+        }
+        rejectedCount++;
+        return true;
+    }
+
+    /**
+     * Checks whether a range of bytes is well-formed UTF-8, using the same
+     * rules as the JDK decoder: no overlong forms, no surrogates and nothing
+     * above U+10FFFF.
+     *
+     * @param data the bytes to check
+     * @param start the index of the first byte to check
+     * @param end the index after the last byte to check
+     * @return true if the bytes are well-formed UTF-8
+     */
+    static boolean isValidUtf8(byte[] data, int start, int end) {
+        int i = start;
+        while (i < end) {
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int length;
+            int min;
+            int max;
+            if (b >= 0xC2 && b <= 0xDF) {
+                length = 2;
+                min = 0x80;
+                max = 0xBF;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                length = 3;
+                min = b == 0xE0 ? 0xA0 : 0x80;
+                max = b == 0xED ? 0x9F : 0xBF;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                length = 4;
+                min = b == 0xF0 ? 0x90 : 0x80;
+                max = b == 0xF4 ? 0x8F : 0xBF;
+            } else {
+                return false;
+            }
+            if (i + length > end) {
+                return false;
+            }
+            int second = data[i + 1] & 0xFF;
+            if (second < min || second > max) {
+                return false;
+            }
+            for (int j = i + 2; j < i + length; j++) {
+                if ((data[j] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += length;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a UTF-8 encoded U+2028, U+2029 or U+0085 starts at pos.
+     *
+     * @param data the bytes to check
+     * @param pos the index of the first byte to check
+     * @param to the index after the last byte available
+     * @return the length of the separator, 0 if there is none, or -1 if the
+     *         bytes available end part way through what could be a separator
+     */
+    private static int unicodeSeparatorLength(byte[] data, int pos, int to) {
+        byte b = data[pos];
+        if (b == (byte) 0xC2) {
+            if (pos + 1 >= to) {
+                return -1;
+            }
+            return data[pos + 1] == (byte) 0x85 ? 2 : 0;
+        }
+        if (b == (byte) 0xE2) {
+            if (pos + 2 >= to) {
+                return pos + 1 >= to || data[pos + 1] == (byte) 0x80 ? -1 : 0;
+            }
+            if (data[pos + 1] == (byte) 0x80
+                && (data[pos + 2] == (byte) 0xA8 || data[pos + 2] == (byte) 0xA9)) {
+                return 3;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,434 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An embedded HTTP converter, for tools that want conversion as a service
+ * rather than a socket protocol or a new JVM per file. A request POSTs the
+ * lines to /convert and the converted lines come back as the response
+ * body. The body is converted as it is read, and the output is sent as it
+ * is written, so neither is ever held in memory whole.
+ *
+ * The direction comes from the query, ?format=US or ?format=OT naming the
+ * format of the body, or else from an X-File-Name header holding a name
+ * that follows the same rules as DataConverter.main; a name ending in .gz
+ * means a gzip compressed body. The output is what DataConverter.main
+ * would write to the output file.
+ *
+ * The first CHUNK_SIZE bytes of output are held back, so a small request
+ * gets a plain response with its status: 200 when every line converted,
+ * or 422 with the lines before the first invalid line and its number in
+ * an X-Invalid-Line header. Once more output than that has been sent, a
+ * later invalid line can no longer change the status, so the connection
+ * is closed before the end of the chunked body and the client sees the
+ * response cut short.
+ *
+ * Each request runs on its own virtual thread when the JVM has them, as in
+ * BatchConverter, and a semaphore caps how many are converted at once.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionHttpServer implements AutoCloseable {
+
+    /**
+     * Usage message for HTTP server mode
+     */
+    public static final String USAGE = "Usage: java -cp DataConverter http [--port=N] [--threads=N]";
+
+    /**
+     * Path requests are posted to
+     */
+    public static final String PATH = "/convert";
+
+    /**
+     * Port used when none is given
+     */
+    public static final int DEFAULT_PORT = 8765;
+
+    /**
+     * Header naming the input file
+     */
+    public static final String FILE_NAME_HEADER = "X-File-Name";
+
+    /**
+     * Header holding the number of the first invalid line
+     */
+    public static final String INVALID_LINE_HEADER = "X-Invalid-Line";
+
+    /**
+     * Status of a response stopped at an invalid line
+     */
+    public static final int STATUS_INVALID = 422;
+
+    /**
+     * Number of connections waiting to be accepted before more are refused
+     */
+    private static final int BACKLOG = 4096;
+
+    /**
+     * The server
+     */
+    private final HttpServer server;
+
+    /**
+     * Runs the requests
+     */
+    private final ExecutorService requests;
+
+    /**
+     * Limits the number of requests converted at once
+     */
+    private final Semaphore converting;
+
+    /**
+     * Creates a server listening on a port of the loopback address
+     *
+     * @param port the port, or 0 for any free port
+     * @param threads the largest number of requests converted at once
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalArgumentException if port is out of range or threads
+     *         is not positive
+     */
+    public ConversionHttpServer(int port, int threads) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads);
+    }
+
+    /**
+     * Creates a server listening on an address
+     *
+     * @param address the address to listen on
+     * @param threads the largest number of requests converted at once
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if address is null or threads is not positive
+     */
+    public ConversionHttpServer(InetSocketAddress address, int threads) throws IOException {
+        if (address == null) {
+            throw new IllegalArgumentException("Null address");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid value: " + threads);
+        }
+        server = HttpServer.create(address, BACKLOG);
+        requests = BatchConverter.newExecutor(threads);
+        converting = new Semaphore(threads);
+        server.setExecutor(requests);
+        server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Runs HTTP server mode from the command line
+     *
+     * @param args the arguments after "http"
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = defaultThreads();
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--port=")) {
+                    port = Integer.parseInt(arg.substring("--port=".length()));
+                } else if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else {
+                    System.out.println("Unknown option: " + arg);
+                    System.out.println(USAGE);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid value: " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+        ConversionHttpServer server;
+        try {
+            server = new ConversionHttpServer(port, threads);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Unable to start server: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Listening on http://" + InetAddress.getLoopbackAddress()
+                           .getHostAddress() + ":" + server.getPort() + PATH);
+    }
+
+    /**
+     * Returns the number of request threads used when none is given: four
+     * per processor, since requests also wait on their connections
+     *
+     * @return the default number of threads
+     */
+    public static int defaultThreads() {
+        return 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Starts accepting requests on a background thread
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and closes the connections. Requests being
+     * converted are cut short.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdown();
+    }
+
+    /**
+     * Handles one request. When the response has to be cut short the
+     * exchange is left open and the exception is passed to the server,
+     * which closes the connection without ending the chunked body.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the connection fails or a streamed response
+     *                     reaches an invalid line
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            converting.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to convert", e);
+        }
+        try {
+            respond(exchange);
+        } finally {
+            converting.release();
+        }
+        exchange.close();
+    }
+
+    /**
+     * Converts the body of a request into the response
+     *
+     * @param exchange the request and response
+     * @throws IOException if the connection fails or a streamed response
+     *                     reaches an invalid line
+     */
+    private static void respond(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            sendText(exchange, 405, "Only POST is supported");
+            return;
+        }
+        String inputFileName = exchange.getRequestHeaders().getFirst(FILE_NAME_HEADER);
+        String format = queryParameter(exchange.getRequestURI().getRawQuery(), "format");
+        boolean convertToOtherFormat;
+        if (format != null) {
+            if (!format.equalsIgnoreCase("US") && !format.equalsIgnoreCase("OT")) {
+                sendText(exchange, 400, "Invalid format: " + format);
+                return;
+            }
+            convertToOtherFormat = format.equalsIgnoreCase("US");
+            if (inputFileName == null) {
+                inputFileName = "";
+            }
+        } else if (inputFileName != null) {
+            String nameProblem = DataConverter.checkInputFileName(inputFileName);
+            if (nameProblem != null) {
+                sendText(exchange, 400, nameProblem);
+                return;
+            }
+            convertToOtherFormat = DataConverter.isUSFileName(inputFileName);
+        } else {
+            sendText(exchange, 400, "Missing format or " + FILE_NAME_HEADER);
+            return;
+        }
+
+        ResponseOutput output = new ResponseOutput(exchange);
+        ConversionResult result;
+        try (InputStream body = exchange.getRequestBody()) {
+            result = ConversionServer.convertBody(convertToOtherFormat, inputFileName,
+                                                  body, output);
+        } catch (IOException e) {
+            if (output.isCommitted()) {
+                throw e;
+            }
+            sendText(exchange, 500, "Error converting file: " + e.getMessage());
+            return;
+        }
+        if (result.isSuccess()) {
+            output.finish(200);
+        } else if (!output.isCommitted()) {
+            exchange.getResponseHeaders().set(INVALID_LINE_HEADER,
+                                              Long.toString(result.getInvalidLine()));
+            output.finish(STATUS_INVALID);
+        } else {
+            output.flush();
+            throw new IOException("Invalid input file format at line "
+                                  + result.getInvalidLine());
+        }
+    }
+
+    /**
+     * Returns the value of a query parameter, without decoding it
+     *
+     * @param query the raw query of the request, or null
+     * @param name the name of the parameter
+     * @return the value, or null if the parameter is absent
+     */
+    static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals >= 0 && parameter.substring(0, equals).equals(name)) {
+                return parameter.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a complete plain text response
+     *
+     * @param exchange the request and response
+     * @param status the status
+     * @param message the body
+     * @throws IOException if the connection fails
+     */
+    private static void sendText(HttpExchange exchange, int status, String message)
+            throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Holds back the first CHUNK_SIZE bytes of a response, then sends the
+     * headers with a 200 status and streams the rest as a chunked body.
+     * A response that ends first is sent whole, with its length and the
+     * status known by then.
+     */
+    private static class ResponseOutput extends OutputStream {
+
+        /**
+         * The request and response
+         */
+        private final HttpExchange exchange;
+
+        /**
+         * Output held back before the headers are sent
+         */
+        private final byte[] held = new byte[ConversionServer.CHUNK_SIZE];
+
+        /**
+         * Number of bytes held back
+         */
+        private int count;
+
+        /**
+         * The response body, once the headers are sent
+         */
+        private OutputStream body;
+
+        /**
+         * Creates the output of a response
+         *
+         * @param exchange the request and response
+         */
+        ResponseOutput(HttpExchange exchange) {
+            this.exchange = exchange;
+            exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=UTF-8");
+        }
+
+        /**
+         * Returns true once the headers have been sent
+         *
+         * @return true if the status can no longer change
+         */
+        boolean isCommitted() {
+            return body != null;
+        }
+
+        /**
+         * Writes one byte
+         *
+         * @param b the byte to write
+         * @throws IOException if the connection fails
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        /**
+         * Holds back bytes while they fit, otherwise sends the headers and
+         * everything written so far
+         *
+         * @param b the bytes to write
+         * @param off the index of the first byte to write
+         * @param len the number of bytes to write
+         * @throws IOException if the connection fails
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (body == null) {
+                if (count + len <= held.length) {
+                    System.arraycopy(b, off, held, count, len);
+                    count += len;
+                    return;
+                }
+                exchange.sendResponseHeaders(200, 0);
+                body = new BufferedOutputStream(exchange.getResponseBody(), held.length);
+                body.write(held, 0, count);
+            }
+            body.write(b, off, len);
+        }
+
+        /**
+         * Sends what has been written, once the headers are sent
+         *
+         * @throws IOException if the connection fails
+         */
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        /**
+         * Ends the response, sending the headers with a status first if
+         * they have not been sent
+         *
+         * @param status the status, used only if the headers are not yet sent
+         * @throws IOException if the connection fails
+         */
+        void finish(int status) throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+                exchange.getResponseBody().write(held, 0, count);
+            } else {
+                body.flush();
+            }
+        }
+    }
+}
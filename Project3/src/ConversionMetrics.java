@@ -0,0 +1,381 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for a running conversion: lines,
+ * rejected lines, bytes read and written, and the time spent reading,
+ * converting and writing each buffer. The converters record into it once
+ * per buffer, not once per line, and any number of threads may record at
+ * once. Parsing and converting a line are one pass in LineConverter, so
+ * they are timed together.
+ *
+ * The metrics can be shown as a one line progress report, registered as
+ * a JMX MBean while the conversion runs, and summed up in a report at the
+ * end.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionMetrics implements ConversionMetricsMBean {
+
+    /**
+     * Name the metrics are registered under in the platform MBean server
+     */
+    public static final String OBJECT_NAME = "DataConverter:type=ConversionMetrics";
+
+    /**
+     * Number of bytes in a megabyte, for rates
+     */
+    private static final double MEGABYTE = 1 << 20;
+
+    /**
+     * Number of lines converted
+     */
+    private final LongAdder rows = new LongAdder();
+
+    /**
+     * Number of invalid lines skipped
+     */
+    private final LongAdder rejectedRows = new LongAdder();
+
+    /**
+     * Number of input bytes read
+     */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * Number of converted bytes written
+     */
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Time to read each buffer of input
+     */
+    private final LatencyHistogram readLatency = new LatencyHistogram();
+
+    /**
+     * Time to parse and convert each buffer of lines
+     */
+    private final LatencyHistogram convertLatency = new LatencyHistogram();
+
+    /**
+     * Time to write each buffer of converted lines
+     */
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    /**
+     * System.nanoTime when the metrics were created
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Size of the input in bytes, or -1 if it is not known
+     */
+    private volatile long totalBytes = -1;
+
+    /**
+     * Name the metrics are registered under, or null if they are not
+     */
+    private ObjectName registeredName;
+
+    /**
+     * Sets the size of the input, so progress can show an estimate of the
+     * time left
+     *
+     * @param totalBytes the input size in bytes, or -1 if it is not known
+     */
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Records a buffer of input read
+     *
+     * @param bytes the number of bytes read
+     * @param nanos the time taken in nanoseconds
+     */
+    public void recordRead(long bytes, long nanos) {
+        bytesIn.add(bytes);
+        readLatency.record(nanos);
+    }
+
+    /**
+     * Records a buffer of lines converted
+     *
+     * @param lines the number of lines converted
+     * @param rejected the number of invalid lines skipped
+     * @param nanos the time taken in nanoseconds
+     */
+    public void recordConvert(long lines, long rejected, long nanos) {
+        rows.add(lines);
+        rejectedRows.add(rejected);
+        convertLatency.record(nanos);
+    }
+
+    /**
+     * Records a buffer of converted lines written
+     *
+     * @param bytes the number of bytes written
+     * @param nanos the time taken in nanoseconds
+     */
+    public void recordWrite(long bytes, long nanos) {
+        bytesOut.add(bytes);
+        writeLatency.record(nanos);
+    }
+
+    /**
+     * Returns the read latencies
+     *
+     * @return the histogram of times to read a buffer
+     */
+    public LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+
+    /**
+     * Returns the convert latencies
+     *
+     * @return the histogram of times to parse and convert a buffer
+     */
+    public LatencyHistogram getConvertLatency() {
+        return convertLatency;
+    }
+
+    /**
+     * Returns the write latencies
+     *
+     * @return the histogram of times to write a buffer
+     */
+    public LatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    /**
+     * Returns the number of lines converted
+     *
+     * @return the number of lines converted
+     */
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * Returns the number of invalid lines skipped
+     *
+     * @return the number of lines rejected
+     */
+    @Override
+    public long getRejectedRows() {
+        return rejectedRows.sum();
+    }
+
+    /**
+     * Returns the number of input bytes read
+     *
+     * @return the number of bytes read
+     */
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * Returns the number of converted bytes written
+     *
+     * @return the number of bytes written
+     */
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Returns the size of the input, if it is known
+     *
+     * @return the input size in bytes, or -1 if it is not known
+     */
+    @Override
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the time since the conversion started
+     *
+     * @return the elapsed time in milliseconds
+     */
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Returns the mean rate lines have been converted at
+     *
+     * @return lines per second
+     */
+    @Override
+    public double getRowsPerSecond() {
+        return perSecond(getRows());
+    }
+
+    /**
+     * Returns the mean rate input has been read at
+     *
+     * @return megabytes per second
+     */
+    @Override
+    public double getMegabytesInPerSecond() {
+        return perSecond(getBytesIn()) / MEGABYTE;
+    }
+
+    /**
+     * Returns the estimated time left, from the input read so far
+     *
+     * @return the estimate in seconds, or -1 if the input size is not known
+     */
+    @Override
+    public long getEstimatedSecondsLeft() {
+        long total = totalBytes;
+        long read = getBytesIn();
+        if (total < 0 || read == 0) {
+            return -1;
+        }
+        if (read >= total) {
+            return 0;
+        }
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        return (long) Math.ceil(elapsed * (total - read) / read);
+    }
+
+    /**
+     * Returns the mean time to read a buffer of input
+     *
+     * @return the mean in microseconds
+     */
+    @Override
+    public double getReadMeanMicros() {
+        return readLatency.getMeanNanos() / 1000;
+    }
+
+    /**
+     * Returns the mean time to parse and convert a buffer of lines
+     *
+     * @return the mean in microseconds
+     */
+    @Override
+    public double getConvertMeanMicros() {
+        return convertLatency.getMeanNanos() / 1000;
+    }
+
+    /**
+     * Returns the mean time to write a buffer of converted lines
+     *
+     * @return the mean in microseconds
+     */
+    @Override
+    public double getWriteMeanMicros() {
+        return writeLatency.getMeanNanos() / 1000;
+    }
+
+    /**
+     * Returns an upper bound on the 99th percentile time to parse and
+     * convert a buffer of lines
+     *
+     * @return the bound in microseconds
+     */
+    @Override
+    public double getConvertP99Micros() {
+        return convertLatency.getPercentileNanos(99) / 1000.0;
+    }
+
+    /**
+     * Returns a count divided by the time since the metrics were created
+     *
+     * @param count the count
+     * @return the count per second, or 0 if no time has passed
+     */
+    private double perSecond(long count) {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the progress so far in one line: lines, rejected lines,
+     * bytes read, rates, and the percentage done and time left when the
+     * input size is known
+     *
+     * @return the progress line
+     */
+    public String progressLine() {
+        StringBuilder line = new StringBuilder();
+        line.append(String.format(Locale.ROOT, "%d lines, %d rejected, %.1f MB read, "
+                                  + "%.0f lines/s, %.1f MB/s", getRows(), getRejectedRows(),
+                                  getBytesIn() / MEGABYTE, getRowsPerSecond(),
+                                  getMegabytesInPerSecond()));
+        long total = totalBytes;
+        if (total > 0) {
+            line.append(String.format(Locale.ROOT, ", %.1f%%, ETA %ds",
+                                      Math.min(100.0, getBytesIn() * 100.0 / total),
+                                      getEstimatedSecondsLeft()));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Returns the end of run report: the totals, the rates, and the
+     * latencies of each stage
+     *
+     * @return the report, one item per line
+     */
+    public String report() {
+        return String.format(Locale.ROOT, "lines: %d%nrejected: %d%nbytes in: %d%n"
+                             + "bytes out: %d%nelapsed: %.3fs%nrate: %.0f lines/s, %.1f MB/s%n"
+                             + "read: %s%nconvert: %s%nwrite: %s",
+                             getRows(), getRejectedRows(), getBytesIn(), getBytesOut(),
+                             getElapsedMillis() / 1000.0, getRowsPerSecond(),
+                             getMegabytesInPerSecond(), readLatency, convertLatency,
+                             writeLatency);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under OBJECT_NAME
+     *
+     * @throws IllegalArgumentException if the metrics cannot be registered,
+     *         for example because another conversion's metrics already are
+     */
+    public synchronized void register() {
+        if (registeredName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Cannot register metrics: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            // Already gone
+        }
+        registeredName = null;
+    }
+}
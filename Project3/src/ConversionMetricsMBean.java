@@ -0,0 +1,102 @@
+/**
+ * The attributes of a running conversion that ConversionMetrics shows
+ * through JMX, for a tool such as JConsole.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public interface ConversionMetricsMBean {
+
+    /**
+     * Returns the number of lines converted
+     *
+     * @return the number of lines converted
+     */
+    long getRows();
+
+    /**
+     * Returns the number of invalid lines skipped
+     *
+     * @return the number of lines rejected
+     */
+    long getRejectedRows();
+
+    /**
+     * Returns the number of input bytes read
+     *
+     * @return the number of bytes read
+     */
+    long getBytesIn();
+
+    /**
+     * Returns the number of converted bytes written
+     *
+     * @return the number of bytes written
+     */
+    long getBytesOut();
+
+    /**
+     * Returns the size of the input, if it is known
+     *
+     * @return the input size in bytes, or -1 if it is not known
+     */
+    long getTotalBytes();
+
+    /**
+     * Returns the time since the conversion started
+     *
+     * @return the elapsed time in milliseconds
+     */
+    long getElapsedMillis();
+
+    /**
+     * Returns the mean rate lines have been converted at
+     *
+     * @return lines per second
+     */
+    double getRowsPerSecond();
+
+    /**
+     * Returns the mean rate input has been read at
+     *
+     * @return megabytes per second
+     */
+    double getMegabytesInPerSecond();
+
+    /**
+     * Returns the estimated time left, from the input read so far
+     *
+     * @return the estimate in seconds, or -1 if the input size is not known
+     */
+    long getEstimatedSecondsLeft();
+
+    /**
+     * Returns the mean time to read a buffer of input
+     *
+     * @return the mean in microseconds
+     */
+    double getReadMeanMicros();
+
+    /**
+     * Returns the mean time to parse and convert a buffer of lines
+     *
+     * @return the mean in microseconds
+     */
+    double getConvertMeanMicros();
+
+    /**
+     * Returns the mean time to write a buffer of converted lines
+     *
+     * @return the mean in microseconds
+     */
+    double getWriteMeanMicros();
+
+    /**
+     * Returns an upper bound on the 99th percentile time to parse and
+     * convert a buffer of lines
+     *
+     * @return the bound in microseconds
+     */
+    double getConvertP99Micros();
+}
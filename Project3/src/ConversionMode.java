@@ -0,0 +1,39 @@
+/**
+ * The ways DataConverter can convert a file.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public enum ConversionMode {
+
+    /**
+     * Use STREAM, or MAPPED for files at or above the mapping threshold
+     */
+    AUTO,
+
+    /**
+     * Convert on one thread, reading and writing in large blocks
+     */
+    STREAM,
+
+    /**
+     * Split the file into chunks and convert them on several threads
+     */
+    PARALLEL,
+
+    /**
+     * Convert on one thread, reading the file through memory-mapped windows
+     */
+    MAPPED,
+
+    /**
+     * Read, convert and write on separate threads joined by bounded queues
+     */
+    PIPELINE,
+
+    /**
+     * Convert on one thread, saving checkpoints so an interrupted run can resume
+     */
+    RESUMABLE
+}
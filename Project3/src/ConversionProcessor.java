@@ -0,0 +1,242 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Converts chunks of raw input into converted lines between an upstream
+ * publisher of byte arrays and one downstream subscriber. The chunks are
+ * UTF-8 text split anywhere, even inside a line or a character; lines are
+ * delivered without their newlines once complete, and the last line when
+ * the upstream completes.
+ *
+ * One chunk is requested from the upstream at a time, and only while the
+ * subscriber has asked for more lines than are already converted, so the
+ * subscriber's demand passes back to the upstream. The first invalid line
+ * ends the stream with an InvalidLineException after every line before it
+ * and cancels the upstream; an upstream error is passed on after the lines
+ * already converted, and a cancel is passed up.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionProcessor implements Flow.Processor<byte[], String> {
+
+    /**
+     * True to convert US lines to the other format
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Executor the signals are sent from
+     */
+    private final Executor executor;
+
+    /**
+     * Chunks received from the upstream and not yet converted
+     */
+    private final ConcurrentLinkedQueue<byte[]> chunks = new ConcurrentLinkedQueue<byte[]>();
+
+    /**
+     * Subscription to the upstream, once subscribed
+     */
+    private volatile Flow.Subscription upstream;
+
+    /**
+     * Subscription of the downstream subscriber, once subscribed
+     */
+    private volatile ChunkSubscription downstream;
+
+    /**
+     * Set once the upstream has completed
+     */
+    private volatile boolean upstreamDone;
+
+    /**
+     * Error the upstream ended with, if any
+     */
+    private volatile Throwable upstreamError;
+
+    /**
+     * Set while a chunk has been requested and not yet received
+     */
+    private volatile boolean requested;
+
+    /**
+     * Creates a processor signalling from the common pool
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     */
+    public ConversionProcessor(boolean convertToOtherFormat) {
+        this(convertToOtherFormat, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a processor
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param executor the executor to signal from
+     * @throws IllegalArgumentException if executor is null
+     */
+    public ConversionProcessor(boolean convertToOtherFormat, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Null executor");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts delivering lines to a subscriber. The processor converts one
+     * stream, so a second subscriber gets an IllegalStateException.
+     *
+     * @param subscriber the subscriber
+     * @throws NullPointerException if subscriber is null
+     */
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super String> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Null subscriber");
+        }
+        if (downstream != null) {
+            executor.execute(() -> {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Already subscribed"));
+            });
+            return;
+        }
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+        downstream = subscription;
+        subscription.start();
+    }
+
+    /**
+     * Accepts the upstream subscription; a second one is cancelled
+     *
+     * @param subscription the upstream subscription
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        wake();
+    }
+
+    /**
+     * Queues a chunk of input
+     *
+     * @param chunk the bytes of the chunk
+     */
+    @Override
+    public void onNext(byte[] chunk) {
+        chunks.add(chunk);
+        requested = false;
+        wake();
+    }
+
+    /**
+     * Notes that the upstream ended with an error
+     *
+     * @param error the error
+     */
+    @Override
+    public void onError(Throwable error) {
+        upstreamError = error;
+        upstreamDone = true;
+        wake();
+    }
+
+    /**
+     * Notes that the upstream has no more input
+     */
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        wake();
+    }
+
+    /**
+     * Runs the downstream drain task, if there is a downstream subscriber
+     */
+    private void wake() {
+        ChunkSubscription subscription = downstream;
+        if (subscription != null) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Subscription converting the upstream's chunks
+     */
+    private class ChunkSubscription extends ConversionSubscription {
+
+        /**
+         * Creates the subscription
+         *
+         * @param subscriber the subscriber
+         */
+        ChunkSubscription(Flow.Subscriber<? super String> subscriber) {
+            super(convertToOtherFormat, subscriber, executor);
+        }
+
+        /**
+         * Converts the next queued chunk or the end of the input, or asks
+         * the upstream for another chunk
+         *
+         * @return false if waiting for the upstream
+         */
+        @Override
+        protected boolean fill() {
+            byte[] chunk = chunks.poll();
+            if (chunk != null) {
+                convert(chunk, 0, chunk.length, false);
+                return true;
+            }
+            if (upstreamDone) {
+                // Chunks are queued before the upstream completes
+                chunk = chunks.poll();
+                if (chunk != null) {
+                    convert(chunk, 0, chunk.length, false);
+                } else if (upstreamError != null) {
+                    fail(upstreamError);
+                } else {
+                    convert(new byte[0], 0, 0, true);
+                }
+                return true;
+            }
+            Flow.Subscription subscription = upstream;
+            if (subscription != null && !requested) {
+                requested = true;
+                subscription.request(1);
+            }
+            return false;
+        }
+
+        /**
+         * Cancels the upstream
+         */
+        @Override
+        protected void onCancel() {
+            Flow.Subscription subscription = upstream;
+            if (subscription != null && !upstreamDone) {
+                subscription.cancel();
+            }
+        }
+    }
+}
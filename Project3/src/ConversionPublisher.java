@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the converted lines of an input stream to one subscriber,
+ * without their newlines. The stream is read as UTF-8, a block at a time,
+ * from the executor and only while the subscriber has asked for more lines
+ * than are already converted, so the subscriber's demand limits how far
+ * ahead of it the input is read. The stream is closed when the lines end,
+ * fail or are cancelled.
+ *
+ * The lines are exactly those DataConverter.processFile writes. The first
+ * invalid line ends the stream with an InvalidLineException naming it,
+ * after every line before it; an IOException reading the input ends it
+ * with that exception.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionPublisher implements Flow.Publisher<String> {
+
+    /**
+     * Size of each block read from the input
+     */
+    private static final int BLOCK_SIZE = 65536;
+
+    /**
+     * True to convert US lines to the other format
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Stream the lines are read from
+     */
+    private final InputStream input;
+
+    /**
+     * Executor the input is read and the signals are sent from
+     */
+    private final Executor executor;
+
+    /**
+     * Set once a subscriber has subscribed
+     */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Creates a publisher reading and signalling from the common pool
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param input the stream to read, closed when the lines end
+     * @throws IllegalArgumentException if input is null
+     */
+    public ConversionPublisher(boolean convertToOtherFormat, InputStream input) {
+        this(convertToOtherFormat, input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a publisher
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param input the stream to read, closed when the lines end
+     * @param executor the executor to read and signal from
+     * @throws IllegalArgumentException if input or executor is null
+     */
+    public ConversionPublisher(boolean convertToOtherFormat, InputStream input,
+                               Executor executor) {
+        if (input == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Null executor");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.input = input;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts delivering lines to a subscriber. The input can only be read
+     * once, so a second subscriber gets an IllegalStateException.
+     *
+     * @param subscriber the subscriber
+     * @throws NullPointerException if subscriber is null
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Null subscriber");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Already subscribed"));
+            });
+            return;
+        }
+        new StreamSubscription(subscriber).start();
+    }
+
+    /**
+     * Subscription reading the input stream
+     */
+    private class StreamSubscription extends ConversionSubscription {
+
+        /**
+         * Block the input is read into
+         */
+        private final byte[] block = new byte[BLOCK_SIZE];
+
+        /**
+         * Creates the subscription
+         *
+         * @param subscriber the subscriber
+         */
+        StreamSubscription(Flow.Subscriber<? super String> subscriber) {
+            super(convertToOtherFormat, subscriber, executor);
+        }
+
+        /**
+         * Reads and converts the next block, or the end of the input
+         *
+         * @return true, since reading never waits for a signal
+         * @throws IOException if the input cannot be read
+         */
+        @Override
+        protected boolean fill() throws IOException {
+            int read = input.read(block);
+            if (read < 0) {
+                input.close();
+                convert(block, 0, 0, true);
+            } else {
+                convert(block, 0, read, false);
+            }
+            return true;
+        }
+
+        /**
+         * Closes the input
+         */
+        @Override
+        protected void onCancel() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // Nothing more will be read
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * The outcome of converting one input: whether every line was valid,
+ * how many lines were converted, and where the first invalid line was.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionResult {
+
+    /**
+     * Number of lines converted successfully
+     */
+    private final long lineCount;
+
+    /**
+     * Line number (starting at 1) of the first invalid line, or 0 if none
+     */
+    private final long invalidLine;
+
+    /**
+     * Number of input bytes consumed
+     */
+    private final long bytesRead;
+
+    /**
+     * Number of output bytes produced
+     */
+    private final long bytesWritten;
+
+    /**
+     * Creates a result
+     *
+     * @param lineCount the number of lines converted successfully
+     * @param invalidLine the line number of the first invalid line, or 0 if none
+     * @param bytesRead the number of input bytes consumed
+     * @param bytesWritten the number of output bytes produced
+     */
+    public ConversionResult(long lineCount, long invalidLine, long bytesRead, long bytesWritten) {
+        this.lineCount = lineCount;
+        this.invalidLine = invalidLine;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+    }
+
+    /**
+     * Returns true if every line of the input was valid
+     *
+     * @return true if every line of the input was valid
+     */
+    public boolean isSuccess() {
+        return invalidLine == 0;
+    }
+
+    /**
+     * Returns the number of lines converted successfully
+     *
+     * @return the number of lines converted successfully
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the line number of the first invalid line
+     *
+     * @return the line number of the first invalid line, or 0 if every line was valid
+     */
+    public long getInvalidLine() {
+        return invalidLine;
+    }
+
+    /**
+     * Returns the number of input bytes consumed
+     *
+     * @return the number of input bytes consumed
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of output bytes produced
+     *
+     * @return the number of output bytes produced
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
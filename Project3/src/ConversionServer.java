@@ -0,0 +1,554 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-running converter that listens on a Unix domain socket, so that
+ * many small files can be converted by one warmed-up JVM instead of
+ * starting a new JVM for each file. ConversionClient is the other end.
+ *
+ * Each request names an input file. The server either reads the file
+ * itself, or reads the file's contents from the request, so the client
+ * and server do not need to share a file system view. The name is checked
+ * with the same rules as DataConverter.main and decides the direction of
+ * the conversion. The reply is the converted output followed by a status:
+ * success, the first invalid line, or an error message. The output is
+ * always what DataConverter.main would have written to the output file;
+ * after an error partway through, such as a truncated gzip body, that is
+ * only the lines converted before the error.
+ *
+ * Requests and replies carry file data in chunks, each an int length
+ * followed by that many bytes, ended by a zero length. A connection may
+ * send any number of requests in turn.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionServer implements AutoCloseable {
+
+    /**
+     * Usage message for server mode
+     */
+    public static final String USAGE = "Usage: java -cp DataConverter serve [--socket=PATH]";
+
+    /**
+     * Request type: the server reads the named file
+     */
+    static final byte REQUEST_PATH = 'P';
+
+    /**
+     * Request type: the file's contents follow the name in chunks
+     */
+    static final byte REQUEST_BODY = 'B';
+
+    /**
+     * Reply status: every line was converted
+     */
+    static final byte STATUS_OK = 'K';
+
+    /**
+     * Reply status: the output stops before the invalid line that follows
+     */
+    static final byte STATUS_INVALID = 'I';
+
+    /**
+     * Reply status: the conversion failed; an error message follows. Any
+     * output before it is what was converted before the error
+     */
+    static final byte STATUS_ERROR = 'E';
+
+    /**
+     * Size of the buffers that collect output into chunks
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Path of the socket file
+     */
+    private final Path socketPath;
+
+    /**
+     * Channel accepting connections
+     */
+    private final ServerSocketChannel server;
+
+    /**
+     * Runs one thread per connection
+     */
+    private final ExecutorService connections;
+
+    /**
+     * Options used for requests that name a file to read
+     */
+    private final ConverterOptions options = new ConverterOptions();
+
+    /**
+     * Creates a server bound to a socket file. A socket file left behind by
+     * a server that is no longer running is replaced.
+     *
+     * @param socketPath the path of the socket file
+     * @throws IOException if the socket cannot be bound, or another server
+     *                     is listening on it
+     * @throws IllegalArgumentException if socketPath is null
+     */
+    public ConversionServer(Path socketPath) throws IOException {
+        if (socketPath == null) {
+            throw new IllegalArgumentException("Null socket path");
+        }
+        this.socketPath = socketPath;
+        if (Files.exists(socketPath)) {
+            if (isListening(socketPath)) {
+                throw new IOException("Server already running on " + socketPath);
+            }
+            Files.delete(socketPath);
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        connections = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "conversion-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs server mode from the command line
+     *
+     * @param args the arguments after "serve"
+     */
+    public static void main(String[] args) {
+        Path socketPath = defaultSocketPath();
+        for (String arg : args) {
+            if (arg.startsWith("--socket=")) {
+                socketPath = Path.of(arg.substring("--socket=".length()));
+            } else {
+                System.out.println("Unknown option: " + arg);
+                System.out.println(USAGE);
+                return;
+            }
+        }
+        ConversionServer server;
+        try {
+            server = new ConversionServer(socketPath);
+        } catch (IOException e) {
+            System.out.println("Unable to start server: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Listening on " + socketPath);
+        server.serve();
+    }
+
+    /**
+     * Returns the socket path used when none is given: dataconverter.sock in
+     * the temporary directory
+     *
+     * @return the default socket path
+     */
+    public static Path defaultSocketPath() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "dataconverter.sock");
+    }
+
+    /**
+     * Returns true if a server is accepting connections on a socket file
+     *
+     * @param socketPath the path of the socket file
+     * @return true if a connection could be made
+     */
+    private static boolean isListening(Path socketPath) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    public void serve() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!server.isOpen()) {
+                    return;
+                }
+                continue;
+            }
+            connections.execute(() -> handleConnection(channel));
+        }
+    }
+
+    /**
+     * Stops accepting connections and removes the socket file. Requests
+     * already being handled are left to finish.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            // Nothing more can be done with the socket
+        }
+        connections.shutdown();
+    }
+
+    /**
+     * Handles requests on one connection until the client closes it
+     *
+     * @param channel the connection
+     */
+    private void handleConnection(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(channelInput(channel));
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(channelOutput(channel), CHUNK_SIZE));
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                handleRequest(type, in.readUTF(), in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to reply to
+        }
+    }
+
+    /**
+     * Converts one request and writes the reply
+     *
+     * @param type REQUEST_PATH or REQUEST_BODY
+     * @param name the path of the input file, or for a body just its name
+     * @param in the connection's input, positioned after the name
+     * @param out the connection's output
+     * @throws IOException if the connection fails
+     */
+    private void handleRequest(byte type, String name, DataInputStream in, DataOutputStream out)
+            throws IOException {
+        ChunkedInputStream body = type == REQUEST_BODY ? new ChunkedInputStream(in) : null;
+        try {
+            if (type != REQUEST_PATH && type != REQUEST_BODY) {
+                throw new IOException("Unknown request type " + type);
+            }
+            Path inPath = Path.of(name);
+            String inputFileName = inPath.getFileName() == null ? ""
+                                                                : inPath.getFileName().toString();
+            String nameProblem = DataConverter.checkInputFileName(inputFileName);
+            if (nameProblem != null) {
+                writeError(nameProblem, out);
+                return;
+            }
+            boolean convertToOtherFormat = DataConverter.isUSFileName(inputFileName);
+            if (body == null && (!Files.isReadable(inPath) || Files.isDirectory(inPath))) {
+                writeError("Unable to access input file: " + inPath, out);
+                return;
+            }
+
+            ChunkedOutputStream chunks = new ChunkedOutputStream(out);
+            OutputStream output = new BufferedOutputStream(chunks, CHUNK_SIZE);
+            ConversionResult result;
+            try {
+                result = body == null
+                    ? DataConverter.convertFile(options, convertToOtherFormat, inPath, output)
+                    : convertBody(convertToOtherFormat, inputFileName, body, output);
+                output.flush();
+            } catch (IOException e) {
+                output.flush();
+                chunks.finish();
+                out.writeByte(STATUS_ERROR);
+                out.writeUTF("Error converting file: " + e.getMessage());
+                return;
+            }
+            chunks.finish();
+            if (result.isSuccess()) {
+                out.writeByte(STATUS_OK);
+            } else {
+                out.writeByte(STATUS_INVALID);
+                out.writeLong(result.getInvalidLine());
+            }
+        } finally {
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * Converts a request body, decompressing it first if the file name
+     * says it is gzip compressed
+     *
+     * @param convertToOtherFormat true to convert to the other format
+     * @param inputFileName the name the client gave the body
+     * @param body the body
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the body cannot be read or the output cannot be written
+     */
+    static ConversionResult convertBody(boolean convertToOtherFormat, String inputFileName,
+                                        InputStream body, OutputStream output)
+            throws IOException {
+        if (!DataConverter.isGzipFileName(inputFileName)) {
+            return DataConverter.convertStream(convertToOtherFormat, body, output);
+        }
+        try (InputStream input = new ThreadedGzipInputStream(body)) {
+            return DataConverter.convertStream(convertToOtherFormat, input, output);
+        }
+    }
+
+    /**
+     * Writes a reply with no output and an error message, for a request
+     * that failed before anything was converted
+     *
+     * @param message the error message
+     * @param out the connection's output
+     * @throws IOException if the connection fails
+     */
+    private static void writeError(String message, DataOutputStream out) throws IOException {
+        out.writeInt(0);
+        out.writeByte(STATUS_ERROR);
+        out.writeUTF(message);
+    }
+
+    /**
+     * Returns a stream reading from a connection. Unlike the streams from
+     * java.nio.channels.Channels, which lock the whole channel, this one
+     * can be read while another thread writes to the connection.
+     *
+     * @param channel the connection
+     * @return a stream reading from the connection
+     */
+    static InputStream channelInput(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        };
+    }
+
+    /**
+     * Returns a stream writing to a connection that, like channelInput,
+     * can be used while another thread reads from the connection
+     *
+     * @param channel the connection
+     * @return a stream writing to the connection
+     */
+    static OutputStream channelOutput(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes each block written to it as one chunk. Closing or finishing the
+     * stream writes the zero length that ends the chunks but leaves the
+     * underlying stream open.
+     */
+    static class ChunkedOutputStream extends FilterOutputStream {
+
+        /**
+         * True once the end of the chunks has been written
+         */
+        private boolean finished;
+
+        /**
+         * Creates a chunked stream
+         *
+         * @param out the stream to write chunks to
+         */
+        ChunkedOutputStream(DataOutputStream out) {
+            super(out);
+        }
+
+        /**
+         * Writes one byte as a chunk of its own; callers should buffer
+         *
+         * @param b the byte to write
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        /**
+         * Writes a block as one chunk
+         *
+         * @param b the bytes to write
+         * @param off the index of the first byte to write
+         * @param len the number of bytes to write
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                ((DataOutputStream) out).writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        /**
+         * Writes the end of the chunks, once
+         *
+         * @throws IOException if the underlying stream fails
+         */
+        void finish() throws IOException {
+            if (!finished) {
+                finished = true;
+                ((DataOutputStream) out).writeInt(0);
+            }
+        }
+
+        /**
+         * Writes the end of the chunks without closing the underlying stream
+         *
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public void close() throws IOException {
+            finish();
+            flush();
+        }
+    }
+
+    /**
+     * Reads the bytes of a run of chunks as one stream. Closing the stream
+     * skips any chunks not yet read but leaves the underlying stream open.
+     */
+    static class ChunkedInputStream extends InputStream {
+
+        /**
+         * Stream the chunks are read from
+         */
+        private final DataInputStream in;
+
+        /**
+         * Bytes left in the current chunk
+         */
+        private int remaining;
+
+        /**
+         * True once the zero length that ends the chunks has been read
+         */
+        private boolean ended;
+
+        /**
+         * Creates a stream reading chunks
+         *
+         * @param in the stream to read chunks from
+         */
+        ChunkedInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads one byte
+         *
+         * @return the byte, or -1 at the end of the chunks
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        /**
+         * Reads bytes from the current chunk, moving to the next if needed
+         *
+         * @param b the array to read into
+         * @param off the index to read into
+         * @param len the largest number of bytes to read
+         * @return the number of bytes read, or -1 at the end of the chunks
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                if (ended) {
+                    return -1;
+                }
+                remaining = in.readInt();
+                if (remaining < 0) {
+                    throw new IOException("Invalid chunk length");
+                }
+                ended = remaining == 0;
+            }
+            int count = in.read(b, off, Math.min(len, remaining));
+            if (count < 0) {
+                throw new EOFException("Connection closed inside a chunk");
+            }
+            remaining -= count;
+            return count;
+        }
+
+        /**
+         * Skips to the end of the chunks. A ThreadedGzipInputStream closes
+         * the body while its thread may still be reading it, so this waits
+         * for that read.
+         *
+         * @throws IOException if the underlying stream fails
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            while (!ended || remaining > 0) {
+                if (remaining > 0) {
+                    in.skipNBytes(remaining);
+                    remaining = 0;
+                } else {
+                    remaining = in.readInt();
+                    if (remaining < 0) {
+                        throw new IOException("Invalid chunk length");
+                    }
+                    ended = remaining == 0;
+                }
+            }
+        }
+    }
+}
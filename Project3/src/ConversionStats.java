@@ -0,0 +1,273 @@
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics gathered while converting: minimum, maximum, mean and
+ * standard deviation of height, weight and temperature, and a histogram
+ * of birth years. Only converted lines are counted. Measurements are the
+ * converted values, in the output's units, before they are rounded to two
+ * decimal places.
+ *
+ * Accumulators filled from different parts of a file can be merged, so
+ * each chunk or converter thread can keep its own and the results can be
+ * combined at the end.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConversionStats {
+
+    /**
+     * Suffix added to the output file name to name its summary file
+     */
+    public static final String SUFFIX = ".stats.json";
+
+    /**
+     * First year counted in the histogram array; others go in a map
+     */
+    private static final int FIRST_YEAR = 1800;
+
+    /**
+     * Number of years counted in the histogram array
+     */
+    private static final int YEAR_SLOTS = 400;
+
+    /**
+     * True if the output is in the other format (metric units)
+     */
+    private final boolean otherFormat;
+
+    /**
+     * Heights of the converted lines
+     */
+    private final FieldStats height = new FieldStats();
+
+    /**
+     * Weights of the converted lines
+     */
+    private final FieldStats weight = new FieldStats();
+
+    /**
+     * Temperatures of the converted lines
+     */
+    private final FieldStats temperature = new FieldStats();
+
+    /**
+     * Number of lines born in each year from FIRST_YEAR
+     */
+    private final long[] yearCounts = new long[YEAR_SLOTS];
+
+    /**
+     * Number of lines born in years outside the array
+     */
+    private final TreeMap<Integer, Long> otherYearCounts = new TreeMap<Integer, Long>();
+
+    /**
+     * Number of lines whose birth year is not a whole number
+     */
+    private long unreadableYears;
+
+    /**
+     * Creates empty statistics
+     *
+     * @param otherFormat true if the output is in the other format, which
+     *                    sets the units named in the summary
+     */
+    public ConversionStats(boolean otherFormat) {
+        this.otherFormat = otherFormat;
+    }
+
+    /**
+     * Adds one converted line
+     *
+     * @param heightValue the converted height
+     * @param weightValue the converted weight
+     * @param temperatureValue the converted temperature
+     * @param data the bytes holding the line
+     * @param yearStart the index of the first byte of the birth year
+     * @param yearEnd the index after the last byte of the birth year
+     */
+    public void addRecord(double heightValue, double weightValue, double temperatureValue,
+                          byte[] data, int yearStart, int yearEnd) {
+        height.add(heightValue);
+        weight.add(weightValue);
+        temperature.add(temperatureValue);
+        int year = 0;
+        if (yearStart == yearEnd || yearEnd - yearStart > 9) {
+            unreadableYears++;
+            return;
+        }
+        for (int i = yearStart; i < yearEnd; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                unreadableYears++;
+                return;
+            }
+            year = year * 10 + digit;
+        }
+        int slot = year - FIRST_YEAR;
+        if (slot >= 0 && slot < YEAR_SLOTS) {
+            yearCounts[slot]++;
+        } else {
+            otherYearCounts.merge(year, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Adds everything another accumulator has counted
+     *
+     * @param other the statistics to merge into these
+     * @throws IllegalArgumentException if other is null
+     */
+    public void merge(ConversionStats other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Null stats");
+        }
+        height.merge(other.height);
+        weight.merge(other.weight);
+        temperature.merge(other.temperature);
+        for (int i = 0; i < YEAR_SLOTS; i++) {
+            yearCounts[i] += other.yearCounts[i];
+        }
+        for (Map.Entry<Integer, Long> entry : other.otherYearCounts.entrySet()) {
+            otherYearCounts.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+        unreadableYears += other.unreadableYears;
+    }
+
+    /**
+     * Returns the number of lines counted
+     *
+     * @return the number of lines
+     */
+    public long getCount() {
+        return height.getCount();
+    }
+
+    /**
+     * Returns the height statistics
+     *
+     * @return the height statistics
+     */
+    public FieldStats getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the weight statistics
+     *
+     * @return the weight statistics
+     */
+    public FieldStats getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the temperature statistics
+     *
+     * @return the temperature statistics
+     */
+    public FieldStats getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Returns the number of lines born in a year
+     *
+     * @param year the year
+     * @return the number of lines
+     */
+    public long getYearCount(int year) {
+        int slot = year - FIRST_YEAR;
+        if (slot >= 0 && slot < YEAR_SLOTS) {
+            return yearCounts[slot];
+        }
+        return otherYearCounts.getOrDefault(year, 0L);
+    }
+
+    /**
+     * Returns the number of lines whose birth year is not a whole number
+     *
+     * @return the number of lines
+     */
+    public long getUnreadableYears() {
+        return unreadableYears;
+    }
+
+    /**
+     * Returns the statistics as a JSON object. Years with no lines are left
+     * out of the histogram, statistics of an empty file are null, and so is
+     * any statistic that is not a finite number, such as the mean of a
+     * field holding NaN.
+     *
+     * @return the JSON text, ending in a newline
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"records\": ").append(getCount()).append(",\n");
+        json.append("  \"units\": {\"height\": \"").append(otherFormat ? "cm" : "in")
+            .append("\", \"weight\": \"").append(otherFormat ? "kg" : "lb")
+            .append("\", \"temperature\": \"").append(otherFormat ? "C" : "F").append("\"},\n");
+        appendField(json, "height", height);
+        appendField(json, "weight", weight);
+        appendField(json, "temperature", temperature);
+        json.append("  \"birthYears\": {");
+        TreeMap<Integer, Long> years = new TreeMap<Integer, Long>(otherYearCounts);
+        for (int i = 0; i < YEAR_SLOTS; i++) {
+            if (yearCounts[i] != 0) {
+                years.put(FIRST_YEAR + i, yearCounts[i]);
+            }
+        }
+        String separator = "";
+        for (Map.Entry<Integer, Long> entry : years.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ")
+                .append(entry.getValue());
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"unreadableBirthYears\": ").append(unreadableYears).append('\n');
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Appends one field's statistics to the JSON text
+     *
+     * @param json the JSON text
+     * @param name the name of the field
+     * @param stats the field's statistics
+     */
+    private static void appendField(StringBuilder json, String name, FieldStats stats) {
+        json.append("  \"").append(name).append("\": ");
+        if (stats.getCount() == 0) {
+            json.append("null,\n");
+            return;
+        }
+        json.append("{\"min\": ");
+        appendNumber(json, stats.getMin());
+        json.append(", \"max\": ");
+        appendNumber(json, stats.getMax());
+        json.append(", \"mean\": ");
+        appendNumber(json, stats.getMean());
+        json.append(", \"stddev\": ");
+        appendNumber(json, stats.getStandardDeviation());
+        json.append("},\n");
+    }
+
+    /**
+     * Appends a number to the JSON text, or null if it is not finite, since
+     * JSON has no NaN or Infinity
+     *
+     * @param json the JSON text
+     * @param value the number
+     */
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isFinite(value)) {
+            json.append(value);
+        } else {
+            json.append("null");
+        }
+    }
+}
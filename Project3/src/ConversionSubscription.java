@@ -0,0 +1,319 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A subscription delivering converted lines to one subscriber, the part
+ * ConversionPublisher and ConversionProcessor share. Input arrives as
+ * chunks of UTF-8 bytes split anywhere; a ConversionEngine converts every
+ * complete line, so the lines and the first invalid line are exactly
+ * those of the byte-level converters, and each line is delivered without
+ * its newline.
+ *
+ * Every signal to the subscriber is sent from a task on the executor, one
+ * task at a time, so request and cancel never block or call back into
+ * the subscriber on the caller's thread. Input is only read while there
+ * is unmet demand and no converted line is waiting, so a slow subscriber
+ * holds back the input. An invalid line ends the stream with an
+ * InvalidLineException once the lines before it are delivered.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public abstract class ConversionSubscription implements Flow.Subscription {
+
+    /**
+     * Initial size of the buffer holding input not yet converted
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    /**
+     * Subscriber the lines are delivered to
+     */
+    private final Flow.Subscriber<? super String> subscriber;
+
+    /**
+     * Executor the signals are sent from
+     */
+    private final Executor executor;
+
+    /**
+     * Converter of complete lines
+     */
+    private final ConversionEngine engine;
+
+    /**
+     * Input not yet converted, from start to end
+     */
+    private byte[] input = new byte[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Index of the first byte not yet converted
+     */
+    private int start;
+
+    /**
+     * Index after the last byte received
+     */
+    private int end;
+
+    /**
+     * Converted lines of the last chunk, newline separated
+     */
+    private final OutputBuffer converted = new OutputBuffer(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Converted lines waiting for demand
+     */
+    private final ArrayDeque<String> pending = new ArrayDeque<String>();
+
+    /**
+     * Number of lines requested and not yet delivered
+     */
+    private final AtomicLong demand = new AtomicLong();
+
+    /**
+     * Number of times the drain task was asked to run, so only one runs
+     */
+    private final AtomicInteger work = new AtomicInteger();
+
+    /**
+     * Set when the subscriber cancels
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Error to end the stream with once the pending lines are delivered
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Set once the input has ended and every line is converted
+     */
+    private boolean finished;
+
+    /**
+     * Set once onComplete or onError has been sent
+     */
+    private boolean terminated;
+
+    /**
+     * Creates a subscription
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param subscriber the subscriber to deliver lines to
+     * @param executor the executor to send signals from
+     */
+    protected ConversionSubscription(boolean convertToOtherFormat,
+                                     Flow.Subscriber<? super String> subscriber,
+                                     Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.engine = new ConversionEngine(convertToOtherFormat);
+    }
+
+    /**
+     * Sends onSubscribe to the subscriber from the executor
+     */
+    void start() {
+        work.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                subscriber.onSubscribe(this);
+            } catch (RuntimeException e) {
+                cancelled = true;
+            }
+            drainFrom(1);
+        });
+    }
+
+    /**
+     * Adds to the number of lines the subscriber wants
+     *
+     * @param n the number of lines; not positive ends the stream with an
+     *          IllegalArgumentException
+     */
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Invalid request: " + n));
+            return;
+        }
+        demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+        signal();
+    }
+
+    /**
+     * Stops delivering lines; the subscriber may still get lines already
+     * being delivered
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+        signal();
+    }
+
+    /**
+     * Returns true once the subscriber has cancelled
+     *
+     * @return true if cancelled
+     */
+    protected boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Ends the stream with an error once the lines already converted are delivered
+     *
+     * @param error the error
+     */
+    protected void fail(Throwable error) {
+        if (failure == null) {
+            failure = error;
+        }
+        signal();
+    }
+
+    /**
+     * Makes sure the drain task runs on the executor after this call
+     */
+    protected void signal() {
+        if (work.getAndIncrement() == 0) {
+            try {
+                executor.execute(() -> drainFrom(1));
+            } catch (RuntimeException e) {
+                // The executor refused the task; nothing more can be delivered
+                cancelled = true;
+                work.set(0);
+            }
+        }
+    }
+
+    /**
+     * Delivers lines while there is demand, reading more input as needed,
+     * and ends the stream when the input or an error says so
+     *
+     * @param missed the number of signals this run accounts for
+     */
+    private void drainFrom(int missed) {
+        do {
+            while (!terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    pending.clear();
+                    onCancel();
+                    break;
+                }
+                if (!pending.isEmpty()) {
+                    if (demand.get() == 0) {
+                        break;
+                    }
+                    demand.getAndUpdate(d -> d == Long.MAX_VALUE ? d : d - 1);
+                    deliver(pending.poll());
+                    continue;
+                }
+                Throwable error = failure;
+                if (error != null || finished) {
+                    terminated = true;
+                    if (error != null) {
+                        onCancel();
+                        subscriber.onError(error);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                    break;
+                }
+                if (demand.get() == 0) {
+                    break;
+                }
+                try {
+                    if (!fill()) {
+                        break;
+                    }
+                } catch (Exception e) {
+                    fail(e);
+                }
+            }
+            missed = work.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Sends one line, cancelling if the subscriber throws
+     *
+     * @param line the line
+     */
+    private void deliver(String line) {
+        try {
+            subscriber.onNext(line);
+        } catch (RuntimeException e) {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Converts the complete lines of a chunk of input, adding them to the
+     * lines waiting for demand. At the end of the input the last line is
+     * converted even without a newline and the stream is marked finished.
+     *
+     * @param chunk the bytes of the chunk
+     * @param offset the index of the first byte of the chunk
+     * @param length the number of bytes in the chunk
+     * @param endOfInput true if no more input follows
+     */
+    protected void convert(byte[] chunk, int offset, int length, boolean endOfInput) {
+        if (end + length > input.length) {
+            if (end - start + length > input.length) {
+                byte[] larger = new byte[Math.max(input.length * 2, end - start + length)];
+                System.arraycopy(input, start, larger, 0, end - start);
+                input = larger;
+            } else {
+                System.arraycopy(input, start, input, 0, end - start);
+            }
+            end -= start;
+            start = 0;
+        }
+        System.arraycopy(chunk, offset, input, end, length);
+        end += length;
+        converted.reset();
+        start = engine.convertLines(input, start, end, endOfInput, converted);
+        byte[] lines = converted.array();
+        int lineStart = 0;
+        for (int i = 0; i < converted.length(); i++) {
+            if (lines[i] == '\n') {
+                pending.add(new String(lines, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                lineStart = i + 1;
+            }
+        }
+        if (start < 0) {
+            fail(new InvalidLineException(engine.getInvalidLine()));
+        } else if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        if (endOfInput) {
+            finished = true;
+        }
+    }
+
+    /**
+     * Gets more input and converts it with convert. Called from the drain
+     * task only, when there is demand and no line is waiting.
+     *
+     * @return true if input was converted or the end or an error was
+     *         reached, false if the subscription must wait for a signal
+     * @throws Exception if the input cannot be read
+     */
+    protected abstract boolean fill() throws Exception;
+
+    /**
+     * Called from the drain task once when the stream stops early, after a
+     * cancel or an error, to release the input
+     */
+    protected abstract void onCancel();
+}
@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The command line options for DataConverter.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ConverterOptions {
+
+    /**
+     * Description of the options, printed after the usage line
+     */
+    public static final String OPTIONS_HELP =
+        "  --mode=auto|stream|parallel|mapped|pipeline|resumable\n" +
+        "                          how to convert the file (default auto)\n" +
+        "  --threads=N             worker threads for parallel and pipeline modes\n" +
+        "                          (default: all cores)\n" +
+        "  --map-threshold=BYTES   size at which auto mode maps the file (default 256 MB)\n" +
+        "  --checkpoint-interval=BYTES  input converted between checkpoints in resumable\n" +
+        "                          mode (default 256 MB)\n" +
+        "  --lenient               skip invalid lines, writing them to outfile.rejects\n" +
+        "  --max-rejects=N         stop once more than N lines are rejected (implies\n" +
+        "                          --lenient; default no limit)\n" +
+        "  --stats                 write statistics of the converted lines to\n" +
+        "                          outfile.stats.json\n" +
+        "  --outputs=LIST          write each record in every format listed, from one\n" +
+        "                          read of the input: us-csv, ot-csv, binary, jsonl,\n" +
+        "                          columnar (auto, stream or mapped mode only)\n" +
+        "  --schema=FILE           convert with the field and column layout in FILE\n" +
+        "                          instead of the built-in one (auto, stream or\n" +
+        "                          mapped mode only)\n" +
+        "  --metrics[=SECONDS]     print progress to standard error every SECONDS\n" +
+        "                          (default 1), register a JMX MBean, and report\n" +
+        "                          counts, latencies and, in pipeline mode, stage\n" +
+        "                          timings at the end\n" +
+        "  --sort[=BYTES]          sort the output by last name, then first name,\n" +
+        "                          spilling sorted runs to temporary files once\n" +
+        "                          BYTES are in use (default 64 MB; auto, stream or\n" +
+        "                          mapped mode only)\n" +
+        "  --index[=N]             write outfile.idx for the lookup command, with a\n" +
+        "                          fence every N names (default 128; uncompressed\n" +
+        "                          files in auto, stream or mapped mode only)";
+
+    /**
+     * Default file size at which AUTO mode maps the file instead of streaming it
+     */
+    public static final long DEFAULT_MAP_THRESHOLD = 256L << 20;
+
+    /**
+     * How to convert the file
+     */
+    private ConversionMode mode;
+
+    /**
+     * Number of worker threads
+     */
+    private int threads;
+
+    /**
+     * File size at which AUTO mode maps the file
+     */
+    private long mapThreshold;
+
+    /**
+     * Number of input bytes converted between checkpoints in RESUMABLE mode
+     */
+    private long checkpointInterval;
+
+    /**
+     * True to skip invalid lines instead of stopping at the first one
+     */
+    private boolean lenient;
+
+    /**
+     * Number of lines that may be rejected in lenient mode before stopping
+     */
+    private long maxRejects;
+
+    /**
+     * True to write statistics of the converted lines next to the output
+     */
+    private boolean stats;
+
+    /**
+     * Formats to write each record in, or empty to write converted CSV only
+     */
+    private final List<OutputFormat> outputFormats = new ArrayList<OutputFormat>();
+
+    /**
+     * File holding the schema to convert with, or null for the built-in conversion
+     */
+    private String schemaFile;
+
+    /**
+     * Seconds between progress lines, or 0 for no metrics
+     */
+    private int metricsInterval;
+
+    /**
+     * Memory budget in bytes for sorting the output, or 0 to leave it unsorted
+     */
+    private long sortMemory;
+
+    /**
+     * Number of names between fences of the sidecar index, or 0 for no index
+     */
+    private int indexInterval;
+
+    /**
+     * The file to convert
+     */
+    private String inputFile;
+
+    /**
+     * Creates options with default values
+     */
+    public ConverterOptions() {
+        mode = ConversionMode.AUTO;
+        threads = Runtime.getRuntime().availableProcessors();
+        mapThreshold = DEFAULT_MAP_THRESHOLD;
+        checkpointInterval = ResumableConverter.DEFAULT_CHECKPOINT_INTERVAL;
+        maxRejects = RejectFile.UNLIMITED;
+    }
+
+    /**
+     * Reads the options from the command line arguments
+     *
+     * @param args the command line arguments
+     * @return the options
+     * @throws IllegalArgumentException if an argument is not valid or the input
+     *                                  file is missing
+     */
+    public static ConverterOptions parse(String[] args) {
+        ConverterOptions options = new ConverterOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                if (options.inputFile != null) {
+                    throw new IllegalArgumentException("Only one input file is allowed");
+                }
+                options.inputFile = arg;
+            } else if (arg.startsWith("--mode=")) {
+                options.mode = parseMode(arg.substring("--mode=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                options.threads = (int) parsePositive(arg.substring("--threads=".length()), arg,
+                                                      Integer.MAX_VALUE);
+            } else if (arg.startsWith("--map-threshold=")) {
+                options.mapThreshold = parsePositive(arg.substring("--map-threshold=".length()), arg,
+                                                     Long.MAX_VALUE);
+            } else if (arg.startsWith("--checkpoint-interval=")) {
+                options.checkpointInterval = parsePositive(
+                    arg.substring("--checkpoint-interval=".length()), arg, Long.MAX_VALUE);
+            } else if (arg.equals("--lenient")) {
+                options.lenient = true;
+            } else if (arg.startsWith("--max-rejects=")) {
+                options.lenient = true;
+                options.maxRejects = parsePositive(arg.substring("--max-rejects=".length()), arg,
+                                                   Long.MAX_VALUE);
+            } else if (arg.equals("--stats")) {
+                options.stats = true;
+            } else if (arg.startsWith("--outputs=")) {
+                for (String name : arg.substring("--outputs=".length()).split(",")) {
+                    OutputFormat format = parseOutputFormat(name);
+                    if (!options.outputFormats.contains(format)) {
+                        options.outputFormats.add(format);
+                    }
+                }
+            } else if (arg.equals("--metrics")) {
+                options.metricsInterval = 1;
+            } else if (arg.startsWith("--metrics=")) {
+                options.metricsInterval = (int) parsePositive(arg.substring("--metrics=".length()),
+                                                              arg, Integer.MAX_VALUE);
+            } else if (arg.equals("--sort")) {
+                options.sortMemory = ExternalSortSink.DEFAULT_MEMORY;
+            } else if (arg.startsWith("--sort=")) {
+                options.sortMemory = parsePositive(arg.substring("--sort=".length()), arg,
+                                                   Long.MAX_VALUE);
+                if (options.sortMemory < ExternalSortSink.MIN_MEMORY) {
+                    throw new IllegalArgumentException("Invalid value: " + arg);
+                }
+            } else if (arg.equals("--index")) {
+                options.indexInterval = SidecarIndex.DEFAULT_INTERVAL;
+            } else if (arg.startsWith("--index=")) {
+                options.indexInterval = (int) parsePositive(arg.substring("--index=".length()),
+                                                            arg, Integer.MAX_VALUE);
+            } else if (arg.startsWith("--schema=")) {
+                options.schemaFile = arg.substring("--schema=".length());
+                if (options.schemaFile.isEmpty()) {
+                    throw new IllegalArgumentException("Missing schema file");
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (options.inputFile == null) {
+            throw new IllegalArgumentException("Missing input file");
+        }
+        if (options.lenient && options.mode != ConversionMode.AUTO
+            && options.mode != ConversionMode.STREAM && options.mode != ConversionMode.MAPPED) {
+            throw new IllegalArgumentException("Lenient mode needs auto, stream or mapped mode");
+        }
+        if (!options.outputFormats.isEmpty() && options.mode != ConversionMode.AUTO
+            && options.mode != ConversionMode.STREAM && options.mode != ConversionMode.MAPPED) {
+            throw new IllegalArgumentException("Output formats need auto, stream or mapped mode");
+        }
+        if (options.schemaFile != null && options.mode != ConversionMode.AUTO
+            && options.mode != ConversionMode.STREAM && options.mode != ConversionMode.MAPPED) {
+            throw new IllegalArgumentException("A schema needs auto, stream or mapped mode");
+        }
+        if (options.schemaFile != null
+            && (options.lenient || options.stats || !options.outputFormats.isEmpty())) {
+            throw new IllegalArgumentException(
+                "A schema cannot be used with --lenient, --stats or --outputs");
+        }
+        if (options.mode == ConversionMode.RESUMABLE
+            && DataConverter.isGzipFileName(options.inputFile)) {
+            throw new IllegalArgumentException("Resumable mode needs an uncompressed input file");
+        }
+        if (options.stats && options.mode == ConversionMode.RESUMABLE) {
+            throw new IllegalArgumentException("Statistics are not available in resumable mode");
+        }
+        if (options.sortMemory > 0 && options.mode != ConversionMode.AUTO
+            && options.mode != ConversionMode.STREAM && options.mode != ConversionMode.MAPPED) {
+            throw new IllegalArgumentException("Sorting needs auto, stream or mapped mode");
+        }
+        if (options.sortMemory > 0
+            && (options.schemaFile != null || !options.outputFormats.isEmpty())) {
+            throw new IllegalArgumentException("Sorting cannot be used with --schema or --outputs");
+        }
+        if (options.indexInterval > 0 && options.mode != ConversionMode.AUTO
+            && options.mode != ConversionMode.STREAM && options.mode != ConversionMode.MAPPED) {
+            throw new IllegalArgumentException("An index needs auto, stream or mapped mode");
+        }
+        if (options.indexInterval > 0
+            && (options.schemaFile != null || !options.outputFormats.isEmpty())) {
+            throw new IllegalArgumentException("An index cannot be used with --schema or --outputs");
+        }
+        if (options.indexInterval > 0 && DataConverter.isGzipFileName(options.inputFile)) {
+            throw new IllegalArgumentException("An index needs an uncompressed output file");
+        }
+        if (options.metricsInterval > 0 && options.mode == ConversionMode.RESUMABLE) {
+            throw new IllegalArgumentException("Metrics are not available in resumable mode");
+        }
+        return options;
+    }
+
+    /**
+     * Returns how to convert the file
+     *
+     * @return how to convert the file
+     */
+    public ConversionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of worker threads
+     *
+     * @return the number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the file size at which AUTO mode maps the file
+     *
+     * @return the file size at which AUTO mode maps the file
+     */
+    public long getMapThreshold() {
+        return mapThreshold;
+    }
+
+    /**
+     * Returns the number of input bytes converted between checkpoints in
+     * RESUMABLE mode
+     *
+     * @return the checkpoint interval in bytes
+     */
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Returns true if invalid lines are skipped instead of stopping the conversion
+     *
+     * @return true in lenient mode
+     */
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    /**
+     * Returns the number of lines that may be rejected in lenient mode
+     * before the conversion stops
+     *
+     * @return the error budget, or RejectFile.UNLIMITED
+     */
+    public long getMaxRejects() {
+        return maxRejects;
+    }
+
+    /**
+     * Returns true if statistics of the converted lines are written next to the output
+     *
+     * @return true if statistics are gathered
+     */
+    public boolean isStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the number of seconds between progress lines
+     *
+     * @return the interval, or 0 if no metrics are recorded
+     */
+    public int getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    /**
+     * Returns the memory budget for sorting the output
+     *
+     * @return the budget in bytes, or 0 if the output is not sorted
+     */
+    public long getSortMemory() {
+        return sortMemory;
+    }
+
+    /**
+     * Returns the number of names between fences of the sidecar index
+     *
+     * @return the interval, or 0 if no index is written
+     */
+    public int getIndexInterval() {
+        return indexInterval;
+    }
+
+    /**
+     * Returns the file holding the schema to convert with
+     *
+     * @return the schema file, or null for the built-in conversion
+     */
+    public String getSchemaFile() {
+        return schemaFile;
+    }
+
+    /**
+     * Returns the formats to write each record in
+     *
+     * @return the formats, or an empty list to write converted CSV the usual way
+     */
+    public List<OutputFormat> getOutputFormats() {
+        return Collections.unmodifiableList(outputFormats);
+    }
+
+    /**
+     * Returns the file to convert
+     *
+     * @return the file to convert
+     */
+    public String getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * Reads a conversion mode name
+     *
+     * @param name the name of the mode
+     * @return the mode
+     * @throws IllegalArgumentException if there is no mode with that name
+     */
+    private static ConversionMode parseMode(String name) {
+        for (ConversionMode mode : ConversionMode.values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + name);
+    }
+
+    /**
+     * Finds the output format with the given name, such as us-csv
+     *
+     * @param name the name of the format
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    private static OutputFormat parseOutputFormat(String name) {
+        for (OutputFormat format : OutputFormat.values()) {
+            if (format.name().replace('_', '-').equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+
+    /**
+     * Reads a positive whole number
+     *
+     * @param value the text of the number
+     * @param arg the whole argument, for the error message
+     * @param max the largest value allowed
+     * @return the number
+     * @throws IllegalArgumentException if the value is not a whole number from 1 to max
+     */
+    private static long parsePositive(String value, String arg, long max) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        if (number <= 0 || number > max) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        return number;
+    }
+}
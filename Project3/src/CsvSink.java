@@ -0,0 +1,52 @@
+import java.io.OutputStream;
+
+/**
+ * Writes records as CSV lines in either format. Written in the format a
+ * line is converted to, the output is byte-for-byte what the converter
+ * writes; written in the line's own format, the line comes out trimmed
+ * with its measurements rounded to two decimal places.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class CsvSink extends BufferedRecordSink {
+
+    /**
+     * True to write the US format, false for the other format
+     */
+    private final boolean usFormat;
+
+    /**
+     * Creates a CSV sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true to write the US format, false for the other format
+     * @throws IllegalArgumentException if output is null
+     */
+    public CsvSink(OutputStream output, boolean usFormat) {
+        super(output);
+        this.usFormat = usFormat;
+    }
+
+    /**
+     * Appends a record as a CSV line
+     *
+     * @param record the record
+     */
+    @Override
+    protected void append(PersonRecord record) {
+        record.appendField(LineConverter.LAST_NAME, buffer);
+        buffer.append(',');
+        record.appendField(LineConverter.FIRST_NAME, buffer);
+        buffer.append(',');
+        record.appendBirthDate(usFormat, buffer);
+        buffer.append(',');
+        TwoDecimalFormatter.append(record.getHeight(usFormat), buffer);
+        buffer.append(',');
+        TwoDecimalFormatter.append(record.getWeight(usFormat), buffer);
+        buffer.append(',');
+        TwoDecimalFormatter.append(record.getTemperature(usFormat), buffer);
+        buffer.append('\n');
+    }
+}
@@ -1,8 +1,20 @@
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -16,6 +28,11 @@ import java.util.Scanner;
  */
 public class DataConverter {
 
+    /**
+     * Extension of gzip compressed files, after the .csv extension
+     */
+    static final String GZIP_SUFFIX = ".gz";
+
     /**
      * Starts the program.
      * 
@@ -23,76 +40,815 @@ public class DataConverter {
      */
     public static void main(String[] args) {
 
-        if (args.length != 1) {
-            System.out.println("Usage: java -cp DataConverter infile");
+        if (args.length > 0 && args[0].equals("batch")) {
+            BatchConverter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            ConversionServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("http")) {
+            ConversionHttpServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("client")) {
+            ConversionClient.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("watch")) {
+            DropFolderWatcher.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("lookup")) {
+            SidecarIndex.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("generate")) {
+            DataGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bench")) {
+            ConversionBenchmark.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        ConverterOptions options;
+        try {
+            options = ConverterOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (args.length > 0) {
+                System.out.println(e.getMessage());
+            }
+            System.out.println("Usage: java -cp DataConverter [options] infile");
+            System.out.println(ConverterOptions.OPTIONS_HELP);
+            System.out.println(BatchConverter.USAGE);
+            System.out.println(ConversionServer.USAGE);
+            System.out.println(ConversionHttpServer.USAGE);
+            System.out.println(ConversionClient.USAGE);
+            System.out.println(DropFolderWatcher.USAGE);
+            System.out.println(SidecarIndex.USAGE);
+            System.out.println(DataGenerator.USAGE);
+            System.out.println(ConversionBenchmark.USAGE);
             return;
         }
         
-        Path inPath = Path.of(args[0]);
+        Path inPath = Path.of(options.getInputFile());
         String inputFileName = inPath.getFileName().toString();
         
-        if (inputFileName.length() < 4 || 
-            !inputFileName.toLowerCase().substring(inputFileName.length() - 4).equals(".csv")) {
-            System.out.println("Invalid input file extension");
+        String nameProblem = checkInputFileName(inputFileName);
+        if (nameProblem != null) {
+            System.out.println(nameProblem);
             return;
         }
         
-        if (inputFileName.length() < 3) {
-            System.out.println("Invalid input file prefix");
-            return;
+        SchemaConverter schema = null;
+        if (options.getSchemaFile() != null) {
+            try {
+                schema = RecordSchema.load(Path.of(options.getSchemaFile())).compile();
+            } catch (IOException e) {
+                System.out.println("Unable to read schema file: " + options.getSchemaFile());
+                return;
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
         }
-        String filePrefix = inputFileName.substring(0, 3);
-        if (!filePrefix.equals("US_") && !filePrefix.equals("OT_")) {
-            System.out.println("Invalid input file prefix");
-            return;
+        
+        boolean convertToOtherFormat = isUSFileName(inputFileName);
+        String directory = ".";
+        Path outPath = Path.of(directory, outputFileName(inputFileName));
+        
+        List<OutputFormat> formats = options.getOutputFormats();
+        List<Path> outPaths = new ArrayList<Path>();
+        if (formats.isEmpty()) {
+            outPaths.add(outPath);
+        }
+        for (OutputFormat format : formats) {
+            outPaths.add(outputPath(outPath, format));
         }
         
-        boolean convertToOtherFormat;
-        String outputPrefix;
-        if (filePrefix.equals("US_")) {
-            convertToOtherFormat = true;
-            outputPrefix = "OT_";
-        } else {
-            convertToOtherFormat = false;
-            outputPrefix = "US_";
+        boolean resumable = options.getMode() == ConversionMode.RESUMABLE;
+        // Only a checkpoint convert will use keeps the output; any other one truncates it
+        boolean resuming = resumable
+            && new ResumableConverter(convertToOtherFormat).canResume(inPath, outPath);
+        Scanner in = null;
+        for (Path path : outPaths) {
+            if (Files.exists(path) && !resuming) {
+                if (in == null) {
+                    in = new Scanner(System.in);
+                }
+                System.out.print(path.toString() + " exists - OK to overwrite (y,n)?: ");
+                String response = in.nextLine().trim();
+                if (!response.toLowerCase().substring(0, 1).equals("y")) {
+                    System.out.println("");
+                    return;
+                }
+            }
         }
         
-        String outputFileName = outputPrefix + inputFileName.substring(3);
-        String directory = ".";
-        Path outPath = Path.of(directory, outputFileName);
+        if (!Files.isReadable(inPath) || Files.isDirectory(inPath)) {
+            System.out.println("Unable to access input file: " + inPath.toString());
+            return;
+        }
         
-        if (Files.exists(outPath)) {
-            Scanner in = new Scanner(System.in);
-            System.out.print(outPath.toString() + " exists - OK to overwrite (y,n)?: ");
-            String response = in.nextLine().trim();
-            if (!response.toLowerCase().substring(0, 1).equals("y")) {
-                System.out.println("");
+        if (resumable) {
+            ResumableConverter converter =
+                new ResumableConverter(convertToOtherFormat, options.getCheckpointInterval());
+            ConversionResult result;
+            try {
+                result = converter.convert(inPath, outPath);
+            } catch (IOException e) {
+                System.out.println("Error converting file: " + e.getMessage());
                 return;
             }
+            if (converter.getResumedLineCount() > 0) {
+                System.err.println("Resumed after line " + converter.getResumedLineCount());
+            }
+            if (!result.isSuccess()) {
+                System.out.println("Invalid input file format");
+                System.err.println("First invalid line: " + result.getInvalidLine());
+            }
+            return;
         }
         
-        Scanner fileInput;
+        OutputStream fileOutput = null;
+        RecordSink sink = null;
         try {
-            fileInput = new Scanner(inPath.toFile());
-        } catch (FileNotFoundException e) {
-            System.out.println("Unable to access input file: " + inPath.toString());
+            if (options.getSortMemory() > 0 || options.getIndexInterval() > 0) {
+                sink = openSortedSink(options, outPath, !convertToOtherFormat,
+                                      isGzipFileName(inputFileName));
+            } else if (formats.isEmpty()) {
+                fileOutput = openOutput(outPath, isGzipFileName(inputFileName));
+            } else {
+                sink = openSinks(formats, outPaths, isGzipFileName(inputFileName));
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot create output file");
             return;
         }
+        Closeable output = sink != null ? sink : fileOutput;
+        
+        Path rejectPath = outPath.resolveSibling(outPath.getFileName() + RejectFile.SUFFIX);
+        OutputStream rejectOutput = null;
+        RejectFile rejects = null;
+        if (options.isLenient()) {
+            try {
+                rejectOutput = new BufferedOutputStream(Files.newOutputStream(rejectPath));
+            } catch (IOException e) {
+                if (sink != null) {
+                    abortQuietly(sink);
+                }
+                closeQuietly(output);
+                System.out.println("Cannot create reject file");
+                return;
+            }
+            rejects = new RejectFile(rejectOutput, options.getMaxRejects());
+        }
         
-        PrintWriter fileOutput;
+        ConversionStats stats = options.isStats() ? new ConversionStats(convertToOtherFormat) : null;
+        ConversionMetrics metrics = null;
+        ProgressReporter progress = null;
+        if (options.getMetricsInterval() > 0) {
+            metrics = new ConversionMetrics();
+            try {
+                metrics.setTotalBytes(Files.size(inPath));
+            } catch (IOException e) {
+                // Progress is shown without an estimate
+            }
+            try {
+                metrics.register();
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+            progress = new ProgressReporter(metrics, System.err,
+                                            options.getMetricsInterval() * 1000L);
+        }
+        ConversionResult result;
+        boolean finished = false;
         try {
-            fileOutput = new PrintWriter(new FileOutputStream(outPath.toFile()));
-        } catch (FileNotFoundException e) {
-            System.out.println("Cannot create output file");
+            if (sink != null) {
+                result = convertToSinks(options, convertToOtherFormat, inPath, sink, rejects, stats,
+                                        metrics);
+            } else if (schema != null) {
+                result = convertWithSchema(options, schema, inPath, fileOutput, metrics);
+            } else {
+                result = convertFile(options, convertToOtherFormat, inPath, fileOutput, rejects,
+                                     stats, metrics);
+            }
+            if (sink != null && !result.isSuccess()) {
+                sink.abort();
+            } else {
+                output.close();
+                finished = true;
+            }
+            if (rejectOutput != null) {
+                rejectOutput.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error converting file: " + e.getMessage());
             return;
+        } finally {
+            if (sink != null && !finished) {
+                // A failed conversion is not sorted, and its index would be unreadable
+                abortQuietly(sink);
+                if (options.getIndexInterval() > 0) {
+                    try {
+                        Files.deleteIfExists(SidecarIndex.indexPath(outPath));
+                    } catch (IOException e) {
+                        // The index is unfinished, so lookups reject it anyway
+                    }
+                }
+            }
+            closeQuietly(output);
+            if (rejectOutput != null) {
+                closeQuietly(rejectOutput);
+            }
+            if (metrics != null) {
+                progress.close();
+                System.err.println(metrics.report());
+                metrics.unregister();
+            }
+        }
+        
+        if (stats != null) {
+            Path statsPath = outPath.resolveSibling(outPath.getFileName() + ConversionStats.SUFFIX);
+            try {
+                Files.writeString(statsPath, stats.toJson(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.out.println("Cannot create statistics file");
+            }
         }
         
-        boolean success = processFile(convertToOtherFormat, fileInput, fileOutput);
-        fileOutput.close();
-        fileInput.close();
+        if (rejects != null) {
+            if (rejects.getRejectCount() == 0) {
+                try {
+                    Files.deleteIfExists(rejectPath);
+                } catch (IOException e) {
+                    // An empty reject file does no harm
+                }
+            } else if (rejects.isBudgetExceeded()) {
+                System.out.println("Too many invalid lines, see " + rejectPath);
+                System.err.println("Stopped at line: " + result.getInvalidLine());
+            } else {
+                System.out.println("Rejected lines: " + rejects.getRejectCount() + ", see "
+                                   + rejectPath);
+            }
+            return;
+        }
         
-        if (!success) {
+        if (!result.isSuccess()) {
             System.out.println("Invalid input file format");
+            System.err.println("First invalid line: " + result.getInvalidLine());
+        }
+    }
+
+    /**
+     * Checks an input file name against the extension and prefix rules: it
+     * must end in .csv, or .csv.gz for a compressed file, and start with
+     * US_ or OT_.
+     * 
+     * @param inputFileName the name of the input file, without any directory
+     * @return the message to show if the name breaks a rule, or null if the
+     *         name is valid
+     */
+    static String checkInputFileName(String inputFileName) {
+        String csvName = isGzipFileName(inputFileName)
+            ? inputFileName.substring(0, inputFileName.length() - GZIP_SUFFIX.length())
+            : inputFileName;
+        if (csvName.length() < 4 || 
+            !csvName.toLowerCase().substring(csvName.length() - 4).equals(".csv")) {
+            return "Invalid input file extension";
+        }
+        String filePrefix = inputFileName.substring(0, 3);
+        if (!filePrefix.equals("US_") && !filePrefix.equals("OT_")) {
+            return "Invalid input file prefix";
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if a valid input file name is for a US file, which is
+     * converted to the other format.
+     * 
+     * @param inputFileName a name that passes checkInputFileName
+     * @return true if the file is in the US format
+     */
+    static boolean isUSFileName(String inputFileName) {
+        return inputFileName.startsWith("US_");
+    }
+
+    /**
+     * Returns true if a file name is for a gzip compressed file
+     * 
+     * @param fileName the name of the file
+     * @return true if the name ends in .gz
+     */
+    static boolean isGzipFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Opens a file for reading, decompressing it on another thread if it is
+     * gzip compressed
+     * 
+     * @param inPath the file
+     * @return the stream of uncompressed bytes
+     * @throws IOException if the file cannot be opened
+     */
+    static InputStream openInput(Path inPath) throws IOException {
+        InputStream input = Files.newInputStream(inPath);
+        if (isGzipFileName(inPath.getFileName().toString())) {
+            return new ThreadedGzipInputStream(input);
+        }
+        return input;
+    }
+
+    /**
+     * Opens a file for writing, compressing on another thread if asked to
+     * 
+     * @param outPath the file
+     * @param gzip true to write it gzip compressed
+     * @return the stream to write uncompressed bytes to
+     * @throws IOException if the file cannot be created
+     */
+    static OutputStream openOutput(Path outPath, boolean gzip) throws IOException {
+        OutputStream output = Files.newOutputStream(outPath);
+        if (gzip) {
+            return new ThreadedGzipOutputStream(output);
+        }
+        return output;
+    }
+
+    /**
+     * Returns the output file name for a valid input file name: the same
+     * name with the other prefix, so a compressed input gives a compressed
+     * output.
+     * 
+     * @param inputFileName a name that passes checkInputFileName
+     * @return the name of the output file
+     */
+    static String outputFileName(String inputFileName) {
+        String outputPrefix = isUSFileName(inputFileName) ? "OT_" : "US_";
+        return outputPrefix + inputFileName.substring(3);
+    }
+
+    /**
+     * Converts the input file in the mode chosen on the command line. On a
+     * platform whose default charset is neither UTF-8 nor US-ASCII the
+     * file is read with a Scanner instead, since the byte-level converters
+     * read UTF-8; see readsBytes.
+     * 
+     * @param options the command line options
+     * @param convertToOtherFormat true to convert to the other format
+     * @param inPath the input file
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    static ConversionResult convertFile(ConverterOptions options, boolean convertToOtherFormat,
+                                        Path inPath, OutputStream output) throws IOException {
+        return convertFile(options, convertToOtherFormat, inPath, output, null, null, null);
+    }
+
+    /**
+     * Converts the input file in the mode chosen on the command line,
+     * skipping invalid lines if a reject handler is given and adding each
+     * converted line to the statistics if they are given. Lenient mode
+     * only works in the single-threaded modes: auto, stream and mapped.
+     * 
+     * A gzip compressed file is decompressed on its own thread as it is
+     * read. It cannot be mapped or split into chunks, so auto and mapped
+     * modes stream it and parallel mode pipelines it.
+     * 
+     * @param options the command line options
+     * @param convertToOtherFormat true to convert to the other format
+     * @param inPath the input file
+     * @param output the stream to write converted lines to
+     * @param rejects the handler for invalid lines, or null to stop at the first one
+     * @param stats the statistics to add converted lines to, or null
+     * @param metrics the metrics to record the conversion in, or null; the
+     *                Scanner used when readsBytes is false records none
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output or
+     *                     rejected lines cannot be written
+     */
+    static ConversionResult convertFile(ConverterOptions options, boolean convertToOtherFormat,
+                                        Path inPath, OutputStream output, RejectHandler rejects,
+                                        ConversionStats stats, ConversionMetrics metrics)
+            throws IOException {
+        if (!readsBytes()) {
+            if ((options.getMode() != ConversionMode.AUTO
+                 && options.getMode() != ConversionMode.STREAM) || metrics != null) {
+                warnScanner(options.getMode());
+            }
+            try (InputStream input = openInput(inPath)) {
+                ConversionResult result = convertWithScanner(convertToOtherFormat, input, output,
+                                                             rejects, stats, null);
+                return new ConversionResult(result.getLineCount(), result.getInvalidLine(),
+                                            Files.size(inPath), 0);
+            }
+        }
+        ConversionMode mode = options.getMode();
+        if (mode == ConversionMode.AUTO) {
+            mode = Files.size(inPath) >= options.getMapThreshold() ? ConversionMode.MAPPED
+                                                                   : ConversionMode.STREAM;
+        }
+        if (isGzipFileName(inPath.getFileName().toString())) {
+            if (mode == ConversionMode.PARALLEL) {
+                mode = ConversionMode.PIPELINE;
+            } else if (mode != ConversionMode.PIPELINE) {
+                mode = ConversionMode.STREAM;
+            }
+        }
+        switch (mode) {
+            case PARALLEL:
+                ParallelConverter parallel =
+                    new ParallelConverter(convertToOtherFormat, options.getThreads());
+                parallel.setStats(stats);
+                parallel.setMetrics(metrics);
+                return parallel.convert(inPath, output);
+            case PIPELINE:
+                try (InputStream input = openInput(inPath)) {
+                    PipelinedConverter pipeline =
+                        new PipelinedConverter(convertToOtherFormat, options.getThreads());
+                    pipeline.setConversionStats(stats);
+                    pipeline.setMetrics(metrics);
+                    ConversionResult result = pipeline.convert(input, output);
+                    if (metrics != null) {
+                        // Stage timings only for a run that asked for metrics
+                        System.err.println(pipeline.getStats());
+                    }
+                    return result;
+                }
+            case MAPPED:
+                try (FileChannel channel = FileChannel.open(inPath, StandardOpenOption.READ)) {
+                    ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+                    engine.setRejectHandler(rejects);
+                    engine.setStats(stats);
+                    engine.setMetrics(metrics);
+                    return engine.convert(new MappedInputStream(channel), output);
+                }
+            default:
+                try (InputStream input = openInput(inPath)) {
+                    ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+                    engine.setRejectHandler(rejects);
+                    engine.setStats(stats);
+                    engine.setMetrics(metrics);
+                    return engine.convert(input, output);
+                }
+        }
+    }
+
+    /**
+     * Converts the input file with a compiled schema instead of the
+     * built-in conversion, stopping at the first invalid line. Mapped
+     * mode, or auto mode for an uncompressed file at or above the mapping
+     * threshold, reads the file through memory-mapped windows; otherwise
+     * it is streamed.
+     * 
+     * @param options the command line options
+     * @param schema the schema's converter
+     * @param inPath the input file
+     * @param output the stream to write converted lines to
+     * @param metrics the metrics to record the conversion in, or null
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    static ConversionResult convertWithSchema(ConverterOptions options, SchemaConverter schema,
+                                              Path inPath, OutputStream output,
+                                              ConversionMetrics metrics) throws IOException {
+        boolean convertToOtherFormat = isUSFileName(inPath.getFileName().toString());
+        if (!readsBytes()) {
+            if (options.getMode() == ConversionMode.MAPPED || metrics != null) {
+                warnScanner(options.getMode());
+            }
+            try (InputStream input = openInput(inPath)) {
+                ConversionResult result = convertWithScanner(convertToOtherFormat, input, output,
+                                                             null, null, schema);
+                return new ConversionResult(result.getLineCount(), result.getInvalidLine(),
+                                            Files.size(inPath), 0);
+            }
+        }
+        ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+        engine.setSchema(schema);
+        engine.setMetrics(metrics);
+        boolean mapped = options.getMode() == ConversionMode.MAPPED
+            || (options.getMode() == ConversionMode.AUTO
+                && Files.size(inPath) >= options.getMapThreshold());
+        if (mapped && !isGzipFileName(inPath.getFileName().toString())) {
+            try (FileChannel channel = FileChannel.open(inPath, StandardOpenOption.READ)) {
+                return engine.convert(new MappedInputStream(channel), output);
+            }
+        }
+        try (InputStream input = openInput(inPath)) {
+            return engine.convert(input, output);
+        }
+    }
+
+    /**
+     * Reads the input file once and writes each valid record to a sink,
+     * which may fan out to several formats or sort the records. Records are read as UTF-8 on
+     * every platform. Mapped mode, or auto mode for a file at or above the
+     * mapping threshold, reads the file through memory-mapped windows;
+     * otherwise it is streamed.
+     * 
+     * @param options the command line options
+     * @param convertToOtherFormat true if the input is in the US format
+     * @param inPath the input file
+     * @param sink the sink to write records to, which is not closed
+     * @param rejects the handler for invalid lines, or null to stop at the first one
+     * @param stats the statistics to add records to, or null
+     * @param metrics the metrics to record the conversion in, or null;
+     *                records written to the sink count no bytes out
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or a record or
+     *                     rejected line cannot be written
+     */
+    static ConversionResult convertToSinks(ConverterOptions options, boolean convertToOtherFormat,
+                                           Path inPath, RecordSink sink, RejectHandler rejects,
+                                           ConversionStats stats, ConversionMetrics metrics)
+            throws IOException {
+        ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+        engine.setRejectHandler(rejects);
+        engine.setStats(stats);
+        engine.setMetrics(metrics);
+        boolean mapped = !isGzipFileName(inPath.getFileName().toString())
+            && (options.getMode() == ConversionMode.MAPPED
+                || (options.getMode() == ConversionMode.AUTO
+                    && Files.size(inPath) >= options.getMapThreshold()));
+        if (mapped) {
+            try (FileChannel channel = FileChannel.open(inPath, StandardOpenOption.READ)) {
+                return engine.convertToSink(new MappedInputStream(channel), sink);
+            }
+        }
+        try (InputStream input = openInput(inPath)) {
+            return engine.convertToSink(input, sink);
+        }
+    }
+
+    /**
+     * Returns the file an output format is written to. CSV in the format
+     * the input is converted to goes to the usual output file; the other
+     * formats take its name with a different extension, such as
+     * OT_data.bin, OT_data.jsonl or OT_data.us.csv, and keep a .gz suffix.
+     * Columnar files, OT_data.cols, are read by seeking, so are never
+     * compressed.
+     * 
+     * @param outPath the usual output file
+     * @param format the output format
+     * @return the file to write the format to
+     */
+    static Path outputPath(Path outPath, OutputFormat format) {
+        String name = outPath.getFileName().toString();
+        boolean usOutput = isUSFileName(name);
+        if ((format == OutputFormat.US_CSV && usOutput)
+            || (format == OutputFormat.OT_CSV && !usOutput)) {
+            return outPath;
+        }
+        String suffix = isGzipFileName(name) ? GZIP_SUFFIX : "";
+        String stem = name.substring(0, name.length() - suffix.length() - ".csv".length());
+        String extension;
+        switch (format) {
+            case US_CSV:
+                extension = ".us.csv";
+                break;
+            case OT_CSV:
+                extension = ".ot.csv";
+                break;
+            case BINARY:
+                extension = ".bin";
+                break;
+            case COLUMNAR:
+                return outPath.resolveSibling(stem + ".cols");
+            default:
+                extension = ".jsonl";
+                break;
+        }
+        return outPath.resolveSibling(stem + extension + suffix);
+    }
+
+    /**
+     * Opens a sink writing the usual CSV output sorted, indexed, or both,
+     * as the options ask. A sorted file gets a sparse index, since it is in
+     * name order already; an unsorted one gets a dense index, whose entries
+     * are sorted within the sort's memory budget or the default one.
+     * 
+     * @param options the command line options
+     * @param outPath the usual output file
+     * @param usFormat true for the US date format and units
+     * @param gzip true to compress the output
+     * @return the sink
+     * @throws IOException if a file cannot be created; any already opened are closed
+     */
+    static RecordSink openSortedSink(ConverterOptions options, Path outPath, boolean usFormat,
+                                     boolean gzip) throws IOException {
+        OutputStream stream = openOutput(outPath, gzip);
+        boolean sorted = options.getSortMemory() > 0;
+        long memory = sorted ? options.getSortMemory() : ExternalSortSink.DEFAULT_MEMORY;
+        SidecarIndex.Writer index = null;
+        try {
+            if (options.getIndexInterval() > 0) {
+                index = new SidecarIndex.Writer(openOutput(SidecarIndex.indexPath(outPath), false),
+                                                sorted, options.getIndexInterval());
+            }
+            if (!sorted) {
+                return new IndexedCsvSink(stream, usFormat, index, memory, options.getThreads(),
+                                          null);
+            }
+            ExternalSortSink sink = new ExternalSortSink(stream, usFormat, memory,
+                                                         options.getThreads(), null);
+            sink.setIndex(index);
+            return sink;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(stream);
+            if (index != null) {
+                closeQuietly(index);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a sink for each output format, fanning out to all of them.
+     * Binary, JSON lines and columnar records use the date format and units of the
+     * usual output.
+     * 
+     * @param formats the output formats
+     * @param outPaths the file for each format
+     * @param gzip true to compress every file but a columnar one
+     * @return the sink
+     * @throws IOException if a file cannot be created; any already opened are closed
+     */
+    static RecordSink openSinks(List<OutputFormat> formats, List<Path> outPaths, boolean gzip)
+            throws IOException {
+        List<RecordSink> sinks = new ArrayList<RecordSink>();
+        try {
+            for (int i = 0; i < formats.size(); i++) {
+                Path path = outPaths.get(i);
+                OutputFormat format = formats.get(i);
+                OutputStream stream = openOutput(path, gzip && format != OutputFormat.COLUMNAR);
+                boolean usOutput = isUSFileName(path.getFileName().toString());
+                switch (format) {
+                    case US_CSV:
+                        sinks.add(new CsvSink(stream, true));
+                        break;
+                    case OT_CSV:
+                        sinks.add(new CsvSink(stream, false));
+                        break;
+                    case BINARY:
+                        sinks.add(new BinaryRowSink(stream, usOutput));
+                        break;
+                    case COLUMNAR:
+                        sinks.add(new ColumnarSink(stream, usOutput));
+                        break;
+                    default:
+                        sinks.add(new JsonLinesSink(stream, usOutput));
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            for (RecordSink sink : sinks) {
+                closeQuietly(sink);
+            }
+            throw e;
+        }
+        return sinks.size() == 1 ? sinks.get(0) : new FanOutSink(sinks);
+    }
+
+    /**
+     * Returns true if the byte-level converters, which read and write
+     * UTF-8, can stand in for a Scanner in the platform's default charset.
+     * They can for UTF-8, and for US-ASCII, the default of the POSIX
+     * locale most containers run in: there the two agree on ASCII input,
+     * and a Scanner could only turn other bytes into question marks. Any
+     * other charset decodes bytes above 127 differently, so conversion
+     * falls back to a Scanner on one thread.
+     * 
+     * @return true if files can be converted as UTF-8 bytes
+     */
+    static boolean readsBytes() {
+        Charset charset = Charset.defaultCharset();
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Warns that a mode, or the metrics, cannot be used because the file is
+     * read with a Scanner in the default charset
+     * 
+     * @param mode the mode chosen on the command line
+     */
+    static void warnScanner(ConversionMode mode) {
+        System.err.println("Default charset " + Charset.defaultCharset() + " is not UTF-8: "
+                           + "converting with a Scanner on one thread, without metrics, instead"
+                           + " of in " + mode.name().toLowerCase() + " mode");
+    }
+
+    /**
+     * Converts a stream the same way as convertFile converts a file in
+     * stream mode. The input stream is read to the first invalid line or
+     * its end and is not closed.
+     * 
+     * @param convertToOtherFormat true to convert to the other format
+     * @param input the stream to read lines from
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    static ConversionResult convertStream(boolean convertToOtherFormat, InputStream input,
+                                          OutputStream output) throws IOException {
+        if (!readsBytes()) {
+            return convertWithScanner(convertToOtherFormat, input, output, null, null, null);
+        }
+        return new ConversionEngine(convertToOtherFormat).convert(input, output);
+    }
+
+    /**
+     * Converts a stream with a Scanner and PrintWriter, the same way as
+     * processFile, in the platform's default charset. The result does not
+     * count bytes read or written.
+     * 
+     * @param convertToOtherFormat true to convert to the other format
+     * @param inputStream the stream to read lines from
+     * @param output the stream to write converted lines to
+     * @param rejects the handler for invalid lines, or null to stop at the first one
+     * @param stats the statistics to add converted lines to, or null
+     * @param schema the schema to convert with, or null for the built-in conversion
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or rejected lines cannot be written
+     */
+    private static ConversionResult convertWithScanner(boolean convertToOtherFormat,
+                                                       InputStream inputStream,
+                                                       OutputStream output,
+                                                       RejectHandler rejects,
+                                                       ConversionStats stats,
+                                                       SchemaConverter schema) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, Charset.defaultCharset()));
+        long lineCount = 0;
+        long rejectedCount = 0;
+        long invalidLine = 0;
+        LineConverter converter = new LineConverter(convertToOtherFormat);
+        converter.setStats(stats);
+        OutputBuffer convertedLine = new OutputBuffer(256);
+        Scanner input = new Scanner(inputStream, Charset.defaultCharset());
+        while (input.hasNextLine()) {
+            String line = input.nextLine();
+            byte[] utf8 = line.getBytes(StandardCharsets.UTF_8);
+            convertedLine.reset();
+            if (schema != null ? schema.convert(utf8, 0, utf8.length, convertedLine)
+                               : converter.convert(utf8, 0, utf8.length, convertedLine)) {
+                writer.print(convertedLine + "\n");
+                lineCount++;
+                continue;
+            }
+            long lineNumber = lineCount + rejectedCount + 1;
+            if (rejects == null || schema != null) {
+                invalidLine = lineNumber;
+                break;
+            }
+            byte[] bytes = line.getBytes(Charset.defaultCharset());
+            RejectReason reason = converter.diagnose(bytes, 0, bytes.length);
+            try {
+                if (!rejects.reject(lineNumber, reason, bytes, 0, bytes.length)) {
+                    invalidLine = lineNumber;
+                    break;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rejectedCount++;
+        }
+        if (input.ioException() != null) {
+            throw input.ioException();
+        }
+        writer.flush();
+        return new ConversionResult(lineCount, invalidLine, 0, 0);
+    }
+
+    /**
+     * Closes a stream, ignoring any error since there is nothing left to do with it.
+     * 
+     * @param stream the stream to close
+     */
+    private static void closeQuietly(Closeable stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Nothing more can be done with the stream
+        }
+    }
+
+    /**
+     * Aborts a sink after a failed conversion, ignoring any error since
+     * the conversion has failed already
+     * 
+     * @param sink the sink to abort
+     */
+    private static void abortQuietly(RecordSink sink) {
+        try {
+            sink.abort();
+        } catch (IOException e) {
+            // Nothing more can be done with the sink
         }
     }
 
@@ -217,58 +973,7 @@ public class DataConverter {
      *                                  is null.
      */
     public static String convertLineToOtherFormat(String line) {
-        if (line == null) {
-            throw new IllegalArgumentException("Null line");
-        }
-        
-        int commaPosition1 = line.indexOf(",");
-        if (commaPosition1 == -1) return null;
-        String lastName = line.substring(0, commaPosition1).trim();
-        
-        int commaPosition2 = line.indexOf(",", commaPosition1 + 1);
-        if (commaPosition2 == -1) return null;
-        String firstName = line.substring(commaPosition1 + 1, commaPosition2).trim();
-        
-        int commaPosition3 = line.indexOf(",", commaPosition2 + 1);
-        if (commaPosition3 == -1) return null;
-        String usDate = line.substring(commaPosition2 + 1, commaPosition3).trim();
-        
-        int commaPosition4 = line.indexOf(",", commaPosition3 + 1);
-        if (commaPosition4 == -1) return null;
-        String heightStr = line.substring(commaPosition3 + 1, commaPosition4).trim();
-        
-        int commaPosition5 = line.indexOf(",", commaPosition4 + 1);
-        if (commaPosition5 == -1) return null;
-        String weightStr = line.substring(commaPosition4 + 1, commaPosition5).trim();
-        
-        int commaPosition6 = line.indexOf(",", commaPosition5 + 1);
-        if (commaPosition6 != -1) return null;
-        String tempStr = line.substring(commaPosition5 + 1).trim();
-        
-        String otherDate = convertUSDateToOtherDate(usDate);
-        if (otherDate == null) return null;
-        
-        double heightInches;
-        double weightPounds;
-        double tempFahrenheit;
-        try {
-            heightInches = Double.parseDouble(heightStr);
-            weightPounds = Double.parseDouble(weightStr);
-            tempFahrenheit = Double.parseDouble(tempStr);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-        if (heightInches < 0 || weightPounds < 0 || tempFahrenheit < 32.0) return null;
-        
-        double heightCm = heightInches * 2.54;
-        double weightKg = weightPounds * 0.454;
-        double tempCelsius = (tempFahrenheit - 32.0) / 1.8;
-        
-        String formattedHeight = String.format("%.2f", heightCm);
-        String formattedWeight = String.format("%.2f", weightKg);
-        String formattedTemp = String.format("%.2f", tempCelsius);
-        return lastName + "," + firstName + "," + otherDate + "," +
-               formattedHeight + "," + formattedWeight + "," + formattedTemp;
+        return LineConverter.convertLine(true, line);
     }
 
     /**
@@ -285,53 +990,6 @@ public class DataConverter {
      *                                  is null.
      */
     public static String convertLineToUSFormat(String line) {
-        if (line == null) throw new IllegalArgumentException("Null line");
-        
-        int commaPosition1 = line.indexOf(",");
-        if (commaPosition1 == -1) return null;
-        String lastName = line.substring(0, commaPosition1).trim();
-        
-        int commaPosition2 = line.indexOf(",", commaPosition1 + 1);
-        if (commaPosition2 == -1) return null;
-        String firstName = line.substring(commaPosition1 + 1, commaPosition2).trim();
-        
-        int commaPosition3 = line.indexOf(",", commaPosition2 + 1);
-        if (commaPosition3 == -1) return null;
-        String otherDate = line.substring(commaPosition2 + 1, commaPosition3).trim();
-        
-        int commaPosition4 = line.indexOf(",", commaPosition3 + 1);
-        if (commaPosition4 == -1) return null;
-        String heightStr = line.substring(commaPosition3 + 1, commaPosition4).trim();
-        
-        int commaPosition5 = line.indexOf(",", commaPosition4 + 1);
-        if (commaPosition5 == -1) return null;
-        String weightStr = line.substring(commaPosition4 + 1, commaPosition5).trim();
-        
-        int commaPosition6 = line.indexOf(",", commaPosition5 + 1);
-        if (commaPosition6 != -1) return null;
-        String tempStr = line.substring(commaPosition5 + 1).trim();
-        
-        String usDate = convertOtherDateToUSDate(otherDate);
-        if (usDate == null) return null;
-        
-        double heightCm, weightKg, tempCelsius;
-        try {
-            heightCm = Double.parseDouble(heightStr);
-            weightKg = Double.parseDouble(weightStr);
-            tempCelsius = Double.parseDouble(tempStr);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-        if (heightCm < 0 || weightKg < 0 || tempCelsius < 0) return null;
-        
-        double heightInches = heightCm / 2.54;
-        double weightPounds = weightKg / 0.454;
-        double tempFahrenheit = (tempCelsius * 1.8) + 32;
-        
-        String formattedHeight = String.format("%.2f", heightInches);
-        String formattedWeight = String.format("%.2f", weightPounds);
-        String formattedTemp = String.format("%.2f", tempFahrenheit);
-        return lastName + "," + firstName + "," + usDate + "," +
-               formattedHeight + "," + formattedWeight + "," + formattedTemp;
+        return LineConverter.convertLine(false, line);
     }
 }
\ No newline at end of file
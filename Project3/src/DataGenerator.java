@@ -0,0 +1,424 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic US_ or OT_ files of any size, for reproducing
+ * performance problems that the small files in test-files cannot. The
+ * same seed always gives the same bytes.
+ *
+ * Names are drawn from pools built from syllables, a few of them common
+ * and most of them rare, with lengths, spaces, hyphens, apostrophes and
+ * accented letters in roughly the proportions of real names. Birth dates
+ * cluster around the 1970s, and heights, weights and temperatures are
+ * spread around typical adult values, all inside the ranges LineConverter
+ * accepts. A chosen fraction of the lines are broken in one of the ways
+ * LineConverter rejects.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class DataGenerator {
+
+    /**
+     * Usage message for generate mode
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter generate [--seed=N] [--invalid=FRACTION] SIZE outfile";
+
+    /**
+     * Seed used when none is given
+     */
+    public static final long DEFAULT_SEED = 20261018L;
+
+    /**
+     * Number of last names in the pool
+     */
+    private static final int LAST_NAMES = 20000;
+
+    /**
+     * Number of first names in the pool
+     */
+    private static final int FIRST_NAMES = 4000;
+
+    /**
+     * Syllables names are built from
+     */
+    private static final String[] SYLLABLES = {
+        "an", "bel", "car", "da", "el", "fer", "gar", "han", "is", "jo", "ka", "lin", "mar",
+        "nel", "o", "per", "quin", "ro", "san", "ter", "u", "val", "wil", "xi", "ya", "zo",
+        "ber", "chen", "dor", "ez", "son", "ton", "ley", "man", "ri", "ssa", "th", "ward"
+    };
+
+    /**
+     * Accented syllables, used now and then
+     */
+    private static final String[] ACCENTED = {"m\u00fcl", "jos\u00e9", "\u00e5", "\u00f8r",
+                                              "n\u00e9", "\u00e7a", "\u0161i"};
+
+    /**
+     * Lengths of the months of a common year
+     */
+    private static final int[] MONTH_DAYS = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * Size of the buffer lines are collected in before being written
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Source of every choice
+     */
+    private final SplittableRandom random;
+
+    /**
+     * True to write US lines, false to write lines in the other format
+     */
+    private final boolean usFormat;
+
+    /**
+     * Fraction of lines written invalid
+     */
+    private final double invalidFraction;
+
+    /**
+     * Last names as UTF-8
+     */
+    private final byte[][] lastNames = new byte[LAST_NAMES][];
+
+    /**
+     * First names as UTF-8
+     */
+    private final byte[][] firstNames = new byte[FIRST_NAMES][];
+
+    /**
+     * Creates a generator
+     *
+     * @param seed the seed; the same seed gives the same lines
+     * @param usFormat true to write US lines, false to write lines in the other format
+     * @param invalidFraction the fraction of lines to write invalid, from 0 to 1
+     * @throws IllegalArgumentException if invalidFraction is out of range
+     */
+    public DataGenerator(long seed, boolean usFormat, double invalidFraction) {
+        if (!(invalidFraction >= 0 && invalidFraction <= 1)) {
+            throw new IllegalArgumentException("Invalid value: " + invalidFraction);
+        }
+        this.random = new SplittableRandom(seed);
+        this.usFormat = usFormat;
+        this.invalidFraction = invalidFraction;
+        for (int i = 0; i < LAST_NAMES; i++) {
+            lastNames[i] = lastName().getBytes(StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < FIRST_NAMES; i++) {
+            firstNames[i] = firstName().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Runs generate mode from the command line. The prefix of the output
+     * file decides the format, and a .gz name compresses it.
+     *
+     * @param args the arguments after "generate"
+     */
+    public static void main(String[] args) {
+        long seed = DEFAULT_SEED;
+        double invalidFraction = 0;
+        long size = -1;
+        String outFile = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--seed=")) {
+                    seed = parseLong(arg.substring("--seed=".length()), arg);
+                } else if (arg.startsWith("--invalid=")) {
+                    invalidFraction = parseFraction(arg.substring("--invalid=".length()), arg);
+                } else if (arg.startsWith("--") || (size >= 0 && outFile != null)) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else if (size < 0) {
+                    size = parseSize(arg);
+                } else {
+                    outFile = arg;
+                }
+            }
+            if (outFile == null) {
+                throw new IllegalArgumentException("Missing output file");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+        Path outPath = Path.of(outFile);
+        String outputFileName = outPath.getFileName().toString();
+        String nameProblem = DataConverter.checkInputFileName(outputFileName);
+        if (nameProblem != null) {
+            System.out.println(nameProblem);
+            return;
+        }
+        boolean usFormat = DataConverter.isUSFileName(outputFileName);
+        DataGenerator generator = new DataGenerator(seed, usFormat, invalidFraction);
+        try (OutputStream output = DataConverter.openOutput(
+                 outPath, DataConverter.isGzipFileName(outputFileName))) {
+            long lines = generator.generate(output, size);
+            System.out.println("Wrote " + lines + " lines to " + outPath);
+        } catch (IOException e) {
+            System.out.println("Error writing file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a size in bytes, with an optional K, M or G suffix for powers of 1024
+     *
+     * @param text the size
+     * @return the number of bytes
+     * @throws IllegalArgumentException if the size is not a non-negative whole number
+     */
+    static long parseSize(String text) {
+        long unit = 1;
+        String digits = text;
+        if (!text.isEmpty()) {
+            int shift = "KMG".indexOf(Character.toUpperCase(text.charAt(text.length() - 1)));
+            if (shift >= 0) {
+                unit = 1L << (10 * (shift + 1));
+                digits = text.substring(0, text.length() - 1);
+            }
+        }
+        long value = parseLong(digits, text);
+        if (value < 0 || value > Long.MAX_VALUE / unit) {
+            throw new IllegalArgumentException("Invalid value: " + text);
+        }
+        return value * unit;
+    }
+
+    /**
+     * Reads a whole number
+     *
+     * @param value the text of the number
+     * @param arg the whole argument, for the error message
+     * @return the number
+     * @throws IllegalArgumentException if the value is not a whole number
+     */
+    private static long parseLong(String value, String arg) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+    }
+
+    /**
+     * Reads a fraction from 0 to 1
+     *
+     * @param value the text of the fraction
+     * @param arg the whole argument, for the error message
+     * @return the fraction
+     * @throws IllegalArgumentException if the value is not a number from 0 to 1
+     */
+    private static double parseFraction(String value, String arg) {
+        double fraction;
+        try {
+            fraction = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Invalid value: " + arg);
+        }
+        return fraction;
+    }
+
+    /**
+     * Writes whole lines, each ended by a newline, until the next would
+     * take the output past a size. The output is not closed.
+     *
+     * @param output the stream to write to
+     * @param bytes the largest number of bytes to write
+     * @return the number of lines written
+     * @throws IOException if the stream cannot be written
+     */
+    public long generate(OutputStream output, long bytes) throws IOException {
+        OutputBuffer buffer = new OutputBuffer(BUFFER_SIZE + 256);
+        long written = 0;
+        long lines = 0;
+        while (true) {
+            int lineStart = buffer.length();
+            appendLine(buffer);
+            int lineLength = buffer.length() - lineStart;
+            if (written + lineLength > bytes) {
+                buffer.truncate(lineStart);
+                break;
+            }
+            written += lineLength;
+            lines++;
+            if (buffer.length() >= BUFFER_SIZE) {
+                buffer.writeTo(output);
+            }
+        }
+        buffer.writeTo(output);
+        return lines;
+    }
+
+    /**
+     * Appends one line and its newline, invalid if chosen to be
+     *
+     * @param out the buffer to append to
+     */
+    void appendLine(OutputBuffer out) {
+        int flaw = random.nextDouble() < invalidFraction ? 1 + random.nextInt(5) : 0;
+        byte[] last = lastNames[skewed(LAST_NAMES)];
+        out.append(last, 0, last.length);
+        out.append(',');
+        byte[] first = firstNames[skewed(FIRST_NAMES)];
+        out.append(first, 0, first.length);
+        if (flaw == 1) {
+            out.append('\n');
+            return;
+        }
+        out.append(',');
+
+        int year = (int) clamp(Math.round(1975 + 18 * random.nextGaussian()), 1900, 2025);
+        int month = 1 + random.nextInt(12);
+        int days = MONTH_DAYS[month - 1];
+        if (month == 2 && year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) {
+            days++;
+        }
+        int day = 1 + random.nextInt(days);
+        char separator = flaw == 2 ? '-' : usFormat ? '/' : '.';
+        appendTwoDigits(out, usFormat ? month : day);
+        out.append(separator);
+        appendTwoDigits(out, usFormat ? day : month);
+        out.append(separator);
+        out.appendUtf8(Integer.toString(year));
+        out.append(',');
+
+        double heightInches = clamp(66 + 4 * random.nextGaussian(), 48, 84);
+        double weightPounds = clamp(170 + 35 * random.nextGaussian(), 90, 350);
+        double tempFahrenheit = clamp(98.6 + 0.7 * random.nextGaussian(), 95, 105);
+        if (usFormat) {
+            out.appendUtf8(Long.toString(Math.round(heightInches)));
+            out.append(',');
+            if (flaw == 3) {
+                out.appendUtf8("-1");
+            } else {
+                out.appendUtf8(Long.toString(Math.round(weightPounds)));
+            }
+            out.append(',');
+            appendHundredths(out, Math.round((flaw == 4 ? 20.25 : tempFahrenheit) * 100));
+        } else {
+            appendHundredths(out, Math.round(heightInches * 254));
+            out.append(',');
+            if (flaw == 3) {
+                out.appendUtf8("-1.00");
+            } else {
+                appendHundredths(out, Math.round(weightPounds * 45.359237));
+            }
+            out.append(',');
+            if (flaw == 4) {
+                out.appendUtf8("-5.00");
+            } else {
+                appendHundredths(out, Math.round((tempFahrenheit - 32) * 500 / 9));
+            }
+        }
+        if (flaw == 5) {
+            out.appendUtf8(",0");
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Returns an index that favours the start of a pool, so a few names
+     * are common and most are rare
+     *
+     * @param size the size of the pool
+     * @return an index from 0 to size - 1
+     */
+    private int skewed(int size) {
+        double r = random.nextDouble();
+        return (int) (r * r * r * size);
+    }
+
+    /**
+     * Returns a name of one to four syllables, capitalized
+     *
+     * @param syllables the largest number of syllables
+     * @return the name
+     */
+    private String name(int syllables) {
+        StringBuilder name = new StringBuilder();
+        int count = 1 + random.nextInt(syllables) / (1 + random.nextInt(2));
+        for (int i = 0; i < count; i++) {
+            name.append(random.nextInt(40) == 0 ? ACCENTED[random.nextInt(ACCENTED.length)]
+                                                : SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        if (name.length() < 2) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Returns a last name, now and then with a particle, apostrophe,
+     * hyphen or suffix
+     *
+     * @return the last name
+     */
+    private String lastName() {
+        int kind = random.nextInt(100);
+        if (kind < 3) {
+            return "De la " + name(3);
+        } else if (kind < 6) {
+            return "O'" + name(3);
+        } else if (kind < 10) {
+            return name(3) + "-" + name(3);
+        } else if (kind < 12) {
+            return name(4) + " Jr";
+        }
+        return name(4);
+    }
+
+    /**
+     * Returns a first name, now and then with a second given name
+     *
+     * @return the first name
+     */
+    private String firstName() {
+        return random.nextInt(10) == 0 ? name(3) + " " + name(2) : name(3);
+    }
+
+    /**
+     * Appends a number from 0 to 99 as two digits
+     *
+     * @param out the buffer to append to
+     * @param value the number
+     */
+    private static void appendTwoDigits(OutputBuffer out, int value) {
+        out.append((char) ('0' + value / 10));
+        out.append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Appends a non-negative number of hundredths with two decimal places
+     *
+     * @param out the buffer to append to
+     * @param hundredths the number of hundredths
+     */
+    private static void appendHundredths(OutputBuffer out, long hundredths) {
+        out.appendUtf8(Long.toString(hundredths / 100));
+        out.append('.');
+        appendTwoDigits(out, (int) (hundredths % 100));
+    }
+
+    /**
+     * Limits a value to a range
+     *
+     * @param value the value
+     * @param min the smallest value allowed
+     * @param max the largest value allowed
+     * @return the value, moved into the range if outside it
+     */
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
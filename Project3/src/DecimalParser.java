@@ -0,0 +1,92 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a decimal number straight from a range of bytes, giving exactly
+ * the double Double.parseDouble would give for the same text.
+ *
+ * Measurements are short plain decimals like 68, 167 or 99.30, so those
+ * are read with a fast path: an optional '-', digits and at most one '.',
+ * with no more than 15 digits in all. Such a number is a whole number
+ * below 2^53 divided by a power of ten no larger than 10^15, and both are
+ * exact doubles, so one division gives the correctly rounded result.
+ * Anything else, including exponents, hex, NaN and surrounding spaces, is
+ * handed to Double.parseDouble.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class DecimalParser {
+
+    /**
+     * Most digits the fast path reads
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /**
+     * Powers of ten that are exact doubles, indexed by exponent
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * Reads the number in a range of bytes
+     *
+     * @param data the bytes holding the number
+     * @param start the index of the first byte of the number
+     * @param end the index after the last byte of the number
+     * @return the value of the number
+     * @throws NumberFormatException if the bytes are not a number Double.parseDouble accepts
+     */
+    public static double parse(byte[] data, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && data[pos] == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; pos < end; pos++) {
+            int digit = data[pos] - '0';
+            if (digit >= 0 && digit <= 9) {
+                if (++digits > MAX_FAST_DIGITS) {
+                    return parseSlow(data, start, end);
+                }
+                mantissa = mantissa * 10 + digit;
+                if (seenDot) {
+                    fractionDigits++;
+                }
+            } else if (data[pos] == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return parseSlow(data, start, end);
+            }
+        }
+        if (digits == 0) {
+            return parseSlow(data, start, end);
+        }
+        double value = (double) mantissa;
+        if (fractionDigits > 0) {
+            value /= POWERS_OF_TEN[fractionDigits];
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the number with Double.parseDouble
+     *
+     * @param data the bytes holding the number
+     * @param start the index of the first byte of the number
+     * @param end the index after the last byte of the number
+     * @return the value of the number
+     * @throws NumberFormatException if the bytes are not a number Double.parseDouble accepts
+     */
+    private static double parseSlow(byte[] data, int start, int end) {
+        // Numbers are ASCII, so any other byte fails either way
+        return Double.parseDouble(new String(data, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Finds the bytes that matter to the converter in a block of 64 bytes:
+ * commas, '\n', '\r' and bytes outside ASCII, which may start a UTF-8
+ * line separator. The result is a bitmask with bit i set when byte pos + i
+ * is one of them, so the converter can jump from delimiter to delimiter
+ * with Long.numberOfTrailingZeros instead of testing every byte.
+ *
+ * The Vector API scanner is used when the jdk.incubator.vector module is
+ * present. It lives in src-vector and is built and run with
+ * --add-modules jdk.incubator.vector. Otherwise the scalar scanner is used,
+ * which tests eight bytes at a time in a long. Both give the same masks.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public interface DelimiterScanner {
+
+    /**
+     * Number of bytes covered by one mask
+     */
+    int BLOCK_SIZE = 64;
+
+    /**
+     * Name of the class that scans with the Vector API
+     */
+    String VECTOR_SCANNER_CLASS = "VectorDelimiterScanner";
+
+    /**
+     * Returns the mask of delimiter bytes in data[pos] to data[pos + 63]
+     *
+     * @param data the bytes to scan, with at least BLOCK_SIZE bytes from pos
+     * @param pos the index of the first byte of the block
+     * @return a mask with bit i set if data[pos + i] is a comma, '\n', '\r'
+     *         or a byte outside ASCII
+     */
+    long scanBlock(byte[] data, int pos);
+
+    /**
+     * Returns the fastest scanner this JVM supports: the Vector API scanner
+     * when jdk.incubator.vector is present and the scanner class is on the
+     * class path, otherwise the scalar scanner
+     *
+     * @return a delimiter scanner
+     */
+    static DelimiterScanner create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DelimiterScanner) Class.forName(VECTOR_SCANNER_CLASS)
+                                               .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not built with the incubator module, so scan without it
+            }
+        }
+        return new ScalarDelimiterScanner();
+    }
+}
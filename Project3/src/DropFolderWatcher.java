@@ -0,0 +1,530 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches a drop folder and converts each US_ or OT_ file that lands in
+ * it as soon as the file is complete. A file counts as complete once its
+ * size and modification time have not changed for the settle time, so a
+ * file still being copied in is left alone.
+ *
+ * Converted output is written under a temporary name, so readers of the
+ * output folder never see part of a file. When it is finished the source
+ * is moved to the done folder and only then is the output renamed into
+ * place; a source with an invalid line, or one that cannot be moved, goes
+ * to the failed folder with no output left behind. Files already in
+ * the folder when watching starts are converted too.
+ *
+ * The time from a file first being seen to its output being finished is
+ * kept as the latency of the file.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class DropFolderWatcher implements AutoCloseable {
+
+    /**
+     * Usage message for watch mode
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter watch [--threads=N] [--out-dir=DIR] [--settle-ms=N] dir";
+
+    /**
+     * Default milliseconds a file must be unchanged before it is converted
+     */
+    public static final long DEFAULT_SETTLE_MILLIS = 500;
+
+    /**
+     * Name of the subfolder sources are moved to after converting
+     */
+    public static final String DONE_FOLDER = "done";
+
+    /**
+     * Name of the subfolder sources with an invalid line are moved to
+     */
+    public static final String FAILED_FOLDER = "failed";
+
+    /**
+     * Name of the default output subfolder
+     */
+    public static final String OUTPUT_FOLDER = "output";
+
+    /**
+     * Suffix of output files that are still being written
+     */
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * The folder being watched
+     */
+    private final Path folder;
+
+    /**
+     * Folder converted files are written to
+     */
+    private final Path outputDirectory;
+
+    /**
+     * Nanoseconds a file must be unchanged before it is converted
+     */
+    private final long settleNanos;
+
+    /**
+     * Notifies the watcher of changes in the folder
+     */
+    private final WatchService watchService;
+
+    /**
+     * Runs the conversions
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Options used for each conversion
+     */
+    private final ConverterOptions options = new ConverterOptions();
+
+    /**
+     * Files seen but not yet complete, by path; used only by the watching thread
+     */
+    private final Map<Path, PendingFile> pending = new HashMap<Path, PendingFile>();
+
+    /**
+     * Files handed to a worker and not yet moved out of the folder
+     */
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of files converted successfully
+     */
+    private final AtomicInteger converted = new AtomicInteger();
+
+    /**
+     * Number of files that could not be converted
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Sum of the latencies of the converted files in nanoseconds
+     */
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    /**
+     * Largest latency of a converted file in nanoseconds
+     */
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * A file waiting to stop changing
+     */
+    private static class PendingFile {
+
+        /**
+         * When the file was first seen, from System.nanoTime
+         */
+        private final long arrivalNanos;
+
+        /**
+         * Size of the file when last checked
+         */
+        private long size;
+
+        /**
+         * Modification time of the file when last checked
+         */
+        private FileTime modified;
+
+        /**
+         * When the size or modification time last changed
+         */
+        private long changedNanos;
+
+        /**
+         * Creates a pending file
+         *
+         * @param arrivalNanos when the file was first seen
+         */
+        private PendingFile(long arrivalNanos) {
+            this.arrivalNanos = arrivalNanos;
+            this.size = -1;
+            this.changedNanos = arrivalNanos;
+        }
+    }
+
+    /**
+     * Creates a watcher and the done, failed and output folders it needs
+     *
+     * @param folder the folder to watch
+     * @param outputDirectory the folder to write converted files to; must
+     *                        not be the watched folder
+     * @param threads the number of files converted at once
+     * @param settleMillis the milliseconds a file must be unchanged before
+     *                     it is converted
+     * @throws IOException if the folders cannot be created or watched
+     * @throws IllegalArgumentException if a folder is null, the output
+     *                                  folder is the watched folder, or a
+     *                                  count is not valid
+     */
+    public DropFolderWatcher(Path folder, Path outputDirectory, int threads, long settleMillis)
+            throws IOException {
+        if (folder == null || outputDirectory == null) {
+            throw new IllegalArgumentException("Null folder");
+        }
+        if (folder.toAbsolutePath().normalize()
+                  .equals(outputDirectory.toAbsolutePath().normalize())) {
+            throw new IllegalArgumentException("Output folder must not be the watched folder");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        if (settleMillis < 0) {
+            throw new IllegalArgumentException("Invalid settle time");
+        }
+        this.folder = folder;
+        this.outputDirectory = outputDirectory;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMillis);
+        Files.createDirectories(folder.resolve(DONE_FOLDER));
+        Files.createDirectories(folder.resolve(FAILED_FOLDER));
+        Files.createDirectories(outputDirectory);
+        this.watchService = folder.getFileSystem().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Runs watch mode from the command line until the JVM is stopped
+     *
+     * @param args the arguments after "watch"
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long settleMillis = DEFAULT_SETTLE_MILLIS;
+        String outputDirectory = null;
+        String folder = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--settle-ms=")) {
+                    settleMillis = Long.parseLong(arg.substring("--settle-ms=".length()));
+                } else if (arg.startsWith("--out-dir=")) {
+                    outputDirectory = arg.substring("--out-dir=".length());
+                } else if (arg.startsWith("--") || folder != null) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    folder = arg;
+                }
+            }
+            if (folder == null) {
+                throw new IllegalArgumentException("Missing folder");
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        Path folderPath = Path.of(folder);
+        Path outputPath = outputDirectory == null ? folderPath.resolve(OUTPUT_FOLDER)
+                                                  : Path.of(outputDirectory);
+        DropFolderWatcher watcher;
+        try {
+            watcher = new DropFolderWatcher(folderPath, outputPath, threads, settleMillis);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Unable to watch folder: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            watcher.close();
+            System.out.println(watcher.getSummary());
+        }));
+        System.out.println("Watching " + folderPath + ", writing to " + outputPath);
+        watcher.run();
+    }
+
+    /**
+     * Converts files as they arrive until the watcher is closed
+     */
+    public void run() {
+        try {
+            scanFolder();
+            long pollMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(settleNanos) / 2);
+            while (true) {
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanFolder();
+                        } else {
+                            noticeFile(folder.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        System.out.println("Folder is no longer accessible: " + folder);
+                        return;
+                    }
+                }
+                submitSettledFiles();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close()
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Unable to list folder: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops watching and waits for conversions already started to finish
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Nothing more can be done with the watch service
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of files converted successfully
+     *
+     * @return the number of files converted
+     */
+    public int getConverted() {
+        return converted.get();
+    }
+
+    /**
+     * Returns the number of files that could not be converted
+     *
+     * @return the number of files that failed
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the mean time from a file being seen to its output being
+     * finished, over the files converted
+     *
+     * @return the mean latency in milliseconds, or 0 if none were converted
+     */
+    public double getMeanLatencyMillis() {
+        int count = converted.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * Returns the longest time from a file being seen to its output being
+     * finished
+     *
+     * @return the largest latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns a one-line summary of the files handled so far
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        return String.format("Files converted: %d, files failed: %d, latency ms mean %.1f, max %.1f",
+                             getConverted(), getFailed(), getMeanLatencyMillis(),
+                             getMaxLatencyMillis());
+    }
+
+    /**
+     * Notices every file already in the folder
+     *
+     * @throws IOException if the folder cannot be listed
+     */
+    private void scanFolder() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+            for (Path entry : entries) {
+                noticeFile(entry);
+            }
+        }
+    }
+
+    /**
+     * Starts tracking a file if it is an input file not already being handled
+     *
+     * @param path the file
+     */
+    private void noticeFile(Path path) {
+        if (pending.containsKey(path) || inProgress.contains(path) || !Files.isRegularFile(path)
+            || DataConverter.checkInputFileName(path.getFileName().toString()) != null) {
+            return;
+        }
+        pending.put(path, new PendingFile(System.nanoTime()));
+    }
+
+    /**
+     * Hands every pending file that has stopped changing to a worker
+     */
+    private void submitSettledFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingFile>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = entries.next();
+            Path path = entry.getKey();
+            PendingFile file = entry.getValue();
+            long size;
+            FileTime modified;
+            try {
+                size = Files.size(path);
+                modified = Files.getLastModifiedTime(path);
+            } catch (IOException e) {
+                // Moved or deleted by someone else
+                entries.remove();
+                continue;
+            }
+            if (size != file.size || !modified.equals(file.modified)) {
+                file.size = size;
+                file.modified = modified;
+                file.changedNanos = now;
+            } else if (now - file.changedNanos >= settleNanos) {
+                entries.remove();
+                inProgress.add(path);
+                workers.execute(() -> convert(path, file.arrivalNanos));
+            }
+        }
+    }
+
+    /**
+     * Converts one file and moves it to the done or failed folder
+     *
+     * @param path the file
+     * @param arrivalNanos when the file was first seen
+     */
+    private void convert(Path path, long arrivalNanos) {
+        String inputFileName = path.getFileName().toString();
+        Path outPath = outputDirectory.resolve(DataConverter.outputFileName(inputFileName));
+        Path partPath = outputDirectory.resolve(outPath.getFileName() + PART_SUFFIX);
+        try {
+            ConversionResult result;
+            try (OutputStream output = DataConverter.openOutput(partPath,
+                     DataConverter.isGzipFileName(inputFileName))) {
+                result = convertFile(path, output);
+            }
+            if (result.isSuccess()) {
+                // Move the source first, so an output is only published for
+                // a source that has left the drop folder
+                Path donePath = moveSource(path, DONE_FOLDER);
+                try {
+                    Files.move(partPath, outPath, StandardCopyOption.REPLACE_EXISTING,
+                               StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    Files.move(donePath, folder.resolve(FAILED_FOLDER).resolve(path.getFileName()),
+                               StandardCopyOption.REPLACE_EXISTING);
+                    throw e;
+                }
+                long latency = System.nanoTime() - arrivalNanos;
+                totalLatencyNanos.addAndGet(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                converted.incrementAndGet();
+                report(path + ": converted in " + TimeUnit.NANOSECONDS.toMillis(latency) + " ms");
+            } else {
+                Files.deleteIfExists(partPath);
+                moveSource(path, FAILED_FOLDER);
+                failed.incrementAndGet();
+                report(path + ": Invalid input file format (line " + result.getInvalidLine() + ")");
+            }
+        } catch (IOException e) {
+            fail(path, partPath, "Error converting file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            fail(path, partPath, "Error converting file: " + e);
+        } finally {
+            inProgress.remove(path);
+        }
+    }
+
+    /**
+     * Converts a source file into a stream. Tests override it to fail.
+     *
+     * @param path the source file
+     * @param output the stream to write the converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    ConversionResult convertFile(Path path, OutputStream output) throws IOException {
+        return DataConverter.convertFile(options,
+            DataConverter.isUSFileName(path.getFileName().toString()), path, output);
+    }
+
+    /**
+     * Counts and reports a file whose conversion failed, deletes its
+     * partial output and moves it to the failed folder
+     *
+     * @param path the source file
+     * @param partPath the partial output
+     * @param reason why the conversion failed
+     */
+    private void fail(Path path, Path partPath, String reason) {
+        failed.incrementAndGet();
+        report(path + ": " + reason);
+        try {
+            Files.deleteIfExists(partPath);
+            moveSource(path, FAILED_FOLDER);
+        } catch (IOException moveError) {
+            // Leave the source where it is
+        }
+    }
+
+    /**
+     * Moves a source file into a subfolder, replacing any older file of the
+     * same name
+     *
+     * @param path the source file
+     * @param subfolder DONE_FOLDER or FAILED_FOLDER
+     * @return the new path of the file
+     * @throws IOException if the file cannot be moved
+     */
+    private Path moveSource(Path path, String subfolder) throws IOException {
+        return Files.move(path, folder.resolve(subfolder).resolve(path.getFileName()),
+                          StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Prints a line about one file
+     *
+     * @param message the line
+     */
+    private static void report(String message) {
+        synchronized (System.out) {
+            System.out.println(message);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Writes records as CSV sorted by last name, then first name, for files
+ * far larger than the heap. Records are sorted by a RowSorter, which
+ * spills sorted runs to temporary files on worker threads once the memory
+ * budget is used, and merged into the output when the sink is closed.
+ *
+ * Runs hold each record as a compact binary row, so merging never parses
+ * CSV again:
+ *
+ *     last name     varint length, then UTF-8 bytes
+ *     first name    varint length, then UTF-8 bytes
+ *     rest          varint length, then the converted birth date and
+ *                   measurements exactly as CsvSink writes them
+ *
+ * Names are compared as unsigned bytes, which for UTF-8 is code point
+ * order. The sort is stable: records with the same names keep their input
+ * order. Each line is the same bytes CsvSink writes for the record.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ExternalSortSink implements RecordSink {
+
+    /**
+     * Default memory budget in bytes
+     */
+    public static final long DEFAULT_MEMORY = 64L << 20;
+
+    /**
+     * Smallest memory budget in bytes
+     */
+    public static final long MIN_MEMORY = RowSorter.MIN_MEMORY;
+
+    /**
+     * Stream the sorted CSV is written to
+     */
+    private final OutputStream output;
+
+    /**
+     * True for the US date format and units, false for the other format
+     */
+    private final boolean usFormat;
+
+    /**
+     * Sorts the rows
+     */
+    private final RowSorter sorter;
+
+    /**
+     * Holds the birth date and measurements while their length is found
+     */
+    private final OutputBuffer rest = new OutputBuffer(64);
+
+    /**
+     * Sparse index of the sorted output, or null
+     */
+    private SidecarIndex.Writer index;
+
+    /**
+     * True once the sink is closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates a sorting sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @param memory the memory budget in bytes for the rows being gathered
+     *               and sorted
+     * @param threads the number of threads sorting and spilling runs
+     * @param tempParent the directory to make temporary files in, or null
+     *                   for the platform's temporary directory
+     * @throws IllegalArgumentException if output is null, memory is below
+     *         MIN_MEMORY or threads is not positive
+     */
+    public ExternalSortSink(OutputStream output, boolean usFormat, long memory, int threads,
+                            Path tempParent) {
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        this.sorter = new RowSorter(memory, threads, tempParent);
+        this.output = output;
+        this.usFormat = usFormat;
+    }
+
+    /**
+     * Sets the index written as the sorted output is: a sparse index,
+     * since the output itself is in key order
+     *
+     * @param index the index writer, finished when the sink is closed, or null
+     */
+    public void setIndex(SidecarIndex.Writer index) {
+        this.index = index;
+    }
+
+    /**
+     * Adds a record to the sorter
+     *
+     * @param record the record
+     * @throws IOException if an earlier run could not be spilled
+     */
+    @Override
+    public void write(PersonRecord record) throws IOException {
+        rest.reset();
+        record.appendBirthDate(usFormat, rest);
+        rest.append(',');
+        TwoDecimalFormatter.append(record.getHeight(usFormat), rest);
+        rest.append(',');
+        TwoDecimalFormatter.append(record.getWeight(usFormat), rest);
+        rest.append(',');
+        TwoDecimalFormatter.append(record.getTemperature(usFormat), rest);
+        byte[] data = record.getData();
+        sorter.add(data, record.getFieldStart(LineConverter.LAST_NAME),
+                   record.getFieldEnd(LineConverter.LAST_NAME),
+                   data, record.getFieldStart(LineConverter.FIRST_NAME),
+                   record.getFieldEnd(LineConverter.FIRST_NAME),
+                   rest.array(), 0, rest.length());
+    }
+
+    /**
+     * Writes the sorted records, and the index if there is one, deletes
+     * the temporary files and closes the output
+     *
+     * @throws IOException if a run cannot be read or the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            OutputBuffer out = new OutputBuffer(BufferedRecordSink.BUFFER_SIZE
+                                                + BufferedRecordSink.BUFFER_SIZE / 4);
+            long[] written = new long[1];
+            sorter.finish((data, start) -> {
+                if (index != null) {
+                    index.add(data, start, written[0] + out.length());
+                }
+                int pos = start;
+                for (int field = 0; field < RowSorter.FIELD_COUNT; field++) {
+                    int length = RowSorter.readVarint(data, pos);
+                    pos += RowSorter.varintSize(length);
+                    if (field > 0) {
+                        out.append(',');
+                    }
+                    out.append(data, pos, pos + length);
+                    pos += length;
+                }
+                out.append('\n');
+                if (out.length() >= BufferedRecordSink.BUFFER_SIZE) {
+                    written[0] += out.length();
+                    out.writeTo(output);
+                }
+            });
+            written[0] += out.length();
+            out.writeTo(output);
+            if (index != null) {
+                index.finish(written[0]);
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Closes the sink without merging the records, deleting the temporary
+     * files. Nothing is written to the output, and the index is left
+     * unfinished.
+     *
+     * @throws IOException if a temporary file cannot be deleted or the
+     *                     output cannot be closed
+     */
+    @Override
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        release();
+    }
+
+    /**
+     * Deletes the temporary files and closes the output and the index
+     *
+     * @throws IOException if a temporary file cannot be deleted or a
+     *                     stream cannot be closed
+     */
+    private void release() throws IOException {
+        try {
+            sorter.close();
+        } finally {
+            output.close();
+            if (index != null) {
+                index.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Hands each record to several sinks, so one parse of the input feeds
+ * every output format.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class FanOutSink implements RecordSink {
+
+    /**
+     * The sinks each record is written to
+     */
+    private final RecordSink[] sinks;
+
+    /**
+     * Creates a sink writing to several others
+     *
+     * @param sinks the sinks, in the order each record is written to them
+     * @throws IllegalArgumentException if sinks is null or empty, or holds null
+     */
+    public FanOutSink(List<RecordSink> sinks) {
+        if (sinks == null || sinks.isEmpty()) {
+            throw new IllegalArgumentException("No sinks");
+        }
+        this.sinks = sinks.toArray(new RecordSink[0]);
+        for (RecordSink sink : this.sinks) {
+            if (sink == null) {
+                throw new IllegalArgumentException("Null sink");
+            }
+        }
+    }
+
+    /**
+     * Writes a record to every sink
+     *
+     * @param record the record
+     * @throws IOException if a sink cannot write it
+     */
+    @Override
+    public void write(PersonRecord record) throws IOException {
+        for (RecordSink sink : sinks) {
+            sink.write(record);
+        }
+    }
+
+    /**
+     * Closes every sink, even if closing one of them fails
+     *
+     * @throws IOException the first error from a sink, with any others suppressed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (RecordSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Count, minimum, maximum, mean and standard deviation of a stream of
+ * numbers, kept in one pass with Welford's method. Two accumulators filled
+ * from different parts of a file can be merged into one that is the same
+ * as if every number had been added to a single accumulator, so chunks
+ * converted in parallel can each keep their own.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class FieldStats {
+
+    /**
+     * Number of values added
+     */
+    private long count;
+
+    /**
+     * Mean of the values added
+     */
+    private double mean;
+
+    /**
+     * Sum of the squared differences from the mean
+     */
+    private double sumSquaredDeviations;
+
+    /**
+     * Smallest value added
+     */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /**
+     * Largest value added
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Adds a value
+     *
+     * @param value the value to add
+     */
+    public void add(double value) {
+        count++;
+        double deviation = value - mean;
+        mean += deviation / count;
+        sumSquaredDeviations += deviation * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds every value another accumulator has seen
+     *
+     * @param other the accumulator to merge into this one
+     * @throws IllegalArgumentException if other is null
+     */
+    public void merge(FieldStats other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Null stats");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double deviation = other.mean - mean;
+        mean += deviation * other.count / total;
+        sumSquaredDeviations += other.sumSquaredDeviations
+                                + deviation * deviation * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of values added
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value added
+     *
+     * @return the minimum, or NaN if no values were added
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Returns the largest value added
+     *
+     * @return the maximum, or NaN if no values were added
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Returns the mean of the values added
+     *
+     * @return the mean, or NaN if no values were added
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Returns the population standard deviation of the values added
+     *
+     * @return the standard deviation, or NaN if no values were added
+     */
+    public double getStandardDeviation() {
+        return count == 0 ? Double.NaN : Math.sqrt(sumSquaredDeviations / count);
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Writes records as CSV, like CsvSink, and builds a sidecar index of the
+ * output as it goes. The last name, first name and line offset of each
+ * record are handed to a RowSorter, which costs a copy of the names per
+ * line while converting; when the sink is closed they come back in name
+ * order and are written as the index's entries.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class IndexedCsvSink extends CsvSink {
+
+    /**
+     * Writer of the index
+     */
+    private final SidecarIndex.Writer index;
+
+    /**
+     * Sorts the index entries
+     */
+    private final RowSorter sorter;
+
+    /**
+     * Offset of the current line as 8 big-endian bytes
+     */
+    private final byte[] offset = new byte[8];
+
+    /**
+     * True once the sink is closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates an indexing sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @param index the index writer, finished when the sink is closed
+     * @param memory the memory budget in bytes for sorting the index entries
+     * @param threads the number of threads sorting index entries
+     * @param tempParent the directory to make temporary files in, or null
+     *                   for the platform's temporary directory
+     * @throws IllegalArgumentException if output or index is null, memory
+     *         is below RowSorter.MIN_MEMORY or threads is not positive
+     */
+    public IndexedCsvSink(OutputStream output, boolean usFormat, SidecarIndex.Writer index,
+                          long memory, int threads, Path tempParent) {
+        super(output, usFormat);
+        if (index == null) {
+            throw new IllegalArgumentException("Null index");
+        }
+        this.sorter = new RowSorter(memory, threads, tempParent);
+        this.index = index;
+    }
+
+    /**
+     * Writes a record and adds its index entry
+     *
+     * @param record the record
+     * @throws IOException if the output cannot be written or index entries
+     *                     cannot be spilled
+     */
+    @Override
+    public void write(PersonRecord record) throws IOException {
+        long position = getPosition();
+        super.write(record);
+        for (int i = 0; i < offset.length; i++) {
+            offset[i] = (byte) (position >>> (56 - 8 * i));
+        }
+        byte[] data = record.getData();
+        sorter.add(data, record.getFieldStart(LineConverter.LAST_NAME),
+                   record.getFieldEnd(LineConverter.LAST_NAME),
+                   data, record.getFieldStart(LineConverter.FIRST_NAME),
+                   record.getFieldEnd(LineConverter.FIRST_NAME),
+                   offset, 0, offset.length);
+    }
+
+    /**
+     * Closes the output, then writes the index entries in order
+     *
+     * @throws IOException if the output or the index cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+            sorter.finish((data, start) -> {
+                int pos = RowSorter.nextField(data, RowSorter.nextField(data, start)) + 1;
+                long position = 0;
+                for (int i = 0; i < 8; i++) {
+                    position = (position << 8) | (data[pos + i] & 0xff);
+                }
+                index.add(data, start, position);
+            });
+            index.finish(getPosition());
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Closes the output without writing the index entries, deleting their
+     * temporary files; the index is left unfinished
+     *
+     * @throws IOException if the output cannot be written or a temporary
+     *                     file cannot be deleted
+     */
+    @Override
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Deletes the temporary files and closes the index
+     *
+     * @throws IOException if a temporary file cannot be deleted or the
+     *                     index cannot be closed
+     */
+    private void release() throws IOException {
+        try {
+            sorter.close();
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Signals the first invalid line of an input converted through the Flow
+ * API, where it ends the stream the way a false result from
+ * DataConverter.processFile ends a conversion. Every line before it has
+ * already been delivered.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class InvalidLineException extends IllegalArgumentException {
+
+    /**
+     * Serialization version
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Line number (starting at 1) of the invalid line
+     */
+    private final long lineNumber;
+
+    /**
+     * Creates an exception for an invalid line
+     *
+     * @param lineNumber the line number of the invalid line, starting at 1
+     */
+    public InvalidLineException(long lineNumber) {
+        super("Invalid input file format at line " + lineNumber);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Returns the line number of the invalid line
+     *
+     * @return the line number, starting at 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -0,0 +1,123 @@
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes records as JSON lines, one object per line, such as
+ *
+ *     {"lastName":"Brown","firstName":"James","birthDate":"18.04.1991",
+ *      "height":172.72,"weight":75.82,"temperature":37.39}
+ *
+ * Measurements are rounded to two decimal places like the CSV output. A
+ * measurement that is not a finite number is written as null.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class JsonLinesSink extends BufferedRecordSink {
+
+    /**
+     * Hexadecimal digits for escaped control characters
+     */
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * True for the US date format and units, false for the other format
+     */
+    private final boolean usFormat;
+
+    /**
+     * Holds the birth date while it is escaped
+     */
+    private final OutputBuffer date = new OutputBuffer(32);
+
+    /**
+     * Creates a JSON lines sink
+     *
+     * @param output the stream to write to, closed when the sink is closed
+     * @param usFormat true for the US date format and units, false for the other format
+     * @throws IllegalArgumentException if output is null
+     */
+    public JsonLinesSink(OutputStream output, boolean usFormat) {
+        super(output);
+        this.usFormat = usFormat;
+    }
+
+    /**
+     * Appends a record as a JSON object on its own line
+     *
+     * @param record the record
+     */
+    @Override
+    protected void append(PersonRecord record) {
+        buffer.appendUtf8("{\"lastName\":\"");
+        appendEscaped(record.getData(), record.getFieldStart(LineConverter.LAST_NAME),
+                      record.getFieldEnd(LineConverter.LAST_NAME));
+        buffer.appendUtf8("\",\"firstName\":\"");
+        appendEscaped(record.getData(), record.getFieldStart(LineConverter.FIRST_NAME),
+                      record.getFieldEnd(LineConverter.FIRST_NAME));
+        buffer.appendUtf8("\",\"birthDate\":\"");
+        date.reset();
+        record.appendBirthDate(usFormat, date);
+        appendEscaped(date.array(), 0, date.length());
+        buffer.appendUtf8("\",\"height\":");
+        appendNumber(record.getHeight(usFormat));
+        buffer.appendUtf8(",\"weight\":");
+        appendNumber(record.getWeight(usFormat));
+        buffer.appendUtf8(",\"temperature\":");
+        appendNumber(record.getTemperature(usFormat));
+        buffer.appendUtf8("}\n");
+    }
+
+    /**
+     * Appends a number rounded to two decimal places, or null
+     *
+     * @param value the number
+     */
+    private void appendNumber(double value) {
+        if (Double.isFinite(value)) {
+            TwoDecimalFormatter.appendRoot(value, buffer);
+        } else {
+            buffer.appendUtf8("null");
+        }
+    }
+
+    /**
+     * Appends text as the inside of a JSON string. The text is UTF-8, so
+     * only quotes, backslashes and control characters need escaping.
+     *
+     * @param data the bytes holding the text
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     */
+    private void appendEscaped(byte[] data, int start, int end) {
+        int plain = start;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '"' || b == '\\' || (b >= 0 && b < ' ')) {
+                buffer.append(data, plain, i);
+                appendEscape(b);
+                plain = i + 1;
+            }
+        }
+        buffer.append(data, plain, end);
+    }
+
+    /**
+     * Appends the JSON escape for a quote, backslash or control character
+     *
+     * @param b the character
+     */
+    private void appendEscape(byte b) {
+        buffer.append('\\');
+        if (b == '"' || b == '\\') {
+            buffer.append(b);
+        } else {
+            buffer.append('u');
+            buffer.append('0');
+            buffer.append('0');
+            buffer.append(HEX_DIGITS[b >> 4]);
+            buffer.append(HEX_DIGITS[b & 0xf]);
+        }
+    }
+}
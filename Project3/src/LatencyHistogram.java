@@ -0,0 +1,133 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets by powers of two of nanoseconds, so
+ * recording one is an increment and any number of threads may record at
+ * once. Percentiles are reported as the upper bound of the bucket holding
+ * them, which is within a factor of two of the real value.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of buckets; bucket i holds latencies below 2^i nanoseconds
+     * and at least 2^(i-1)
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * Number of latencies in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of latencies recorded
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Sum of the latencies recorded, in nanoseconds
+     */
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * Largest latency recorded, in nanoseconds
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency
+     *
+     * @param nanos the latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts.incrementAndGet(Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(nanos)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the number of latencies recorded
+     *
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the latencies recorded
+     *
+     * @return the total in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Returns the mean latency
+     *
+     * @return the mean in nanoseconds, or 0 if none were recorded
+     */
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getTotalNanos() / n;
+    }
+
+    /**
+     * Returns the largest latency recorded
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound on a percentile
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the upper bound of the bucket holding the percentile in
+     *         nanoseconds, no more than the maximum, or 0 if none were recorded
+     * @throws IllegalArgumentException if percentile is not from 0 to 100
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Invalid percentile");
+        }
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long bound = i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(bound, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Returns the count, mean, median, 99th percentile and maximum in microseconds
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d mean=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus",
+                             getCount(), getMeanNanos() / 1000,
+                             getPercentileNanos(50) / 1000.0, getPercentileNanos(99) / 1000.0,
+                             getMaxNanos() / 1000.0);
+    }
+}
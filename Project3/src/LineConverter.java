@@ -0,0 +1,678 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts one line of person data between the US format and the other
+ * country's format without creating any Strings. The fields are found and
+ * parsed in place in the byte array holding the line, and the converted
+ * record is appended to a caller-supplied OutputBuffer.
+ *
+ * A LineConverter keeps scratch state between calls, so each thread needs
+ * its own.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class LineConverter {
+
+    /**
+     * Number of fields in a line
+     */
+    public static final int FIELD_COUNT = 6;
+
+    /**
+     * Index of the last name field
+     */
+    public static final int LAST_NAME = 0;
+
+    /**
+     * Index of the first name field
+     */
+    public static final int FIRST_NAME = 1;
+
+    /**
+     * Index of the birth date field
+     */
+    public static final int BIRTH_DATE = 2;
+
+    /**
+     * Index of the height field
+     */
+    public static final int HEIGHT = 3;
+
+    /**
+     * Index of the weight field
+     */
+    public static final int WEIGHT = 4;
+
+    /**
+     * Index of the temperature field
+     */
+    public static final int TEMPERATURE = 5;
+
+    /**
+     * Centimeters in an inch
+     */
+    private static final double CM_PER_INCH = 2.54;
+
+    /**
+     * Kilograms in a pound
+     */
+    private static final double KG_PER_POUND = 0.454;
+
+    /**
+     * Fahrenheit degrees in a Celsius degree
+     */
+    private static final double FAHRENHEIT_PER_CELSIUS = 1.8;
+
+    /**
+     * Fahrenheit temperature at which water freezes
+     */
+    private static final double FREEZING_FAHRENHEIT = 32.0;
+
+    /**
+     * Converter used by the String wrappers on each thread
+     */
+    private static final ThreadLocal<LineConverter> STRING_CONVERTER =
+        ThreadLocal.withInitial(LineConverter::new);
+
+    /**
+     * True to convert US lines to the other format, false for the reverse
+     */
+    private boolean convertToOtherFormat;
+
+    /**
+     * Index of the first byte of each trimmed field in the current line
+     */
+    private final int[] fieldStart = new int[FIELD_COUNT];
+
+    /**
+     * Index after the last byte of each trimmed field in the current line
+     */
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+
+    /**
+     * Value of the number most recently read by parseNumber
+     */
+    private double number;
+
+    /**
+     * Statistics each converted line is added to, or null for none
+     */
+    private ConversionStats stats;
+
+    /**
+     * Creates a converter from the US format to the other format
+     */
+    public LineConverter() {
+        this(true);
+    }
+
+    /**
+     * Creates a converter
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     */
+    public LineConverter(boolean convertToOtherFormat) {
+        this.convertToOtherFormat = convertToOtherFormat;
+    }
+
+    /**
+     * Returns true if this converter converts US lines to the other format
+     *
+     * @return true if this converter converts US lines to the other format
+     */
+    public boolean isConvertToOtherFormat() {
+        return convertToOtherFormat;
+    }
+
+    /**
+     * Sets the statistics each converted line is added to
+     *
+     * @param stats the statistics, or null to gather none
+     */
+    public void setStats(ConversionStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Converts a String line the same way as DataConverter's line methods.
+     *
+     * @param convertToOtherFormat true to convert a US line to the other format,
+     *                             false to convert an other line to the US format
+     * @param line the line to convert
+     * @return the converted line, or null if the line is invalid
+     * @throws IllegalArgumentException if line is null
+     */
+    public static String convertLine(boolean convertToOtherFormat, String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("Null line");
+        }
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        OutputBuffer out = new OutputBuffer(bytes.length + FIELD_COUNT * 2);
+        LineConverter converter = STRING_CONVERTER.get();
+        converter.convertToOtherFormat = convertToOtherFormat;
+        if (!converter.convert(bytes, 0, bytes.length, out)) {
+            return null;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Converts the line held in a range of bytes and appends the converted
+     * record, without a line separator, to out. If the line is invalid
+     * nothing is appended.
+     *
+     * The line must contain exactly six comma separated fields: last name,
+     * first name, birth date, height, weight and temperature. Fields are
+     * trimmed of spaces and control characters. A US line has a mm/dd/yyyy
+     * date, inches, pounds and a Fahrenheit temperature of at least 32. An
+     * other line has a dd.mm.yyyy date, centimeters, kilograms and a
+     * Celsius temperature of at least 0.
+     *
+     * @param data the bytes holding the line, encoded as UTF-8
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param out the buffer to append the converted record to
+     * @return true if the line was valid and was converted
+     */
+    public boolean convert(byte[] data, int start, int end, OutputBuffer out) {
+        if (!splitFields(data, start, end)) {
+            return false;
+        }
+        return convertFields(data, out);
+    }
+
+    /**
+     * Converts a line whose comma positions are already known, as found by a
+     * DelimiterScanner, and appends the converted record to out. If the line
+     * is invalid nothing is appended.
+     *
+     * @param data the bytes holding the line, encoded as UTF-8
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param commas the positions of the first commas in the line, in order
+     * @param commaCount the number of commas in the whole line
+     * @param out the buffer to append the converted record to
+     * @return true if the line was valid and was converted
+     */
+    public boolean convert(byte[] data, int start, int end, int[] commas, int commaCount,
+                           OutputBuffer out) {
+        if (commaCount != FIELD_COUNT - 1) {
+            return false;
+        }
+        int fieldBegin = start;
+        for (int field = 0; field < FIELD_COUNT - 1; field++) {
+            setTrimmedField(data, field, fieldBegin, commas[field]);
+            fieldBegin = commas[field] + 1;
+        }
+        setTrimmedField(data, FIELD_COUNT - 1, fieldBegin, end);
+        return convertFields(data, out);
+    }
+
+    /**
+     * Reads a line into a record instead of converting it, so one parse can
+     * be written in several formats. A line is valid under exactly the same
+     * rules as for convert.
+     *
+     * @param data the bytes holding the line, encoded as UTF-8
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param record the record to fill; it refers to data until it is filled again
+     * @return true if the line was valid and the record was filled
+     */
+    public boolean parse(byte[] data, int start, int end, PersonRecord record) {
+        if (!splitFields(data, start, end)) {
+            return false;
+        }
+        return parseFields(data, record);
+    }
+
+    /**
+     * Reads a line whose comma positions are already known into a record
+     *
+     * @param data the bytes holding the line, encoded as UTF-8
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param commas the positions of the first commas in the line, in order
+     * @param commaCount the number of commas in the whole line
+     * @param record the record to fill; it refers to data until it is filled again
+     * @return true if the line was valid and the record was filled
+     */
+    public boolean parse(byte[] data, int start, int end, int[] commas, int commaCount,
+                         PersonRecord record) {
+        if (commaCount != FIELD_COUNT - 1) {
+            return false;
+        }
+        int fieldBegin = start;
+        for (int field = 0; field < FIELD_COUNT - 1; field++) {
+            setTrimmedField(data, field, fieldBegin, commas[field]);
+            fieldBegin = commas[field] + 1;
+        }
+        setTrimmedField(data, FIELD_COUNT - 1, fieldBegin, end);
+        return parseFields(data, record);
+    }
+
+    /**
+     * Checks the fields found by splitFields and copies them into a record
+     *
+     * @param data the bytes holding the line
+     * @param record the record to fill
+     * @return true if the fields were valid
+     */
+    private boolean parseFields(byte[] data, PersonRecord record) {
+        byte separator = convertToOtherFormat ? (byte) '/' : (byte) '.';
+        int first = -1;
+        int second = -1;
+        for (int i = fieldStart[BIRTH_DATE]; i < fieldEnd[BIRTH_DATE]; i++) {
+            if (data[i] == separator) {
+                if (first == -1) {
+                    first = i;
+                } else if (second == -1) {
+                    second = i;
+                } else {
+                    return false;
+                }
+            }
+        }
+        if (second == -1 || !parseNumber(data, HEIGHT)) {
+            return false;
+        }
+        double height = number;
+        if (!parseNumber(data, WEIGHT)) {
+            return false;
+        }
+        double weight = number;
+        if (!parseNumber(data, TEMPERATURE)
+            || height < 0 || weight < 0
+            || number < (convertToOtherFormat ? FREEZING_FAHRENHEIT : 0)) {
+            return false;
+        }
+        record.set(data, fieldStart, fieldEnd, first, second, convertToOtherFormat,
+                   height, weight, number);
+        if (stats != null) {
+            addStats(data, record.getHeight(!convertToOtherFormat),
+                     record.getWeight(!convertToOtherFormat),
+                     record.getTemperature(!convertToOtherFormat));
+        }
+        return true;
+    }
+
+    /**
+     * Converts the fields found by splitFields and appends the converted
+     * record to out. If a field is invalid nothing is appended.
+     *
+     * @param data the bytes holding the line
+     * @param out the buffer to append the converted record to
+     * @return true if the fields were valid
+     */
+    private boolean convertFields(byte[] data, OutputBuffer out) {
+        int mark = out.length();
+        appendField(data, LAST_NAME, out);
+        out.append(',');
+        appendField(data, FIRST_NAME, out);
+        out.append(',');
+        boolean valid;
+        if (convertToOtherFormat) {
+            valid = appendSwappedDate(data, fieldStart[BIRTH_DATE], fieldEnd[BIRTH_DATE],
+                                      (byte) '/', (byte) '.', out)
+                    && appendOtherMeasurements(data, out);
+        } else {
+            valid = appendSwappedDate(data, fieldStart[BIRTH_DATE], fieldEnd[BIRTH_DATE],
+                                      (byte) '.', (byte) '/', out)
+                    && appendUSMeasurements(data, out);
+        }
+        if (!valid) {
+            out.truncate(mark);
+        }
+        return valid;
+    }
+
+    /**
+     * Finds why a line is invalid, checking the same rules as convert in
+     * the same order. This is only called for lines convert has rejected,
+     * so it does no work on the path valid lines take.
+     *
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return the first rule the line breaks, or null if it is valid
+     */
+    public RejectReason diagnose(byte[] data, int start, int end) {
+        if (!splitFields(data, start, end)) {
+            return RejectReason.FIELD_COUNT;
+        }
+        byte separator = convertToOtherFormat ? (byte) '/' : (byte) '.';
+        int separators = 0;
+        for (int i = fieldStart[BIRTH_DATE]; i < fieldEnd[BIRTH_DATE]; i++) {
+            if (data[i] == separator) {
+                separators++;
+            }
+        }
+        if (separators != 2) {
+            return RejectReason.DATE_FORMAT;
+        }
+        if (!parseNumber(data, HEIGHT)) {
+            return RejectReason.HEIGHT_NOT_NUMBER;
+        }
+        double height = number;
+        if (!parseNumber(data, WEIGHT)) {
+            return RejectReason.WEIGHT_NOT_NUMBER;
+        }
+        double weight = number;
+        if (!parseNumber(data, TEMPERATURE)) {
+            return RejectReason.TEMPERATURE_NOT_NUMBER;
+        }
+        if (height < 0) {
+            return RejectReason.NEGATIVE_HEIGHT;
+        }
+        if (weight < 0) {
+            return RejectReason.NEGATIVE_WEIGHT;
+        }
+        if (number < (convertToOtherFormat ? FREEZING_FAHRENHEIT : 0)) {
+            return RejectReason.TEMPERATURE_BELOW_FREEZING;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the first byte of a trimmed field in the line most
+     * recently passed to convert or splitFields
+     *
+     * @param field the index of the field
+     * @return the index of the first byte of the field
+     */
+    public int getFieldStart(int field) {
+        return fieldStart[field];
+    }
+
+    /**
+     * Returns the index after the last byte of a trimmed field in the line
+     * most recently passed to convert or splitFields
+     *
+     * @param field the index of the field
+     * @return the index after the last byte of the field
+     */
+    public int getFieldEnd(int field) {
+        return fieldEnd[field];
+    }
+
+    /**
+     * Finds the six trimmed fields of a line
+     *
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return true if the line has exactly six fields
+     */
+    public boolean splitFields(byte[] data, int start, int end) {
+        int field = 0;
+        int fieldBegin = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] == ',') {
+                if (field == FIELD_COUNT - 1) {
+                    return false;
+                }
+                setTrimmedField(data, field, fieldBegin, i);
+                field++;
+                fieldBegin = i + 1;
+            }
+        }
+        if (field != FIELD_COUNT - 1) {
+            return false;
+        }
+        setTrimmedField(data, field, fieldBegin, end);
+        return true;
+    }
+
+    /**
+     * Records the bounds of a field with leading and trailing spaces and
+     * control characters removed, the same characters String.trim removes
+     *
+     * @param data the bytes holding the line
+     * @param field the index of the field
+     * @param start the index of the first byte of the untrimmed field
+     * @param end the index after the last byte of the untrimmed field
+     */
+    private void setTrimmedField(byte[] data, int field, int start, int end) {
+        while (start < end && data[start] >= 0 && data[start] <= ' ') {
+            start++;
+        }
+        while (end > start && data[end - 1] >= 0 && data[end - 1] <= ' ') {
+            end--;
+        }
+        fieldStart[field] = start;
+        fieldEnd[field] = end;
+    }
+
+    /**
+     * Appends a field unchanged
+     *
+     * @param data the bytes holding the line
+     * @param field the index of the field
+     * @param out the buffer to append to
+     */
+    private void appendField(byte[] data, int field, OutputBuffer out) {
+        out.append(data, fieldStart[field], fieldEnd[field]);
+    }
+
+    /**
+     * Appends a date with its first two parts swapped and its separators
+     * replaced, so 04/18/1991 becomes 18.04.1991 and back. The date must
+     * contain exactly two separators.
+     *
+     * @param data the bytes holding the date
+     * @param start the index of the first byte of the date
+     * @param end the index after the last byte of the date
+     * @param separator the separator used in the date
+     * @param newSeparator the separator to use in the converted date
+     * @param out the buffer to append to
+     * @return true if the date had exactly two separators
+     */
+    public static boolean appendSwappedDate(byte[] data, int start, int end, byte separator,
+                                            byte newSeparator, OutputBuffer out) {
+        int first = -1;
+        int second = -1;
+        for (int i = start; i < end; i++) {
+            if (data[i] == separator) {
+                if (first == -1) {
+                    first = i;
+                } else if (second == -1) {
+                    second = i;
+                } else {
+                    return false;
+                }
+            }
+        }
+        if (second == -1) {
+            return false;
+        }
+        out.append(data, first + 1, second);
+        out.append(newSeparator);
+        out.append(data, start, first);
+        out.append(newSeparator);
+        out.append(data, second + 1, end);
+        return true;
+    }
+
+    /**
+     * Adds a converted line to the statistics. The birth year is the part
+     * of the date after its last separator in either format.
+     *
+     * @param data the bytes holding the line
+     * @param height the converted height
+     * @param weight the converted weight
+     * @param temperature the converted temperature
+     */
+    private void addStats(byte[] data, double height, double weight, double temperature) {
+        byte separator = convertToOtherFormat ? (byte) '/' : (byte) '.';
+        int yearStart = fieldEnd[BIRTH_DATE];
+        while (data[yearStart - 1] != separator) {
+            yearStart--;
+        }
+        stats.addRecord(height, weight, temperature, data, yearStart, fieldEnd[BIRTH_DATE]);
+    }
+
+    /**
+     * Converts US measurements to metric and appends them
+     *
+     * @param data the bytes holding the line
+     * @param out the buffer to append to
+     * @return true if the measurements were valid
+     */
+    private boolean appendOtherMeasurements(byte[] data, OutputBuffer out) {
+        if (!parseNumber(data, HEIGHT)) {
+            return false;
+        }
+        double heightInches = number;
+        if (!parseNumber(data, WEIGHT)) {
+            return false;
+        }
+        double weightPounds = number;
+        if (!parseNumber(data, TEMPERATURE)) {
+            return false;
+        }
+        double tempFahrenheit = number;
+        if (heightInches < 0 || weightPounds < 0 || tempFahrenheit < FREEZING_FAHRENHEIT) {
+            return false;
+        }
+        double height = inchesToCentimeters(heightInches);
+        double weight = poundsToKilograms(weightPounds);
+        double temperature = fahrenheitToCelsius(tempFahrenheit);
+        out.append(',');
+        appendTwoDecimals(height, out);
+        out.append(',');
+        appendTwoDecimals(weight, out);
+        out.append(',');
+        appendTwoDecimals(temperature, out);
+        if (stats != null) {
+            addStats(data, height, weight, temperature);
+        }
+        return true;
+    }
+
+    /**
+     * Converts metric measurements to US units and appends them
+     *
+     * @param data the bytes holding the line
+     * @param out the buffer to append to
+     * @return true if the measurements were valid
+     */
+    private boolean appendUSMeasurements(byte[] data, OutputBuffer out) {
+        if (!parseNumber(data, HEIGHT)) {
+            return false;
+        }
+        double heightCm = number;
+        if (!parseNumber(data, WEIGHT)) {
+            return false;
+        }
+        double weightKg = number;
+        if (!parseNumber(data, TEMPERATURE)) {
+            return false;
+        }
+        double tempCelsius = number;
+        if (heightCm < 0 || weightKg < 0 || tempCelsius < 0) {
+            return false;
+        }
+        double height = centimetersToInches(heightCm);
+        double weight = kilogramsToPounds(weightKg);
+        double temperature = celsiusToFahrenheit(tempCelsius);
+        out.append(',');
+        appendTwoDecimals(height, out);
+        out.append(',');
+        appendTwoDecimals(weight, out);
+        out.append(',');
+        appendTwoDecimals(temperature, out);
+        if (stats != null) {
+            addStats(data, height, weight, temperature);
+        }
+        return true;
+    }
+
+    /**
+     * Reads a field as a number, leaving its value in the number field
+     *
+     * @param data the bytes holding the line
+     * @param field the index of the field
+     * @return true if the field is a valid number
+     */
+    private boolean parseNumber(byte[] data, int field) {
+        try {
+            number = DecimalParser.parse(data, fieldStart[field], fieldEnd[field]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts inches to centimeters
+     *
+     * @param inches the length in inches
+     * @return the length in centimeters
+     */
+    static double inchesToCentimeters(double inches) {
+        return inches * CM_PER_INCH;
+    }
+
+    /**
+     * Converts centimeters to inches
+     *
+     * @param centimeters the length in centimeters
+     * @return the length in inches
+     */
+    static double centimetersToInches(double centimeters) {
+        return centimeters / CM_PER_INCH;
+    }
+
+    /**
+     * Converts pounds to kilograms
+     *
+     * @param pounds the weight in pounds
+     * @return the weight in kilograms
+     */
+    static double poundsToKilograms(double pounds) {
+        return pounds * KG_PER_POUND;
+    }
+
+    /**
+     * Converts kilograms to pounds
+     *
+     * @param kilograms the weight in kilograms
+     * @return the weight in pounds
+     */
+    static double kilogramsToPounds(double kilograms) {
+        return kilograms / KG_PER_POUND;
+    }
+
+    /**
+     * Converts a Fahrenheit temperature to Celsius
+     *
+     * @param fahrenheit the temperature in degrees Fahrenheit
+     * @return the temperature in degrees Celsius
+     */
+    static double fahrenheitToCelsius(double fahrenheit) {
+        return (fahrenheit - FREEZING_FAHRENHEIT) / FAHRENHEIT_PER_CELSIUS;
+    }
+
+    /**
+     * Converts a Celsius temperature to Fahrenheit
+     *
+     * @param celsius the temperature in degrees Celsius
+     * @return the temperature in degrees Fahrenheit
+     */
+    static double celsiusToFahrenheit(double celsius) {
+        return (celsius * FAHRENHEIT_PER_CELSIUS) + FREEZING_FAHRENHEIT;
+    }
+
+    /**
+     * Appends a number rounded to two decimal places
+     *
+     * @param value the number to append
+     * @param out the buffer to append to
+     */
+    private static void appendTwoDecimals(double value, OutputBuffer out) {
+        TwoDecimalFormatter.append(value, out);
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a file through memory-mapped windows instead of read calls. Only
+ * one window is mapped at a time, so a file of any size can be read while
+ * the heap holds nothing but the caller's buffer. Bytes are copied from
+ * the page cache straight into the caller's array with no system call per
+ * read.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class MappedInputStream extends InputStream {
+
+    /**
+     * Default number of bytes mapped at a time
+     */
+    public static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+
+    /**
+     * The file being read
+     */
+    private final FileChannel channel;
+
+    /**
+     * Number of bytes mapped at a time
+     */
+    private final long windowSize;
+
+    /**
+     * Size of the file when the stream was opened
+     */
+    private final long size;
+
+    /**
+     * File position of the start of the current window
+     */
+    private long windowStart;
+
+    /**
+     * The currently mapped window, or null before the first read
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * Creates a stream with the default window size. The channel is not
+     * closed by this stream.
+     *
+     * @param channel the file to read
+     * @throws IOException if the size of the file cannot be read
+     * @throws IllegalArgumentException if channel is null
+     */
+    public MappedInputStream(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a stream. The channel is not closed by this stream.
+     *
+     * @param channel the file to read
+     * @param windowSize the number of bytes to map at a time
+     * @throws IOException if the size of the file cannot be read
+     * @throws IllegalArgumentException if channel is null or windowSize is
+     *                                  not between 1 and Integer.MAX_VALUE
+     */
+    public MappedInputStream(FileChannel channel, long windowSize) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Null channel");
+        }
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid window size");
+        }
+        this.channel = channel;
+        this.windowSize = windowSize;
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fillWindow()) {
+            return -1;
+        }
+        int count = Math.min(len, window.remaining());
+        window.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        long position = window == null ? 0 : windowStart + window.position();
+        return (int) Math.min(Integer.MAX_VALUE, size - position);
+    }
+
+    /**
+     * Makes sure the current window has bytes left, mapping the next window
+     * if it does not
+     *
+     * @return false if the end of the file has been reached
+     * @throws IOException if the file cannot be mapped
+     */
+    private boolean fillWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        long next = window == null ? 0 : windowStart + window.capacity();
+        if (next >= size) {
+            return false;
+        }
+        windowStart = next;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                             Math.min(windowSize, size - windowStart));
+        return true;
+    }
+}
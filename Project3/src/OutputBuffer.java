@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable byte buffer that converted records are appended to before
+ * being written out in large blocks. The same buffer is reused for the
+ * whole run, so appending does not allocate once it has grown to size.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class OutputBuffer {
+
+    /**
+     * Bytes held by the buffer
+     */
+    private byte[] data;
+
+    /**
+     * Number of bytes currently in use
+     */
+    private int length;
+
+    /**
+     * Creates an empty buffer with the given starting capacity
+     *
+     * @param capacity the starting capacity in bytes
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public OutputBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        data = new byte[capacity];
+    }
+
+    /**
+     * Returns the number of bytes in the buffer
+     *
+     * @return the number of bytes in the buffer
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the backing array. Only the first length() bytes are valid.
+     *
+     * @return the backing array
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    /**
+     * Empties the buffer without releasing its storage
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Shortens the buffer to the given length
+     *
+     * @param newLength the new length
+     * @throws IllegalArgumentException if newLength is negative or past the end
+     */
+    public void truncate(int newLength) {
+        if (newLength < 0 || newLength > length) {
+            throw new IllegalArgumentException("Invalid length");
+        }
+        length = newLength;
+    }
+
+    /**
+     * Appends a single byte
+     *
+     * @param b the byte to append
+     */
+    public void append(byte b) {
+        if (length == data.length) {
+            grow(1);
+        }
+        data[length++] = b;
+    }
+
+    /**
+     * Appends a single ASCII character
+     *
+     * @param c the character to append
+     */
+    public void append(char c) {
+        append((byte) c);
+    }
+
+    /**
+     * Appends a range of bytes
+     *
+     * @param src the source array
+     * @param start the index of the first byte to copy
+     * @param end the index after the last byte to copy
+     */
+    public void append(byte[] src, int start, int end) {
+        int count = end - start;
+        if (length + count > data.length) {
+            grow(count);
+        }
+        System.arraycopy(src, start, data, length, count);
+        length += count;
+    }
+
+    /**
+     * Appends an int as four big-endian bytes, the way DataOutputStream writes it
+     *
+     * @param value the number to append
+     */
+    public void appendInt(int value) {
+        append((byte) (value >>> 24));
+        append((byte) (value >>> 16));
+        append((byte) (value >>> 8));
+        append((byte) value);
+    }
+
+    /**
+     * Appends a non-negative int as an unsigned LEB128 varint: seven bits
+     * a byte, low bits first, with the top bit set on every byte but the last
+     *
+     * @param value the number to append
+     */
+    public void appendVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            append((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        append((byte) value);
+    }
+
+    /**
+     * Appends a string encoded as UTF-8
+     *
+     * @param s the string to append
+     */
+    public void appendUtf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes the contents of the buffer to the stream and empties the buffer
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(data, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Returns the contents of the buffer decoded as UTF-8
+     *
+     * @return the contents of the buffer as a string
+     */
+    @Override
+    public String toString() {
+        return new String(data, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes room for at least the given number of extra bytes
+     *
+     * @param extra the number of bytes that must fit after the current end
+     */
+    private void grow(int extra) {
+        int needed = length + extra;
+        int newCapacity = Math.max(data.length * 2, needed);
+        byte[] larger = new byte[newCapacity];
+        System.arraycopy(data, 0, larger, 0, length);
+        data = larger;
+    }
+}
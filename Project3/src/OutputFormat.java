@@ -0,0 +1,35 @@
+/**
+ * The formats DataConverter can write each record in. Several can be
+ * written from one read of the input.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public enum OutputFormat {
+
+    /**
+     * CSV lines in the US format
+     */
+    US_CSV,
+
+    /**
+     * CSV lines in the other format
+     */
+    OT_CSV,
+
+    /**
+     * Compact binary rows, written by BinaryRowSink
+     */
+    BINARY,
+
+    /**
+     * One JSON object per line
+     */
+    JSONL,
+
+    /**
+     * Row groups stored column by column, written by ColumnarSink
+     */
+    COLUMNAR
+}
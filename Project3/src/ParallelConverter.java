@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Converts a file on several threads. The file is split into chunks that
+ * each end just after a newline, the chunks are converted on a pool of
+ * worker threads, and the converted chunks are written in their original
+ * order. A chunk is read into one array, so a line that runs on for close
+ * to 2 GB without a newline cannot be converted in this mode.
+ *
+ * The output, and the number of the first invalid line, are the same as
+ * converting the whole file with a single ConversionEngine.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ParallelConverter {
+
+    /**
+     * Default number of bytes in each chunk
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    /**
+     * Number of bytes read at a time while looking for the end of a chunk
+     */
+    private static final int BOUNDARY_SCAN_SIZE = 8192;
+
+    /**
+     * Largest number of bytes in a chunk: the largest array the JVM allows
+     */
+    private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE - 8;
+
+    /**
+     * Number of chunks per thread that may be converted but not yet written
+     */
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * True to convert US lines to the other format, false for the reverse
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Number of worker threads
+     */
+    private final int threads;
+
+    /**
+     * Target number of bytes in each chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Statistics the chunks' statistics are merged into, or null for none
+     */
+    private ConversionStats stats;
+
+    /**
+     * Metrics the workers and the writer record each chunk in, or null
+     */
+    private ConversionMetrics metrics;
+
+    /**
+     * The converted form of one chunk
+     */
+    private static class ChunkResult {
+
+        /**
+         * Converted lines of the chunk
+         */
+        private final OutputBuffer output;
+
+        /**
+         * Number of lines converted in the chunk
+         */
+        private final long lineCount;
+
+        /**
+         * Line number within the chunk of the first invalid line, or 0
+         */
+        private final long invalidLine;
+
+        /**
+         * Statistics of the chunk's converted lines, or null if not gathered
+         */
+        private final ConversionStats stats;
+
+        /**
+         * Creates a chunk result
+         *
+         * @param output converted lines of the chunk
+         * @param lineCount number of lines converted in the chunk
+         * @param invalidLine line number within the chunk of the first invalid line, or 0
+         * @param stats statistics of the chunk's converted lines, or null
+         */
+        private ChunkResult(OutputBuffer output, long lineCount, long invalidLine,
+                            ConversionStats stats) {
+            this.output = output;
+            this.lineCount = lineCount;
+            this.invalidLine = invalidLine;
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * Creates a converter with the default chunk size
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if threads is not positive
+     */
+    public ParallelConverter(boolean convertToOtherFormat, int threads) {
+        this(convertToOtherFormat, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a converter
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param threads the number of worker threads
+     * @param chunkSize the target number of bytes in each chunk
+     * @throws IllegalArgumentException if threads or chunkSize is not positive
+     */
+    public ParallelConverter(boolean convertToOtherFormat, int threads, int chunkSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the statistics converted lines are added to. Each chunk gathers
+     * its own, and they are merged in file order as chunks are written.
+     *
+     * @param stats the statistics, or null to gather none
+     */
+    public void setStats(ConversionStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Sets the metrics each chunk is recorded in: the workers record
+     * reading and converting it, and the writer records writing it
+     *
+     * @param metrics the metrics, or null to record none
+     */
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Converts the input file and writes it to the output stream. Lines
+     * before an invalid line are still written. The output stream is not
+     * closed.
+     *
+     * @param input the file to convert
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if input or output is null
+     */
+    public ConversionResult convert(Path input, OutputStream output) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "parallel-converter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<ChunkResult>> pending = new ArrayDeque<Future<ChunkResult>>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long nextChunk = 0;
+            long lineCount = 0;
+            long bytesWritten = 0;
+            int maxPending = threads * CHUNKS_IN_FLIGHT_PER_THREAD;
+            while (nextChunk < size || !pending.isEmpty()) {
+                while (nextChunk < size && pending.size() < maxPending) {
+                    long chunkStart = nextChunk;
+                    long chunkEnd = findChunkEnd(channel, chunkStart + chunkSize,
+                                                 chunkStart + MAX_CHUNK_BYTES, size);
+                    pending.add(pool.submit(() -> convertChunk(channel, chunkStart, chunkEnd)));
+                    nextChunk = chunkEnd;
+                }
+                ChunkResult chunk = await(pending.poll());
+                int length = chunk.output.length();
+                long writeNanos = metrics == null ? 0 : System.nanoTime();
+                bytesWritten += length;
+                chunk.output.writeTo(output);
+                if (metrics != null) {
+                    metrics.recordWrite(length, System.nanoTime() - writeNanos);
+                }
+                if (stats != null) {
+                    stats.merge(chunk.stats);
+                }
+                if (chunk.invalidLine != 0) {
+                    output.flush();
+                    return new ConversionResult(lineCount + chunk.lineCount,
+                                                lineCount + chunk.invalidLine, size, bytesWritten);
+                }
+                lineCount += chunk.lineCount;
+            }
+            output.flush();
+            return new ConversionResult(lineCount, 0, size, bytesWritten);
+        } finally {
+            for (Future<ChunkResult> future : pending) {
+                future.cancel(true);
+            }
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds where the chunk that should end near target really ends: just
+     * after the next newline, or at the end of the file.
+     *
+     * @param channel the file being converted
+     * @param target the position the chunk should end near
+     * @param limit the position the chunk must end by
+     * @param size the size of the file
+     * @return the position just after the end of the chunk
+     * @throws IOException if the file cannot be read, or no newline comes
+     *                     before limit
+     */
+    private static long findChunkEnd(FileChannel channel, long target, long limit, long size)
+            throws IOException {
+        if (target >= size) {
+            return checkChunkEnd(size, limit);
+        }
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long position = target;
+        while (position < size) {
+            scan.clear();
+            int count = channel.read(scan, position);
+            if (count <= 0) {
+                break;
+            }
+            byte[] bytes = scan.array();
+            for (int i = 0; i < count; i++) {
+                if (bytes[i] == '\n') {
+                    return checkChunkEnd(position + i + 1, limit);
+                }
+            }
+            position += count;
+            checkChunkEnd(position, limit);
+        }
+        return checkChunkEnd(size, limit);
+    }
+
+    /**
+     * Checks that a chunk ends by its limit
+     *
+     * @param end the position after the last byte scanned for the chunk
+     * @param limit the position the chunk must end by
+     * @return end
+     * @throws IOException if end is past limit
+     */
+    private static long checkChunkEnd(long end, long limit) throws IOException {
+        if (end > limit) {
+            throw new IOException("No newline within 2 GB after byte " + (limit - MAX_CHUNK_BYTES)
+                                  + "; convert this file in stream mode");
+        }
+        return end;
+    }
+
+    /**
+     * Reads and converts one chunk of the file
+     *
+     * @param channel the file being converted
+     * @param start the position of the first byte of the chunk
+     * @param end the position after the last byte of the chunk
+     * @return the converted chunk
+     * @throws IOException if the file cannot be read
+     */
+    private ChunkResult convertChunk(FileChannel channel, long start, long end) throws IOException {
+        long readNanos = metrics == null ? 0 : System.nanoTime();
+        int length = (int) (end - start);
+        byte[] data = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Input file changed size during conversion");
+            }
+        }
+        long convertNanos = 0;
+        if (metrics != null) {
+            convertNanos = System.nanoTime();
+            metrics.recordRead(length, convertNanos - readNanos);
+        }
+        ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+        ConversionStats chunkStats = stats == null ? null : new ConversionStats(convertToOtherFormat);
+        engine.setStats(chunkStats);
+        OutputBuffer converted = new OutputBuffer(length + length / 4 + 1);
+        engine.convertLines(data, 0, length, true, converted);
+        if (metrics != null) {
+            metrics.recordConvert(engine.getLineCount(), 0, System.nanoTime() - convertNanos);
+        }
+        return new ChunkResult(converted, engine.getLineCount(), engine.getInvalidLine(),
+                               chunkStats);
+    }
+
+    /**
+     * Waits for a chunk to finish converting
+     *
+     * @param future the chunk being converted
+     * @return the converted chunk
+     * @throws IOException if converting the chunk failed
+     */
+    private static ChunkResult await(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error converting chunk", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * One valid line read by LineConverter.parse: the names and birth date as
+ * ranges of the bytes holding the line, and the measurements as numbers.
+ * A record can be written in either format and either set of units, so a
+ * line parsed once can feed several record sinks. The record refers to the
+ * caller's bytes, which are only valid until the next line is parsed into
+ * it, and is reused from line to line.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class PersonRecord {
+
+    /**
+     * Bytes holding the line
+     */
+    private byte[] data;
+
+    /**
+     * Index of the first byte of each trimmed field
+     */
+    private final int[] fieldStart = new int[LineConverter.FIELD_COUNT];
+
+    /**
+     * Index after the last byte of each trimmed field
+     */
+    private final int[] fieldEnd = new int[LineConverter.FIELD_COUNT];
+
+    /**
+     * Index of the first separator in the birth date
+     */
+    private int firstSeparator;
+
+    /**
+     * Index of the second separator in the birth date
+     */
+    private int secondSeparator;
+
+    /**
+     * True if the line was in the US format and units
+     */
+    private boolean usSource;
+
+    /**
+     * Height in the line's units
+     */
+    private double height;
+
+    /**
+     * Weight in the line's units
+     */
+    private double weight;
+
+    /**
+     * Temperature in the line's units
+     */
+    private double temperature;
+
+    /**
+     * Fills the record from a parsed line
+     *
+     * @param data the bytes holding the line
+     * @param fieldStart the index of the first byte of each trimmed field
+     * @param fieldEnd the index after the last byte of each trimmed field
+     * @param firstSeparator the index of the first separator in the birth date
+     * @param secondSeparator the index of the second separator in the birth date
+     * @param usSource true if the line was in the US format
+     * @param height the height in the line's units
+     * @param weight the weight in the line's units
+     * @param temperature the temperature in the line's units
+     */
+    void set(byte[] data, int[] fieldStart, int[] fieldEnd, int firstSeparator,
+             int secondSeparator, boolean usSource, double height, double weight,
+             double temperature) {
+        this.data = data;
+        System.arraycopy(fieldStart, 0, this.fieldStart, 0, LineConverter.FIELD_COUNT);
+        System.arraycopy(fieldEnd, 0, this.fieldEnd, 0, LineConverter.FIELD_COUNT);
+        this.firstSeparator = firstSeparator;
+        this.secondSeparator = secondSeparator;
+        this.usSource = usSource;
+        this.height = height;
+        this.weight = weight;
+        this.temperature = temperature;
+    }
+
+    /**
+     * Returns the bytes holding the line
+     *
+     * @return the bytes holding the line
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the index of the first byte of a trimmed field
+     *
+     * @param field the index of the field, such as LineConverter.LAST_NAME
+     * @return the index of the first byte of the field
+     */
+    public int getFieldStart(int field) {
+        return fieldStart[field];
+    }
+
+    /**
+     * Returns the index after the last byte of a trimmed field
+     *
+     * @param field the index of the field, such as LineConverter.LAST_NAME
+     * @return the index after the last byte of the field
+     */
+    public int getFieldEnd(int field) {
+        return fieldEnd[field];
+    }
+
+    /**
+     * Returns true if the line was in the US format
+     *
+     * @return true if the line was in the US format
+     */
+    public boolean isUSSource() {
+        return usSource;
+    }
+
+    /**
+     * Appends a name or other text field unchanged
+     *
+     * @param field the index of the field
+     * @param out the buffer to append to
+     */
+    public void appendField(int field, OutputBuffer out) {
+        out.append(data, fieldStart[field], fieldEnd[field]);
+    }
+
+    /**
+     * Appends the birth date in a format: mm/dd/yyyy for the US format and
+     * dd.mm.yyyy for the other, swapping the first two parts if the line
+     * was in the other format
+     *
+     * @param usFormat true for the US format
+     * @param out the buffer to append to
+     */
+    public void appendBirthDate(boolean usFormat, OutputBuffer out) {
+        int start = fieldStart[LineConverter.BIRTH_DATE];
+        byte separator = usFormat ? (byte) '/' : (byte) '.';
+        if (usFormat == usSource) {
+            out.append(data, start, firstSeparator);
+            out.append(separator);
+            out.append(data, firstSeparator + 1, secondSeparator);
+        } else {
+            out.append(data, firstSeparator + 1, secondSeparator);
+            out.append(separator);
+            out.append(data, start, firstSeparator);
+        }
+        out.append(separator);
+        out.append(data, secondSeparator + 1, fieldEnd[LineConverter.BIRTH_DATE]);
+    }
+
+    /**
+     * Returns the height
+     *
+     * @param usUnits true for inches, false for centimeters
+     * @return the height
+     */
+    public double getHeight(boolean usUnits) {
+        if (usUnits == usSource) {
+            return height;
+        }
+        return usUnits ? LineConverter.centimetersToInches(height)
+                       : LineConverter.inchesToCentimeters(height);
+    }
+
+    /**
+     * Returns the weight
+     *
+     * @param usUnits true for pounds, false for kilograms
+     * @return the weight
+     */
+    public double getWeight(boolean usUnits) {
+        if (usUnits == usSource) {
+            return weight;
+        }
+        return usUnits ? LineConverter.kilogramsToPounds(weight)
+                       : LineConverter.poundsToKilograms(weight);
+    }
+
+    /**
+     * Returns the temperature
+     *
+     * @param usUnits true for degrees Fahrenheit, false for degrees Celsius
+     * @return the temperature
+     */
+    public double getTemperature(boolean usUnits) {
+        if (usUnits == usSource) {
+            return temperature;
+        }
+        return usUnits ? LineConverter.celsiusToFahrenheit(temperature)
+                       : LineConverter.fahrenheitToCelsius(temperature);
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for a PipelinedConverter run: how long each stage spent doing
+ * work rather than waiting on a queue, and how full the queues between the
+ * stages got. The stage with the most busy time is the bottleneck; a queue
+ * that is usually full sits in front of a slow stage, and a queue that is
+ * usually empty sits after one.
+ *
+ * The counters may be read while the pipeline is running.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class PipelineStats {
+
+    /**
+     * Nanoseconds the reader spent reading and splitting blocks
+     */
+    private final AtomicLong readerBusyNanos = new AtomicLong();
+
+    /**
+     * Nanoseconds all converter threads together spent converting
+     */
+    private final AtomicLong converterBusyNanos = new AtomicLong();
+
+    /**
+     * Nanoseconds the writer spent writing
+     */
+    private final AtomicLong writerBusyNanos = new AtomicLong();
+
+    /**
+     * Largest number of blocks seen waiting for a converter
+     */
+    private final AtomicLong maxReadQueueDepth = new AtomicLong();
+
+    /**
+     * Largest number of converted blocks seen waiting for the writer
+     */
+    private final AtomicLong maxWriteQueueDepth = new AtomicLong();
+
+    /**
+     * Number of blocks read
+     */
+    private final AtomicLong blocks = new AtomicLong();
+
+    /**
+     * Number of converter threads
+     */
+    private final int converterThreads;
+
+    /**
+     * Creates empty counters
+     *
+     * @param converterThreads the number of converter threads in the pipeline
+     */
+    public PipelineStats(int converterThreads) {
+        this.converterThreads = converterThreads;
+    }
+
+    /**
+     * Returns the nanoseconds the reader spent reading and splitting blocks
+     *
+     * @return the reader's busy time in nanoseconds
+     */
+    public long getReaderBusyNanos() {
+        return readerBusyNanos.get();
+    }
+
+    /**
+     * Returns the nanoseconds all converter threads together spent converting
+     *
+     * @return the converters' total busy time in nanoseconds
+     */
+    public long getConverterBusyNanos() {
+        return converterBusyNanos.get();
+    }
+
+    /**
+     * Returns the nanoseconds the writer spent writing
+     *
+     * @return the writer's busy time in nanoseconds
+     */
+    public long getWriterBusyNanos() {
+        return writerBusyNanos.get();
+    }
+
+    /**
+     * Returns the largest number of blocks seen waiting for a converter
+     *
+     * @return the largest read queue depth
+     */
+    public long getMaxReadQueueDepth() {
+        return maxReadQueueDepth.get();
+    }
+
+    /**
+     * Returns the largest number of converted blocks seen waiting for the writer
+     *
+     * @return the largest write queue depth
+     */
+    public long getMaxWriteQueueDepth() {
+        return maxWriteQueueDepth.get();
+    }
+
+    /**
+     * Returns the number of blocks read
+     *
+     * @return the number of blocks read
+     */
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /**
+     * Returns a one-line summary of the counters
+     *
+     * @return a summary of the counters
+     */
+    @Override
+    public String toString() {
+        return String.format("pipeline: %d blocks, busy ms reader %d, converters %d (%d threads), "
+                             + "writer %d, max queue depth read %d, write %d",
+                             getBlocks(), getReaderBusyNanos() / 1000000,
+                             getConverterBusyNanos() / 1000000, converterThreads,
+                             getWriterBusyNanos() / 1000000, getMaxReadQueueDepth(),
+                             getMaxWriteQueueDepth());
+    }
+
+    /**
+     * Adds reader busy time
+     *
+     * @param nanos the nanoseconds to add
+     */
+    void addReaderBusy(long nanos) {
+        readerBusyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Adds converter busy time
+     *
+     * @param nanos the nanoseconds to add
+     */
+    void addConverterBusy(long nanos) {
+        converterBusyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Adds writer busy time
+     *
+     * @param nanos the nanoseconds to add
+     */
+    void addWriterBusy(long nanos) {
+        writerBusyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records a block being read and the read queue depth after it was queued
+     *
+     * @param depth the read queue depth
+     */
+    void blockRead(int depth) {
+        blocks.incrementAndGet();
+        maxReadQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Records the write queue depth after a converted block was queued
+     *
+     * @param depth the write queue depth
+     */
+    void blockConverted(int depth) {
+        maxWriteQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+}
@@ -0,0 +1,481 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Converts a stream in three overlapping stages: a reader thread fills
+ * blocks that end just after a newline, one or more converter threads
+ * convert the blocks, and the calling thread writes the converted blocks in
+ * their original order. The stages are joined by bounded queues, and no
+ * more than a fixed number of blocks are in the pipeline at once, so memory
+ * use stays the same however large the input is.
+ *
+ * The output, and the number of the first invalid line, are the same as
+ * converting the stream with a single ConversionEngine.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class PipelinedConverter {
+
+    /**
+     * Default number of bytes in each block
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Default capacity of each queue between stages
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    /**
+     * Sequence number that marks the end of the blocks
+     */
+    private static final long END = -1;
+
+    /**
+     * True to convert US lines to the other format, false for the reverse
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Number of converter threads
+     */
+    private final int converterThreads;
+
+    /**
+     * Target number of bytes in each block
+     */
+    private final int blockSize;
+
+    /**
+     * Blocks read but not yet converted
+     */
+    private final BlockingQueue<Block> readQueue;
+
+    /**
+     * Blocks converted but not yet written
+     */
+    private final BlockingQueue<Block> writeQueue;
+
+    /**
+     * Limits the number of blocks between the reader and the writer
+     */
+    private final Semaphore blocksInFlight;
+
+    /**
+     * Busy times and queue depths
+     */
+    private final PipelineStats stats;
+
+    /**
+     * Set when the writer has stopped and the other stages should too
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Statistics the blocks' statistics are merged into, or null for none
+     */
+    private ConversionStats conversionStats;
+
+    /**
+     * Metrics each stage records its blocks in, or null
+     */
+    private volatile ConversionMetrics metrics;
+
+    /**
+     * Error that stopped the reader, if any
+     */
+    private volatile IOException readError;
+
+    /**
+     * A block of input and, once converted, its output
+     */
+    private static class Block {
+
+        /**
+         * Position of the block in the input, or END
+         */
+        private final long sequence;
+
+        /**
+         * Input bytes of the block
+         */
+        private final byte[] data;
+
+        /**
+         * Number of input bytes in data
+         */
+        private final int length;
+
+        /**
+         * Converted lines of the block
+         */
+        private OutputBuffer output;
+
+        /**
+         * Number of lines converted in the block
+         */
+        private long lineCount;
+
+        /**
+         * Line number within the block of the first invalid line, or 0
+         */
+        private long invalidLine;
+
+        /**
+         * Statistics of the block's converted lines, or null if not gathered
+         */
+        private ConversionStats conversionStats;
+
+        /**
+         * Error thrown while converting the block, if any
+         */
+        private RuntimeException error;
+
+        /**
+         * Creates a block
+         *
+         * @param sequence position of the block in the input, or END
+         * @param data input bytes of the block
+         * @param length number of input bytes in data
+         */
+        private Block(long sequence, byte[] data, int length) {
+            this.sequence = sequence;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates a pipeline with the default block size and queue capacity
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param converterThreads the number of converter threads
+     * @throws IllegalArgumentException if converterThreads is not positive
+     */
+    public PipelinedConverter(boolean convertToOtherFormat, int converterThreads) {
+        this(convertToOtherFormat, converterThreads, DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a pipeline
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param converterThreads the number of converter threads
+     * @param blockSize the target number of bytes in each block
+     * @param queueCapacity the capacity of each queue between stages
+     * @throws IllegalArgumentException if any count or size is not positive
+     */
+    public PipelinedConverter(boolean convertToOtherFormat, int converterThreads, int blockSize,
+                              int queueCapacity) {
+        if (converterThreads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid queue capacity");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.converterThreads = converterThreads;
+        this.blockSize = blockSize;
+        this.readQueue = new ArrayBlockingQueue<Block>(queueCapacity);
+        this.writeQueue = new ArrayBlockingQueue<Block>(queueCapacity);
+        this.blocksInFlight = new Semaphore(queueCapacity * 2 + converterThreads);
+        this.stats = new PipelineStats(converterThreads);
+    }
+
+    /**
+     * Returns the busy times and queue depths of the pipeline
+     *
+     * @return the pipeline counters
+     */
+    public PipelineStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Sets the statistics converted lines are added to. Each block gathers
+     * its own, and the writer merges them in input order.
+     *
+     * @param conversionStats the statistics, or null to gather none
+     */
+    public void setConversionStats(ConversionStats conversionStats) {
+        this.conversionStats = conversionStats;
+    }
+
+    /**
+     * Sets the metrics each stage records its blocks in, timed the same
+     * way as the stage's busy time
+     *
+     * @param metrics the metrics, or null to record none
+     */
+    public void setMetrics(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the number of blocks waiting for a converter right now
+     *
+     * @return the current read queue depth
+     */
+    public int getReadQueueDepth() {
+        return readQueue.size();
+    }
+
+    /**
+     * Returns the number of converted blocks waiting for the writer right now
+     *
+     * @return the current write queue depth
+     */
+    public int getWriteQueueDepth() {
+        return writeQueue.size();
+    }
+
+    /**
+     * Converts everything in the input stream and writes it to the output
+     * stream. Lines before an invalid line are still written. Neither
+     * stream is closed. A pipeline converts only one input.
+     *
+     * @param input the stream to read lines from
+     * @param output the stream to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if input or output is null
+     */
+    public ConversionResult convert(InputStream input, OutputStream output) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        long[] bytesRead = new long[1];
+        threads.add(new Thread(() -> bytesRead[0] = readBlocks(input), "pipeline-reader"));
+        for (int i = 0; i < converterThreads; i++) {
+            threads.add(new Thread(this::convertBlocks, "pipeline-converter-" + i));
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            ConversionResult result = writeBlocks(output);
+            if (result.isSuccess()) {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                if (readError != null) {
+                    throw readError;
+                }
+                return new ConversionResult(result.getLineCount(), 0, bytesRead[0],
+                                            result.getBytesWritten());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", e);
+        } finally {
+            stopped = true;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Reader stage: splits the input into blocks that end just after a
+     * newline and queues them for the converters
+     *
+     * @param input the stream to read
+     * @return the number of bytes read
+     */
+    private long readBlocks(InputStream input) {
+        long total = 0;
+        long sequence = 0;
+        byte[] carry = new byte[0];
+        int carryLength = 0;
+        try {
+            boolean endOfInput = false;
+            while (!endOfInput && !stopped) {
+                blocksInFlight.acquire();
+                long start = System.nanoTime();
+                long totalBefore = total;
+                byte[] data = new byte[Math.max(blockSize, carryLength * 2)];
+                System.arraycopy(carry, 0, data, 0, carryLength);
+                int length = carryLength;
+                int split = -1;
+                while (true) {
+                    if (length == data.length) {
+                        split = lastNewline(data, carryLength, length);
+                        if (split >= 0) {
+                            break;
+                        }
+                        // No newline in a full block, so make the block bigger
+                        byte[] larger = new byte[data.length * 2];
+                        System.arraycopy(data, 0, larger, 0, length);
+                        data = larger;
+                    }
+                    int count = input.read(data, length, data.length - length);
+                    if (count < 0) {
+                        endOfInput = true;
+                        break;
+                    }
+                    total += count;
+                    length += count;
+                }
+                int blockLength = endOfInput ? length : split + 1;
+                carryLength = length - blockLength;
+                carry = new byte[carryLength];
+                System.arraycopy(data, blockLength, carry, 0, carryLength);
+                long busy = System.nanoTime() - start;
+                stats.addReaderBusy(busy);
+                if (metrics != null) {
+                    metrics.recordRead(total - totalBefore, busy);
+                }
+                if (blockLength == 0) {
+                    blocksInFlight.release();
+                } else {
+                    readQueue.put(new Block(sequence++, data, blockLength));
+                    stats.blockRead(readQueue.size());
+                }
+            }
+        } catch (IOException e) {
+            readError = e;
+        } catch (InterruptedException e) {
+            // Stopped by the writer
+            return total;
+        }
+        try {
+            for (int i = 0; i < converterThreads; i++) {
+                readQueue.put(new Block(END, null, 0));
+            }
+        } catch (InterruptedException e) {
+            // Stopped by the writer
+        }
+        return total;
+    }
+
+    /**
+     * Converter stage: converts queued blocks until the reader has finished
+     */
+    private void convertBlocks() {
+        ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+        try {
+            while (true) {
+                Block block = readQueue.take();
+                if (block.sequence == END) {
+                    writeQueue.put(block);
+                    return;
+                }
+                long start = System.nanoTime();
+                engine.reset();
+                if (conversionStats != null) {
+                    block.conversionStats = new ConversionStats(convertToOtherFormat);
+                    engine.setStats(block.conversionStats);
+                }
+                block.output = new OutputBuffer(block.length + block.length / 4 + 1);
+                try {
+                    engine.convertLines(block.data, 0, block.length, true, block.output);
+                } catch (RuntimeException e) {
+                    block.error = e;
+                }
+                block.lineCount = engine.getLineCount();
+                block.invalidLine = engine.getInvalidLine();
+                long busy = System.nanoTime() - start;
+                stats.addConverterBusy(busy);
+                if (metrics != null) {
+                    metrics.recordConvert(block.lineCount, 0, busy);
+                }
+                writeQueue.put(block);
+                stats.blockConverted(writeQueue.size());
+            }
+        } catch (InterruptedException e) {
+            // Stopped by the writer
+        }
+    }
+
+    /**
+     * Writer stage: writes converted blocks in their original order until
+     * every converter has finished or an invalid line is found
+     *
+     * @param output the stream to write to
+     * @return the result of the conversion, without the bytes read
+     * @throws IOException if the output cannot be written
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    private ConversionResult writeBlocks(OutputStream output)
+            throws IOException, InterruptedException {
+        Map<Long, Block> waiting = new HashMap<Long, Block>();
+        long nextSequence = 0;
+        long lineCount = 0;
+        long bytesWritten = 0;
+        int finishedConverters = 0;
+        while (finishedConverters < converterThreads) {
+            Block block = writeQueue.take();
+            if (block.sequence == END) {
+                finishedConverters++;
+                continue;
+            }
+            waiting.put(block.sequence, block);
+            Block next;
+            while ((next = waiting.remove(nextSequence)) != null) {
+                long start = System.nanoTime();
+                if (next.error != null) {
+                    throw next.error;
+                }
+                int length = next.output.length();
+                bytesWritten += length;
+                next.output.writeTo(output);
+                if (conversionStats != null) {
+                    conversionStats.merge(next.conversionStats);
+                }
+                long busy = System.nanoTime() - start;
+                stats.addWriterBusy(busy);
+                if (metrics != null) {
+                    metrics.recordWrite(length, busy);
+                }
+                blocksInFlight.release();
+                nextSequence++;
+                if (next.invalidLine != 0) {
+                    output.flush();
+                    return new ConversionResult(lineCount + next.lineCount,
+                                                lineCount + next.invalidLine, 0, bytesWritten);
+                }
+                lineCount += next.lineCount;
+            }
+        }
+        output.flush();
+        return new ConversionResult(lineCount, 0, 0, bytesWritten);
+    }
+
+    /**
+     * Finds the last newline in a range of bytes
+     *
+     * @param data the bytes to search
+     * @param from the index of the first byte to search
+     * @param to the index after the last byte to search
+     * @return the index of the last newline, or -1 if there is none
+     */
+    private static int lastNewline(byte[] data, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
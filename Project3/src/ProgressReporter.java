@@ -0,0 +1,94 @@
+import java.io.Closeable;
+import java.io.PrintStream;
+
+/**
+ * Prints a conversion's progress line at a fixed interval on a daemon
+ * thread until it is closed, for example to standard error while the
+ * converted lines go to a file.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ProgressReporter implements Closeable {
+
+    /**
+     * Metrics whose progress is printed
+     */
+    private final ConversionMetrics metrics;
+
+    /**
+     * Stream the progress is printed to
+     */
+    private final PrintStream out;
+
+    /**
+     * Time between progress lines in milliseconds
+     */
+    private final long intervalMillis;
+
+    /**
+     * Thread printing the progress lines
+     */
+    private final Thread thread;
+
+    /**
+     * Set when the reporter is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a reporter and starts printing
+     *
+     * @param metrics the metrics whose progress is printed
+     * @param out the stream to print to
+     * @param intervalMillis the time between progress lines in milliseconds
+     * @throws IllegalArgumentException if metrics or out is null or
+     *         intervalMillis is not positive
+     */
+    public ProgressReporter(ConversionMetrics metrics, PrintStream out, long intervalMillis) {
+        if (metrics == null || out == null) {
+            throw new IllegalArgumentException("Null argument");
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid interval");
+        }
+        this.metrics = metrics;
+        this.out = out;
+        this.intervalMillis = intervalMillis;
+        thread = new Thread(this::run, "conversion-progress");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Prints a progress line every interval until closed
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                Thread.sleep(intervalMillis);
+                if (!closed) {
+                    out.println(metrics.progressLine());
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Stops printing and waits for the thread to finish, so no progress
+     * line follows whatever is printed next
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,614 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A declarative description of a line layout and how to convert it, read
+ * from text such as:
+ *
+ *     # US to other
+ *     field lastName    text
+ *     field firstName   text
+ *     field birthDate   date m/d/y
+ *     field height      number min 0
+ *     field weight      number min 0
+ *     field temperature number min 32
+ *     column lastName
+ *     column firstName
+ *     column birthDate d.m.y
+ *     column height = height * 2.54
+ *     column weight = weight * 0.454
+ *     column temperature = (temperature - 32) / 1.8
+ *
+ * The field lines give the comma separated fields of an input line in
+ * order. A text field is copied as it is. A date field must hold exactly
+ * two of the separator in its pattern, which names its parts as d, m and
+ * y. A number field must be a number Double.parseDouble accepts and, if
+ * a minimum is given, be no less than it. Fields are trimmed the way
+ * String.trim trims, and a line is valid only if every field is.
+ *
+ * The column lines give the fields of a converted line in order. A column
+ * naming a field copies it; a date column may give a pattern to reorder
+ * the parts and change the separator; a number column is written with two
+ * decimal places. A column with an expression computes a number from the
+ * number fields with + - * / and parentheses, so columns can be dropped,
+ * reordered, repeated or added, and units changed.
+ *
+ * Blank lines and lines starting with # are ignored. A schema is
+ * compiled into a SchemaConverter. The built-in schemas, US_TO_OTHER and
+ * OTHER_TO_US, convert exactly as LineConverter does.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class RecordSchema {
+
+    /**
+     * Schema that converts US lines to the other format
+     */
+    public static final String US_TO_OTHER =
+        "# US to other\n" +
+        "field lastName    text\n" +
+        "field firstName   text\n" +
+        "field birthDate   date m/d/y\n" +
+        "field height      number min 0\n" +
+        "field weight      number min 0\n" +
+        "field temperature number min 32\n" +
+        "column lastName\n" +
+        "column firstName\n" +
+        "column birthDate d.m.y\n" +
+        "column height = height * 2.54\n" +
+        "column weight = weight * 0.454\n" +
+        "column temperature = (temperature - 32) / 1.8\n";
+
+    /**
+     * Schema that converts other lines to the US format
+     */
+    public static final String OTHER_TO_US =
+        "# other to US\n" +
+        "field lastName    text\n" +
+        "field firstName   text\n" +
+        "field birthDate   date d.m.y\n" +
+        "field height      number min 0\n" +
+        "field weight      number min 0\n" +
+        "field temperature number min 0\n" +
+        "column lastName\n" +
+        "column firstName\n" +
+        "column birthDate m/d/y\n" +
+        "column height = height / 2.54\n" +
+        "column weight = weight / 0.454\n" +
+        "column temperature = temperature * 1.8 + 32\n";
+
+    /**
+     * Type of a field
+     */
+    enum FieldType {
+
+        /**
+         * Copied as it is
+         */
+        TEXT,
+
+        /**
+         * Three parts separated by a separator
+         */
+        DATE,
+
+        /**
+         * A decimal number
+         */
+        NUMBER
+    }
+
+    /**
+     * One field of an input line
+     */
+    static class Field {
+
+        /**
+         * Name the columns refer to the field by
+         */
+        final String name;
+
+        /**
+         * Type of the field
+         */
+        final FieldType type;
+
+        /**
+         * For a date, which part, 'd', 'm' or 'y', comes first, second and third
+         */
+        final String parts;
+
+        /**
+         * For a date, the separator between its parts
+         */
+        final char separator;
+
+        /**
+         * For a number, the smallest valid value, or negative infinity
+         */
+        final double min;
+
+        /**
+         * For a number, its index among the number fields
+         */
+        final int numberIndex;
+
+        /**
+         * Creates a field
+         *
+         * @param name the name
+         * @param type the type
+         * @param parts the order of a date's parts, or null
+         * @param separator the separator of a date's parts
+         * @param min the smallest valid number
+         * @param numberIndex the index among the number fields, or -1
+         */
+        Field(String name, FieldType type, String parts, char separator, double min,
+              int numberIndex) {
+            this.name = name;
+            this.type = type;
+            this.parts = parts;
+            this.separator = separator;
+            this.min = min;
+            this.numberIndex = numberIndex;
+        }
+    }
+
+    /**
+     * One column of a converted line
+     */
+    static class Column {
+
+        /**
+         * Index of the field copied, or -1 for a computed column
+         */
+        final int field;
+
+        /**
+         * For a date, the order of the parts to write, or null to copy it
+         */
+        final String parts;
+
+        /**
+         * For a date, the separator to write
+         */
+        final char separator;
+
+        /**
+         * For a computed column, the expression
+         */
+        final Expression expression;
+
+        /**
+         * Creates a column
+         *
+         * @param field the index of the field copied, or -1
+         * @param parts the order of a date's parts, or null
+         * @param separator the separator to write between a date's parts
+         * @param expression the expression of a computed column, or null
+         */
+        Column(int field, String parts, char separator, Expression expression) {
+            this.field = field;
+            this.parts = parts;
+            this.separator = separator;
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * A node of a column expression
+     */
+    static class Expression {
+
+        /**
+         * '+', '-', '*' or '/' for an operation, 'n' for negation, 'c' for
+         * a constant and 'v' for a number field
+         */
+        final char op;
+
+        /**
+         * The constant's value
+         */
+        final double value;
+
+        /**
+         * The number field's index among the number fields
+         */
+        final int numberIndex;
+
+        /**
+         * The left operand, or the operand of a negation
+         */
+        final Expression left;
+
+        /**
+         * The right operand
+         */
+        final Expression right;
+
+        /**
+         * Creates an expression node
+         *
+         * @param op the kind of node
+         * @param value the constant's value
+         * @param numberIndex the number field's index
+         * @param left the left operand, or null
+         * @param right the right operand, or null
+         */
+        Expression(char op, double value, int numberIndex, Expression left, Expression right) {
+            this.op = op;
+            this.value = value;
+            this.numberIndex = numberIndex;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * The fields of an input line, in order
+     */
+    private final List<Field> fields = new ArrayList<Field>();
+
+    /**
+     * The columns of a converted line, in order
+     */
+    private final List<Column> columns = new ArrayList<Column>();
+
+    /**
+     * Number of number fields
+     */
+    private int numberCount;
+
+    /**
+     * Creates an empty schema, filled by parse
+     */
+    private RecordSchema() {
+    }
+
+    /**
+     * Returns a built-in schema
+     *
+     * @param convertToOtherFormat true for US_TO_OTHER, false for OTHER_TO_US
+     * @return the schema
+     */
+    public static RecordSchema builtIn(boolean convertToOtherFormat) {
+        return parse(convertToOtherFormat ? US_TO_OTHER : OTHER_TO_US);
+    }
+
+    /**
+     * Reads a schema from a UTF-8 file
+     *
+     * @param path the file
+     * @return the schema
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if path is null or the schema is not valid
+     */
+    public static RecordSchema load(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Null path");
+        }
+        return parse(Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a schema from text
+     *
+     * @param text the schema
+     * @return the schema
+     * @throws IllegalArgumentException if text is null or the schema is not
+     *         valid, with a message giving the line
+     */
+    public static RecordSchema parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Null schema");
+        }
+        RecordSchema schema = new RecordSchema();
+        String[] lines = text.split("\r?\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                String[] words = line.split("\\s+", 3);
+                if (words[0].equals("field")) {
+                    if (!schema.columns.isEmpty()) {
+                        throw new IllegalArgumentException("fields must come before columns");
+                    }
+                    schema.parseField(words);
+                } else if (words[0].equals("column")) {
+                    schema.parseColumn(line.substring("column".length()).trim());
+                } else {
+                    throw new IllegalArgumentException("expected field or column");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Schema line " + (i + 1) + ": "
+                                                   + e.getMessage());
+            }
+        }
+        if (schema.fields.isEmpty() || schema.columns.isEmpty()) {
+            throw new IllegalArgumentException("Schema needs at least one field and one column");
+        }
+        return schema;
+    }
+
+    /**
+     * Compiles the schema into a converter. Each call gives a new
+     * converter, and each thread needs its own.
+     *
+     * @return the converter
+     */
+    public SchemaConverter compile() {
+        return new SchemaConverter(this);
+    }
+
+    /**
+     * Returns the fields of an input line
+     *
+     * @return the fields, in order
+     */
+    List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the columns of a converted line
+     *
+     * @return the columns, in order
+     */
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of number fields
+     *
+     * @return the number of number fields
+     */
+    int getNumberCount() {
+        return numberCount;
+    }
+
+    /**
+     * Adds a field from a field line
+     *
+     * @param words the line split into the word field, the name and the rest
+     */
+    private void parseField(String[] words) {
+        if (words.length < 3) {
+            throw new IllegalArgumentException("field needs a name and a type");
+        }
+        String name = checkName(words[1]);
+        if (findField(name) >= 0) {
+            throw new IllegalArgumentException("duplicate field " + name);
+        }
+        String[] spec = words[2].split("\\s+");
+        if (spec[0].equals("text") && spec.length == 1) {
+            fields.add(new Field(name, FieldType.TEXT, null, '\0', 0, -1));
+        } else if (spec[0].equals("date") && spec.length == 2) {
+            String parts = datePattern(spec[1]);
+            fields.add(new Field(name, FieldType.DATE, parts, spec[1].charAt(1), 0, -1));
+        } else if (spec[0].equals("number") && spec.length == 1) {
+            fields.add(new Field(name, FieldType.NUMBER, null, '\0',
+                                 Double.NEGATIVE_INFINITY, numberCount++));
+        } else if (spec[0].equals("number") && spec.length == 3 && spec[1].equals("min")) {
+            double min;
+            try {
+                min = Double.parseDouble(spec[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid minimum " + spec[2]);
+            }
+            fields.add(new Field(name, FieldType.NUMBER, null, '\0', min, numberCount++));
+        } else {
+            throw new IllegalArgumentException("expected text, date PATTERN or number [min N]");
+        }
+    }
+
+    /**
+     * Adds a column from a column line
+     *
+     * @param spec the line after the word column
+     */
+    private void parseColumn(String spec) {
+        int equals = spec.indexOf('=');
+        if (equals >= 0) {
+            checkName(spec.substring(0, equals).trim());
+            ExpressionParser parser = new ExpressionParser(spec.substring(equals + 1));
+            columns.add(new Column(-1, null, '\0', parser.parseAll()));
+            return;
+        }
+        String[] words = spec.split("\\s+");
+        int field = findField(words[0]);
+        if (field < 0) {
+            throw new IllegalArgumentException("unknown field " + words[0]);
+        }
+        if (words.length == 1) {
+            columns.add(new Column(field, null, '\0', null));
+        } else if (words.length == 2 && fields.get(field).type == FieldType.DATE) {
+            columns.add(new Column(field, datePattern(words[1]), words[1].charAt(1), null));
+        } else {
+            throw new IllegalArgumentException("only a date column takes a pattern");
+        }
+    }
+
+    /**
+     * Checks a date pattern: d, m and y once each, in any order, separated
+     * twice by the same ASCII punctuation character
+     *
+     * @param pattern the pattern, such as m/d/y
+     * @return the parts in order, such as "mdy"
+     */
+    private static String datePattern(String pattern) {
+        if (pattern.length() != 5 || pattern.charAt(1) != pattern.charAt(3)
+            || pattern.charAt(1) <= ' ' || pattern.charAt(1) > '~'
+            || Character.isLetterOrDigit(pattern.charAt(1)) || pattern.charAt(1) == ',') {
+            throw new IllegalArgumentException("invalid date pattern " + pattern);
+        }
+        String parts = "" + pattern.charAt(0) + pattern.charAt(2) + pattern.charAt(4);
+        if (parts.indexOf('d') < 0 || parts.indexOf('m') < 0 || parts.indexOf('y') < 0) {
+            throw new IllegalArgumentException("invalid date pattern " + pattern);
+        }
+        return parts;
+    }
+
+    /**
+     * Checks that a name is a letter followed by letters and digits
+     *
+     * @param name the name
+     * @return the name
+     */
+    private static String checkName(String name) {
+        boolean valid = !name.isEmpty() && Character.isLetter(name.charAt(0));
+        for (int i = 1; i < name.length() && valid; i++) {
+            valid = Character.isLetterOrDigit(name.charAt(i));
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("invalid name " + name);
+        }
+        return name;
+    }
+
+    /**
+     * Finds a field by name
+     *
+     * @param name the name
+     * @return the index of the field, or -1 if there is none
+     */
+    private int findField(String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a column expression by recursive descent
+     */
+    private class ExpressionParser {
+
+        /**
+         * The expression's text
+         */
+        private final String text;
+
+        /**
+         * Index of the next character to read
+         */
+        private int pos;
+
+        /**
+         * Creates a parser
+         *
+         * @param text the expression's text
+         */
+        private ExpressionParser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Reads the whole text as one expression
+         *
+         * @return the expression
+         */
+        private Expression parseAll() {
+            Expression expression = parseSum();
+            if (peek() != '\0') {
+                throw new IllegalArgumentException("unexpected " + text.substring(pos).trim());
+            }
+            return expression;
+        }
+
+        /**
+         * Reads terms joined by + and -
+         *
+         * @return the expression
+         */
+        private Expression parseSum() {
+            Expression left = parseProduct();
+            while (peek() == '+' || peek() == '-') {
+                char op = text.charAt(pos++);
+                left = new Expression(op, 0, -1, left, parseProduct());
+            }
+            return left;
+        }
+
+        /**
+         * Reads factors joined by * and /
+         *
+         * @return the expression
+         */
+        private Expression parseProduct() {
+            Expression left = parseFactor();
+            while (peek() == '*' || peek() == '/') {
+                char op = text.charAt(pos++);
+                left = new Expression(op, 0, -1, left, parseFactor());
+            }
+            return left;
+        }
+
+        /**
+         * Reads a number, a number field, a negation or a parenthesized expression
+         *
+         * @return the expression
+         */
+        private Expression parseFactor() {
+            char c = peek();
+            if (c == '-') {
+                pos++;
+                return new Expression('n', 0, -1, parseFactor(), null);
+            }
+            if (c == '(') {
+                pos++;
+                Expression inner = parseSum();
+                if (peek() != ')') {
+                    throw new IllegalArgumentException("missing )");
+                }
+                pos++;
+                return inner;
+            }
+            int start = pos;
+            if (Character.isLetter(c)) {
+                while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) {
+                    pos++;
+                }
+                String name = text.substring(start, pos);
+                int field = findField(name);
+                if (field < 0 || fields.get(field).type != FieldType.NUMBER) {
+                    throw new IllegalArgumentException("unknown number field " + name);
+                }
+                return new Expression('v', 0, fields.get(field).numberIndex, null, null);
+            }
+            while (pos < text.length()
+                   && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            try {
+                return new Expression('c', Double.parseDouble(text.substring(start, pos)), -1,
+                                      null, null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("expected a number or field at "
+                                                   + text.substring(start).trim());
+            }
+        }
+
+        /**
+         * Skips white space and returns the next character without reading it
+         *
+         * @return the next character, or '\0' at the end
+         */
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives each valid record a ConversionEngine reads, to write it in some
+ * output format. Each sink keeps its own buffer and stream, so several can
+ * be fed from one parse of the input through a FanOutSink.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public interface RecordSink extends Closeable {
+
+    /**
+     * Writes a record. The record and the bytes it refers to are only
+     * valid during the call.
+     *
+     * @param record the record
+     * @throws IOException if the record cannot be written
+     */
+    void write(PersonRecord record) throws IOException;
+
+    /**
+     * Writes anything still buffered and closes the sink's stream
+     *
+     * @throws IOException if the buffered records cannot be written
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Closes the sink after a failed conversion. A sink that does its work
+     * when it is closed, such as sorting or indexing, skips that work and
+     * only releases what it holds; any other sink just closes.
+     *
+     * @throws IOException if the sink cannot be closed
+     */
+    default void abort() throws IOException {
+        close();
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes rejected lines to a sidecar file, one per line: the line number,
+ * the reason code and the original line, separated by commas, such as
+ *
+ *     17,DATE_FORMAT,Brown,James,1991-04-18,68,167,99.30
+ *
+ * Once more lines than the error budget allows have been rejected, the
+ * conversion is told to stop. The line that broke the budget is still
+ * written.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class RejectFile implements RejectHandler {
+
+    /**
+     * Suffix added to the output file name to name its reject file
+     */
+    public static final String SUFFIX = ".rejects";
+
+    /**
+     * Error budget meaning any number of lines may be rejected
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Stream the rejected lines are written to
+     */
+    private final OutputStream output;
+
+    /**
+     * Largest number of lines that may be rejected before stopping
+     */
+    private final long maxRejects;
+
+    /**
+     * Holds each record while it is built
+     */
+    private final OutputBuffer record = new OutputBuffer(256);
+
+    /**
+     * Number of lines rejected
+     */
+    private long rejectCount;
+
+    /**
+     * Creates a reject file writer
+     *
+     * @param output the stream to write rejected lines to
+     * @param maxRejects the number of lines that may be rejected before
+     *                   conversion stops, or UNLIMITED
+     * @throws IllegalArgumentException if output is null or maxRejects is negative
+     */
+    public RejectFile(OutputStream output, long maxRejects) {
+        if (output == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        if (maxRejects < 0) {
+            throw new IllegalArgumentException("Invalid error budget");
+        }
+        this.output = output;
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * Writes a rejected line
+     *
+     * @param lineNumber the line number of the invalid line
+     * @param reason why the line is invalid
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return true while the number of rejected lines is within the budget
+     * @throws UncheckedIOException if the reject file cannot be written
+     */
+    @Override
+    public boolean reject(long lineNumber, RejectReason reason, byte[] data, int start, int end) {
+        rejectCount++;
+        record.appendUtf8(Long.toString(lineNumber));
+        record.append(',');
+        record.appendUtf8(reason == null ? "UNKNOWN" : reason.name());
+        record.append(',');
+        record.append(data, start, end);
+        record.append('\n');
+        try {
+            record.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rejectCount <= maxRejects;
+    }
+
+    /**
+     * Returns the number of lines rejected
+     *
+     * @return the number of lines rejected
+     */
+    public long getRejectCount() {
+        return rejectCount;
+    }
+
+    /**
+     * Returns true if more lines were rejected than the budget allows
+     *
+     * @return true if the error budget was exceeded
+     */
+    public boolean isBudgetExceeded() {
+        return rejectCount > maxRejects;
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Receives the invalid lines a ConversionEngine skips in lenient mode.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public interface RejectHandler {
+
+    /**
+     * Records an invalid line and decides whether conversion carries on.
+     * The line's bytes are only valid during the call.
+     *
+     * @param lineNumber the line number of the invalid line, counting from 1
+     * @param reason why the line is invalid
+     * @param data the bytes holding the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line, without its separator
+     * @return true to skip the line and carry on, false to stop at this line
+     * @throws java.io.UncheckedIOException if the line cannot be recorded
+     */
+    boolean reject(long lineNumber, RejectReason reason, byte[] data, int start, int end);
+}
@@ -0,0 +1,50 @@
+/**
+ * Why a line was rejected in lenient mode. The name of each reason is the
+ * code written to the reject file.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public enum RejectReason {
+
+    /**
+     * The line does not have exactly six comma separated fields
+     */
+    FIELD_COUNT,
+
+    /**
+     * The birth date does not have exactly two separators of the input format
+     */
+    DATE_FORMAT,
+
+    /**
+     * The height is not a number
+     */
+    HEIGHT_NOT_NUMBER,
+
+    /**
+     * The weight is not a number
+     */
+    WEIGHT_NOT_NUMBER,
+
+    /**
+     * The temperature is not a number
+     */
+    TEMPERATURE_NOT_NUMBER,
+
+    /**
+     * The height is negative
+     */
+    NEGATIVE_HEIGHT,
+
+    /**
+     * The weight is negative
+     */
+    NEGATIVE_WEIGHT,
+
+    /**
+     * The temperature is below freezing
+     */
+    TEMPERATURE_BELOW_FREEZING
+}
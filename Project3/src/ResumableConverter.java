@@ -0,0 +1,397 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts a file so that a run that dies part way can be picked up where
+ * it left off. Every so many input bytes the output is forced to disk and
+ * a checkpoint file next to the output records how far the input and
+ * output have got and how many lines have been converted. A later run on
+ * the same input finds the checkpoint, cuts the output back to the
+ * checkpointed length, and carries on from the matching input offset.
+ *
+ * Checkpoints are only taken at line boundaries, so the finished output is
+ * the same as a clean run's. A checkpoint is ignored if the input file's
+ * size or modification time has changed, if it was written for the other
+ * direction, or if the output is shorter than it records. The checkpoint
+ * file is removed once the conversion finishes.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ResumableConverter {
+
+    /**
+     * Default number of input bytes converted between checkpoints
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 256L << 20;
+
+    /**
+     * Suffix added to the output file name to name its checkpoint file
+     */
+    public static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    /**
+     * First bytes of a checkpoint file, "DCK1"
+     */
+    private static final int CHECKPOINT_MAGIC = 0x44434b31;
+
+    /**
+     * Size of the input buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * True to convert US lines to the other format, false for the reverse
+     */
+    private final boolean convertToOtherFormat;
+
+    /**
+     * Number of input bytes converted between checkpoints
+     */
+    private final long checkpointInterval;
+
+    /**
+     * Number of checkpoints written by the last conversion
+     */
+    private int checkpointsWritten;
+
+    /**
+     * Line count the last conversion resumed from, or 0 if it started clean
+     */
+    private long resumedLineCount;
+
+    /**
+     * A saved position in the input and output
+     */
+    private static class Checkpoint {
+
+        /**
+         * Size of the input file when the checkpoint was taken
+         */
+        private final long inputSize;
+
+        /**
+         * Modification time of the input file in milliseconds
+         */
+        private final long inputModified;
+
+        /**
+         * True if the conversion was to the other format
+         */
+        private final boolean convertToOtherFormat;
+
+        /**
+         * Offset of the first input byte not yet converted
+         */
+        private final long inputOffset;
+
+        /**
+         * Length of the output written for the input before inputOffset
+         */
+        private final long outputOffset;
+
+        /**
+         * Number of lines converted before inputOffset
+         */
+        private final long lineCount;
+
+        /**
+         * Creates a checkpoint
+         *
+         * @param inputSize the size of the input file
+         * @param inputModified the modification time of the input file in milliseconds
+         * @param convertToOtherFormat true if converting to the other format
+         * @param inputOffset the offset of the first input byte not yet converted
+         * @param outputOffset the length of the output written so far
+         * @param lineCount the number of lines converted so far
+         */
+        private Checkpoint(long inputSize, long inputModified, boolean convertToOtherFormat,
+                           long inputOffset, long outputOffset, long lineCount) {
+            this.inputSize = inputSize;
+            this.inputModified = inputModified;
+            this.convertToOtherFormat = convertToOtherFormat;
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+            this.lineCount = lineCount;
+        }
+    }
+
+    /**
+     * Creates a converter that checkpoints every DEFAULT_CHECKPOINT_INTERVAL bytes
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     */
+    public ResumableConverter(boolean convertToOtherFormat) {
+        this(convertToOtherFormat, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Creates a converter
+     *
+     * @param convertToOtherFormat true to convert US lines to the other format,
+     *                             false to convert other lines to the US format
+     * @param checkpointInterval the number of input bytes between checkpoints
+     * @throws IllegalArgumentException if checkpointInterval is not positive
+     */
+    public ResumableConverter(boolean convertToOtherFormat, long checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Invalid checkpoint interval");
+        }
+        this.convertToOtherFormat = convertToOtherFormat;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Returns the checkpoint file used for an output file
+     *
+     * @param outPath the output file
+     * @return the checkpoint file
+     */
+    public static Path checkpointPath(Path outPath) {
+        return outPath.resolveSibling(outPath.getFileName() + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * Returns the number of checkpoints written by the last conversion
+     *
+     * @return the number of checkpoints written
+     */
+    public int getCheckpointsWritten() {
+        return checkpointsWritten;
+    }
+
+    /**
+     * Returns the number of lines the last conversion skipped because an
+     * earlier run had already converted them
+     *
+     * @return the line count resumed from, or 0 if the conversion started clean
+     */
+    public long getResumedLineCount() {
+        return resumedLineCount;
+    }
+
+    /**
+     * Converts the input file into the output file, resuming from the
+     * output file's checkpoint if it has a usable one. Lines before an
+     * invalid line are still written. Line numbers in the result count from
+     * the start of the file, not from the checkpoint.
+     *
+     * When DataConverter.readsBytes is false the file is
+     * converted from the start without checkpoints, the same way as
+     * DataConverter.convertFile, since offsets are only meaningful for the
+     * byte-level converter.
+     *
+     * @param inPath the file to convert
+     * @param outPath the file to write converted lines to
+     * @return the result of the conversion
+     * @throws IOException if the input cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if inPath or outPath is null
+     */
+    public ConversionResult convert(Path inPath, Path outPath) throws IOException {
+        if (inPath == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (outPath == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        checkpointsWritten = 0;
+        resumedLineCount = 0;
+        Path checkpointPath = checkpointPath(outPath);
+        if (!DataConverter.readsBytes()) {
+            DataConverter.warnScanner(ConversionMode.RESUMABLE);
+            try (OutputStream output = Files.newOutputStream(outPath)) {
+                ConversionResult result = DataConverter.convertFile(new ConverterOptions(),
+                    convertToOtherFormat, inPath, output);
+                Files.deleteIfExists(checkpointPath);
+                return result;
+            }
+        }
+
+        try (FileChannel in = FileChannel.open(inPath, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(outPath, StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE)) {
+            long inputSize = in.size();
+            long inputModified = Files.getLastModifiedTime(inPath).toMillis();
+            Checkpoint start = readCheckpoint(checkpointPath);
+            if (!isUsable(start, inputSize, inputModified, out.size())) {
+                start = new Checkpoint(inputSize, inputModified, convertToOtherFormat, 0, 0, 0);
+            }
+            resumedLineCount = start.lineCount;
+            out.truncate(start.outputOffset);
+            out.position(start.outputOffset);
+            in.position(start.inputOffset);
+
+            ConversionEngine engine = new ConversionEngine(convertToOtherFormat);
+            OutputBuffer outBuffer = new OutputBuffer(BUFFER_SIZE + BUFFER_SIZE / 2);
+            OutputStream output = Channels.newOutputStream(out);
+            byte[] data = new byte[BUFFER_SIZE];
+            long dataOffset = start.inputOffset;
+            long lastCheckpoint = start.inputOffset;
+            int begin = 0;
+            int end = 0;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                if (end == data.length) {
+                    if (begin > 0) {
+                        System.arraycopy(data, begin, data, 0, end - begin);
+                        dataOffset += begin;
+                        end -= begin;
+                        begin = 0;
+                    } else {
+                        // A single line longer than the buffer
+                        byte[] larger = new byte[data.length * 2];
+                        System.arraycopy(data, 0, larger, 0, end);
+                        data = larger;
+                    }
+                }
+                // Short intervals read less at a time so checkpoints keep to them
+                int want = (int) Math.min(data.length - end, checkpointInterval);
+                int count = in.read(ByteBuffer.wrap(data, end, want));
+                if (count < 0) {
+                    endOfInput = true;
+                } else {
+                    end += count;
+                }
+                begin = engine.convertLines(data, begin, end, endOfInput, outBuffer);
+                outBuffer.writeTo(output);
+                if (begin < 0) {
+                    break;
+                }
+                long converted = dataOffset + begin;
+                if (!endOfInput && converted - lastCheckpoint >= checkpointInterval) {
+                    out.force(false);
+                    writeCheckpoint(checkpointPath,
+                                    new Checkpoint(inputSize, inputModified, convertToOtherFormat,
+                                                   converted, out.position(),
+                                                   start.lineCount + engine.getLineCount()));
+                    checkpointsWritten++;
+                    lastCheckpoint = converted;
+                    checkpointWritten(converted);
+                }
+            }
+            Files.deleteIfExists(checkpointPath);
+            long invalidLine = engine.getInvalidLine() == 0 ? 0
+                                                            : start.lineCount + engine.getInvalidLine();
+            return new ConversionResult(start.lineCount + engine.getLineCount(), invalidLine,
+                                        inputSize - start.inputOffset,
+                                        out.position() - start.outputOffset);
+        }
+    }
+
+    /**
+     * Returns true if convert would resume from the output file's
+     * checkpoint, rather than start again and truncate the output
+     *
+     * @param inPath the file to convert
+     * @param outPath the file converted lines are written to
+     * @return true if there is a checkpoint that matches the input, the
+     *         direction and the output
+     * @throws IllegalArgumentException if inPath or outPath is null
+     */
+    public boolean canResume(Path inPath, Path outPath) {
+        if (inPath == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        if (outPath == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        if (!DataConverter.readsBytes()) {
+            return false;
+        }
+        try {
+            return isUsable(readCheckpoint(checkpointPath(outPath)), Files.size(inPath),
+                            Files.getLastModifiedTime(inPath).toMillis(), Files.size(outPath));
+        } catch (IOException e) {
+            // A missing input or output leaves nothing to resume
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if a checkpoint was taken converting the same input in
+     * the same direction, and the output still holds what it records
+     *
+     * @param checkpoint the checkpoint, or null
+     * @param inputSize the size of the input file
+     * @param inputModified the modification time of the input file in milliseconds
+     * @param outputSize the size of the output file
+     * @return true if conversion can resume from the checkpoint
+     */
+    private boolean isUsable(Checkpoint checkpoint, long inputSize, long inputModified,
+                             long outputSize) {
+        return checkpoint != null && checkpoint.inputSize == inputSize
+               && checkpoint.inputModified == inputModified
+               && checkpoint.convertToOtherFormat == convertToOtherFormat
+               && checkpoint.inputOffset <= inputSize && checkpoint.outputOffset <= outputSize;
+    }
+
+    /**
+     * Called after each checkpoint is written. Does nothing here; tests
+     * override it to stop a conversion part way.
+     *
+     * @param inputOffset the input offset the checkpoint records
+     * @throws IOException to abandon the conversion
+     */
+    void checkpointWritten(long inputOffset) throws IOException {
+    }
+
+    /**
+     * Reads a checkpoint file
+     *
+     * @param checkpointPath the checkpoint file
+     * @return the checkpoint, or null if there is none or it cannot be read
+     */
+    private static Checkpoint readCheckpoint(Path checkpointPath) {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(checkpointPath))) {
+            if (input.readInt() != CHECKPOINT_MAGIC) {
+                return null;
+            }
+            return new Checkpoint(input.readLong(), input.readLong(), input.readBoolean(),
+                                  input.readLong(), input.readLong(), input.readLong());
+        } catch (IOException e) {
+            // A missing or damaged checkpoint just means starting again
+            return null;
+        }
+    }
+
+    /**
+     * Writes a checkpoint file. The checkpoint is written to a temporary
+     * file that then replaces the old one, so a crash while writing leaves
+     * the previous checkpoint in place.
+     *
+     * @param checkpointPath the checkpoint file
+     * @param checkpoint the checkpoint to write
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private static void writeCheckpoint(Path checkpointPath, Checkpoint checkpoint)
+            throws IOException {
+        Path temporary = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+            output.writeInt(CHECKPOINT_MAGIC);
+            output.writeLong(checkpoint.inputSize);
+            output.writeLong(checkpoint.inputModified);
+            output.writeBoolean(checkpoint.convertToOtherFormat);
+            output.writeLong(checkpoint.inputOffset);
+            output.writeLong(checkpoint.outputOffset);
+            output.writeLong(checkpoint.lineCount);
+            output.flush();
+            channel.force(false);
+        }
+        Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+}
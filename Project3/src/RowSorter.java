@@ -0,0 +1,630 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sorts rows of three byte string fields by the first field, then the
+ * second, within a memory budget. Rows are gathered in a run buffer; when
+ * it holds its share of the budget it is sorted and spilled to a temporary
+ * file on a worker thread while the next run is gathered. finish merges
+ * the runs, at most MERGE_WIDTH at a time, and hands each row to a
+ * handler in order. If everything fits in one run it is sorted in memory
+ * and nothing is spilled.
+ *
+ * A row is each field as a varint length and its bytes, the same layout
+ * in memory and in the run files, so merging never decodes anything but
+ * the lengths. Fields are compared as unsigned bytes, which for UTF-8 is
+ * code point order, and the sort is stable: rows with equal keys come out
+ * in the order they were added.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class RowSorter implements Closeable {
+
+    /**
+     * Smallest memory budget in bytes
+     */
+    public static final long MIN_MEMORY = 1L << 20;
+
+    /**
+     * Number of fields in a row
+     */
+    static final int FIELD_COUNT = 3;
+
+    /**
+     * Largest number of runs merged at once; more runs are merged in passes
+     */
+    static final int MERGE_WIDTH = 64;
+
+    /**
+     * Size of the stream buffer of each run file
+     */
+    private static final int RUN_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * Largest run buffer, so offsets stay within an int
+     */
+    private static final int MAX_RUN_SIZE = 1 << 30;
+
+    /**
+     * Number of bytes of rows at which a run is spilled
+     */
+    private final int runSize;
+
+    /**
+     * Directory temporary directories are made in, or null for the default
+     */
+    private final Path tempParent;
+
+    /**
+     * Threads that sort and spill runs
+     */
+    private final ExecutorService workers;
+
+    /**
+     * One permit per run that may be sorting while the next is gathered
+     */
+    private final Semaphore runSlots;
+
+    /**
+     * Run files being written, in input order
+     */
+    private final List<Future<Path>> runs = new ArrayList<Future<Path>>();
+
+    /**
+     * Directory the run files are written in, made on the first spill
+     */
+    private Path tempDirectory;
+
+    /**
+     * Rows of the run being gathered
+     */
+    private OutputBuffer rows;
+
+    /**
+     * Offset of each row of the run being gathered
+     */
+    private int[] rowStarts = new int[1024];
+
+    /**
+     * Number of rows in the run being gathered
+     */
+    private int rowCount;
+
+    /**
+     * Number of temporary files made, for naming them
+     */
+    private int fileCount;
+
+    /**
+     * True once the sorter is closed
+     */
+    private boolean closed;
+
+    /**
+     * Receives the sorted rows
+     */
+    public interface RowHandler {
+
+        /**
+         * Handles one row
+         *
+         * @param data the bytes holding the row, only valid during the call
+         * @param start the offset of the row
+         * @throws IOException if the row cannot be written
+         */
+        void row(byte[] data, int start) throws IOException;
+    }
+
+    /**
+     * The current row of one run being merged
+     */
+    private static final class RunReader {
+
+        /**
+         * Position of the run in input order, to keep the merge stable
+         */
+        private final int index;
+
+        /**
+         * Stream the run is read from
+         */
+        private final DataInputStream input;
+
+        /**
+         * The current row
+         */
+        private byte[] row = new byte[256];
+
+        /**
+         * Length of the current row
+         */
+        private int length;
+
+        /**
+         * Opens a run file
+         *
+         * @param index the position of the run in input order
+         * @param path the run file
+         * @throws IOException if the file cannot be opened
+         */
+        private RunReader(int index, Path path) throws IOException {
+            this.index = index;
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+                                                                RUN_BUFFER_SIZE));
+        }
+
+        /**
+         * Reads the next row
+         *
+         * @return false at the end of the run
+         * @throws IOException if the run cannot be read
+         */
+        private boolean next() throws IOException {
+            length = 0;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                int fieldLength = readLength(field == 0);
+                if (fieldLength < 0) {
+                    return false;
+                }
+                ensure(length + 5 + fieldLength);
+                int value = fieldLength;
+                while ((value & ~0x7f) != 0) {
+                    row[length++] = (byte) (value | 0x80);
+                    value >>>= 7;
+                }
+                row[length++] = (byte) value;
+                input.readFully(row, length, fieldLength);
+                length += fieldLength;
+            }
+            return true;
+        }
+
+        /**
+         * Reads a varint length
+         *
+         * @param atRowStart true if the end of the run may come here
+         * @return the length, or -1 at the end of the run
+         * @throws IOException if the run cannot be read or ends inside a row
+         */
+        private int readLength(boolean atRowStart) throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = input.read();
+                if (b < 0) {
+                    if (atRowStart && shift == 0) {
+                        return -1;
+                    }
+                    throw new EOFException("Run file ends inside a row");
+                }
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid run file");
+        }
+
+        /**
+         * Makes the row array at least a given size
+         *
+         * @param size the size needed
+         */
+        private void ensure(int size) {
+            if (size > row.length) {
+                row = Arrays.copyOf(row, Math.max(size, row.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Creates a sorter
+     *
+     * @param memory the memory budget in bytes for the rows being gathered
+     *               and sorted
+     * @param threads the number of threads sorting and spilling runs
+     * @param tempParent the directory to make temporary files in, or null
+     *                   for the platform's temporary directory
+     * @throws IllegalArgumentException if memory is below MIN_MEMORY or
+     *         threads is not positive
+     */
+    public RowSorter(long memory, int threads, Path tempParent) {
+        if (memory < MIN_MEMORY) {
+            throw new IllegalArgumentException("Invalid memory budget");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count");
+        }
+        this.tempParent = tempParent;
+        // The run being gathered and one per thread being sorted share the budget
+        runSize = (int) Math.min(MAX_RUN_SIZE, memory / (threads + 1));
+        runSlots = new Semaphore(threads);
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "sort-run");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rows = new OutputBuffer(runSize + runSize / 8);
+    }
+
+    /**
+     * Adds a row to the run being gathered, spilling the run once it is full
+     *
+     * @param a the bytes holding the first field, the primary key
+     * @param aStart the index of the first byte of the first field
+     * @param aEnd the index after the last byte of the first field
+     * @param b the bytes holding the second field, the secondary key
+     * @param bStart the index of the first byte of the second field
+     * @param bEnd the index after the last byte of the second field
+     * @param c the bytes holding the third field, carried with the row
+     * @param cStart the index of the first byte of the third field
+     * @param cEnd the index after the last byte of the third field
+     * @throws IOException if the temporary directory cannot be made
+     */
+    public void add(byte[] a, int aStart, int aEnd, byte[] b, int bStart, int bEnd,
+                    byte[] c, int cStart, int cEnd) throws IOException {
+        if (rowCount == rowStarts.length) {
+            rowStarts = Arrays.copyOf(rowStarts, rowCount * 2);
+        }
+        rowStarts[rowCount++] = rows.length();
+        appendField(a, aStart, aEnd);
+        appendField(b, bStart, bEnd);
+        appendField(c, cStart, cEnd);
+        if (rows.length() >= runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Appends a varint length and the bytes to the run being gathered
+     *
+     * @param data the bytes
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     */
+    private void appendField(byte[] data, int start, int end) {
+        rows.appendVarint(end - start);
+        rows.append(data, start, end);
+    }
+
+    /**
+     * Hands the run being gathered to a worker to sort and write to a
+     * temporary file, waiting first if every worker is busy
+     *
+     * @throws IOException if the temporary directory cannot be made
+     */
+    private void spill() throws IOException {
+        if (tempDirectory == null) {
+            tempDirectory = tempParent == null ? Files.createTempDirectory("dataconverter-sort")
+                : Files.createTempDirectory(tempParent, "dataconverter-sort");
+        }
+        try {
+            runSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting", e);
+        }
+        OutputBuffer runRows = rows;
+        int[] runStarts = rowStarts;
+        int runCount = rowCount;
+        Path path = nextTempFile("run");
+        try {
+            runs.add(workers.submit(() -> {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path),
+                                                                 RUN_BUFFER_SIZE)) {
+                    byte[] data = runRows.array();
+                    int length = runRows.length();
+                    for (int row : sortRows(data, runStarts, runCount)) {
+                        int end = row + 1 < runCount ? runStarts[row + 1] : length;
+                        out.write(data, runStarts[row], end - runStarts[row]);
+                    }
+                } finally {
+                    runSlots.release();
+                }
+                return path;
+            }));
+        } catch (RuntimeException e) {
+            runSlots.release();
+            throw e;
+        }
+        rows = new OutputBuffer(runSize + runSize / 8);
+        rowStarts = new int[1024];
+        rowCount = 0;
+    }
+
+    /**
+     * Returns a new file name in the temporary directory
+     *
+     * @param prefix the start of the name
+     * @return the path
+     */
+    private Path nextTempFile(String prefix) {
+        return tempDirectory.resolve(prefix + "-" + fileCount++ + ".bin");
+    }
+
+    /**
+     * Sorts the rows of a run without moving them
+     *
+     * @param data the rows
+     * @param rowStarts the offset of each row
+     * @param count the number of rows
+     * @return the row indexes in sorted order, the first count entries used
+     */
+    static int[] sortRows(byte[] data, int[] rowStarts, int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        mergeSort(data, rowStarts, order, new int[count], 0, count);
+        return order;
+    }
+
+    /**
+     * Sorts part of an array of row indexes by the rows' keys, keeping
+     * rows with equal keys in index order
+     *
+     * @param data the rows
+     * @param rowStarts the offset of each row
+     * @param order the row indexes to sort
+     * @param scratch working space as long as order
+     * @param from the first index to sort
+     * @param to the index after the last to sort
+     */
+    private static void mergeSort(byte[] data, int[] rowStarts, int[] order, int[] scratch,
+                                  int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(data, rowStarts, order, scratch, from, middle);
+        mergeSort(data, rowStarts, order, scratch, middle, to);
+        if (compareRows(data, rowStarts[order[middle - 1]], data, rowStarts[order[middle]]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compareRows(data, rowStarts[scratch[left]],
+                                                             data, rowStarts[scratch[right]]) <= 0)) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Compares two rows by their first field, then their second, as unsigned bytes
+     *
+     * @param a the bytes holding the first row
+     * @param aStart the offset of the first row
+     * @param b the bytes holding the second row
+     * @param bStart the offset of the second row
+     * @return negative, zero or positive as the first row sorts before,
+     *         with or after the second
+     */
+    static int compareRows(byte[] a, int aStart, byte[] b, int bStart) {
+        for (int field = 0; field < 2; field++) {
+            int aLength = readVarint(a, aStart);
+            int bLength = readVarint(b, bStart);
+            aStart += varintSize(aLength);
+            bStart += varintSize(bLength);
+            int result = Arrays.compareUnsigned(a, aStart, aStart + aLength,
+                                                b, bStart, bStart + bLength);
+            if (result != 0) {
+                return result;
+            }
+            aStart += aLength;
+            bStart += bLength;
+        }
+        return 0;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint
+     *
+     * @param data the bytes holding it
+     * @param pos the offset of its first byte
+     * @return the value
+     */
+    static int readVarint(byte[] data, int pos) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes a varint takes
+     *
+     * @param value the value
+     * @return the number of bytes
+     */
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the offset of the field after the one at pos
+     *
+     * @param data the bytes holding the row
+     * @param pos the offset of a field's varint length
+     * @return the offset of the next field
+     */
+    static int nextField(byte[] data, int pos) {
+        int length = readVarint(data, pos);
+        return pos + varintSize(length) + length;
+    }
+
+    /**
+     * Hands every row added to the handler in sorted order. The sorter
+     * cannot be added to afterwards; close it to delete its temporary files.
+     *
+     * @param handler the handler for the rows
+     * @throws IOException if a run cannot be spilled or read, or the handler fails
+     */
+    public void finish(RowHandler handler) throws IOException {
+        if (closed) {
+            throw new IOException("Sorter closed");
+        }
+        if (runs.isEmpty()) {
+            byte[] data = rows.array();
+            for (int row : sortRows(data, rowStarts, rowCount)) {
+                handler.row(data, rowStarts[row]);
+            }
+            rowCount = 0;
+            return;
+        }
+        if (rowCount > 0) {
+            spill();
+        }
+        List<Path> paths = new ArrayList<Path>();
+        for (Future<Path> run : runs) {
+            paths.add(await(run));
+        }
+        while (paths.size() > MERGE_WIDTH) {
+            Path merged = nextTempFile("merge");
+            try (OutputStream mergeOutput = new BufferedOutputStream(
+                     Files.newOutputStream(merged), RUN_BUFFER_SIZE)) {
+                merge(paths.subList(0, MERGE_WIDTH), (data, start) -> {
+                    int end = start;
+                    for (int field = 0; field < FIELD_COUNT; field++) {
+                        end = nextField(data, end);
+                    }
+                    mergeOutput.write(data, start, end - start);
+                });
+            }
+            for (Path path : paths.subList(0, MERGE_WIDTH)) {
+                Files.delete(path);
+            }
+            paths.subList(0, MERGE_WIDTH).clear();
+            paths.add(0, merged);
+        }
+        merge(paths, handler);
+    }
+
+    /**
+     * Merges sorted runs, keeping rows with equal keys in run order
+     *
+     * @param paths the run files in input order
+     * @param handler the handler for the merged rows
+     * @throws IOException if a run cannot be read or the handler fails
+     */
+    private static void merge(List<Path> paths, RowHandler handler) throws IOException {
+        Comparator<RunReader> byRow = (x, y) -> compareRows(x.row, 0, y.row, 0);
+        PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(paths.size(),
+            byRow.thenComparingInt(reader -> reader.index));
+        List<RunReader> readers = new ArrayList<RunReader>();
+        try {
+            for (Path path : paths) {
+                RunReader reader = new RunReader(readers.size(), path);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                handler.row(reader.row, 0);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.input.close();
+            }
+        }
+    }
+
+    /**
+     * Waits for a run to be spilled
+     *
+     * @param run the run being spilled
+     * @return the run file
+     * @throws IOException if spilling the run failed
+     */
+    private static Path await(Future<Path> run) throws IOException {
+        try {
+            return run.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error sorting run", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the workers and deletes the temporary files
+     *
+     * @throws IOException if a temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<Path> run : runs) {
+            run.cancel(true);
+        }
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deleteTempDirectory();
+    }
+
+    /**
+     * Deletes the temporary directory and the files in it, if it was made
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    private void deleteTempDirectory() throws IOException {
+        if (tempDirectory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tempDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(tempDirectory);
+    }
+}
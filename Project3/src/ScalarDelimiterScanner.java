@@ -0,0 +1,81 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Scans blocks for delimiters eight bytes at a time, treating each long as
+ * eight lanes. A byte equal to the one searched for becomes zero after an
+ * exclusive or, and the zero lanes are found exactly with the carry-free
+ * test from "Hacker's Delight" section 6-1.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ScalarDelimiterScanner implements DelimiterScanner {
+
+    /**
+     * Reads eight bytes of an array as a little-endian long, so byte k of
+     * the long is the k-th byte in the array
+     */
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * 0x01 in every byte, for repeating a byte across a long
+     */
+    private static final long ONES = 0x0101010101010101L;
+
+    /**
+     * 0x7F in every byte
+     */
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * 0x80 in every byte
+     */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Multiplier that gathers the lowest bit of each byte into the top byte
+     */
+    private static final long GATHER = 0x0102040810204080L;
+
+    /**
+     * A comma in every byte
+     */
+    private static final long COMMAS = ',' * ONES;
+
+    /**
+     * A '\n' in every byte
+     */
+    private static final long LINE_FEEDS = '\n' * ONES;
+
+    /**
+     * A '\r' in every byte
+     */
+    private static final long CARRIAGE_RETURNS = '\r' * ONES;
+
+    @Override
+    public long scanBlock(byte[] data, int pos) {
+        long mask = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += Long.BYTES) {
+            long word = (long) LONGS.get(data, pos + i);
+            long found = zeroBytes(word ^ COMMAS) | zeroBytes(word ^ LINE_FEEDS)
+                         | zeroBytes(word ^ CARRIAGE_RETURNS) | (word & HIGH_BITS);
+            mask |= (((found >>> 7) * GATHER) >>> 56) << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns 0x80 in every byte of word that is zero and 0x00 in every other byte
+     *
+     * @param word eight bytes
+     * @return 0x80 in each zero byte
+     */
+    private static long zeroBytes(long word) {
+        long low = (word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+        return ~(low | word | LOW_SEVEN_BITS);
+    }
+}
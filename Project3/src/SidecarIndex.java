@@ -0,0 +1,661 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sidecar index of a converted file, so one person can be looked up
+ * without reading the whole file. The index file is named after the
+ * converted file with SUFFIX added and is one of two kinds:
+ *
+ *     dense    every line's last name, first name and offset, sorted by
+ *              name, for a converted file in input order
+ *     sparse   the names and offset of every Nth line only, for a
+ *              converted file already sorted by name
+ *
+ * Both kinds keep a fence every N entries (or lines): the key and the
+ * position it starts at, in the index file for a dense index or in the
+ * converted file for a sparse one. A lookup binary searches the fences in
+ * memory, then reads forward from the fence before the name with
+ * positional reads until the names sort after it, so it reads at most
+ * about N entries or lines plus the matches.
+ *
+ * The file is the int MAGIC, a byte that is 1 for a sparse index and the
+ * int N; for a dense index, the entries; then the fences; then the size
+ * of the converted file, the offset of the fences as longs, and MAGIC
+ * again. An entry or fence is the last and first names, each a varint
+ * length and UTF-8 bytes, and a big-endian long position. Names compare
+ * as unsigned bytes, the order RowSorter and ExternalSortSink sort in.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class SidecarIndex implements Closeable {
+
+    /**
+     * Usage line for the lookup command
+     */
+    public static final String USAGE =
+        "Usage: java -cp DataConverter lookup outfile last-name [first-name]";
+
+    /**
+     * Suffix added to the converted file's name to name its index
+     */
+    public static final String SUFFIX = ".idx";
+
+    /**
+     * First and last bytes of an index file, "DCI1"
+     */
+    public static final int MAGIC = 0x44434931;
+
+    /**
+     * Default number of entries or lines between fences
+     */
+    public static final int DEFAULT_INTERVAL = 128;
+
+    /**
+     * Number of bytes before the entries: MAGIC, the kind and the interval
+     */
+    private static final int HEADER_SIZE = 9;
+
+    /**
+     * Number of bytes after the fences: two longs and MAGIC
+     */
+    private static final int TRAILER_SIZE = 20;
+
+    /**
+     * Number of bytes read at a time while scanning
+     */
+    private static final int READ_SIZE = 8192;
+
+    /**
+     * The converted file
+     */
+    private final FileChannel data;
+
+    /**
+     * The index file
+     */
+    private final FileChannel index;
+
+    /**
+     * True if the converted file is sorted and the fences point into it
+     */
+    private final boolean sparse;
+
+    /**
+     * Offset where scanning may start, in the file the fences point into
+     */
+    private final long sectionStart;
+
+    /**
+     * Offset where scanning must stop, in the file the fences point into
+     */
+    private final long sectionEnd;
+
+    /**
+     * Last name of each fence
+     */
+    private final byte[][] fenceLastNames;
+
+    /**
+     * First name of each fence
+     */
+    private final byte[][] fenceFirstNames;
+
+    /**
+     * Position of each fence
+     */
+    private final long[] fencePositions;
+
+    /**
+     * Writes an index. Entries or lines are added in name order, then the
+     * index is finished with the size of the converted file.
+     */
+    public static class Writer implements Closeable {
+
+        /**
+         * Stream the index is written to
+         */
+        private final OutputStream output;
+
+        /**
+         * True for a sparse index over a sorted file
+         */
+        private final boolean sparse;
+
+        /**
+         * Number of entries or lines between fences
+         */
+        private final int interval;
+
+        /**
+         * Entries waiting to be written
+         */
+        private final OutputBuffer buffer = new OutputBuffer(BufferedRecordSink.BUFFER_SIZE
+                                                             + BufferedRecordSink.BUFFER_SIZE / 4);
+
+        /**
+         * The fences so far, encoded as they are written
+         */
+        private final OutputBuffer fences = new OutputBuffer(4096);
+
+        /**
+         * Number of fences so far
+         */
+        private int fenceCount;
+
+        /**
+         * Number of entries or lines added
+         */
+        private long count;
+
+        /**
+         * Number of bytes written to the stream
+         */
+        private long written;
+
+        /**
+         * True once the stream is closed
+         */
+        private boolean closed;
+
+        /**
+         * Creates a writer and writes the header
+         *
+         * @param output the stream to write the index to, closed when the
+         *               writer is closed
+         * @param sparse true if the converted file is sorted by name, so
+         *               only fences are written
+         * @param interval the number of entries or lines between fences
+         * @throws IllegalArgumentException if output is null or interval
+         *                                  is not positive
+         */
+        public Writer(OutputStream output, boolean sparse, int interval) {
+            if (output == null) {
+                throw new IllegalArgumentException("Null output");
+            }
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Invalid interval");
+            }
+            this.output = output;
+            this.sparse = sparse;
+            this.interval = interval;
+            buffer.appendInt(MAGIC);
+            buffer.append((byte) (sparse ? 1 : 0));
+            buffer.appendInt(interval);
+        }
+
+        /**
+         * Adds the next entry, or line of a sorted file
+         *
+         * @param row the bytes holding the names, in RowSorter's row layout
+         * @param start the offset of the row
+         * @param position the offset of the line in the converted file
+         * @throws IOException if the index cannot be written
+         */
+        public void add(byte[] row, int start, long position) throws IOException {
+            int namesEnd = RowSorter.nextField(row, RowSorter.nextField(row, start));
+            if (count++ % interval == 0) {
+                fences.append(row, start, namesEnd);
+                appendLong(fences, sparse ? position : written + buffer.length());
+                fenceCount++;
+            }
+            if (!sparse) {
+                buffer.append(row, start, namesEnd);
+                appendLong(buffer, position);
+                if (buffer.length() >= BufferedRecordSink.BUFFER_SIZE) {
+                    written += buffer.length();
+                    buffer.writeTo(output);
+                }
+            }
+        }
+
+        /**
+         * Writes the fences and the trailer and closes the stream
+         *
+         * @param dataSize the size of the converted file
+         * @throws IOException if the index cannot be written
+         */
+        public void finish(long dataSize) throws IOException {
+            try {
+                long fencesStart = written + buffer.length();
+                buffer.appendVarint(fenceCount);
+                buffer.append(fences.array(), 0, fences.length());
+                appendLong(buffer, dataSize);
+                appendLong(buffer, fencesStart);
+                buffer.appendInt(MAGIC);
+                buffer.writeTo(output);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Closes the stream; an index that was not finished is unreadable
+         *
+         * @throws IOException if the stream cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                output.close();
+            }
+        }
+
+        /**
+         * Appends a long as eight big-endian bytes
+         *
+         * @param out the buffer to append to
+         * @param value the number to append
+         */
+        private static void appendLong(OutputBuffer out, long value) {
+            out.appendInt((int) (value >>> 32));
+            out.appendInt((int) value);
+        }
+    }
+
+    /**
+     * Reads forward through a file with positional reads
+     */
+    private static class PositionalReader {
+
+        /**
+         * File being read
+         */
+        private final FileChannel channel;
+
+        /**
+         * Bytes read ahead
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+
+        /**
+         * Offset in the file of the next byte read
+         */
+        private long position;
+
+        /**
+         * Offset where reading stops
+         */
+        private final long end;
+
+        /**
+         * Creates a reader
+         *
+         * @param channel the file to read
+         * @param position the offset to start at
+         * @param end the offset to stop at
+         */
+        private PositionalReader(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+            buffer.limit(0);
+        }
+
+        /**
+         * Returns true if the end has been reached
+         *
+         * @return true at the end
+         */
+        private boolean atEnd() {
+            return position >= end;
+        }
+
+        /**
+         * Reads a byte
+         *
+         * @return the byte
+         * @throws IOException if the file cannot be read or ends early
+         */
+        private byte read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(READ_SIZE, Math.max(1, end - position)));
+                if (channel.read(buffer, position) <= 0) {
+                    throw new IOException("Index does not match its file");
+                }
+                buffer.flip();
+            }
+            position++;
+            return buffer.get();
+        }
+
+        /**
+         * Reads a varint length and that many bytes
+         *
+         * @return the bytes
+         * @throws IOException if the file cannot be read
+         */
+        private byte[] readText() throws IOException {
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = read();
+                length |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+                if (shift > 28) {
+                    throw new IOException("Invalid index file");
+                }
+            }
+            byte[] text = new byte[length];
+            for (int i = 0; i < length; i++) {
+                text[i] = read();
+            }
+            return text;
+        }
+
+        /**
+         * Reads a big-endian long
+         *
+         * @return the number
+         * @throws IOException if the file cannot be read
+         */
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (read() & 0xff);
+            }
+            return value;
+        }
+
+        /**
+         * Reads a line, without its newline
+         *
+         * @param line the buffer to read the line into
+         * @return the buffer
+         * @throws IOException if the file cannot be read
+         */
+        private OutputBuffer readLine(OutputBuffer line) throws IOException {
+            line.reset();
+            while (!atEnd()) {
+                byte b = read();
+                if (b == '\n') {
+                    break;
+                }
+                line.append(b);
+            }
+            return line;
+        }
+    }
+
+    /**
+     * Opens a converted file and its index
+     *
+     * @param dataFile the converted file
+     * @throws IOException if either file cannot be read, the index is not
+     *         valid, or it was written for a file of another size
+     */
+    public SidecarIndex(Path dataFile) throws IOException {
+        data = FileChannel.open(dataFile, StandardOpenOption.READ);
+        try {
+            index = FileChannel.open(indexPath(dataFile), StandardOpenOption.READ);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        try {
+            long size = index.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not an index file");
+            }
+            PositionalReader header = new PositionalReader(index, 0, HEADER_SIZE);
+            PositionalReader trailer =
+                new PositionalReader(index, size - TRAILER_SIZE, size);
+            long dataSize = trailer.readLong();
+            long fencesStart = trailer.readLong();
+            if (readInt(header) != MAGIC || readInt(trailer) != MAGIC
+                || fencesStart < HEADER_SIZE || fencesStart > size - TRAILER_SIZE) {
+                throw new IOException("Not an index file");
+            }
+            if (dataSize != data.size()) {
+                throw new IOException("Index is out of date");
+            }
+            sparse = header.read() == 1;
+            sectionStart = sparse ? 0 : HEADER_SIZE;
+            sectionEnd = sparse ? dataSize : fencesStart;
+            PositionalReader fences = new PositionalReader(index, fencesStart, size - TRAILER_SIZE);
+            int count = (int) readVarint(fences);
+            fenceLastNames = new byte[count][];
+            fenceFirstNames = new byte[count][];
+            fencePositions = new long[count];
+            for (int i = 0; i < count; i++) {
+                fenceLastNames[i] = fences.readText();
+                fenceFirstNames[i] = fences.readText();
+                fencePositions[i] = fences.readLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the index file of a converted file
+     *
+     * @param dataFile the converted file
+     * @return the index file
+     */
+    public static Path indexPath(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Returns true if this is a sparse index over a sorted file
+     *
+     * @return true for a sparse index
+     */
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    /**
+     * Finds the lines for a person, in the order they are in the converted file
+     *
+     * @param lastName the last name
+     * @param firstName the first name, or null for everyone with the last name
+     * @return the matching lines, without newlines
+     * @throws IOException if a file cannot be read
+     * @throws IllegalArgumentException if lastName is null
+     */
+    public List<String> lookup(String lastName, String firstName) throws IOException {
+        if (lastName == null) {
+            throw new IllegalArgumentException("Null last name");
+        }
+        byte[] last = lastName.getBytes(StandardCharsets.UTF_8);
+        byte[] first = firstName == null ? null : firstName.getBytes(StandardCharsets.UTF_8);
+        // Start at the last fence before the key, since equal keys may start before a fence
+        int low = 0;
+        int high = fencePositions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(fenceLastNames[middle], fenceFirstNames[middle], last, first) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        long start = low == 0 ? sectionStart : fencePositions[low - 1];
+        List<String> matches = new ArrayList<String>();
+        if (sparse) {
+            scanLines(start, last, first, matches);
+        } else {
+            List<Long> offsets = new ArrayList<Long>();
+            PositionalReader entries = new PositionalReader(index, start, sectionEnd);
+            while (!entries.atEnd()) {
+                byte[] entryLast = entries.readText();
+                byte[] entryFirst = entries.readText();
+                long offset = entries.readLong();
+                int order = compare(entryLast, entryFirst, last, first);
+                if (order > 0) {
+                    break;
+                }
+                if (order == 0) {
+                    offsets.add(offset);
+                }
+            }
+            offsets.sort(null);
+            OutputBuffer line = new OutputBuffer(256);
+            for (long offset : offsets) {
+                matches.add(new PositionalReader(data, offset, data.size()).readLine(line).toString());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Reads the lines of a sorted file from a position, keeping those that
+     * match, until the names sort after the key
+     *
+     * @param start the offset of the first line to read
+     * @param last the last name
+     * @param first the first name, or null to match any
+     * @param matches the list to add the matching lines to
+     * @throws IOException if the file cannot be read
+     */
+    private void scanLines(long start, byte[] last, byte[] first, List<String> matches)
+            throws IOException {
+        PositionalReader lines = new PositionalReader(data, start, sectionEnd);
+        OutputBuffer line = new OutputBuffer(256);
+        while (!lines.atEnd()) {
+            lines.readLine(line);
+            byte[] bytes = line.array();
+            int lastEnd = indexOf(bytes, 0, line.length());
+            int firstEnd = indexOf(bytes, lastEnd + 1, line.length());
+            int order = compare(Arrays.copyOfRange(bytes, 0, lastEnd),
+                                Arrays.copyOfRange(bytes, Math.min(lastEnd + 1, firstEnd), firstEnd),
+                                last, first);
+            if (order > 0) {
+                break;
+            }
+            if (order == 0) {
+                matches.add(line.toString());
+            }
+        }
+    }
+
+    /**
+     * Finds the next comma in a line
+     *
+     * @param bytes the line
+     * @param from the index to start at
+     * @param to the length of the line
+     * @return the index of the comma, or to if there is none
+     */
+    private static int indexOf(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == ',') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Compares a name with the key being looked up
+     *
+     * @param last the name's last name
+     * @param first the name's first name
+     * @param keyLast the key's last name
+     * @param keyFirst the key's first name, or null to compare last names only
+     * @return negative, zero or positive as the name sorts before, with or after the key
+     */
+    private static int compare(byte[] last, byte[] first, byte[] keyLast, byte[] keyFirst) {
+        int order = Arrays.compareUnsigned(last, keyLast);
+        if (order != 0 || keyFirst == null) {
+            return order;
+        }
+        return Arrays.compareUnsigned(first, keyFirst);
+    }
+
+    /**
+     * Reads a big-endian int
+     *
+     * @param reader the reader to read from
+     * @return the number
+     * @throws IOException if the file cannot be read
+     */
+    private static int readInt(PositionalReader reader) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (reader.read() & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint
+     *
+     * @param reader the reader to read from
+     * @return the value
+     * @throws IOException if the file cannot be read or the varint is too long
+     */
+    private static long readVarint(PositionalReader reader) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = reader.read();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid index file");
+    }
+
+    /**
+     * Closes both files
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Looks up a person in a converted file through its index and prints
+     * the matching lines
+     *
+     * @param args the converted file, the last name, and optionally the first name
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println(USAGE);
+            return;
+        }
+        Path dataFile = Path.of(args[0]);
+        if (!Files.isReadable(indexPath(dataFile))) {
+            System.out.println("No index for " + dataFile + ", convert it with --index");
+            return;
+        }
+        try (SidecarIndex index = new SidecarIndex(dataFile)) {
+            List<String> lines = index.lookup(args[1], args.length == 3 ? args[2] : null);
+            if (lines.isEmpty()) {
+                System.out.println("Not found");
+            }
+            for (String line : lines) {
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a gzip stream, decompressing it on a thread of its own so that
+ * decompression overlaps with whatever the reader does with the bytes.
+ * The decompressing thread fills blocks and queues them; a few blocks may
+ * be waiting at once, and used blocks are handed back to be filled again.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ThreadedGzipInputStream extends InputStream {
+
+    /**
+     * Number of decompressed bytes in each block
+     */
+    private static final int BLOCK_SIZE = 256 << 10;
+
+    /**
+     * Number of decompressed blocks that may wait for the reader
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * Size of the buffer GZIPInputStream reads compressed bytes into
+     */
+    private static final int COMPRESSED_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * Block queued after the last one
+     */
+    private static final Block END = new Block(new byte[0]);
+
+    /**
+     * The compressed stream
+     */
+    private final InputStream compressed;
+
+    /**
+     * Decompressed blocks waiting for the reader
+     */
+    private final BlockingQueue<Block> filled =
+        new ArrayBlockingQueue<Block>(QUEUE_CAPACITY);
+
+    /**
+     * Blocks the reader has finished with
+     */
+    private final BlockingQueue<Block> empty =
+        new ArrayBlockingQueue<Block>(QUEUE_CAPACITY + 2);
+
+    /**
+     * The decompressing thread
+     */
+    private final Thread thread;
+
+    /**
+     * Error that stopped the decompressing thread, or null
+     */
+    private volatile IOException error;
+
+    /**
+     * True once the stream has been closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Block being read, or null if the next one must be taken
+     */
+    private Block current;
+
+    /**
+     * Index of the next byte to read in current
+     */
+    private int position;
+
+    /**
+     * A block of decompressed bytes
+     */
+    private static class Block {
+
+        /**
+         * The bytes
+         */
+        private final byte[] data;
+
+        /**
+         * Number of bytes filled
+         */
+        private int length;
+
+        /**
+         * Creates an empty block
+         *
+         * @param data the array to fill
+         */
+        private Block(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    /**
+     * GZIPInputStream whose Inflater can be ended without closing the
+     * compressed stream, which close owns
+     */
+    private static class GzipBlockInputStream extends GZIPInputStream {
+
+        /**
+         * Reads the gzip header from a stream
+         *
+         * @param in the compressed stream
+         * @throws IOException if the header cannot be read
+         */
+        private GzipBlockInputStream(InputStream in) throws IOException {
+            super(in, COMPRESSED_BUFFER_SIZE);
+        }
+
+        /**
+         * Frees the Inflater's native memory, which would otherwise be held
+         * until the stream is garbage collected
+         */
+        private void end() {
+            inf.end();
+        }
+    }
+
+    /**
+     * Starts decompressing a gzip stream
+     *
+     * @param compressed the gzip stream, closed when this stream is closed
+     * @throws IllegalArgumentException if compressed is null
+     */
+    public ThreadedGzipInputStream(InputStream compressed) {
+        if (compressed == null) {
+            throw new IllegalArgumentException("Null input");
+        }
+        this.compressed = compressed;
+        thread = new Thread(this::decompress, "gunzip");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reads one byte
+     *
+     * @return the byte, or -1 at the end of the stream
+     * @throws IOException if the compressed stream cannot be read or is not gzip
+     */
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock()) {
+            return -1;
+        }
+        return current.data[position++] & 0xff;
+    }
+
+    /**
+     * Reads up to len bytes
+     *
+     * @param b the array to read into
+     * @param off the index to read the first byte into
+     * @param len the largest number of bytes to read
+     * @return the number of bytes read, or -1 at the end of the stream
+     * @throws IOException if the compressed stream cannot be read or is not gzip
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Closes the compressed stream, so that a read the decompressing thread
+     * is blocked in gives up, and then waits for the thread to stop
+     *
+     * @throws IOException if the compressed stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            compressed.close();
+        } finally {
+            // Take queued blocks until the thread sees the flag, so it never
+            // waits for room
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    filled.poll(10, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Makes current a block with bytes left to read, if there are any
+     *
+     * @return false at the end of the stream
+     * @throws IOException if the decompressing thread failed
+     */
+    private boolean nextBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != END && (current == null || position == current.length)) {
+            if (current != null) {
+                empty.offer(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while decompressing", e);
+            }
+            position = 0;
+        }
+        if (current == END) {
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decompressing thread: fills blocks until the end of the compressed
+     * stream, an error, or the stream being closed
+     */
+    private void decompress() {
+        GzipBlockInputStream input = null;
+        try {
+            input = new GzipBlockInputStream(compressed);
+            while (!closed) {
+                Block block = empty.poll();
+                if (block == null) {
+                    block = new Block(new byte[BLOCK_SIZE]);
+                }
+                block.length = 0;
+                while (block.length < BLOCK_SIZE) {
+                    int count = input.read(block.data, block.length, BLOCK_SIZE - block.length);
+                    if (count < 0) {
+                        break;
+                    }
+                    block.length += count;
+                }
+                if (block.length > 0) {
+                    filled.put(block);
+                }
+                if (block.length < BLOCK_SIZE) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            // Only close stops the thread, and it checks the flag
+            return;
+        } finally {
+            if (input != null) {
+                input.end();
+            }
+        }
+        try {
+            filled.put(END);
+        } catch (InterruptedException e) {
+            // Nobody is left to read the end
+        }
+    }
+}
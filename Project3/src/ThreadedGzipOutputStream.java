@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzip stream, compressing on a thread of its own so that
+ * compression overlaps with producing the bytes. Written bytes are
+ * gathered into blocks that are queued for the compressing thread; a few
+ * blocks may be waiting at once, and compressed blocks are handed back to
+ * be filled again. An error in the compressing thread is thrown by the
+ * next write, flush or close.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class ThreadedGzipOutputStream extends OutputStream {
+
+    /**
+     * Number of bytes gathered into each block
+     */
+    private static final int BLOCK_SIZE = 256 << 10;
+
+    /**
+     * Number of blocks that may wait for the compressing thread
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * Size of the buffer GZIPOutputStream compresses into
+     */
+    private static final int COMPRESSED_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * Block queued after the last one
+     */
+    private static final Block END = new Block(new byte[0]);
+
+    /**
+     * The stream the compressed bytes are written to
+     */
+    private final OutputStream out;
+
+    /**
+     * Blocks waiting to be compressed
+     */
+    private final BlockingQueue<Block> filled =
+        new ArrayBlockingQueue<Block>(QUEUE_CAPACITY);
+
+    /**
+     * Blocks the compressing thread has finished with
+     */
+    private final BlockingQueue<Block> empty =
+        new ArrayBlockingQueue<Block>(QUEUE_CAPACITY + 2);
+
+    /**
+     * The compressing thread
+     */
+    private final Thread thread;
+
+    /**
+     * Error that stopped the compressing thread, or null
+     */
+    private volatile IOException error;
+
+    /**
+     * True once the stream has been closed
+     */
+    private boolean closed;
+
+    /**
+     * Block being filled
+     */
+    private Block current = new Block(new byte[BLOCK_SIZE]);
+
+    /**
+     * A block of bytes to compress
+     */
+    private static class Block {
+
+        /**
+         * The bytes
+         */
+        private final byte[] data;
+
+        /**
+         * Number of bytes filled
+         */
+        private int length;
+
+        /**
+         * Creates an empty block
+         *
+         * @param data the array to fill
+         */
+        private Block(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    /**
+     * GZIPOutputStream whose Deflater can be ended without finishing the
+     * gzip stream or closing the underlying stream, which close owns
+     */
+    private static class GzipBlockOutputStream extends GZIPOutputStream {
+
+        /**
+         * Writes the gzip header to a stream
+         *
+         * @param out the stream to write compressed bytes to
+         * @throws IOException if the header cannot be written
+         */
+        private GzipBlockOutputStream(OutputStream out) throws IOException {
+            super(out, COMPRESSED_BUFFER_SIZE);
+        }
+
+        /**
+         * Frees the Deflater's native memory, which would otherwise be held
+         * until the stream is garbage collected
+         */
+        private void end() {
+            def.end();
+        }
+    }
+
+    /**
+     * Starts a compressing thread writing to a stream
+     *
+     * @param out the stream to write compressed bytes to, closed when this
+     *            stream is closed
+     * @throws IllegalArgumentException if out is null
+     */
+    public ThreadedGzipOutputStream(OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Null output");
+        }
+        this.out = out;
+        thread = new Thread(this::compress, "gzip");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Writes one byte
+     *
+     * @param b the byte
+     * @throws IOException if the compressing thread failed
+     */
+    @Override
+    public void write(int b) throws IOException {
+        if (current.length == BLOCK_SIZE) {
+            queueCurrent();
+        }
+        current.data[current.length++] = (byte) b;
+    }
+
+    /**
+     * Writes len bytes
+     *
+     * @param b the bytes
+     * @param off the index of the first byte to write
+     * @param len the number of bytes to write
+     * @throws IOException if the compressing thread failed
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (current.length == BLOCK_SIZE) {
+                queueCurrent();
+            }
+            int count = Math.min(len, BLOCK_SIZE - current.length);
+            System.arraycopy(b, off, current.data, current.length, count);
+            current.length += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Hands the bytes written so far to the compressing thread. They are
+     * not forced through the compressor, so they may not reach the
+     * underlying stream until more is written or the stream is closed.
+     *
+     * @throws IOException if the compressing thread failed
+     */
+    @Override
+    public void flush() throws IOException {
+        if (current.length > 0) {
+            queueCurrent();
+        }
+        checkError();
+    }
+
+    /**
+     * Compresses everything written, finishes the gzip stream and closes
+     * the underlying stream
+     *
+     * @throws IOException if the compressed bytes cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (current.length > 0 && error == null) {
+                queueCurrent();
+            }
+            put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } finally {
+            out.close();
+        }
+        checkError();
+    }
+
+    /**
+     * Queues the current block and starts a new one
+     *
+     * @throws IOException if the compressing thread failed
+     */
+    private void queueCurrent() throws IOException {
+        checkError();
+        put(current);
+        current = empty.poll();
+        if (current == null) {
+            current = new Block(new byte[BLOCK_SIZE]);
+        }
+        current.length = 0;
+    }
+
+    /**
+     * Queues a block for the compressing thread
+     *
+     * @param block the block
+     * @throws IOException if interrupted while waiting for room
+     */
+    private void put(Block block) throws IOException {
+        try {
+            filled.put(block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        }
+    }
+
+    /**
+     * Throws the error that stopped the compressing thread, if there is one
+     *
+     * @throws IOException the error
+     */
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Compressing thread: compresses queued blocks until the end block.
+     * After an error it keeps taking blocks, without writing them, so
+     * writers never wait for room.
+     */
+    private void compress() {
+        GzipBlockOutputStream gzip = null;
+        try {
+            gzip = new GzipBlockOutputStream(out);
+            while (true) {
+                Block block = filled.take();
+                if (block == END) {
+                    if (error == null) {
+                        try {
+                            gzip.finish();
+                            out.flush();
+                        } catch (IOException e) {
+                            error = e;
+                        }
+                    }
+                    return;
+                }
+                if (error == null) {
+                    try {
+                        gzip.write(block.data, 0, block.length);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                empty.offer(block);
+            }
+        } catch (IOException e) {
+            error = e;
+            drain();
+        } catch (InterruptedException e) {
+            // Daemon thread left behind by a writer that never closed
+        } finally {
+            if (gzip != null) {
+                gzip.end();
+            }
+        }
+    }
+
+    /**
+     * Takes blocks without writing them until the end block
+     */
+    private void drain() {
+        try {
+            while (filled.take() != END) {
+                // Discarded after the error
+            }
+        } catch (InterruptedException e) {
+            // Daemon thread left behind by a writer that never closed
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Writes a double rounded to two decimal places straight into an
+ * OutputBuffer, giving exactly the text String.format("%.2f", value) gives
+ * without building a Formatter or any Strings.
+ *
+ * String.format rounds half up, starting from the shortest decimal digits
+ * that identify the double rather than from its exact binary value. The
+ * two only round differently when the value lies within a few ulps of a
+ * rounding midpoint such as 1.005, so those values, values too large to
+ * scale exactly, NaN, infinities and locales that do not use ASCII digits
+ * and a '.' separator are handed to String.format itself.
+ *
+ * @author Joseph Rosemond
+ *
+ * @version 10/18/2026
+ */
+public class TwoDecimalFormatter {
+
+    /**
+     * Largest magnitude formatted without String.format. Below this, value
+     * times 100 is far enough under 2^53 for its fraction to be exact.
+     */
+    private static final double FAST_PATH_LIMIT = 1e13;
+
+    /**
+     * Number of ulps of the scaled value that must separate it from a
+     * rounding midpoint for the fast path to be used
+     */
+    private static final double MIDPOINT_MARGIN_ULPS = 8;
+
+    /**
+     * The locale most recently checked and whether it formats numbers with
+     * ASCII digits and a '.' decimal separator
+     */
+    private static volatile LocaleCheck localeCheck = new LocaleCheck(null, false);
+
+    /**
+     * Whether a locale formats %.2f the same way as Locale.US
+     */
+    private static class LocaleCheck {
+
+        /**
+         * The locale that was checked
+         */
+        private final Locale locale;
+
+        /**
+         * True if the locale uses ASCII digits and a '.' decimal separator
+         */
+        private final boolean plainDigits;
+
+        /**
+         * Creates a locale check
+         *
+         * @param locale the locale that was checked
+         * @param plainDigits true if the locale uses ASCII digits and a '.' separator
+         */
+        private LocaleCheck(Locale locale, boolean plainDigits) {
+            this.locale = locale;
+            this.plainDigits = plainDigits;
+        }
+    }
+
+    /**
+     * Returns the value formatted the same way as String.format("%.2f", value)
+     *
+     * @param value the number to format
+     * @return the formatted number
+     */
+    public static String format(double value) {
+        OutputBuffer out = new OutputBuffer(24);
+        append(value, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends the value formatted the same way as String.format("%.2f", value)
+     *
+     * @param value the number to format
+     * @param out the buffer to append to
+     */
+    public static void append(double value, OutputBuffer out) {
+        append(value, out, Locale.getDefault(Locale.Category.FORMAT), usesPlainDigits());
+    }
+
+    /**
+     * Appends the value formatted the same way as
+     * String.format(Locale.ROOT, "%.2f", value), with ASCII digits and a
+     * '.' separator whatever the default locale, for formats such as JSON
+     *
+     * @param value the number to format
+     * @param out the buffer to append to
+     */
+    public static void appendRoot(double value, OutputBuffer out) {
+        append(value, out, Locale.ROOT, true);
+    }
+
+    /**
+     * Appends the value formatted the same way as String.format(locale, "%.2f", value)
+     *
+     * @param value the number to format
+     * @param out the buffer to append to
+     * @param locale the locale to format in
+     * @param plainDigits true if the locale uses ASCII digits and a '.' separator
+     */
+    private static void append(double value, OutputBuffer out, Locale locale,
+                               boolean plainDigits) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < FAST_PATH_LIMIT) || !plainDigits) {
+            // NaN fails the comparison too
+            out.appendUtf8(String.format(locale, "%.2f", value));
+            return;
+        }
+        double scaled = magnitude * 100;
+        double whole = Math.floor(scaled);
+        double fraction = scaled - whole;
+        if (Math.abs(fraction - 0.5) <= Math.ulp(scaled) * MIDPOINT_MARGIN_ULPS) {
+            out.appendUtf8(String.format(locale, "%.2f", value));
+            return;
+        }
+        long cents = (long) whole;
+        if (fraction > 0.5) {
+            cents++;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            // String.format keeps the sign of negative zero and of tiny negatives
+            out.append('-');
+        }
+        appendDigits(cents / 100, out);
+        out.append('.');
+        int remainder = (int) (cents % 100);
+        out.append((char) ('0' + remainder / 10));
+        out.append((char) ('0' + remainder % 10));
+    }
+
+    /**
+     * Appends a non-negative whole number
+     *
+     * @param number the number to append
+     * @param out the buffer to append to
+     */
+    private static void appendDigits(long number, OutputBuffer out) {
+        if (number >= 10) {
+            appendDigits(number / 10, out);
+        }
+        out.append((char) ('0' + (int) (number % 10)));
+    }
+
+    /**
+     * Returns true if the default format locale writes %.2f with ASCII
+     * digits and a '.' decimal separator
+     *
+     * @return true if the fast path gives the same text as String.format
+     */
+    private static boolean usesPlainDigits() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleCheck check = localeCheck;
+        if (check.locale != locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            check = new LocaleCheck(locale, symbols.getZeroDigit() == '0'
+                                            && symbols.getDecimalSeparator() == '.');
+            localeCheck = check;
+        }
+        return check.plainDigits;
+    }
+}
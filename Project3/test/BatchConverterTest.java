@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Program to test BatchConverter
+ * @author Joseph Rosemond
+ */
+public class BatchConverterTest {
+
+    /** directory for generated input files */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testFindInputFiles() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        Files.writeString(in.resolve("US_a.csv"), "");
+        Files.writeString(in.resolve("OT_b.csv"), "");
+        Files.writeString(in.resolve("XX_c.csv"), "");
+        Files.writeString(in.resolve("US_d.txt"), "");
+        List<Path> all = BatchConverter.findInputFiles(in.toString());
+        assertEquals(List.of(in.resolve("OT_b.csv"), in.resolve("US_a.csv")), all,
+                     "directory gives only valid names");
+        List<Path> us = BatchConverter.findInputFiles(in.resolve("US_*").toString());
+        assertEquals(List.of(in.resolve("US_a.csv")), us, "glob on the file name");
+    }
+
+    @Test
+    public void testConvertAll() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        Path out = Files.createDirectory(tempDir.resolve("out"));
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(in.resolve("US_" + i + ".csv"),
+                              "Brown,James,04/18/1991,68,167,99.30\n");
+        }
+        Files.writeString(in.resolve("OT_bad.csv"), "Brown,James,1991-04-18,1,2\n");
+        Files.writeString(out.resolve("OT_0.csv"), "keep");
+        BatchConverter batch = new BatchConverter(false, 3, out);
+        batch.convertAll(BatchConverter.findInputFiles(in.toString()));
+        assertEquals(19, batch.getConverted(), "converted files");
+        assertEquals(2, batch.getFailed(), "existing output and invalid file");
+        assertEquals("keep", Files.readString(out.resolve("OT_0.csv")), "not overwritten");
+        assertEquals("Brown,James,18.04.1991,172.72,75.82,37.39\n",
+                     Files.readString(out.resolve("OT_7.csv")), "converted output");
+
+        BatchConverter again = new BatchConverter(true, 3, out);
+        again.convertAll(BatchConverter.findInputFiles(in.resolve("US_0.csv").toString()));
+        assertEquals(1, again.getConverted(), "overwritten file");
+        assertEquals("Brown,James,18.04.1991,172.72,75.82,37.39\n",
+                     Files.readString(out.resolve("OT_0.csv")), "overwritten output");
+    }
+
+    @Test
+    public void testOutputIsAnotherInput() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        String us = "Brown,James,04/18/1991,68,167,99.30\n";
+        String other = "Brown,James,18.04.1991,172.72,75.82,37.39\n";
+        Files.writeString(in.resolve("US_x.csv"), us);
+        Files.writeString(in.resolve("OT_x.csv"), other);
+        Files.writeString(in.resolve("US_y.csv"), us);
+        BatchConverter batch = new BatchConverter(true, 4, in);
+        batch.convertAll(BatchConverter.findInputFiles(in.toString()));
+        assertEquals(1, batch.getConverted(), "only the file with no partner");
+        assertEquals(2, batch.getFailed(), "each file of the pair");
+        assertEquals(us, Files.readString(in.resolve("US_x.csv")), "US input kept");
+        assertEquals(other, Files.readString(in.resolve("OT_x.csv")), "other input kept");
+        assertEquals(other, Files.readString(in.resolve("OT_y.csv")), "partnerless output");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchConverter(false, 0, tempDir),
+                     "open file limit");
+        assertThrows(IllegalArgumentException.class, () -> new BatchConverter(false, 1, null),
+                     "null directory");
+    }
+}
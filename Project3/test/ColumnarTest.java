@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Program to test ColumnarSink and ColumnarReader
+ * @author Joseph Rosemond
+ */
+public class ColumnarTest {
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Converts lines to CSV and to a columnar file at the same time
+     *
+     * @param lines the input lines, in the US format
+     * @param file the columnar file to write
+     * @param rowGroupSize the rows in each row group
+     * @return the CSV CsvSink wrote
+     */
+    private byte[] convert(String lines, Path file, int rowGroupSize) throws IOException {
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        try (OutputStream stream = Files.newOutputStream(file);
+             RecordSink sink = new FanOutSink(List.of(new CsvSink(csv, false),
+                                                      new ColumnarSink(stream, false, rowGroupSize)))) {
+            ConversionResult result =
+                new ConversionEngine(true).convertToSink(new ByteArrayInputStream(bytes), sink);
+            assertTrue(result.isSuccess(), "all lines valid");
+        }
+        return csv.toByteArray();
+    }
+
+    @Test
+    public void testRoundTripMatchesCsv() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("Brown").append(i % 400).append(",J\u00e9r\u00f4me,04/18/")
+                 .append(1900 + i % 100).append(',').append(60 + i % 20).append(".25,")
+                 .append(100 + i).append(",98.").append(i % 100).append('\n');
+        }
+        input.append("Odd,Dates,4/1/1991,68,167,99.3\n");
+        input.append("Odd,Dates,02/30/1991,-0,NaN,32\n");
+        input.append("Big,Numbers,12/31/2199,99999999999,0.001,212\n");
+        Path file = tempDir.resolve("OT_data.cols");
+        byte[] csv = convert(input.toString(), file, 300);
+
+        ByteArrayOutputStream back = new ByteArrayOutputStream();
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertFalse(reader.isUSFormat(), "other format");
+            reader.writeCsv(back);
+        }
+        assertEquals(new String(csv, StandardCharsets.UTF_8),
+                     back.toString(StandardCharsets.UTF_8), "same text as CSV");
+        assertTrue(Files.size(file) < csv.length, "smaller than CSV");
+    }
+
+    @Test
+    public void testColumnScans() throws IOException {
+        String input = "Brown,James,04/18/1991,68,167,99.3\n"
+                       + "Smith,Ann,4/1/1991,60,120,98.6\n"
+                       + "Brown,Jim,12/31/1999,70,NaN,97\n";
+        Path file = tempDir.resolve("OT_small.cols");
+        convert(input, file, 2);
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            List<String> names = new ArrayList<String>();
+            reader.scanText(LineConverter.LAST_NAME, names::add);
+            assertEquals(List.of("Brown", "Smith", "Brown"), names, "last names");
+
+            List<String> dates = new ArrayList<String>();
+            reader.scanText(LineConverter.BIRTH_DATE, dates::add);
+            assertEquals(List.of("18.04.1991", "1.4.1991", "31.12.1999"), dates, "birth dates");
+
+            List<Integer> days = new ArrayList<Integer>();
+            reader.scanEpochDays(days::add);
+            assertEquals(List.of((int) LocalDate.of(1991, 4, 18).toEpochDay(),
+                                 ColumnarReader.NOT_A_DATE,
+                                 (int) LocalDate.of(1999, 12, 31).toEpochDay()),
+                         days, "epoch days");
+
+            List<Double> weights = new ArrayList<Double>();
+            reader.scanMeasurement(LineConverter.WEIGHT, weights::add);
+            assertEquals(3, weights.size(), "weights");
+            assertEquals(75.82, weights.get(0), 1e-9, "weight in kilograms");
+            assertTrue(Double.isNaN(weights.get(2)), "NaN weight");
+        }
+    }
+
+    @Test
+    public void testEncodeHundredths() {
+        assertEquals(12345, hundredths("123.45"), "plain");
+        assertEquals(-4000, hundredths("-40.00"), "negative");
+        assertEquals(5, hundredths("0.05"), "leading zero");
+        assertEquals(ColumnarSink.EXCEPTION_BASE, hundredths("-0.00"), "negative zero");
+        assertEquals(ColumnarSink.EXCEPTION_BASE, hundredths("01.00"), "extra zero");
+        assertEquals(ColumnarSink.EXCEPTION_BASE, hundredths("NaN"), "not a number");
+        assertEquals(ColumnarSink.EXCEPTION_BASE, hundredths("99999999999.00"), "too large");
+    }
+
+    @Test
+    public void testNotColumnar() throws IOException {
+        Path file = tempDir.resolve("OT_data.csv");
+        Files.writeString(file, "Brown,James,18.04.1991,172.72,75.82,37.39\n");
+        assertThrows(IOException.class, () -> new ColumnarReader(file), "not columnar");
+    }
+
+    /**
+     * Encodes a number's text as hundredths
+     *
+     * @param text the number
+     * @return the hundredths or EXCEPTION_BASE
+     */
+    private static int hundredths(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return ColumnarSink.encodeHundredths(bytes, bytes.length);
+    }
+}
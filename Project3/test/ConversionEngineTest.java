@@ -0,0 +1,210 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * Program to test ConversionEngine
+ * @author Joseph Rosemond
+ */
+public class ConversionEngineTest {
+
+    /** two valid US lines */
+    public static final String US_TWO_LINES = "Brown,James,04/18/1991,68,167,99.30\n" +
+                                              "De la Cruz,Mary Ellen,10/25/1962,61,120,98.62\n";
+
+    /** valid US lines with every kind of line separator and no final separator */
+    public static final String US_MIXED_SEPARATORS = "Brown,James,04/18/1991,68,167,99.30\r\n" +
+                                                     "Chan,Melissa,11/25/1995,63,100,98.60\r" +
+                                                     "M\u00fcller,J\u00fcrgen,09/10/1945,67,150,100.25\u2028" +
+                                                     "Flaherty,Francis,12/31/1967,72,187,97.89\u0085" +
+                                                     " Jones , Mary Ellen ,08/11/1955, 64 ,125,99.40";
+
+    /** US lines long enough to be scanned a 64-byte block at a time */
+    public static final String US_LONG_LINES =
+        "Wolfeschlegelsteinhausenbergerdorff Sr,Hubert Blaine Charles David,04/18/1991," +
+        "68,167,99.30\r\n" +
+        "Brown,James,04/18/1991,68,167,99.30,extra field past the first block of the line\n" +
+        "Ng,Ann,04/18/1991,00000000000000000000000000000000000000000000000000000068,167,99.30\n" +
+        "M\u00fcller-L\u00fcdenscheid,J\u00fcrgen Karl-Heinz Bj\u00f6rn,09/10/1945,67,150," +
+        "100.25\u2029Done,Last,12/31/1967,72,187,97.89";
+
+    /** US lines with an invalid third line */
+    public static final String US_BAD_THIRD_LINE = "Brown,James,04/18/1991,68,167,99.30\n" +
+                                                   "Chan,Melissa,11/25/1995,63,100,98.60\n" +
+                                                   "Dominguez,Raul,09/10/1945,67,150,20.25\n" +
+                                                   "Flaherty,Francis,12/31/1967,72,187,97.89\n";
+
+    @Test
+    public void testConvertMatchesExpectedFiles() throws IOException {
+        assertConvertsTo(true, "test-files/US_example.csv", "test-files/exp_OT_example.csv");
+        assertConvertsTo(true, "test-files/US_15-457.csv", "test-files/exp_OT_15-457.csv");
+        assertConvertsTo(true, "test-files/US_test1.csv", "test-files/exp_OT_test1.csv");
+        assertConvertsTo(false, "test-files/OT_21-843.csv", "test-files/exp_US_21-843.csv");
+        assertConvertsTo(false, "test-files/OT_test2.csv", "test-files/exp_US_test2.csv");
+    }
+
+    @Test
+    public void testConvertMatchesProcessFile() throws IOException {
+        // Small buffers force lines and separators to straddle reads
+        for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+            assertSameAsProcessFile(true, US_TWO_LINES, bufferSize);
+            assertSameAsProcessFile(true, US_MIXED_SEPARATORS, bufferSize);
+            assertSameAsProcessFile(true, US_BAD_THIRD_LINE, bufferSize);
+            assertSameAsProcessFile(true, US_LONG_LINES, bufferSize * 7);
+            assertSameAsProcessFile(true, US_LONG_LINES.substring(US_LONG_LINES.indexOf('\n') + 1),
+                                    bufferSize * 7);
+            assertSameAsProcessFile(false, "O'Donnell,Betty Jo,28.12.1981,0.00,0.00,0.00\n",
+                                    bufferSize);
+        }
+        assertSameAsProcessFile(true, "", 16);
+        assertSameAsProcessFile(true, "\n", 16);
+        assertSameAsProcessFile(true, US_TWO_LINES + "\n", 16);
+    }
+
+    @Test
+    public void testMalformedUtf8MatchesScanner() throws IOException {
+        byte[] input = "Br\u00ffwn,James,04/18/1991,68,167,99.30\nOk,Ann,04/18/1991,68,167,99.30\n"
+                           .getBytes(StandardCharsets.ISO_8859_1);
+        StringWriter expected = new StringWriter();
+        PrintWriter writer = new PrintWriter(expected);
+        assertTrue(DataConverter.processFile(true, new Scanner(new ByteArrayInputStream(input),
+                                                               "UTF-8"), writer),
+                   "malformed bytes are replaced, not rejected");
+        writer.close();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        assertTrue(new ConversionEngine(true).convert(new ByteArrayInputStream(input), actual)
+                       .isSuccess(), "engine accepts the same input");
+        assertEquals(expected.toString(), actual.toString(StandardCharsets.UTF_8),
+                     "bad bytes replaced the same way as Scanner");
+    }
+
+    @Test
+    public void testInvalidLineNumber() throws IOException {
+        ConversionEngine engine = new ConversionEngine(true, 8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConversionResult result = engine.convert(stream(US_BAD_THIRD_LINE), out);
+        assertFalse(result.isSuccess(), "third line has a temperature below 32");
+        assertEquals(3, result.getInvalidLine(), "first invalid line number");
+        assertEquals(2, result.getLineCount(), "lines converted before the invalid line");
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).split("\n").length,
+                     "lines before the invalid line are still written");
+    }
+
+    @Test
+    public void testLenientSkipsInvalidLines() throws IOException {
+        String input = "Brown,James,04/18/1991,68,167,99.30\n"
+                       + "Brown,James,1991-04-18,68,167,99.30\r\n"
+                       + "Smith,Ann,01/02/2000,60,120,98.60\n"
+                       + "Smith,Ann\n"
+                       + "Smith,Ann,01/02/2000,60,120,98.60";
+        ByteArrayOutputStream rejected = new ByteArrayOutputStream();
+        RejectFile rejects = new RejectFile(rejected, RejectFile.UNLIMITED);
+        ConversionEngine engine = new ConversionEngine(true, 16);
+        engine.setRejectHandler(rejects);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConversionResult result = engine.convert(stream(input), out);
+        assertTrue(result.isSuccess(), "lenient run finishes");
+        assertEquals(3, result.getLineCount(), "valid lines converted");
+        assertEquals(2, engine.getRejectedCount(), "invalid lines skipped");
+        assertEquals("Brown,James,18.04.1991,172.72,75.82,37.39\n"
+                     + "Smith,Ann,02.01.2000,152.40,54.48,37.00\n"
+                     + "Smith,Ann,02.01.2000,152.40,54.48,37.00\n",
+                     out.toString(StandardCharsets.UTF_8), "valid lines written");
+        assertEquals("2,DATE_FORMAT,Brown,James,1991-04-18,68,167,99.30\n"
+                     + "4,FIELD_COUNT,Smith,Ann\n",
+                     rejected.toString(StandardCharsets.UTF_8), "reject file records");
+    }
+
+    @Test
+    public void testLenientErrorBudget() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            input.append(i % 2 == 0 ? "bad line\n" : "Brown,James,04/18/1991,68,167,99.30\n");
+        }
+        RejectFile rejects = new RejectFile(new ByteArrayOutputStream(), 2);
+        ConversionEngine engine = new ConversionEngine(true);
+        engine.setRejectHandler(rejects);
+        ConversionResult result = engine.convert(stream(input.toString()),
+                                                 new ByteArrayOutputStream());
+        assertFalse(result.isSuccess(), "budget of two exceeded");
+        assertEquals(6, result.getInvalidLine(), "stopped at the third invalid line");
+        assertEquals(3, result.getLineCount(), "valid lines before stopping");
+        assertTrue(rejects.isBudgetExceeded(), "budget exceeded");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        ConversionEngine engine = new ConversionEngine(true);
+        Exception exception = assertThrows(IllegalArgumentException.class,
+            () -> engine.convert(null, new ByteArrayOutputStream()), "null input");
+        assertEquals("Null input", exception.getMessage(), "null input message");
+        exception = assertThrows(IllegalArgumentException.class,
+            () -> engine.convert(stream(US_TWO_LINES), null), "null output");
+        assertEquals("Null output", exception.getMessage(), "null output message");
+        exception = assertThrows(IllegalArgumentException.class,
+            () -> new ConversionEngine(true, 0), "zero buffer size");
+        assertEquals("Invalid buffer size", exception.getMessage(), "buffer size message");
+    }
+
+    /**
+     * Checks that the engine gives the same result and output as processFile
+     *
+     * @param convertToOtherFormat direction of the conversion
+     * @param input the input text
+     * @param bufferSize the engine buffer size
+     * @throws IOException if conversion fails
+     */
+    private void assertSameAsProcessFile(boolean convertToOtherFormat, String input,
+                                         int bufferSize) throws IOException {
+        StringWriter expected = new StringWriter();
+        PrintWriter writer = new PrintWriter(expected);
+        boolean expectedSuccess = DataConverter.processFile(convertToOtherFormat,
+                                                            new Scanner(input), writer);
+        writer.close();
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConversionResult result = new ConversionEngine(convertToOtherFormat, bufferSize)
+                                      .convert(stream(input), actual);
+        String message = "buffer size " + bufferSize + " for input " + input;
+        assertEquals(expectedSuccess, result.isSuccess(), message);
+        assertEquals(expected.toString(), actual.toString(StandardCharsets.UTF_8), message);
+    }
+
+    /**
+     * Checks that converting a file gives exactly the expected file
+     *
+     * @param convertToOtherFormat direction of the conversion
+     * @param inputFile the file to convert
+     * @param expectedFile the file with the expected output
+     * @throws IOException if a file cannot be read
+     */
+    private void assertConvertsTo(boolean convertToOtherFormat, String inputFile,
+                                  String expectedFile) throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(Path.of(inputFile))) {
+            ConversionResult result = new ConversionEngine(convertToOtherFormat).convert(in, actual);
+            assertTrue(result.isSuccess(), inputFile + " should be valid");
+        }
+        assertArrayEquals(Files.readAllBytes(Path.of(expectedFile)), actual.toByteArray(),
+                          inputFile + " should convert to " + expectedFile);
+    }
+
+    /**
+     * Returns a stream holding the UTF-8 bytes of the text
+     *
+     * @param text the text
+     * @return a stream holding the text
+     */
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,256 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Program to test ConversionPublisher and ConversionProcessor
+ * @author Joseph Rosemond
+ */
+public class ConversionFlowTest {
+
+    /** seconds to wait for a stream to end */
+    public static final long TIMEOUT = 10;
+
+    /**
+     * Subscriber collecting lines, requesting a fixed number at a time
+     */
+    private static class Collector implements Flow.Subscriber<String> {
+
+        /** lines received */
+        private final List<String> lines = new ArrayList<String>();
+
+        /** number of lines to request at a time, or 0 to request by hand */
+        private final long batch;
+
+        /** number of lines left of the last request */
+        private long outstanding;
+
+        /** the subscription */
+        private volatile Flow.Subscription subscription;
+
+        /** completes with null or the error the stream ended with */
+        private final CompletableFuture<Throwable> done = new CompletableFuture<Throwable>();
+
+        /** completes once subscribed */
+        private final CompletableFuture<Void> subscribed = new CompletableFuture<Void>();
+
+        /**
+         * Creates a collector
+         *
+         * @param batch the number of lines to request at a time, or 0 to request by hand
+         */
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscribed.complete(null);
+            if (batch > 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            synchronized (lines) {
+                lines.add(line);
+            }
+            if (batch > 0 && --outstanding == 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            done.complete(error);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+
+        /**
+         * Returns a copy of the lines received so far
+         *
+         * @return the lines
+         */
+        List<String> lines() {
+            synchronized (lines) {
+                return new ArrayList<String>(lines);
+            }
+        }
+
+        /**
+         * Waits for the stream to end
+         *
+         * @return null, or the error the stream ended with
+         * @throws Exception if the stream does not end in time
+         */
+        Throwable await() throws Exception {
+            return done.get(TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns the lines the engine writes for an input
+     *
+     * @param input the input
+     * @return the converted lines
+     * @throws IOException if the conversion fails
+     */
+    private static List<String> engineLines(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ConversionEngine(true).convert(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        String text = out.toString(StandardCharsets.UTF_8);
+        if (text.isEmpty()) {
+            return new ArrayList<String>();
+        }
+        return Arrays.asList(text.substring(0, text.length() - 1).split("\n", -1));
+    }
+
+    /**
+     * Checks that a stream delivered the lines the engine writes and ended
+     * the way the engine does
+     *
+     * @param input the input
+     * @param collector the collector of the stream
+     * @param message the assertion message
+     * @throws Exception if the stream does not end in time
+     */
+    private static void assertSameAsEngine(String input, Collector collector, String message)
+        throws Exception {
+        ConversionResult result = new ConversionEngine(true).convert(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+            new ByteArrayOutputStream());
+        Throwable error = collector.await();
+        if (result.isSuccess()) {
+            assertNull(error, message + ": completes");
+        } else {
+            assertTrue(error instanceof InvalidLineException, message + ": invalid line");
+            assertEquals(result.getInvalidLine(), ((InvalidLineException) error).getLineNumber(),
+                         message + ": line number");
+        }
+        assertEquals(engineLines(input), collector.lines(), message + ": same lines");
+    }
+
+    /**
+     * Publishes an input through a ConversionPublisher
+     *
+     * @param input the input
+     * @param batch the number of lines to request at a time
+     * @return the collector, once the stream has ended
+     * @throws Exception if the stream does not end in time
+     */
+    private static Collector publish(String input, long batch) throws Exception {
+        Collector collector = new Collector(batch);
+        new ConversionPublisher(true, new ByteArrayInputStream(input.getBytes(
+            StandardCharsets.UTF_8))).subscribe(collector);
+        collector.await();
+        return collector;
+    }
+
+    /**
+     * Sends an input through a ConversionProcessor in chunks of a given size
+     *
+     * @param input the input
+     * @param chunkSize the number of bytes in each chunk
+     * @param batch the number of lines to request at a time
+     * @return the collector, once the stream has ended
+     * @throws Exception if the stream does not end in time
+     */
+    private static Collector process(String input, int chunkSize, long batch) throws Exception {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        Collector collector = new Collector(batch);
+        ConversionProcessor processor = new ConversionProcessor(true);
+        processor.subscribe(collector);
+        try (SubmissionPublisher<byte[]> publisher = new SubmissionPublisher<byte[]>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < bytes.length; i += chunkSize) {
+                publisher.submit(Arrays.copyOfRange(bytes, i, Math.min(bytes.length,
+                                                                       i + chunkSize)));
+            }
+        }
+        collector.await();
+        return collector;
+    }
+
+    @Test
+    public void testPublisherMatchesEngine() throws Exception {
+        String[] inputs = {ConversionEngineTest.US_TWO_LINES,
+                           ConversionEngineTest.US_MIXED_SEPARATORS,
+                           ConversionEngineTest.US_LONG_LINES, "", "\n"};
+        for (String input : inputs) {
+            for (long batch : new long[] {1, 2, Long.MAX_VALUE}) {
+                assertSameAsEngine(input, publish(input, batch), "batch " + batch);
+            }
+        }
+    }
+
+    @Test
+    public void testProcessorMatchesEngine() throws Exception {
+        String input = ConversionEngineTest.US_MIXED_SEPARATORS + "\n"
+                       + ConversionEngineTest.US_LONG_LINES.replace(",extra field", "");
+        for (int chunkSize = 1; chunkSize <= 40; chunkSize += 3) {
+            assertSameAsEngine(input, process(input, chunkSize, 2), "chunks of " + chunkSize);
+        }
+    }
+
+    @Test
+    public void testInvalidLine() throws Exception {
+        String input = ConversionEngineTest.US_BAD_THIRD_LINE;
+        assertEquals(2, engineLines(input).size(), "lines before the invalid line");
+        Collector published = publish(input, 1);
+        assertEquals(3, ((InvalidLineException) published.await()).getLineNumber(),
+                     "line number");
+        assertSameAsEngine(input, published, "publisher");
+        assertSameAsEngine(input, process(input, 5, 1), "processor");
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        Collector collector = new Collector(0);
+        new ConversionPublisher(true, new ByteArrayInputStream(
+            ConversionEngineTest.US_BAD_THIRD_LINE.getBytes(StandardCharsets.UTF_8)))
+            .subscribe(collector);
+        collector.subscribed.get(TIMEOUT, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        assertTrue(collector.lines().isEmpty(), "nothing before a request");
+        collector.subscription.request(1);
+        Thread.sleep(50);
+        assertEquals(1, collector.lines().size(), "one line for one request");
+        assertFalse(collector.done.isDone(), "not ended while lines are waiting");
+        collector.subscription.request(5);
+        assertTrue(collector.await() instanceof InvalidLineException, "then the invalid line");
+        assertEquals(2, collector.lines().size(), "every valid line");
+    }
+
+    @Test
+    public void testInvalidRequestAndSecondSubscriber() throws Exception {
+        Collector collector = new Collector(0);
+        ConversionPublisher publisher = new ConversionPublisher(true, new ByteArrayInputStream(
+            ConversionEngineTest.US_TWO_LINES.getBytes(StandardCharsets.UTF_8)));
+        publisher.subscribe(collector);
+        collector.subscribed.get(TIMEOUT, TimeUnit.SECONDS);
+        collector.subscription.request(0);
+        assertTrue(collector.await() instanceof IllegalArgumentException, "rule 3.9");
+        Collector second = new Collector(1);
+        publisher.subscribe(second);
+        assertTrue(second.await() instanceof IllegalStateException, "one subscriber only");
+    }
+}
@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Program to test ConversionHttpServer
+ * @author Joseph Rosemond
+ */
+public class ConversionHttpServerTest {
+
+    /**
+     * Returns US lines, enough of them to need several chunks
+     *
+     * @param count the number of lines
+     * @return the lines
+     */
+    private static String usLines(int count) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            input.append("Brown").append(i).append(",James,04/18/1991,68,167,99.30\n");
+        }
+        return input.toString();
+    }
+
+    /**
+     * Returns what convertStream writes for an input
+     *
+     * @param convertToOtherFormat the direction of conversion
+     * @param input the input
+     * @return the converted lines
+     * @throws IOException if the conversion fails
+     */
+    private static String expected(boolean convertToOtherFormat, String input)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataConverter.convertStream(convertToOtherFormat, new ByteArrayInputStream(
+            input.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a POST of a body to the server
+     *
+     * @param server the server
+     * @param query the query, or null
+     * @param fileName the file name header, or null
+     * @param body the body
+     * @return the request
+     */
+    private static HttpRequest post(ConversionHttpServer server, String query, String fileName,
+                                    String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(
+            "http://127.0.0.1:" + server.getPort() + ConversionHttpServer.PATH
+            + (query == null ? "" : "?" + query)))
+            .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        if (fileName != null) {
+            builder.header(ConversionHttpServer.FILE_NAME_HEADER, fileName);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testStreamsLargeBody() throws Exception {
+        String input = usLines(20000);
+        HttpClient client = HttpClient.newHttpClient();
+        try (ConversionHttpServer server = new ConversionHttpServer(0, 4)) {
+            server.start();
+            HttpResponse<String> response = client.send(post(server, "format=US", null, input),
+                                                         HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), "status");
+            assertEquals(expected(true, input), response.body(), "same as convertStream");
+            response = client.send(post(server, null, "US_big.csv", input),
+                                   HttpResponse.BodyHandlers.ofString());
+            assertEquals(expected(true, input), response.body(), "direction from the name");
+
+            String invalidLate = input + "Brown,James\n";
+            assertThrows(IOException.class,
+                         () -> client.send(post(server, "format=US", null, invalidLate),
+                                           HttpResponse.BodyHandlers.ofString()),
+                         "response cut short");
+        }
+    }
+
+    @Test
+    public void testInvalidLineAndErrors() throws Exception {
+        String bad = "Brown,James,18.04.1991,172.72,75.82,37.39\nBrown,James\n"
+                     + "Brown,James,18.04.1991,172.72,75.82,37.39\n";
+        HttpClient client = HttpClient.newHttpClient();
+        try (ConversionHttpServer server = new ConversionHttpServer(0, 2)) {
+            server.start();
+            HttpResponse<String> response = client.send(post(server, "format=ot", null, bad),
+                                                         HttpResponse.BodyHandlers.ofString());
+            assertEquals(ConversionHttpServer.STATUS_INVALID, response.statusCode(), "status");
+            assertEquals("2", response.headers().firstValue(
+                ConversionHttpServer.INVALID_LINE_HEADER).orElse(null), "first invalid line");
+            assertEquals("Brown,James,04/18/1991,68.00,167.00,99.30\n", response.body(),
+                         "lines before the invalid line");
+
+            response = client.send(post(server, null, "XX_file.csv", bad),
+                                   HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), "bad name");
+            assertEquals("Invalid input file prefix\n", response.body(), "name message");
+            response = client.send(post(server, null, null, bad),
+                                   HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), "no direction");
+            response = client.send(post(server, "format=EU", null, bad),
+                                   HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), "unknown format");
+            response = client.send(HttpRequest.newBuilder(URI.create(
+                "http://127.0.0.1:" + server.getPort() + ConversionHttpServer.PATH)).build(),
+                                   HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, response.statusCode(), "GET");
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        try (ConversionHttpServer server = new ConversionHttpServer(0, 8)) {
+            server.start();
+            List<CompletableFuture<HttpResponse<String>>> responses =
+                new ArrayList<CompletableFuture<HttpResponse<String>>>();
+            for (int i = 0; i < 500; i++) {
+                responses.add(client.sendAsync(post(server, "format=US", null, usLines(i % 5 + 1)),
+                                               HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                HttpResponse<String> response = responses.get(i).get();
+                assertEquals(200, response.statusCode(), "status " + i);
+                assertEquals(expected(true, usLines(i % 5 + 1)), response.body(), "body " + i);
+            }
+        }
+    }
+}
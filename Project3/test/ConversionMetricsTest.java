@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Program to test ConversionMetrics and LatencyHistogram
+ * @author Joseph Rosemond
+ */
+public class ConversionMetricsTest {
+
+    /** directory for generated input files */
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Returns US lines, all valid
+     *
+     * @param count the number of lines
+     * @return the lines, each ending in a newline
+     */
+    private static String usLines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("Brown,James,04/18/19").append(10 + i % 90).append(",68,167,99.3\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(99), "empty");
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+        assertEquals(100, histogram.getCount(), "count");
+        assertEquals(1_009_900, histogram.getTotalNanos(), "total");
+        assertEquals(10_099.0, histogram.getMeanNanos(), 1e-9, "mean");
+        assertEquals(1_000_000, histogram.getMaxNanos(), "max");
+        assertEquals(127, histogram.getPercentileNanos(50), "median bucket bound");
+        assertEquals(127, histogram.getPercentileNanos(99), "99th percentile bucket bound");
+        assertEquals(1_000_000, histogram.getPercentileNanos(100), "capped at the maximum");
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentileNanos(0), "negative counts as 0");
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101),
+                     "percentile");
+    }
+
+    @Test
+    public void testEngineCounters() throws IOException {
+        String text = usLines(1000) + "Brown,James,04/18/1991,68,-1,99.3\n" + usLines(10);
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        ConversionEngine engine = new ConversionEngine(true, 4096);
+        ConversionMetrics metrics = new ConversionMetrics();
+        engine.setMetrics(metrics);
+        engine.setRejectHandler((line, reason, data, start, end) -> true);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionResult result = engine.convert(new ByteArrayInputStream(input), output);
+        assertEquals(1010, metrics.getRows(), "rows");
+        assertEquals(1, metrics.getRejectedRows(), "rejected rows");
+        assertEquals(input.length, metrics.getBytesIn(), "bytes in");
+        assertEquals(result.getBytesWritten(), metrics.getBytesOut(), "bytes out");
+        assertEquals(output.size(), metrics.getBytesOut(), "bytes written");
+        assertTrue(metrics.getConvertLatency().getCount() > 1, "one convert per buffer");
+        assertTrue(metrics.getWriteLatency().getCount() >= 1, "writes");
+        assertTrue(metrics.report().startsWith("lines: 1010"), "report");
+    }
+
+    @Test
+    public void testParallelAndPipelineCounters() throws IOException {
+        byte[] input = usLines(5000).getBytes(StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("US_metrics.csv");
+        Files.write(file, input);
+
+        ConversionMetrics parallelMetrics = new ConversionMetrics();
+        ParallelConverter parallel = new ParallelConverter(true, 3, 10_000);
+        parallel.setMetrics(parallelMetrics);
+        ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+        parallel.convert(file, parallelOutput);
+        assertEquals(5000, parallelMetrics.getRows(), "parallel rows");
+        assertEquals(input.length, parallelMetrics.getBytesIn(), "parallel bytes in");
+        assertEquals(parallelOutput.size(), parallelMetrics.getBytesOut(), "parallel bytes out");
+
+        ConversionMetrics pipelineMetrics = new ConversionMetrics();
+        PipelinedConverter pipeline = new PipelinedConverter(true, 2, 10_000,
+                                                             PipelinedConverter.DEFAULT_QUEUE_CAPACITY);
+        pipeline.setMetrics(pipelineMetrics);
+        ByteArrayOutputStream pipelineOutput = new ByteArrayOutputStream();
+        pipeline.convert(new ByteArrayInputStream(input), pipelineOutput);
+        assertEquals(5000, pipelineMetrics.getRows(), "pipeline rows");
+        assertEquals(input.length, pipelineMetrics.getBytesIn(), "pipeline bytes in");
+        assertEquals(pipelineOutput.size(), pipelineMetrics.getBytesOut(), "pipeline bytes out");
+    }
+
+    @Test
+    public void testProgressAndMBean() throws Exception {
+        ConversionMetrics metrics = new ConversionMetrics();
+        metrics.setTotalBytes(1000);
+        assertEquals(-1, metrics.getEstimatedSecondsLeft(), "nothing read yet");
+        metrics.recordRead(1000, 10);
+        metrics.recordConvert(20, 2, 10);
+        assertEquals(0, metrics.getEstimatedSecondsLeft(), "everything read");
+        String line = metrics.progressLine();
+        assertTrue(line.startsWith("20 lines, 2 rejected"), line);
+        assertTrue(line.contains("100.0%"), line);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ConversionMetrics.OBJECT_NAME);
+        metrics.register();
+        try {
+            assertEquals(20L, server.getAttribute(name, "Rows"), "rows through JMX");
+            assertEquals(2L, server.getAttribute(name, "RejectedRows"), "rejected through JMX");
+            assertThrows(IllegalArgumentException.class, () -> new ConversionMetrics().register(),
+                         "name already taken");
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name), "unregistered");
+    }
+
+    @Test
+    public void testOptions() {
+        assertEquals(0, ConverterOptions.parse(new String[] {"US_a.csv"}).getMetricsInterval(),
+                     "off by default");
+        assertEquals(1, ConverterOptions.parse(new String[] {"--metrics", "US_a.csv"})
+                     .getMetricsInterval(), "default interval");
+        assertEquals(5, ConverterOptions.parse(new String[] {"--metrics=5", "US_a.csv"})
+                     .getMetricsInterval(), "interval");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--metrics=0", "US_a.csv"}),
+                     "interval must be positive");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--metrics", "--mode=resumable",
+                                                                "US_a.csv"}),
+                     "not in resumable mode");
+    }
+}
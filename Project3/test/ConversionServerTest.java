@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Program to test ConversionServer and ConversionClient
+ * @author Joseph Rosemond
+ */
+public class ConversionServerTest {
+
+    /** directory for the socket and generated input files */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testPathAndBodyMatchCli() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            input.append("Brown").append(i).append(",James,04/18/1991,68,167,99.30\n");
+        }
+        Path file = tempDir.resolve("US_big.csv");
+        Files.writeString(file, input.toString());
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataConverter.convertFile(new ConverterOptions(), true, file, expected);
+
+        ConversionServer server = startServer();
+        try (server; ConversionClient client = new ConversionClient(tempDir.resolve("test.sock"))) {
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream byPath = new ByteArrayOutputStream();
+                assertTrue(client.convertPath(file, byPath).isSuccess(), "path request");
+                assertArrayEquals(expected.toByteArray(), byPath.toByteArray(), "path output");
+                ByteArrayOutputStream byBody = new ByteArrayOutputStream();
+                assertTrue(client.convertBody(file, byBody).isSuccess(), "body request");
+                assertArrayEquals(expected.toByteArray(), byBody.toByteArray(), "body output");
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidLineAndErrors() throws IOException {
+        Path bad = tempDir.resolve("OT_bad.csv");
+        Files.writeString(bad, "Brown,James,18.04.1991,172.72,75.82,37.39\nBrown,James\n"
+                               + "Brown,James,18.04.1991,172.72,75.82,37.39\n");
+        Path wrongPrefix = tempDir.resolve("XX_file.csv");
+        Files.writeString(wrongPrefix, "");
+        ConversionServer server = startServer();
+        try (server; ConversionClient client = new ConversionClient(tempDir.resolve("test.sock"))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ConversionClient.Reply reply = client.convertBody(bad, output);
+            assertEquals(2, reply.getInvalidLine(), "first invalid line");
+            assertEquals("Brown,James,04/18/1991,68.00,167.00,99.30\n", output.toString(),
+                         "lines before the invalid line");
+
+            reply = client.convertBody(wrongPrefix, new ByteArrayOutputStream());
+            assertEquals("Invalid input file prefix", reply.getError(), "prefix error");
+            reply = client.convertPath(tempDir.resolve("US_missing.csv"),
+                                       new ByteArrayOutputStream());
+            assertEquals("Unable to access input file: " + tempDir.resolve("US_missing.csv"),
+                         reply.getError(), "missing file");
+            assertTrue(client.convertPath(bad, new ByteArrayOutputStream()).getInvalidLine() == 2,
+                       "connection still usable");
+        }
+    }
+
+    @Test
+    public void testErrorAfterOutput() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            input.append("Brown").append(i).append(",James,04/18/1991,68,167,99.30\n");
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(input.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Path truncated = tempDir.resolve("US_cut.csv.gz");
+        byte[] bytes = compressed.toByteArray();
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        ConversionServer server = startServer();
+        try (server; ConversionClient client = new ConversionClient(tempDir.resolve("test.sock"))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ConversionClient.Reply reply = client.convertBody(truncated, output);
+            assertNotNull(reply.getError(), "truncated body");
+            assertTrue(reply.isPartial(), "lines before the error were sent");
+            assertTrue(output.size() > 0, "partial output");
+            assertTrue(output.toString(StandardCharsets.UTF_8).endsWith("\n"), "whole lines");
+            reply = client.convertPath(tempDir.resolve("XX_file.csv"), output);
+            assertFalse(reply.isPartial(), "error before any output");
+        }
+    }
+
+    /**
+     * Starts a server on a socket in the temporary directory
+     *
+     * @return the running server
+     * @throws IOException if the server cannot start
+     */
+    private ConversionServer startServer() throws IOException {
+        ConversionServer server = new ConversionServer(tempDir.resolve("test.sock"));
+        Thread thread = new Thread(server::serve);
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+}
@@ -0,0 +1,148 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Program to test ConversionStats and FieldStats
+ * @author Joseph Rosemond
+ */
+public class ConversionStatsTest {
+
+    /** directory for generated input files */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testFieldStatsMerge() {
+        FieldStats all = new FieldStats();
+        FieldStats first = new FieldStats();
+        FieldStats second = new FieldStats();
+        for (int i = 0; i < 1000; i++) {
+            double value = Math.sin(i) * 50 + 100;
+            all.add(value);
+            (i < 300 ? first : second).add(value);
+        }
+        first.merge(second);
+        first.merge(new FieldStats());
+        assertEquals(all.getCount(), first.getCount(), "count");
+        assertEquals(all.getMin(), first.getMin(), "min");
+        assertEquals(all.getMax(), first.getMax(), "max");
+        assertEquals(all.getMean(), first.getMean(), 1e-9, "mean");
+        assertEquals(all.getStandardDeviation(), first.getStandardDeviation(), 1e-9, "stddev");
+        assertTrue(Double.isNaN(new FieldStats().getMean()), "empty mean");
+    }
+
+    @Test
+    public void testSmallFile() throws IOException {
+        ConversionStats stats = convertWithEngine(
+            "Brown,James,04/18/1991,60,100,50\n"
+            + "Smith,Ann,01/02/1991,70,200,86\n"
+            + "Jones,Bob,01/02/2021,65,150,68\n");
+        assertEquals(3, stats.getCount(), "records");
+        assertEquals(152.4, stats.getHeight().getMin(), 1e-9, "min height in cm");
+        assertEquals(177.8, stats.getHeight().getMax(), 1e-9, "max height in cm");
+        assertEquals(68.1, stats.getWeight().getMean(), 1e-9, "mean weight in kg");
+        assertEquals(20.0, stats.getTemperature().getMean(), 1e-9, "mean temperature in C");
+        assertEquals(2, stats.getYearCount(1991), "born in 1991");
+        assertEquals(1, stats.getYearCount(2021), "born in 2021");
+        String json = stats.toJson();
+        assertTrue(json.contains("\"records\": 3,"), json);
+        assertTrue(json.contains("\"birthYears\": {\"1991\": 2, \"2021\": 1}"), json);
+        assertTrue(json.contains("\"temperature\": \"C\""), json);
+    }
+
+    @Test
+    public void testParallelAndPipelineMatchStream() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 3000; i++) {
+            input.append("Brown").append(i).append(",James,04/18/").append(1700 + i % 500)
+                 .append(',').append(60 + i % 20).append(',').append(100 + i % 90)
+                 .append(",98.").append(i % 100).append('\n');
+        }
+        ConversionStats expected = convertWithEngine(input.toString());
+        Path file = tempDir.resolve("US_data.csv");
+        Files.write(file, input.toString().getBytes(StandardCharsets.UTF_8));
+
+        ConversionStats parallel = new ConversionStats(true);
+        ParallelConverter parallelConverter = new ParallelConverter(true, 4, 4096);
+        parallelConverter.setStats(parallel);
+        parallelConverter.convert(file, new ByteArrayOutputStream());
+        assertSameStats(expected, parallel, "parallel");
+
+        ConversionStats pipeline = new ConversionStats(true);
+        PipelinedConverter pipelinedConverter = new PipelinedConverter(true, 3, 4096, 2);
+        pipelinedConverter.setConversionStats(pipeline);
+        pipelinedConverter.convert(new ByteArrayInputStream(input.toString().getBytes(
+            StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+        assertSameStats(expected, pipeline, "pipeline");
+    }
+
+    @Test
+    public void testStopsAtInvalidLine() throws IOException {
+        ConversionStats stats = convertWithEngine(
+            "Brown,James,04/18/1991,60,100,50\nBrown,James\nSmith,Ann,01/02/1991,70,200,86\n");
+        assertEquals(1, stats.getCount(), "only lines before the invalid line");
+    }
+
+    @Test
+    public void testJsonHasNoNonFiniteNumbers() throws IOException {
+        ConversionStats stats = convertWithEngine(
+            "Brown,James,04/18/1991,60,Infinity,NaN\n");
+        assertEquals(1, stats.getCount(), "record counted");
+        String json = stats.toJson();
+        assertFalse(json.contains("NaN") || json.contains("Infinity"), json);
+        assertTrue(json.contains("\"weight\": {\"min\": null, \"max\": null, \"mean\": null, "
+                                 + "\"stddev\": null}"), json);
+        assertTrue(json.contains("\"height\": {\"min\": 152.4,"), json);
+    }
+
+    /**
+     * Converts the input with a single ConversionEngine, gathering statistics
+     *
+     * @param input the US input text
+     * @return the statistics
+     * @throws IOException if conversion fails
+     */
+    private static ConversionStats convertWithEngine(String input) throws IOException {
+        ConversionStats stats = new ConversionStats(true);
+        ConversionEngine engine = new ConversionEngine(true);
+        engine.setStats(stats);
+        engine.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                       new ByteArrayOutputStream());
+        return stats;
+    }
+
+    /**
+     * Checks that two sets of statistics agree
+     *
+     * @param expected the statistics from a single pass
+     * @param actual the merged statistics
+     * @param mode the converter that gathered actual
+     */
+    private static void assertSameStats(ConversionStats expected, ConversionStats actual,
+                                        String mode) {
+        assertEquals(expected.getCount(), actual.getCount(), mode + " records");
+        FieldStats[] expectedFields = {expected.getHeight(), expected.getWeight(),
+                                       expected.getTemperature()};
+        FieldStats[] actualFields = {actual.getHeight(), actual.getWeight(),
+                                     actual.getTemperature()};
+        for (int i = 0; i < expectedFields.length; i++) {
+            assertEquals(expectedFields[i].getMin(), actualFields[i].getMin(), mode + " min");
+            assertEquals(expectedFields[i].getMax(), actualFields[i].getMax(), mode + " max");
+            assertEquals(expectedFields[i].getMean(), actualFields[i].getMean(), 1e-9,
+                         mode + " mean");
+            assertEquals(expectedFields[i].getStandardDeviation(),
+                         actualFields[i].getStandardDeviation(), 1e-9, mode + " stddev");
+        }
+        for (int year = 1700; year < 2200; year++) {
+            assertEquals(expected.getYearCount(year), actual.getYearCount(year),
+                         mode + " year " + year);
+        }
+    }
+}
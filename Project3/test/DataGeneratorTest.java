@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Program to test DataGenerator and ConversionBenchmark
+ * @author Joseph Rosemond
+ */
+public class DataGeneratorTest {
+
+    /** directory for generated and converted files */
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Generates lines into memory
+     *
+     * @param seed the seed
+     * @param usFormat true for US lines
+     * @param invalidFraction the fraction of invalid lines
+     * @param bytes the largest size
+     * @return the generated bytes
+     * @throws IOException never, for a byte array
+     */
+    private static byte[] generate(long seed, boolean usFormat, double invalidFraction, long bytes)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataGenerator(seed, usFormat, invalidFraction).generate(out, bytes);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testDeterministicAndSized() throws IOException {
+        byte[] first = generate(7, true, 0, 300000);
+        assertArrayEquals(first, generate(7, true, 0, 300000), "same seed, same bytes");
+        assertFalse(Arrays.equals(first, generate(8, true, 0, 300000)),
+                    "another seed, other bytes");
+        assertTrue(first.length <= 300000 && first.length > 299800, "fills the size");
+        assertEquals('\n', first[first.length - 1], "whole lines");
+        assertEquals(0, generate(7, true, 0, 10).length, "no line fits");
+        byte[] small = generate(7, true, 0, 1024);
+        assertArrayEquals(small, Arrays.copyOf(first, small.length),
+                          "a smaller size is a prefix");
+    }
+
+    @Test
+    public void testLinesAreValid() throws IOException {
+        for (boolean usFormat : new boolean[] {true, false}) {
+            byte[] input = generate(11, usFormat, 0, 2000000);
+            long lines = 0;
+            for (byte b : input) {
+                lines += b == '\n' ? 1 : 0;
+            }
+            ConversionResult result = new ConversionEngine(usFormat).convert(
+                new ByteArrayInputStream(input), OutputStream.nullOutputStream());
+            assertTrue(result.isSuccess(), "every line converts, US " + usFormat);
+            assertEquals(lines, result.getLineCount(), "line count, US " + usFormat);
+        }
+    }
+
+    @Test
+    public void testInvalidFraction() throws IOException {
+        byte[] input = generate(3, false, 0.1, 1000000);
+        ConversionEngine engine = new ConversionEngine(false);
+        engine.setRejectHandler(new RejectFile(OutputStream.nullOutputStream(),
+                                               RejectFile.UNLIMITED));
+        ConversionResult result = engine.convert(new ByteArrayInputStream(input),
+                                                 OutputStream.nullOutputStream());
+        double fraction = (double) engine.getRejectedCount()
+                          / (engine.getRejectedCount() + result.getLineCount());
+        assertTrue(fraction > 0.08 && fraction < 0.12, "about a tenth rejected: " + fraction);
+        assertThrows(IllegalArgumentException.class, () -> new DataGenerator(1, true, 1.5),
+                     "fraction above 1");
+    }
+
+    @Test
+    public void testParseSize() {
+        assertEquals(1024, DataGenerator.parseSize("1K"), "kilobyte");
+        assertEquals(50L << 30, DataGenerator.parseSize("50g"), "gigabytes");
+        assertEquals(123, DataGenerator.parseSize("123"), "bytes");
+        assertThrows(IllegalArgumentException.class, () -> DataGenerator.parseSize("1T"), "T");
+        assertThrows(IllegalArgumentException.class, () -> DataGenerator.parseSize("-1K"),
+                     "negative");
+    }
+
+    @Test
+    public void testBenchmarkRow() throws IOException {
+        Path inPath = tempDir.resolve("US_bench.csv");
+        try (OutputStream output = Files.newOutputStream(inPath)) {
+            new DataGenerator(5, true, 0).generate(output, 200000);
+        }
+        Path outPath = tempDir.resolve("OT_bench.csv");
+        int columns = ConversionBenchmark.CSV_HEADER.split(",").length;
+        for (ConversionMode mode : ConversionBenchmark.parseModes("stream,Parallel,resumable")) {
+            String[] row = ConversionBenchmark.run(mode, inPath, outPath, 1).split(",");
+            assertEquals(columns, row.length, "columns, " + mode);
+            assertEquals(mode.name().toLowerCase(), row[0], "mode");
+            assertEquals(Long.toString(Files.size(inPath)), row[1], "bytes");
+            assertEquals(Files.readAllLines(inPath).size(), Long.parseLong(row[3]), "rows");
+            assertTrue(Files.size(outPath) > 0, "output written, " + mode);
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConversionBenchmark.parseModes("stream,fast"), "unknown mode");
+    }
+}
@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Program to test DecimalParser against Double.parseDouble
+ * @author Joseph Rosemond
+ */
+public class DecimalParserTest {
+
+    /** seed so failures can be reproduced */
+    public static final long SEED = 20261018L;
+
+    /** text that is not a plain decimal or not a number at all */
+    public static final String[] UNUSUAL = {
+        "0", "-0", "00068", "5.", ".5", "-.5", "99.30", "0.1", "123456789012345",
+        "1234567890123456", "0.000000000000001", "9007199254740993", "1.00000000000000000001",
+        "1e2", "1E-3", "+5", "0x10p0", "NaN", "-Infinity", "68d", "167f", " 68", "68 ",
+        "", "-", ".", "..5", "5..", "1.2.3", "--5", "height", "0C", "32.00F", "6,8", "\u00bd"
+    };
+
+    @Test
+    public void testUnusualText() {
+        for (String text : UNUSUAL) {
+            assertSameAsJdk(text);
+        }
+    }
+
+    @Test
+    public void testEveryHundredth() {
+        for (int n = 0; n <= 100000; n++) {
+            assertSameAsJdk(n / 100 + "." + (n % 100 < 10 ? "0" : "") + n % 100);
+            assertSameAsJdk(Integer.toString(n));
+        }
+    }
+
+    @Test
+    public void testRandomDecimals() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < 300000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextInt(10) == 0) {
+                text.append('-');
+            }
+            int digits = 1 + random.nextInt(20);
+            int dot = random.nextInt(digits + 2);
+            for (int d = 0; d < digits; d++) {
+                if (d == dot) {
+                    text.append('.');
+                }
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            assertSameAsJdk(text.toString());
+        }
+    }
+
+    @Test
+    public void testRangeWithinArray() {
+        byte[] data = "x99.30y".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(99.30, DecimalParser.parse(data, 1, 6), "number inside a larger array");
+    }
+
+    /**
+     * Checks that DecimalParser gives the same double, or the same failure,
+     * as Double.parseDouble
+     *
+     * @param text the text to parse
+     */
+    private static void assertSameAsJdk(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        double expected;
+        try {
+            expected = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            assertThrows(NumberFormatException.class,
+                () -> DecimalParser.parse(data, 0, data.length), "parsing <" + text + ">");
+            return;
+        }
+        double actual = DecimalParser.parse(data, 0, data.length);
+        if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+            fail("Parsing <" + text + "> expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+/**
+ * Program to test the delimiter scanners against a byte-by-byte scan
+ * @author Joseph Rosemond
+ */
+public class DelimiterScannerTest {
+
+    /** seed so failures can be reproduced */
+    public static final long SEED = 20261018L;
+
+    /** bytes that are likely to appear in a line, delimiters included */
+    public static final byte[] LIKELY_BYTES = {
+        ',', '\n', '\r', ' ', '.', '/', '0', '9', 'a', 'Z', 0, 0x7F, (byte) 0x80, (byte) 0xC2,
+        (byte) 0xE2, (byte) 0xFF, '+' , '-', '\t', 0x2B, 0x2D, 0x0B, 0x0C
+    };
+
+    @Test
+    public void testScalarScanner() {
+        assertMatchesByteScan(new ScalarDelimiterScanner());
+    }
+
+    @Test
+    public void testCreatedScanner() {
+        // The Vector API scanner when run with jdk.incubator.vector, otherwise scalar
+        assertMatchesByteScan(DelimiterScanner.create());
+    }
+
+    @Test
+    public void testEveryByteValue() {
+        DelimiterScanner scanner = DelimiterScanner.create();
+        byte[] data = new byte[256 + DelimiterScanner.BLOCK_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        for (int pos = 0; pos <= 256; pos++) {
+            assertEquals(byteScan(data, pos), scanner.scanBlock(data, pos), "block at " + pos);
+        }
+    }
+
+    /**
+     * Checks a scanner against byteScan on random blocks at every alignment
+     *
+     * @param scanner the scanner to check
+     */
+    private static void assertMatchesByteScan(DelimiterScanner scanner) {
+        Random random = new Random(SEED);
+        byte[] data = new byte[DelimiterScanner.BLOCK_SIZE + 16];
+        for (int i = 0; i < 20000; i++) {
+            for (int j = 0; j < data.length; j++) {
+                data[j] = random.nextBoolean() ? LIKELY_BYTES[random.nextInt(LIKELY_BYTES.length)]
+                                               : (byte) random.nextInt(256);
+            }
+            int pos = random.nextInt(17);
+            long expected = byteScan(data, pos);
+            long actual = scanner.scanBlock(data, pos);
+            assertEquals(expected, actual, "masks differ: expected " + Long.toBinaryString(expected)
+                                           + " but was " + Long.toBinaryString(actual));
+        }
+    }
+
+    /**
+     * Builds a delimiter mask by testing one byte at a time
+     *
+     * @param data the bytes to scan
+     * @param pos the index of the first byte of the block
+     * @return the delimiter mask
+     */
+    private static long byteScan(byte[] data, int pos) {
+        long mask = 0;
+        for (int i = 0; i < DelimiterScanner.BLOCK_SIZE; i++) {
+            byte b = data[pos + i];
+            if (b == ',' || b == '\n' || b == '\r' || b < 0) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+}
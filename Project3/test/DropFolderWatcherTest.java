@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Program to test DropFolderWatcher
+ * @author Joseph Rosemond
+ */
+public class DropFolderWatcherTest {
+
+    /** the watched folder */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testConvertsDroppedFiles() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("US_early.csv"), "Brown,James,04/18/1991,68,167,99.30\n");
+        Path out = tempDir.resolve("out");
+        try (DropFolderWatcher watcher = new DropFolderWatcher(tempDir, out, 2, 50)) {
+            Thread thread = new Thread(watcher::run);
+            thread.setDaemon(true);
+            thread.start();
+            Files.writeString(tempDir.resolve("OT_late.csv"),
+                              "Brown,James,18.04.1991,172.72,75.82,37.39\n");
+            Files.writeString(tempDir.resolve("US_bad.csv"), "Brown,James,04/18/1991,68\n");
+            Files.writeString(tempDir.resolve("notes.txt"), "ignored");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (watcher.getConverted() + watcher.getFailed() < 3
+                   && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(2, watcher.getConverted(), "converted files");
+            assertEquals(1, watcher.getFailed(), "failed files");
+            assertTrue(watcher.getMaxLatencyMillis() >= watcher.getMeanLatencyMillis(),
+                       "latency recorded");
+        }
+        assertEquals("Brown,James,18.04.1991,172.72,75.82,37.39\n",
+                     Files.readString(out.resolve("OT_early.csv")), "existing file converted");
+        assertEquals("Brown,James,04/18/1991,68.00,167.00,99.30\n",
+                     Files.readString(out.resolve("US_late.csv")), "dropped file converted");
+        assertFalse(Files.exists(out.resolve("OT_bad.csv")), "no output for failed file");
+        assertFalse(Files.exists(out.resolve("OT_bad.csv.part")), "no partial output");
+        assertTrue(Files.exists(tempDir.resolve("done").resolve("US_early.csv")), "moved to done");
+        assertTrue(Files.exists(tempDir.resolve("done").resolve("OT_late.csv")), "moved to done");
+        assertTrue(Files.exists(tempDir.resolve("failed").resolve("US_bad.csv")),
+                   "moved to failed");
+        assertTrue(Files.exists(tempDir.resolve("notes.txt")), "other files left alone");
+    }
+
+    @Test
+    public void testRuntimeFailure() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("US_crash.csv"), "Brown,James,04/18/1991,68,167,99.30\n");
+        Path out = tempDir.resolve("out");
+        DropFolderWatcher crashing = new DropFolderWatcher(tempDir, out, 1, 0) {
+            @Override
+            ConversionResult convertFile(Path path, OutputStream output) throws IOException {
+                output.write('x');
+                throw new IllegalStateException("Simulated bug");
+            }
+        };
+        try (DropFolderWatcher watcher = crashing) {
+            Thread thread = new Thread(watcher::run);
+            thread.setDaemon(true);
+            thread.start();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (watcher.getFailed() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, watcher.getFailed(), "failure counted");
+        }
+        assertFalse(Files.exists(out.resolve("OT_crash.csv.part")), "no partial output");
+        assertFalse(Files.exists(out.resolve("OT_crash.csv")), "no output");
+        assertTrue(Files.exists(tempDir.resolve("failed").resolve("US_crash.csv")),
+                   "moved to failed");
+    }
+
+    @Test
+    public void testOutputFolderMustDiffer() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new DropFolderWatcher(tempDir, tempDir, 1, 0), "same folder");
+        assertThrows(IllegalArgumentException.class,
+                     () -> new DropFolderWatcher(tempDir, tempDir.resolve("out"), 0, 0),
+                     "thread count");
+    }
+}
@@ -0,0 +1,163 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Program to test ExternalSortSink
+ * @author Joseph Rosemond
+ */
+public class ExternalSortSinkTest {
+
+    /** directory for temporary run files */
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Returns US lines whose names repeat in a scrambled order, so the
+     * sort has ties to keep in input order
+     *
+     * @param count the number of lines
+     * @return the lines as UTF-8
+     */
+    private static byte[] usLines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int name = (int) ((i * 7919L) % 1009);
+            text.append(name % 3 == 0 ? "\u00c5berg" : "Brown").append(name % 97).append(',')
+                .append("James").append(name % 5).append(",04/18/").append(1900 + i % 100)
+                .append(',').append(60 + i % 20).append(".5,").append(100 + i % 90)
+                .append(",98.").append(i % 100).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts the input and sorts the lines by last name, then first
+     * name, as UTF-8 bytes, keeping ties in order
+     *
+     * @param input the US lines
+     * @return the sorted converted lines
+     * @throws IOException if the conversion fails
+     */
+    private static String expected(byte[] input) throws IOException {
+        ByteArrayOutputStream converted = new ByteArrayOutputStream();
+        new ConversionEngine(true).convert(new ByteArrayInputStream(input), converted);
+        List<String> lines = new ArrayList<String>(
+            Arrays.asList(converted.toString(StandardCharsets.UTF_8).split("\n")));
+        Comparator<String> byName = Comparator.comparing(
+            line -> line.substring(0, line.indexOf(',')).getBytes(StandardCharsets.UTF_8),
+            Arrays::compareUnsigned);
+        lines.sort(byName.thenComparing(line -> line.split(",")[1].getBytes(StandardCharsets.UTF_8),
+                                        Arrays::compareUnsigned));
+        return String.join("\n", lines) + "\n";
+    }
+
+    /**
+     * Sorts the input through a sink
+     *
+     * @param input the US lines
+     * @param memory the memory budget
+     * @param threads the number of threads
+     * @return the sorted output
+     * @throws IOException if the conversion fails
+     */
+    private String sort(byte[] input, long memory, int threads) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (RecordSink sink = new ExternalSortSink(output, false, memory, threads, tempDir)) {
+            new ConversionEngine(true).convertToSink(new ByteArrayInputStream(input), sink);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testInMemory() throws IOException {
+        byte[] input = usLines(3000);
+        assertEquals(expected(input), sort(input, ExternalSortSink.DEFAULT_MEMORY, 2),
+                     "sorted in memory");
+        assertEquals(0, Files.list(tempDir).count(), "nothing spilled");
+        assertEquals("", sort(new byte[0], ExternalSortSink.MIN_MEMORY, 1), "empty input");
+    }
+
+    @Test
+    public void testSpilledRuns() throws IOException {
+        byte[] input = usLines(60000);
+        assertEquals(expected(input), sort(input, ExternalSortSink.MIN_MEMORY, 3),
+                     "merged from spilled runs");
+        assertEquals(0, Files.list(tempDir).count(), "run files deleted");
+    }
+
+    @Test
+    public void testMergePasses() throws IOException {
+        // 1 MB shared by 16 runs is 64 KB a run, so well over MERGE_WIDTH runs
+        byte[] input = usLines(120000);
+        assertTrue(input.length > RowSorter.MERGE_WIDTH * (ExternalSortSink.MIN_MEMORY / 16),
+                   "enough runs for more than one merge pass");
+        assertEquals(expected(input), sort(input, ExternalSortSink.MIN_MEMORY, 15),
+                     "merged in passes");
+        assertEquals(0, Files.list(tempDir).count(), "merge files deleted");
+    }
+
+    @Test
+    public void testSortedFile() throws IOException {
+        Path file = tempDir.resolve("US_people.csv");
+        byte[] input = usLines(500);
+        Files.write(file, input);
+        ConverterOptions options = ConverterOptions.parse(new String[] {"--sort", "--lenient",
+                                                                        file.toString()});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (RecordSink sink = new ExternalSortSink(output, false, options.getSortMemory(),
+                                                    options.getThreads(), tempDir)) {
+            DataConverter.convertToSinks(options, true, file, sink, null, null, null);
+        }
+        assertEquals(expected(input), output.toString(StandardCharsets.UTF_8), "sorted file");
+    }
+
+    @Test
+    public void testAbort() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream indexOutput = new ByteArrayOutputStream();
+        ExternalSortSink sink = new ExternalSortSink(output, false, ExternalSortSink.MIN_MEMORY, 2,
+                                                     tempDir);
+        sink.setIndex(new SidecarIndex.Writer(indexOutput, true, 16));
+        new ConversionEngine(true).convertToSink(new ByteArrayInputStream(usLines(60000)), sink);
+        assertTrue(Files.list(tempDir).count() > 0, "runs spilled");
+        sink.abort();
+        sink.close();
+        assertEquals(0, output.size(), "nothing merged");
+        assertEquals(0, indexOutput.size(), "no index written");
+        assertEquals(0, Files.list(tempDir).count(), "run files deleted");
+    }
+
+    @Test
+    public void testOptions() {
+        assertEquals(ExternalSortSink.DEFAULT_MEMORY,
+                     ConverterOptions.parse(new String[] {"--sort", "US_a.csv"}).getSortMemory(),
+                     "default budget");
+        assertEquals(8 << 20, ConverterOptions.parse(new String[] {"--sort=8388608", "US_a.csv"})
+                     .getSortMemory(), "budget");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--sort=1000", "US_a.csv"}),
+                     "budget too small");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--sort", "--mode=parallel",
+                                                                "US_a.csv"}),
+                     "not in parallel mode");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--sort", "--outputs=jsonl",
+                                                                "US_a.csv"}),
+                     "not with other outputs");
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ExternalSortSink(new ByteArrayOutputStream(), true, 1000, 1, null),
+                     "memory below the minimum");
+    }
+}
@@ -0,0 +1,181 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Program to test LineConverter
+ * @author Joseph Rosemond
+ */
+public class LineConverterTest {
+
+    /** US lines covering trimming, odd dates and unusual numbers */
+    public static final String[] US_LINES = {
+        "Brown,James,04/18/1991,68,167,99.30",
+        " De la Cruz , Mary Ellen ,\t10/25/1962 , 61 ,120,98.62\t",
+        "O'Donnell,Betty Jo,12/28/1981,0.00,0.00,32.00",
+        "Smith,Ann,4 / 8 /1991,1e2,0x10p0,212",
+        "Smith,Ann,//,+5,5.,.5",
+        "Smith,Ann,04/18/1991,NaN,Infinity,100",
+        "Smith,Ann,04/18/1991,-0,0,32",
+        "Smith,Ann,04/18/1991,68d,167f,99.30",
+        "M\u00fcller,J\u00fcrgen,04/18/1991,68,167,99.30",
+        "Smith,Ann,04/18/1991,68,167,31.99",
+        "Smith,Ann,04/18/1991,-1,167,99.30",
+        "Smith,Ann,04/18/1991,68,,99.30",
+        "Smith,Ann,04-18-1991,68,167,99.30",
+        "Smith,Ann,04/18/19/91,68,167,99.30",
+        "Smith,Ann,04/18/1991,68,167",
+        "Smith,Ann,04/18/1991,68,167,99.30,",
+        "",
+    };
+
+    /** other lines covering trimming, odd dates and unusual numbers */
+    public static final String[] OTHER_LINES = {
+        "Brown,James,18.04.1991,0,0,0",
+        "Bronson,Jerry,18.05.1981,170.72,75.82,37.40",
+        " Carter , Mary Lou ,25.12.1993 ,140.02, 40.40 ,37.00 ",
+        "Smith,Ann,..,1E3,2,3",
+        "Smith,Ann,18.04.1991,170,75,-0.01",
+        "Smith,Ann,18.04.1991,170,75,0C",
+        "Smith,Ann,18/04/1991,170,75,37",
+        "Smith,Ann,18.04.1991,170,75",
+    };
+
+    @Test
+    public void testMatchesOriginalConversion() {
+        for (String line : US_LINES) {
+            assertEquals(originalConvert(true, line), LineConverter.convertLine(true, line),
+                         "US line: " + line);
+        }
+        for (String line : OTHER_LINES) {
+            assertEquals(originalConvert(false, line), LineConverter.convertLine(false, line),
+                         "other line: " + line);
+        }
+    }
+
+    @Test
+    public void testConvertAppendsToBuffer() {
+        byte[] data = "xxBrown,James,04/18/1991,68,167,99.30yy".getBytes(StandardCharsets.UTF_8);
+        OutputBuffer out = new OutputBuffer(4);
+        out.append('>');
+        LineConverter converter = new LineConverter(true);
+        assertTrue(converter.convert(data, 2, data.length - 2, out), "valid line in range");
+        assertEquals(">Brown,James,18.04.1991,172.72,75.82,37.39", out.toString(),
+                     "converted line appended after existing contents");
+    }
+
+    @Test
+    public void testInvalidLineLeavesBufferUnchanged() {
+        byte[] data = "Brown,James,04/18/1991,68,167,20.00".getBytes(StandardCharsets.UTF_8);
+        OutputBuffer out = new OutputBuffer(64);
+        out.append('>');
+        assertFalse(new LineConverter(true).convert(data, 0, data.length, out),
+                    "temperature below 32");
+        assertEquals(">", out.toString(), "nothing appended for an invalid line");
+    }
+
+    @Test
+    public void testSplitFields() {
+        byte[] data = " a , b,c,d ,e,f ".getBytes(StandardCharsets.UTF_8);
+        LineConverter converter = new LineConverter(true);
+        assertTrue(converter.splitFields(data, 0, data.length), "six fields");
+        assertEquals(1, converter.getFieldStart(LineConverter.LAST_NAME), "last name start");
+        assertEquals(2, converter.getFieldEnd(LineConverter.LAST_NAME), "last name end");
+        assertEquals(14, converter.getFieldStart(LineConverter.TEMPERATURE), "temperature start");
+        assertEquals(15, converter.getFieldEnd(LineConverter.TEMPERATURE), "temperature end");
+        assertFalse(converter.splitFields(data, 0, 10), "too few fields");
+    }
+
+    @Test
+    public void testDiagnose() {
+        assertDiagnosis(RejectReason.FIELD_COUNT, true, "Brown,James,04/18/1991,68,167");
+        assertDiagnosis(RejectReason.DATE_FORMAT, true, "Brown,James,1991-04-18,68,167,99.30");
+        assertDiagnosis(RejectReason.DATE_FORMAT, false, "Brown,James,04/18/1991,68,167,37.00");
+        assertDiagnosis(RejectReason.HEIGHT_NOT_NUMBER, true, "Brown,James,04/18/1991,tall,167,99");
+        assertDiagnosis(RejectReason.WEIGHT_NOT_NUMBER, true, "Brown,James,04/18/1991,68,,99");
+        assertDiagnosis(RejectReason.TEMPERATURE_NOT_NUMBER, false, "B,J,18.04.1991,1,2,hot");
+        assertDiagnosis(RejectReason.NEGATIVE_HEIGHT, true, "Brown,James,04/18/1991,-1,167,99");
+        assertDiagnosis(RejectReason.NEGATIVE_WEIGHT, false, "B,J,18.04.1991,172,-2,37");
+        assertDiagnosis(RejectReason.TEMPERATURE_BELOW_FREEZING, true, "B,J,04/18/1991,68,167,20");
+        assertDiagnosis(RejectReason.TEMPERATURE_BELOW_FREEZING, false, "B,J,18.04.1991,1,2,-0.5");
+        assertDiagnosis(null, true, "Brown,James,04/18/1991,68,167,99.30");
+    }
+
+    @Test
+    public void testNullLine() {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+            () -> LineConverter.convertLine(true, null), "null line");
+        assertEquals("Null line", exception.getMessage(), "null line message");
+    }
+
+    /**
+     * Checks the reason diagnose gives for a line
+     *
+     * @param expected the expected reason, or null for a valid line
+     * @param convertToOtherFormat direction of the conversion
+     * @param line the line
+     */
+    private static void assertDiagnosis(RejectReason expected, boolean convertToOtherFormat,
+                                        String line) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, new LineConverter(convertToOtherFormat).diagnose(data, 0, data.length),
+                     line);
+    }
+
+    /**
+     * The String-based conversion DataConverter used before LineConverter,
+     * kept here as the reference the byte conversion must match.
+     *
+     * @param convertToOtherFormat direction of the conversion
+     * @param line the line to convert
+     * @return the converted line, or null if the line is invalid
+     */
+    private static String originalConvert(boolean convertToOtherFormat, String line) {
+        String[] fields = new String[6];
+        int begin = 0;
+        for (int i = 0; i < 5; i++) {
+            int comma = line.indexOf(",", begin);
+            if (comma == -1) {
+                return null;
+            }
+            fields[i] = line.substring(begin, comma).trim();
+            begin = comma + 1;
+        }
+        if (line.indexOf(",", begin) != -1) {
+            return null;
+        }
+        fields[5] = line.substring(begin).trim();
+        String date = convertToOtherFormat ? DataConverter.convertUSDateToOtherDate(fields[2])
+                                           : DataConverter.convertOtherDateToUSDate(fields[2]);
+        if (date == null) {
+            return null;
+        }
+        double height;
+        double weight;
+        double temp;
+        try {
+            height = Double.parseDouble(fields[3]);
+            weight = Double.parseDouble(fields[4]);
+            temp = Double.parseDouble(fields[5]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (convertToOtherFormat) {
+            if (height < 0 || weight < 0 || temp < 32.0) {
+                return null;
+            }
+            height = height * 2.54;
+            weight = weight * 0.454;
+            temp = (temp - 32.0) / 1.8;
+        } else {
+            if (height < 0 || weight < 0 || temp < 0) {
+                return null;
+            }
+            height = height / 2.54;
+            weight = weight / 0.454;
+            temp = (temp * 1.8) + 32;
+        }
+        return fields[0] + "," + fields[1] + "," + date + "," + String.format("%.2f", height) +
+               "," + String.format("%.2f", weight) + "," + String.format("%.2f", temp);
+    }
+}
@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Program to test MappedInputStream
+ * @author Joseph Rosemond
+ */
+public class MappedInputStreamTest {
+
+    @Test
+    public void testReadsWholeFileAcrossWindows() throws IOException {
+        Path file = Path.of("test-files/US_15-457.csv");
+        byte[] expected = Files.readAllBytes(file);
+        for (long windowSize = 1; windowSize <= expected.length + 1; windowSize += 7) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedInputStream in = new MappedInputStream(channel, windowSize);
+                assertEquals(expected.length, in.available(), "available before reading");
+                assertArrayEquals(expected, in.readAllBytes(), "window size " + windowSize);
+                assertEquals(-1, in.read(), "end of file");
+            }
+        }
+    }
+
+    @Test
+    public void testEngineOverMappedFile() throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(Path.of("test-files/OT_21-843.csv"),
+                                                    StandardOpenOption.READ)) {
+            ConversionResult result = new ConversionEngine(false)
+                                          .convert(new MappedInputStream(channel, 50), actual);
+            assertTrue(result.isSuccess(), "valid file");
+        }
+        assertArrayEquals(Files.readAllBytes(Path.of("test-files/exp_US_21-843.csv")),
+                          actual.toByteArray(), "mapped conversion matches expected file");
+    }
+
+    @Test
+    public void testInvalidArguments() throws IOException {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+            () -> new MappedInputStream(null), "null channel");
+        assertEquals("Null channel", exception.getMessage(), "null channel message");
+        try (FileChannel channel = FileChannel.open(Path.of("test-files/US_test1.csv"),
+                                                    StandardOpenOption.READ)) {
+            exception = assertThrows(IllegalArgumentException.class,
+                () -> new MappedInputStream(channel, 0), "zero window size");
+            assertEquals("Invalid window size", exception.getMessage(), "window size message");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Program to test ParallelConverter
+ * @author Joseph Rosemond
+ */
+public class ParallelConverterTest {
+
+    /** directory for generated input files */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testConvertMatchesEngine() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            input.append("Brown").append(i).append(",James,04/18/1991,").append(60 + i % 20)
+                 .append(',').append(100 + i).append(",98.").append(i % 100)
+                 .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path file = write("US_many.csv", input.toString());
+        byte[] expected = convertWithEngine(true, input.toString());
+        for (int chunkSize = 1; chunkSize <= 4096; chunkSize *= 4) {
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            ConversionResult result = new ParallelConverter(true, 4, chunkSize).convert(file, actual);
+            assertTrue(result.isSuccess(), "chunk size " + chunkSize);
+            assertEquals(500, result.getLineCount(), "chunk size " + chunkSize);
+            assertArrayEquals(expected, actual.toByteArray(), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    public void testFirstInvalidLine() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            String temperature = i == 123 || i == 250 ? "20.00" : "99.30";
+            input.append("Brown,James,04/18/1991,68,167,").append(temperature).append('\n');
+        }
+        Path file = write("US_bad.csv", input.toString());
+        byte[] expected = convertWithEngine(true, input.toString());
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConversionResult result = new ParallelConverter(true, 8, 100).convert(file, actual);
+        assertFalse(result.isSuccess(), "file has invalid lines");
+        assertEquals(123, result.getInvalidLine(), "first invalid line");
+        assertEquals(122, result.getLineCount(), "lines before the first invalid line");
+        assertArrayEquals(expected, actual.toByteArray(), "lines before the invalid line");
+    }
+
+    @Test
+    public void testLineTooLong() throws IOException {
+        Path file = write("US_long.csv", "Brown,James,04/18/1991,68,167,99.30\n");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(3L << 30);
+        }
+        IOException exception = assertThrows(IOException.class,
+            () -> new ParallelConverter(true, 2).convert(file, OutputStream.nullOutputStream()),
+            "no newline for 3 GB");
+        assertEquals("No newline within 2 GB after byte 0; convert this file in stream mode",
+                     exception.getMessage(), "message");
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Path file = write("US_empty.csv", "");
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConversionResult result = new ParallelConverter(false, 2).convert(file, actual);
+        assertTrue(result.isSuccess(), "empty file is valid");
+        assertEquals(0, actual.size(), "nothing written");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+            () -> new ParallelConverter(true, 0), "zero threads");
+        assertEquals("Invalid thread count", exception.getMessage(), "thread count message");
+        exception = assertThrows(IllegalArgumentException.class,
+            () -> new ParallelConverter(true, 1, 0), "zero chunk size");
+        assertEquals("Invalid chunk size", exception.getMessage(), "chunk size message");
+    }
+
+    /**
+     * Writes a file in the temporary directory
+     *
+     * @param name the file name
+     * @param contents the file contents
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(String name, String contents) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Converts the input with a single ConversionEngine
+     *
+     * @param convertToOtherFormat direction of the conversion
+     * @param input the input text
+     * @return the converted bytes
+     * @throws IOException if conversion fails
+     */
+    private byte[] convertWithEngine(boolean convertToOtherFormat, String input)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ConversionEngine(convertToOtherFormat).convert(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Program to test PipelinedConverter
+ * @author Joseph Rosemond
+ */
+public class PipelinedConverterTest {
+
+    @Test
+    public void testMatchesEngine() throws IOException {
+        String input = manyLines(400, -1);
+        byte[] expected = convertWithEngine(input);
+        for (int threads = 1; threads <= 4; threads++) {
+            for (int blockSize = 1; blockSize <= 4096; blockSize *= 8) {
+                PipelinedConverter pipeline = new PipelinedConverter(true, threads, blockSize, 2);
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                ConversionResult result = pipeline.convert(trickle(input), actual);
+                String message = threads + " threads, block size " + blockSize;
+                assertTrue(result.isSuccess(), message);
+                assertEquals(400, result.getLineCount(), message);
+                assertEquals(input.length(), result.getBytesRead(), message);
+                assertArrayEquals(expected, actual.toByteArray(), message);
+                assertTrue(pipeline.getStats().getMaxReadQueueDepth() <= 2, "read queue bounded");
+                assertTrue(pipeline.getStats().getMaxWriteQueueDepth() <= 2, "write queue bounded");
+            }
+        }
+    }
+
+    @Test
+    public void testFirstInvalidLine() throws IOException {
+        String input = manyLines(400, 257);
+        byte[] expected = convertWithEngine(input);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ConversionResult result = new PipelinedConverter(true, 3, 512, 2)
+                                      .convert(trickle(input), actual);
+        assertFalse(result.isSuccess(), "line 257 is invalid");
+        assertEquals(257, result.getInvalidLine(), "first invalid line");
+        assertArrayEquals(expected, actual.toByteArray(), "lines before the invalid line");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+            () -> new PipelinedConverter(true, 0), "zero threads");
+        assertEquals("Invalid thread count", exception.getMessage(), "thread count message");
+        exception = assertThrows(IllegalArgumentException.class,
+            () -> new PipelinedConverter(true, 1, 0, 1), "zero block size");
+        assertEquals("Invalid block size", exception.getMessage(), "block size message");
+        exception = assertThrows(IllegalArgumentException.class,
+            () -> new PipelinedConverter(true, 1, 1, 0), "zero queue capacity");
+        assertEquals("Invalid queue capacity", exception.getMessage(), "queue capacity message");
+    }
+
+    /**
+     * Builds US lines, with one invalid line if badLine is positive
+     *
+     * @param count the number of lines
+     * @param badLine the line number of the invalid line, or -1
+     * @return the lines
+     */
+    private static String manyLines(int count, int badLine) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            input.append("Brown").append(i).append(",James,04/18/1991,68,").append(100 + i)
+                 .append(',').append(i == badLine ? "20" : "99.30").append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        return input.toString();
+    }
+
+    /**
+     * Returns a stream that hands out at most 37 bytes per read, like a pipe
+     *
+     * @param text the text in the stream
+     * @return the stream
+     */
+    private static InputStream trickle(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 37));
+            }
+        };
+    }
+
+    /**
+     * Converts the input with a single ConversionEngine
+     *
+     * @param input the input text
+     * @return the converted bytes
+     * @throws IOException if conversion fails
+     */
+    private static byte[] convertWithEngine(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ConversionEngine(true).convert(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toByteArray();
+    }
+}
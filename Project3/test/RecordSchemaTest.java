@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Program to test RecordSchema and SchemaConverter
+ * @author Joseph Rosemond
+ */
+public class RecordSchemaTest {
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testBuiltInMatchesLineConverter() {
+        SchemaConverter toOther = RecordSchema.builtIn(true).compile();
+        for (String line : LineConverterTest.US_LINES) {
+            assertEquals(LineConverter.convertLine(true, line), toOther.convertLine(line), line);
+        }
+        SchemaConverter toUS = RecordSchema.builtIn(false).compile();
+        for (String line : LineConverterTest.OTHER_LINES) {
+            assertEquals(LineConverter.convertLine(false, line), toUS.convertLine(line), line);
+        }
+    }
+
+    @Test
+    public void testCustomLayout() {
+        SchemaConverter converter = RecordSchema.parse(
+            "# id first, ISO dates, metric height only and a computed BMI\n" +
+            "field id number\n" +
+            "field name text\n" +
+            "field born date d.m.y\n" +
+            "field heightCm number min 0\n" +
+            "field weightKg number min 0\n" +
+            "\n" +
+            "column name\n" +
+            "column born y-m-d\n" +
+            "column born\n" +
+            "column heightCm\n" +
+            "column bmi = weightKg / ((heightCm / 100) * (heightCm / 100))\n" +
+            "column id\n" +
+            "column negated = -id\n").compile();
+        assertEquals("Brown,1991-04-18,18.04.1991,180.00,23.15,7.00,-7.00",
+                     converter.convertLine("7, Brown ,18.04.1991,180,75"), "converted");
+        assertNull(converter.convertLine("7,Brown,18.04.1991,-1,75"), "below minimum");
+        assertNull(converter.convertLine("7,Brown,18/04/1991,180,75"), "wrong separator");
+        assertNull(converter.convertLine("x,Brown,18.04.1991,180,75"), "not a number");
+        assertNull(converter.convertLine("7,Brown,18.04.1991,180"), "too few fields");
+        assertNull(converter.convertLine("7,Brown,18.04.1991,180,75,"), "too many fields");
+    }
+
+    @Test
+    public void testInvalidSchemas() {
+        String fields = "field a text\nfield b number\n";
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.parse(null), "null");
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.parse(fields),
+                     "no columns");
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecordSchema.parse(fields + "column c\n"), "unknown field");
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecordSchema.parse(fields + "column x = a * 2\n"), "text in expression");
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecordSchema.parse(fields + "column x = (b * 2\n"), "missing parenthesis");
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecordSchema.parse(fields + "column a d.m.y\n"), "pattern on text");
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecordSchema.parse("field d date d.m.m\ncolumn d\n"), "bad pattern");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> RecordSchema.parse(fields + "column b\nfield c text\n"), "field after column");
+        assertEquals("Schema line 4: fields must come before columns", e.getMessage(), "message");
+    }
+
+    @Test
+    public void testEngineWithSchema() throws IOException {
+        Path file = tempDir.resolve("swap.schema");
+        Files.writeString(file, "field first text\nfield second text\ncolumn second\ncolumn first\n");
+        ConversionEngine engine = new ConversionEngine(true);
+        engine.setSchema(RecordSchema.load(file).compile());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionResult result = engine.convert(
+            new ByteArrayInputStream("a,b\r\nc , d\ne\nf,g\n".getBytes(StandardCharsets.UTF_8)),
+            output);
+        assertEquals("b,a\nd,c\n", output.toString(StandardCharsets.UTF_8), "converted lines");
+        assertEquals(3, result.getInvalidLine(), "invalid line");
+    }
+}
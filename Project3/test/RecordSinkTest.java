@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Program to test the record sinks and ConversionEngine's sink mode
+ * @author Joseph Rosemond
+ */
+public class RecordSinkTest {
+
+    @Test
+    public void testFanOutMatchesConverter() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append(" Brown").append(i).append(" ,James,04/18/").append(1900 + i % 100)
+                 .append(',').append(60 + i % 20).append(".5,").append(100 + i % 90)
+                 .append(",98.").append(i % 100).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new ConversionEngine(true).convert(new ByteArrayInputStream(bytes), expected);
+
+        ByteArrayOutputStream converted = new ByteArrayOutputStream();
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        ConversionResult result;
+        try (RecordSink sink = new FanOutSink(List.of(new CsvSink(converted, false),
+                                                      new CsvSink(source, true),
+                                                      new JsonLinesSink(json, false)))) {
+            result = new ConversionEngine(true).convertToSink(new ByteArrayInputStream(bytes), sink);
+        }
+        assertEquals(5000, result.getLineCount(), "records");
+        assertArrayEquals(expected.toByteArray(), converted.toByteArray(), "same as converter");
+        String[] sourceLines = source.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("Brown1,James,04/18/1901,61.50,101.00,98.10", sourceLines[1],
+                     "source format, trimmed and rounded");
+        String[] jsonLines = json.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("{\"lastName\":\"Brown0\",\"firstName\":\"James\",\"birthDate\":\"18.04.1900\","
+                     + "\"height\":153.67,\"weight\":45.40,\"temperature\":36.67}", jsonLines[0],
+                     "JSON line");
+    }
+
+    @Test
+    public void testJsonEscapingAndBinaryRows() throws IOException {
+        byte[] bytes = "Br\"o\\wn,J\u00e9r\u00f4me,18.04.1991,172.72,75.82,37.39\n"
+                       .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        try (RecordSink sink = new FanOutSink(List.of(new JsonLinesSink(json, true),
+                                                      new BinaryRowSink(rows, true)))) {
+            new ConversionEngine(false).convertToSink(new ByteArrayInputStream(bytes), sink);
+        }
+        assertTrue(json.toString(StandardCharsets.UTF_8).startsWith(
+            "{\"lastName\":\"Br\\\"o\\\\wn\",\"firstName\":\"J\u00e9r\u00f4me\","
+            + "\"birthDate\":\"04/18/1991\",\"height\":68.00,"), json.toString());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(rows.toByteArray()));
+        assertEquals("Br\"o\\wn", readText(in), "last name");
+        assertEquals("J\u00e9r\u00f4me", readText(in), "first name");
+        assertEquals("04/18/1991", readText(in), "birth date");
+        assertEquals(172.72 / 2.54, in.readDouble(), "height in inches");
+        assertEquals(75.82 / 0.454, in.readDouble(), "weight in pounds");
+        assertEquals(37.39 * 1.8 + 32, in.readDouble(), "temperature in Fahrenheit");
+        assertEquals(-1, in.read(), "one row");
+    }
+
+    @Test
+    public void testInvalidLineStopsSinks() throws IOException {
+        byte[] bytes = "Brown,James,04/18/1991,68,167,99.30\nBrown,James\n"
+                       .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionResult result;
+        try (RecordSink sink = new CsvSink(output, false)) {
+            result = new ConversionEngine(true).convertToSink(new ByteArrayInputStream(bytes), sink);
+        }
+        assertEquals(2, result.getInvalidLine(), "invalid line");
+        assertEquals("Brown,James,18.04.1991,172.72,75.82,37.39\n", output.toString(),
+                     "lines before the invalid line");
+    }
+
+    @Test
+    public void testOutputPaths() {
+        Path out = Path.of("dir", "OT_data.csv");
+        assertEquals(out, DataConverter.outputPath(out, OutputFormat.OT_CSV), "converted CSV");
+        assertEquals(Path.of("dir", "OT_data.us.csv"),
+                     DataConverter.outputPath(out, OutputFormat.US_CSV), "source CSV");
+        assertEquals(Path.of("dir", "OT_data.bin"),
+                     DataConverter.outputPath(out, OutputFormat.BINARY), "binary");
+        assertEquals(Path.of("US_data.jsonl.gz"),
+                     DataConverter.outputPath(Path.of("US_data.csv.gz"), OutputFormat.JSONL),
+                     "compressed JSON lines");
+        assertThrows(IllegalArgumentException.class,
+            () -> ConverterOptions.parse(new String[] {"--outputs=csv", "US_a.csv"}),
+            "unknown format");
+        assertEquals(List.of(OutputFormat.BINARY, OutputFormat.US_CSV),
+                     ConverterOptions.parse(new String[] {"--outputs=binary,us-csv,binary",
+                                                          "OT_a.csv"}).getOutputFormats(),
+                     "formats in order without repeats");
+    }
+
+    /**
+     * Reads text preceded by its varint length
+     *
+     * @param in the stream
+     * @return the text
+     * @throws IOException if the stream ends
+     */
+    private static String readText(DataInputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        byte[] text = new byte[length];
+        in.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+}
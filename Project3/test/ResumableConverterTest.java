@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Program to test ResumableConverter
+ * @author Joseph Rosemond
+ */
+public class ResumableConverterTest {
+
+    /** directory for generated input and output files */
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Converter that fails after a number of checkpoints, like a run that dies
+     */
+    private static class CrashingConverter extends ResumableConverter {
+
+        /** checkpoints left before failing */
+        private int checkpointsLeft;
+
+        CrashingConverter(long checkpointInterval, int checkpointsLeft) {
+            super(true, checkpointInterval);
+            this.checkpointsLeft = checkpointsLeft;
+        }
+
+        @Override
+        void checkpointWritten(long inputOffset) throws IOException {
+            if (--checkpointsLeft == 0) {
+                throw new IOException("Simulated crash");
+            }
+        }
+    }
+
+    @BeforeEach
+    public void requireUtf8() {
+        // Other default charsets convert with a Scanner and take no checkpoints
+        assumeTrue(DataConverter.readsBytes(), "UTF-8 or US-ASCII default charset");
+    }
+
+    @Test
+    public void testResumeMatchesCleanRun() throws IOException {
+        Path in = writeInput(40000, 0);
+        byte[] expected = cleanRun(in);
+        Path out = tempDir.resolve("OT_data.csv");
+
+        assertThrows(IOException.class, () -> new CrashingConverter(100000, 3).convert(in, out),
+                     "crash after third checkpoint");
+        assertTrue(Files.exists(ResumableConverter.checkpointPath(out)), "checkpoint left behind");
+        // Lines written after the checkpoint, as a half-written run would leave them
+        Files.writeString(out, "Brown,Ja", StandardOpenOption.APPEND);
+
+        ResumableConverter converter = new ResumableConverter(true, 100000);
+        assertTrue(converter.canResume(in, out), "checkpoint usable");
+        assertFalse(new ResumableConverter(false).canResume(in, out), "other direction");
+        ConversionResult result = converter.convert(in, out);
+        assertTrue(result.isSuccess(), "resumed run succeeds");
+        assertTrue(converter.getResumedLineCount() > 0, "run resumed from the checkpoint");
+        assertEquals(40000, result.getLineCount(), "lines counted from the start");
+        assertArrayEquals(expected, Files.readAllBytes(out), "same output as a clean run");
+        assertFalse(Files.exists(ResumableConverter.checkpointPath(out)), "checkpoint removed");
+    }
+
+    @Test
+    public void testInvalidLineAfterResume() throws IOException {
+        Path in = writeInput(40000, 35000);
+        byte[] expected = cleanRun(in);
+        Path out = tempDir.resolve("OT_data.csv");
+        assertThrows(IOException.class, () -> new CrashingConverter(50000, 2).convert(in, out),
+                     "crash after second checkpoint");
+        ConversionResult result = new ResumableConverter(true, 50000).convert(in, out);
+        assertEquals(35000, result.getInvalidLine(), "invalid line numbered from the start");
+        assertArrayEquals(expected, Files.readAllBytes(out), "lines before the invalid line");
+    }
+
+    @Test
+    public void testChangedInputStartsAgain() throws IOException {
+        Path first = writeInput(20000, 0);
+        Path out = tempDir.resolve("OT_data.csv");
+        assertThrows(IOException.class, () -> new CrashingConverter(50000, 1).convert(first, out),
+                     "crash after first checkpoint");
+        Path in = writeInput(10000, 0);
+        byte[] expected = cleanRun(in);
+        ResumableConverter converter = new ResumableConverter(true, 50000);
+        assertFalse(converter.canResume(in, out), "stale checkpoint");
+        assertTrue(converter.convert(in, out).isSuccess(), "converted");
+        assertEquals(0, converter.getResumedLineCount(), "checkpoint ignored");
+        assertArrayEquals(expected, Files.readAllBytes(out), "same output as a clean run");
+    }
+
+    /**
+     * Writes a US input file with varied lines
+     *
+     * @param lines the number of lines
+     * @param invalidLine the line number to make invalid, or 0
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path writeInput(int lines, int invalidLine) throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            String temperature = i == invalidLine ? "20.00" : "98." + i % 100;
+            input.append("Brown").append(i).append(",James,04/18/1991,").append(60 + i % 20)
+                 .append(',').append(100 + i % 90).append(',').append(temperature)
+                 .append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+        return Files.writeString(tempDir.resolve("US_data.csv"), input.toString());
+    }
+
+    /**
+     * Converts a file the ordinary way
+     *
+     * @param in the file
+     * @return the converted bytes
+     * @throws IOException if the file cannot be read
+     */
+    private static byte[] cleanRun(Path in) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataConverter.convertFile(new ConverterOptions(), true, in, output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Program to test SidecarIndex and IndexedCsvSink
+ * @author Joseph Rosemond
+ */
+public class SidecarIndexTest {
+
+    /** directory for converted files and their indexes */
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Returns US lines with repeated names in a scrambled order
+     *
+     * @param count the number of lines
+     * @return the lines as UTF-8
+     */
+    private static byte[] usLines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int name = (int) ((i * 7919L) % 1009);
+            text.append(name % 3 == 0 ? "\u00c5berg" : "Brown").append(name % 53).append(',')
+                .append("James").append(name % 4).append(",04/18/").append(1900 + i % 100)
+                .append(',').append(60 + i % 20).append(".5,").append(100 + i % 90)
+                .append(",98.").append(i % 100).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts the input through a sink into a file
+     *
+     * @param input the US lines
+     * @param sink the sink writing the file
+     * @throws IOException if the conversion fails
+     */
+    private static void convert(byte[] input, RecordSink sink) throws IOException {
+        try (RecordSink open = sink) {
+            new ConversionEngine(true).convertToSink(new ByteArrayInputStream(input), open);
+        }
+    }
+
+    /**
+     * Returns the lines of a converted file whose names match, in file order
+     *
+     * @param file the converted file
+     * @param last the last name
+     * @param first the first name, or null for any
+     * @return the matching lines
+     * @throws IOException if the file cannot be read
+     */
+    private static List<String> grep(Path file, String last, String first) throws IOException {
+        List<String> matches = new ArrayList<String>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split(",");
+            if (fields[0].equals(last) && (first == null || fields[1].equals(first))) {
+                matches.add(line);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks lookups of present and missing names against a scan of the file
+     *
+     * @param file the converted file
+     * @param sparse true if the index should be sparse
+     * @throws IOException if a file cannot be read
+     */
+    private static void checkLookups(Path file, boolean sparse) throws IOException {
+        try (SidecarIndex index = new SidecarIndex(file)) {
+            assertEquals(sparse, index.isSparse(), "kind");
+            String[] lasts = {"Brown1", "Brown52", "\u00c5berg0", "\u00c5berg51", "Aaron", "Zed"};
+            for (String last : lasts) {
+                for (String first : new String[] {null, "James0", "James3", "Nobody"}) {
+                    assertEquals(grep(file, last, first), index.lookup(last, first),
+                                 last + " " + first);
+                }
+            }
+            assertFalse(index.lookup("Brown1", "James1").isEmpty(), "a name that is there");
+        }
+    }
+
+    @Test
+    public void testDenseIndex() throws IOException {
+        byte[] input = usLines(20000);
+        Path file = tempDir.resolve("OT_people.csv");
+        SidecarIndex.Writer writer = new SidecarIndex.Writer(
+            Files.newOutputStream(SidecarIndex.indexPath(file)), false, 16);
+        convert(input, new IndexedCsvSink(Files.newOutputStream(file), false, writer,
+                                          RowSorter.MIN_MEMORY, 2, tempDir));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        convert(input, new CsvSink(plain, false));
+        assertArrayEquals(plain.toByteArray(), Files.readAllBytes(file), "same as CsvSink");
+        checkLookups(file, false);
+    }
+
+    @Test
+    public void testSparseIndex() throws IOException {
+        byte[] input = usLines(20000);
+        Path file = tempDir.resolve("OT_sorted.csv");
+        ExternalSortSink sink = new ExternalSortSink(Files.newOutputStream(file), false,
+                                                     RowSorter.MIN_MEMORY, 2, tempDir);
+        sink.setIndex(new SidecarIndex.Writer(Files.newOutputStream(SidecarIndex.indexPath(file)),
+                                              true, 16));
+        convert(input, sink);
+        checkLookups(file, true);
+        assertTrue(Files.size(SidecarIndex.indexPath(file)) < Files.size(file) / 16,
+                   "only fences are kept");
+    }
+
+    @Test
+    public void testStaleIndex() throws IOException {
+        Path file = tempDir.resolve("OT_stale.csv");
+        SidecarIndex.Writer writer = new SidecarIndex.Writer(
+            Files.newOutputStream(SidecarIndex.indexPath(file)), false, 4);
+        convert(usLines(10), new IndexedCsvSink(Files.newOutputStream(file), false, writer,
+                                                RowSorter.MIN_MEMORY, 1, tempDir));
+        Files.write(file, "Brown,James,18.04.1991,172.72,75.82,37.39\n"
+                    .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        IOException e = assertThrows(IOException.class, () -> new SidecarIndex(file), "stale");
+        assertEquals("Index is out of date", e.getMessage(), "message");
+        Files.write(SidecarIndex.indexPath(file), new byte[40]);
+        assertThrows(IOException.class, () -> new SidecarIndex(file), "not an index");
+    }
+
+    @Test
+    public void testAbort() throws IOException {
+        byte[] input = usLines(20000);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream indexOutput = new ByteArrayOutputStream();
+        IndexedCsvSink sink = new IndexedCsvSink(output, false,
+            new SidecarIndex.Writer(indexOutput, false, 16), RowSorter.MIN_MEMORY, 2, tempDir);
+        new ConversionEngine(true).convertToSink(new ByteArrayInputStream(input), sink);
+        sink.abort();
+        sink.close();
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        convert(input, new CsvSink(plain, false));
+        assertArrayEquals(plain.toByteArray(), output.toByteArray(), "lines still written");
+        assertEquals(0, indexOutput.size(), "no index written");
+        assertEquals(0, Files.list(tempDir).count(), "entry files deleted");
+    }
+
+    @Test
+    public void testOptions() {
+        assertEquals(SidecarIndex.DEFAULT_INTERVAL,
+                     ConverterOptions.parse(new String[] {"--index", "US_a.csv"})
+                     .getIndexInterval(), "default interval");
+        assertEquals(64, ConverterOptions.parse(new String[] {"--index=64", "US_a.csv"})
+                     .getIndexInterval(), "interval");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--index", "US_a.csv.gz"}),
+                     "not for compressed files");
+        assertThrows(IllegalArgumentException.class,
+                     () -> ConverterOptions.parse(new String[] {"--index", "--mode=pipeline",
+                                                                "US_a.csv"}),
+                     "not in pipeline mode");
+    }
+}
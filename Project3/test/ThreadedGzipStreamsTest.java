@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Program to test ThreadedGzipInputStream and ThreadedGzipOutputStream
+ * @author Joseph Rosemond
+ */
+public class ThreadedGzipStreamsTest {
+
+    /** directory for generated input and output files */
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = new byte[3_000_000];
+        Random random = new Random(7);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new ThreadedGzipOutputStream(compressed)) {
+            output.write(data, 0, 100);
+            output.write(data[100]);
+            output.write(data, 101, data.length - 101);
+        }
+        try (InputStream input = new GZIPInputStream(
+                 new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(data, input.readAllBytes(), "readable by GZIPInputStream");
+        }
+        try (InputStream input = new ThreadedGzipInputStream(
+                 new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(data[0], input.read(), "first byte");
+            byte[] rest = input.readAllBytes();
+            assertEquals(data.length - 1, rest.length, "rest of the bytes");
+            assertEquals(data[data.length - 1], rest[rest.length - 1], "last byte");
+            assertEquals(-1, input.read(), "end of stream");
+        }
+    }
+
+    @Test
+    public void testNotGzip() {
+        InputStream input = new ThreadedGzipInputStream(
+            new ByteArrayInputStream("Brown,James".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, input::read, "not a gzip stream");
+        assertThrows(IOException.class, input::read, "error repeated");
+        assertDoesNotThrow(input::close, "close after error");
+    }
+
+    @Test
+    public void testCloseEarly() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(new byte[10_000_000]);
+        }
+        InputStream input = new ThreadedGzipInputStream(
+            new ByteArrayInputStream(compressed.toByteArray()));
+        assertEquals(0, input.read(), "first byte");
+        input.close();
+        assertThrows(IOException.class, input::read, "read after close");
+    }
+
+    @Test
+    public void testCloseWhileReadBlocked() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            // A body still arriving: one block flushed, the next never finished
+            OutputStream output = new GZIPOutputStream(client.getOutputStream(), true);
+            output.write(new byte[300_000]);
+            output.flush();
+            InputStream input = new ThreadedGzipInputStream(accepted.getInputStream());
+            assertEquals(0, input.read(), "first byte");
+            assertTimeoutPreemptively(Duration.ofSeconds(10), input::close,
+                                      "close releases the blocked read");
+        }
+    }
+
+    @Test
+    public void testConvertCompressedFile() throws IOException {
+        Path in = tempDir.resolve("US_data.csv.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(in))) {
+            for (int i = 0; i < 50000; i++) {
+                output.write("Brown,James,04/18/1991,68,167,99.30\n"
+                             .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertNull(DataConverter.checkInputFileName("US_data.csv.gz"), "compressed name");
+        assertEquals("Invalid input file extension", DataConverter.checkInputFileName("US_data.gz"),
+                     "gz without csv");
+        assertEquals("OT_data.csv.gz", DataConverter.outputFileName("US_data.csv.gz"),
+                     "output stays compressed");
+        for (ConversionMode mode : new ConversionMode[] {ConversionMode.AUTO,
+                                                         ConversionMode.PARALLEL}) {
+            Path out = tempDir.resolve("OT_data.csv.gz");
+            ConverterOptions options = ConverterOptions.parse(
+                new String[] {"--mode=" + mode.name().toLowerCase(), in.toString()});
+            ConversionResult result;
+            try (OutputStream output = DataConverter.openOutput(out, true)) {
+                result = DataConverter.convertFile(options, true, in, output);
+            }
+            assertTrue(result.isSuccess(), mode + " converted");
+            assertEquals(50000, result.getLineCount(), mode + " lines");
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(out))) {
+                String text = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(50000 * 42, text.length(), mode + " output length");
+                assertTrue(text.startsWith("Brown,James,18.04.1991,172.72,75.82,37.39\n"),
+                           mode + " output");
+            }
+        }
+    }
+}
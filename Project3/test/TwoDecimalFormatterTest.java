@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Program to test TwoDecimalFormatter against String.format
+ * @author Joseph Rosemond
+ */
+public class TwoDecimalFormatterTest {
+
+    /** seed so failures can be reproduced */
+    public static final long SEED = 20261018L;
+
+    @Test
+    public void testSpecialValues() {
+        double[] values = {
+            0.0, -0.0, 0.005, -0.005, 0.125, 1.005, 2.675, 0.995, 9.995, 99.995,
+            -0.001, -1e-300, Double.MIN_VALUE, -Double.MIN_VALUE, 1e12, 9.99999999999995e12,
+            1e13, -1e13, 1.5e15, 1e300, Double.MAX_VALUE, -Double.MAX_VALUE,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            172.72, 75.818, 37.38888888888889, 68 * 2.54, 167 * 0.454, (99.30 - 32.0) / 1.8
+        };
+        for (double value : values) {
+            assertMatches(value);
+            assertMatches(Math.nextUp(value));
+            assertMatches(Math.nextDown(value));
+        }
+    }
+
+    @Test
+    public void testEveryThousandth() {
+        // Every value of the form n/1000 sits on or next to a rounding midpoint
+        for (int n = -200000; n <= 200000; n++) {
+            double value = n / 1000.0;
+            assertMatches(value);
+            assertMatches(Math.nextUp(value));
+            assertMatches(Math.nextDown(value));
+        }
+    }
+
+    @Test
+    public void testConvertedMeasurements() {
+        // Every two-decimal input the converter is likely to see, run through the conversions
+        for (int n = 0; n <= 50000; n++) {
+            double value = n / 100.0;
+            assertMatches(value * 2.54);
+            assertMatches(value * 0.454);
+            assertMatches((value - 32.0) / 1.8);
+            assertMatches(value / 2.54);
+            assertMatches(value / 0.454);
+            assertMatches((value * 1.8) + 32);
+        }
+    }
+
+    @Test
+    public void testRandomValues() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < 500000; i++) {
+            assertMatches((random.nextDouble() - 0.5) * 2000);
+            assertMatches(random.nextDouble() * Math.pow(10, random.nextInt(30) - 10));
+            assertMatches(Double.longBitsToDouble(random.nextLong()));
+        }
+    }
+
+    @Test
+    public void testOtherLocale() {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            assertMatches(172.72);
+            assertMatches(-0.0);
+            Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag("ar-SA-u-nu-arab"));
+            assertMatches(37.39);
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+        assertMatches(172.72);
+    }
+
+    /**
+     * Checks that the formatter gives the same text as String.format
+     *
+     * @param value the number to format
+     */
+    private static void assertMatches(double value) {
+        String expected = String.format("%.2f", value);
+        String actual = TwoDecimalFormatter.format(value);
+        if (!expected.equals(actual)) {
+            fail("Formatting " + value + " (bits " + Long.toHexString(Double.doubleToRawLongBits(value))
+                 + ") expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+}